@@ -0,0 +1,40 @@
+package com.stock.bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试用的 H2 内存库，MySQL 兼容模式，列与线上的 single_stock_data、latest_stock_quote 一致
+ */
+final class BenchDatabase {
+
+    private static final String QUOTE_COLUMNS =
+            "name VARCHAR(50), current_price DECIMAL(10,2), change_amount DECIMAL(10,2), change_percent DECIMAL(10,4), " +
+            "zhuli_net_inflow DECIMAL(20,2), zhuli_net_inflow_percent DECIMAL(10,4), " +
+            "total_net_inflow DECIMAL(20,2), total_net_inflow_percent DECIMAL(10,4), " +
+            "chaodadan_net_inflow DECIMAL(20,2), chaodadan_net_inflow_percent DECIMAL(10,4), " +
+            "bigdan_net_inflow DECIMAL(20,2), bigdan_net_inflow_percent DECIMAL(10,4), " +
+            "zhongdan_net_inflow DECIMAL(20,2), zhongdan_net_inflow_percent DECIMAL(10,4), " +
+            "xiaodan_net_inflow DECIMAL(20,2), xiaodan_net_inflow_percent DECIMAL(10,4), " +
+            "total_volume DECIMAL(20,2), inflow_diff DECIMAL(20,2), create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP";
+
+    private BenchDatabase() {
+    }
+
+    static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    static void create(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS single_stock_data");
+            stmt.execute("DROP TABLE IF EXISTS latest_stock_quote");
+            stmt.execute("CREATE TABLE single_stock_data (id BIGINT AUTO_INCREMENT, " +
+                    "code VARCHAR(10) NOT NULL, " + QUOTE_COLUMNS + ", PRIMARY KEY (id, create_time))");
+            stmt.execute("CREATE INDEX idx_create_time ON single_stock_data (create_time)");
+            stmt.execute("CREATE INDEX idx_code_create_time ON single_stock_data (code, create_time)");
+            stmt.execute("CREATE TABLE latest_stock_quote (code VARCHAR(10) NOT NULL PRIMARY KEY, " + QUOTE_COLUMNS + ")");
+        }
+    }
+}
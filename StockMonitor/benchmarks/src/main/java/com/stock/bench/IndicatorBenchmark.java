@@ -0,0 +1,104 @@
+package com.stock.bench;
+
+import com.stock.calc.IndicatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MACD/RSI/KDJ 在不同历史长度下的计算耗时
+ * <p>
+ * incrementalTick：5300 只股票各已有 historySize 个价格，再各追加一个价格并读取三项指标，
+ * 即每轮采样的实际开销，应与历史长度无关；
+ * rebuildFromHistory：一只股票从头喂入 historySize 个价格，即冷启动或重算一只股票的开销。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar IndicatorBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class IndicatorBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final int PREPARED_TICKS = 64;
+    private static final long SEED = 20241126L;
+
+    @Param({"26", "100", "1000"})
+    public int historySize;
+
+    private double[] history;
+    private double[][] nextPrices;
+    private IndicatorEngine engine;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        history = randomWalk(random, historySize);
+        nextPrices = new double[PREPARED_TICKS][];
+        for (int t = 0; t < PREPARED_TICKS; t++) {
+            nextPrices[t] = randomWalk(random, STOCKS);
+        }
+    }
+
+    /**
+     * 每轮测量前重新填充历史，测量期间追加的价格不会让历史越来越长
+     */
+    @Setup(Level.Iteration)
+    public void fillHistory() {
+        engine = new IndicatorEngine();
+        engine.ensureCapacity(STOCKS);
+        for (double price : history) {
+            for (int symbol = 0; symbol < STOCKS; symbol++) {
+                engine.update(symbol, price + symbol % 50);
+            }
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public double incrementalTick() {
+        double[] prices = nextPrices[next];
+        next = next + 1 == PREPARED_TICKS ? 0 : next + 1;
+        double sum = 0;
+        for (int symbol = 0; symbol < STOCKS; symbol++) {
+            engine.update(symbol, prices[symbol] + symbol % 50);
+            sum += engine.macd(symbol) + engine.rsi(symbol) + engine.kdj(symbol);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double rebuildFromHistory() {
+        IndicatorEngine single = new IndicatorEngine();
+        for (double price : history) {
+            single.update(0, price);
+        }
+        return single.macd(0) + single.rsi(0) + single.kdj(0);
+    }
+
+    private static double[] randomWalk(Random random, int length) {
+        double[] prices = new double[length];
+        double price = 10;
+        for (int i = 0; i < length; i++) {
+            price = Math.max(0.01, Math.round((price + random.nextGaussian() * 0.05) * 100) / 100.0);
+            prices[i] = price;
+        }
+        return prices;
+    }
+}
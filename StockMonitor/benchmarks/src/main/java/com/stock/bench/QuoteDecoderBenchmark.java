@@ -0,0 +1,126 @@
+package com.stock.bench;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.stock.fetch.QuoteBatch;
+import com.stock.fetch.QuoteStreamDecoder;
+import com.stock.vo.SingleStock;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情响应解析：原 fastjson 读取方式与流式解析的对比
+ * <p>
+ * 默认使用生成的 5300 行响应，也可以传入录制的原始响应：
+ * java -jar target/benchmarks.jar QuoteDecoderBenchmark -p recordedFile=/path/clist.jsonp
+ * <p>
+ * 各方法都输出 List&lt;SingleStock&gt;，decodeOnly 只解析到列存储；
+ * 配合 -prof gc 可以看到每次解析分配的内存。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class QuoteDecoderBenchmark {
+
+    @Param({""})
+    public String recordedFile;
+
+    private byte[] payload;
+    private QuoteStreamDecoder decoder;
+    private QuoteBatch batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = QuotePayloads.load(recordedFile, QuotePayloads.DEFAULT_ROWS);
+        decoder = new QuoteStreamDecoder();
+        batch = new QuoteBatch();
+    }
+
+    @Benchmark
+    public List<SingleStock> fastjsonDom() throws IOException {
+        // 与原来一致：按行读成字符串，去掉 JSONP 包装后构建完整的 JSON 树
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+        }
+        String data0 = lines.get(0);
+        String dataStr = data0.substring(data0.indexOf("(") + 1, data0.lastIndexOf(")"));
+        JSONArray dataJSONArray = JSONObject.parseObject(dataStr).getJSONObject("data").getJSONArray("diff");
+
+        List<SingleStock> stocks = new ArrayList<>(dataJSONArray.size());
+        for (int i = 0; i < dataJSONArray.size(); i++) {
+            JSONObject jsonObject = dataJSONArray.getJSONObject(i);
+            if (StringUtils.isEmpty(jsonObject.getString("f12")) || "-".equals(jsonObject.getString("f2"))) {
+                continue;
+            }
+            SingleStock singleStock = new SingleStock();
+            singleStock.setCode(jsonObject.getString("f12"));
+            singleStock.setName(jsonObject.getString("f14"));
+            singleStock.setCurrentPrice(parseDouble(jsonObject, "f2"));
+            singleStock.setChangePercent(parseDouble(jsonObject, "f3"));
+            singleStock.setZhuliNetInflow(parseDouble(jsonObject, "f62"));
+            singleStock.setZhuliNetInflowPercent(parseDouble(jsonObject, "f184"));
+            singleStock.setChaodadanNetInflow(parseDouble(jsonObject, "f66"));
+            singleStock.setChaodadanNetInflowPercent(parseDouble(jsonObject, "f69"));
+            singleStock.setBigdanNetInflow(parseDouble(jsonObject, "f72"));
+            singleStock.setBigdanNetInflowPercent(parseDouble(jsonObject, "f75"));
+            singleStock.setZhongdanNetInflow(parseDouble(jsonObject, "f78"));
+            singleStock.setZhongdanNetInflowPercent(parseDouble(jsonObject, "f81"));
+            singleStock.setXiaodanNetInflow(parseDouble(jsonObject, "f84"));
+            singleStock.setXiaodanNetInflowPercent(parseDouble(jsonObject, "f87"));
+            stocks.add(singleStock);
+        }
+        return stocks;
+    }
+
+    @Benchmark
+    public List<SingleStock> streaming() throws IOException {
+        batch.clear();
+        decoder.decode(new ByteArrayInputStream(payload), batch);
+        return batch.toSingleStocks();
+    }
+
+    @Benchmark
+    public QuoteBatch streamingDecodeOnly() throws IOException {
+        batch.clear();
+        return decoder.decode(new ByteArrayInputStream(payload), batch);
+    }
+
+    private static double parseDouble(JSONObject json, String key) {
+        try {
+            String value = json.getString(key);
+            if (value == null || value.trim().equals("-")) {
+                return 0.0;
+            }
+            return json.getDoubleValue(key);
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.stock.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * 基准测试使用的行情接口响应
+ * <p>
+ * 指定文件时读取录制的原始响应；否则按接口的字段和取值分布生成固定种子的数据，
+ * 包含全部 19 个请求字段、中文名称以及约 5% 的 "-" 缺失值。
+ */
+public final class QuotePayloads {
+
+    public static final int DEFAULT_ROWS = 5300;
+    private static final long SEED = 20241126L;
+
+    private static final String[] NAME_CHARS = {"平安", "银行", "科技", "股份", "电子", "医药", "能源", "控股", "新材", "智能", "传媒", "重工"};
+
+    private QuotePayloads() {
+    }
+
+    /**
+     * @param recordedFile 录制的响应文件，为空时生成数据
+     */
+    public static byte[] load(String recordedFile, int rows) throws IOException {
+        if (recordedFile != null && !recordedFile.isEmpty()) {
+            return Files.readAllBytes(Paths.get(recordedFile));
+        }
+        return generate(rows);
+    }
+
+    public static byte[] generate(int rows) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(rows * 320);
+        sb.append("jQuery1123044856734513874996_1732590961078({\"rc\":0,\"rt\":6,\"svr\":181669437,\"lt\":1,\"full\":1,")
+                .append("\"dlmkts\":\"\",\"data\":{\"total\":").append(rows).append(",\"diff\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            boolean suspended = random.nextInt(50) == 0;
+            double price = Math.round((2 + random.nextDouble() * 100) * 100) / 100.0;
+            sb.append("{\"f1\":2,\"f2\":").append(suspended ? "\"-\"" : String.valueOf(price));
+            sb.append(",\"f3\":").append(percent(random, suspended));
+            sb.append(",\"f12\":\"").append(String.format("%06d", i < rows / 2 ? i + 1 : 600000 + i)).append('"');
+            sb.append(",\"f13\":").append(i < rows / 2 ? 0 : 1);
+            sb.append(",\"f14\":\"").append(NAME_CHARS[random.nextInt(NAME_CHARS.length)])
+                    .append(NAME_CHARS[random.nextInt(NAME_CHARS.length)]).append('"');
+            sb.append(",\"f62\":").append(amount(random, suspended));
+            sb.append(",\"f66\":").append(amount(random, suspended));
+            sb.append(",\"f69\":").append(percent(random, suspended));
+            sb.append(",\"f72\":").append(amount(random, suspended));
+            sb.append(",\"f75\":").append(percent(random, suspended));
+            sb.append(",\"f78\":").append(amount(random, suspended));
+            sb.append(",\"f81\":").append(percent(random, suspended));
+            sb.append(",\"f84\":").append(amount(random, suspended));
+            sb.append(",\"f87\":").append(percent(random, suspended));
+            sb.append(",\"f124\":").append(1732601379 + random.nextInt(60));
+            sb.append(",\"f184\":").append(percent(random, suspended));
+            sb.append(",\"f204\":\"-\",\"f205\":\"-\"}");
+        }
+        sb.append("]}});");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String amount(Random random, boolean suspended) {
+        if (suspended || random.nextInt(30) == 0) {
+            return "\"-\"";
+        }
+        return String.valueOf(Math.round(random.nextGaussian() * 5e9) / 100.0);
+    }
+
+    private static String percent(Random random, boolean suspended) {
+        if (suspended || random.nextInt(30) == 0) {
+            return "\"-\"";
+        }
+        return String.valueOf(Math.round(random.nextGaussian() * 500) / 100.0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.stock.bench;
+
+import com.stock.rank.RankView;
+import com.stock.rank.Ranker;
+import com.stock.rank.Ranking;
+import com.stock.vo.StockSpeed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一轮 5300 条速度结果的五个排名视图
+ * <p>
+ * topK 用 {@link Ranker} 一次遍历维护五个容量为 k 的堆；
+ * fullSort 是原来的做法：每个视图复制一份结果全量排序再取前 k 个。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar RankingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RankingBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final long SEED = 20241126L;
+
+    @Param({"50", "500"})
+    public int k;
+
+    private List<StockSpeed> speeds;
+    private Ranker ranker;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        speeds = new ArrayList<>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            StockSpeed speed = new StockSpeed();
+            speed.setCode(String.format("%06d", i));
+            speed.setRankUpTrendScore(random.nextGaussian() * 20);
+            speed.setRankDownTrendScore(random.nextGaussian() * 20);
+            speed.setMomentumScore(random.nextGaussian() * 5);
+            speed.setNetSpeed(random.nextGaussian() * 1e4);
+            speed.setZhuliNetInflow(random.nextGaussian() * 1e7);
+            speeds.add(speed);
+        }
+        ranker = new Ranker();
+        for (RankView view : RankView.values()) {
+            ranker.subscribe(view, k);
+        }
+    }
+
+    @Benchmark
+    public Ranking topK() {
+        return ranker.rank(speeds);
+    }
+
+    @Benchmark
+    public void fullSort(Blackhole blackhole) {
+        for (RankView view : RankView.values()) {
+            List<StockSpeed> sorted = new ArrayList<>(speeds);
+            sorted.sort((a, b) -> Double.compare(view.key(b), view.key(a)));
+            blackhole.consume(new ArrayList<>(sorted.subList(0, k)));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.stock.bench;
+
+import com.stock.ui.RealTimeRows;
+import com.stock.ui.StockData;
+import com.stock.vo.StockSpeed;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时数据表格每次刷新在 FX 线程上的耗时
+ * <p>
+ * rebuild 是原来的做法：每行新建 StockData，clear 之后 addAll；
+ * incremental 是 {@link RealTimeRows}：按代码复用行，只改变化的属性，再按排名重排。
+ * 列表上挂一个监听器逐条遍历变更，模拟 TableView 对列表事件的处理。
+ * 不包含表格布局和绘制的耗时。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar RealTimeTableBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RealTimeTableBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final int PREPARED_TICKS = 16;
+    private static final long SEED = 20241126L;
+
+    @Param({"500", "5300"})
+    public int topN;
+
+    private List<List<StockSpeed>> ticks;
+    private int next;
+
+    private ObservableList<StockData> rebuildRows;
+    private ObservableList<StockData> incrementalRows;
+    private RealTimeRows realTimeRows;
+    private long changedRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ticks = generateTicks();
+        ListChangeListener<StockData> listener = change -> {
+            while (change.next()) {
+                changedRows += change.getAddedSize() + change.getRemovedSize() + (change.getTo() - change.getFrom());
+            }
+        };
+        rebuildRows = FXCollections.observableArrayList();
+        rebuildRows.addListener(listener);
+        incrementalRows = FXCollections.observableArrayList();
+        incrementalRows.addListener(listener);
+        realTimeRows = new RealTimeRows(incrementalRows, topN);
+        next = 0;
+    }
+
+    @Benchmark
+    public long rebuild() {
+        List<StockSpeed> tick = nextTick();
+        List<StockData> newData = new ArrayList<>();
+        for (StockSpeed result : tick.subList(0, Math.min(topN, tick.size()))) {
+            StockData stockData = new StockData();
+            stockData.setCode(result.getCode());
+            stockData.setName(result.getName());
+            stockData.setCurrentPrice(result.getCurrentPrice());
+            stockData.setNetInflow(result.getZhuliNetInflow());
+            stockData.setChangePercent(result.getChangePercent());
+            stockData.setMainForcePercent(result.getZhuliNetInflowPercent());
+            stockData.setMomentumScore(result.getMomentumScore());
+            stockData.setUpTrendScore(result.getRankUpTrendScore());
+            stockData.setDownTrendScore(result.getRankDownTrendScore());
+            stockData.setVolume(result.getVolume());
+            newData.add(stockData);
+        }
+        rebuildRows.clear();
+        rebuildRows.addAll(newData);
+        return changedRows;
+    }
+
+    @Benchmark
+    public long incremental() {
+        realTimeRows.apply(nextTick());
+        return changedRows;
+    }
+
+    private List<StockSpeed> nextTick() {
+        List<StockSpeed> tick = ticks.get(next);
+        next = next + 1 == PREPARED_TICKS ? 0 : next + 1;
+        return tick;
+    }
+
+    /**
+     * 相邻两轮之间评分小幅波动，排名局部变化，与盘中的实际情况接近
+     */
+    private static List<List<StockSpeed>> generateTicks() {
+        Random random = new Random(SEED);
+        double[] scores = new double[STOCKS];
+        double[] prices = new double[STOCKS];
+        for (int i = 0; i < STOCKS; i++) {
+            scores[i] = random.nextDouble() * 100;
+            prices[i] = 5 + random.nextDouble() * 50;
+        }
+        List<List<StockSpeed>> ticks = new ArrayList<>(PREPARED_TICKS);
+        for (int t = 0; t < PREPARED_TICKS; t++) {
+            List<StockSpeed> tick = new ArrayList<>(STOCKS);
+            for (int i = 0; i < STOCKS; i++) {
+                scores[i] += random.nextGaussian();
+                prices[i] *= 1 + random.nextGaussian() * 0.001;
+                StockSpeed speed = new StockSpeed(String.format("%06d", i), "股票" + i,
+                        random.nextDouble() * 1e5, random.nextDouble() * 1e5, 0,
+                        random.nextGaussian() * 3, random.nextDouble() * 1e5, scores[i], 100 - scores[i]);
+                speed.setCurrentPrice(prices[i]);
+                speed.setVolume(random.nextDouble() * 1e8);
+                tick.add(speed);
+            }
+            tick.sort(Collections.reverseOrder((a, b) -> Double.compare(a.getRankUpTrendScore(), b.getRankUpTrendScore())));
+            ticks.add(tick);
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,137 @@
+package com.stock.bench;
+
+import com.stock.score.DownTrendScorer;
+import com.stock.score.MomentumScorer;
+import com.stock.score.ScoreInputs;
+import com.stock.score.ScoreModel;
+import com.stock.score.ScoreTable;
+import com.stock.score.ScoreWeights;
+import com.stock.score.ScoringConfig;
+import com.stock.score.TechnicalScorer;
+import com.stock.score.UpTrendScorer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评分对全市场 5300 只股票各算一遍的耗时
+ * <p>
+ * 输入按固定种子生成，约 5% 为 NaN，覆盖公式里的缺失值分支；近几日资金取 5 个历史点之和，与计算流水线一致。
+ * 前四项是单项评分的批量计算，defaultModel 是默认模型的全部四项，
+ * threeModels 同时运行三个参数不同的模型，用来观察每多一个模型的额外开销。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar ScoreBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ScoreBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final int HISTORY_POINTS = 5;
+    private static final long SEED = 20241126L;
+
+    private ScoreInputs inputs;
+    private double[] out;
+    private UpTrendScorer upTrend;
+    private DownTrendScorer downTrend;
+    private MomentumScorer momentum;
+    private TechnicalScorer technical;
+    private ScoreModel[] defaultModel;
+    private ScoreModel[] threeModels;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        inputs = new ScoreInputs();
+        inputs.ensureCapacity(STOCKS);
+        out = new double[STOCKS];
+        for (int i = 0; i < STOCKS; i++) {
+            double inSpeed = Math.abs(random.nextGaussian()) * 1e4;
+            double outSpeed = Math.abs(random.nextGaussian()) * 1e4;
+            double historyInflow = 0;
+            double historyOutflow = 0;
+            for (int h = 0; h < HISTORY_POINTS; h++) {
+                double net = random.nextGaussian() * 1e6;
+                historyInflow += Math.max(net, 0);
+                historyOutflow += Math.max(-net, 0);
+            }
+            inputs.setFlow(i, inSpeed, outSpeed, inSpeed + outSpeed,
+                    Math.abs(random.nextGaussian()) * 1e7, Math.abs(random.nextGaussian()) * 1e7,
+                    historyInflow, historyOutflow);
+            inputs.setQuote(i,
+                    random.nextDouble() < 0.05 ? Double.NaN : random.nextGaussian() * 3,
+                    random.nextDouble() < 0.05 ? Double.NaN : random.nextGaussian() * 5,
+                    random.nextDouble() < 0.05 ? Double.NaN : random.nextGaussian() * 5);
+            inputs.setTechnical(i, true, random.nextGaussian(), random.nextDouble() * 100,
+                    random.nextDouble() * 120 - 10,
+                    random.nextInt(3) - 1, random.nextInt(3) - 1, random.nextInt(3) - 1);
+        }
+
+        Properties properties = new Properties();
+        upTrend = new UpTrendScorer(new ScoreWeights(ScoringConfig.DEFAULT_MODEL, properties));
+        downTrend = new DownTrendScorer(new ScoreWeights(ScoringConfig.DEFAULT_MODEL, properties));
+        momentum = new MomentumScorer(new ScoreWeights(ScoringConfig.DEFAULT_MODEL, properties));
+        technical = new TechnicalScorer(new ScoreWeights(ScoringConfig.DEFAULT_MODEL, properties));
+        defaultModel = ScoringConfig.parse(properties);
+
+        properties.setProperty("models", "steady,aggressive");
+        properties.setProperty("steady.upTrend.realtimeFlow", "10");
+        properties.setProperty("steady.upTrend.historyFlow", "30");
+        properties.setProperty("aggressive.upTrend.change.max", "30");
+        properties.setProperty("aggressive.momentum.flow", "60");
+        threeModels = ScoringConfig.parse(properties);
+    }
+
+    @Benchmark
+    public double upTrendScore() {
+        upTrend.score(inputs, 0, STOCKS, out);
+        return out[STOCKS - 1];
+    }
+
+    @Benchmark
+    public double downTrendScore() {
+        downTrend.score(inputs, 0, STOCKS, out);
+        return out[STOCKS - 1];
+    }
+
+    @Benchmark
+    public double momentumScore() {
+        momentum.score(inputs, 0, STOCKS, out);
+        return out[STOCKS - 1];
+    }
+
+    @Benchmark
+    public double technicalScore() {
+        technical.score(inputs, 0, STOCKS, out);
+        return out[STOCKS - 1];
+    }
+
+    @Benchmark
+    public ScoreTable defaultModel() {
+        ScoreTable table = new ScoreTable(defaultModel, STOCKS);
+        table.compute(inputs, 0, STOCKS);
+        return table;
+    }
+
+    @Benchmark
+    public ScoreTable threeModels() {
+        ScoreTable table = new ScoreTable(threeModels, STOCKS);
+        table.compute(inputs, 0, STOCKS);
+        return table;
+    }
+}
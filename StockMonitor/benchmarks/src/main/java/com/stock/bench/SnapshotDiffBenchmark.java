@@ -0,0 +1,112 @@
+package com.stock.bench;
+
+import com.stock.engine.MarketSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 相邻两轮 5300 只股票的资金差值（速度计算的输入）
+ * <p>
+ * columnar 按下标读取两个 {@link MarketSnapshot} 的数组；
+ * hashMap 是原来的做法：上一轮的流入、流出、成交量各存一个以代码为键的 HashMap，
+ * 每只股票 containsKey 一次再 get 三次。两轮各有约 2% 的股票缺席。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar SnapshotDiffBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SnapshotDiffBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final long SEED = 20241126L;
+
+    private MarketSnapshot previous;
+    private MarketSnapshot current;
+
+    private String[] codes;
+    private double[] inflows;
+    private double[] outflows;
+    private double[] volumes;
+    private Map<String, Double> previousInflowMap;
+    private Map<String, Double> previousOutflowMap;
+    private Map<String, Double> previousVolumeMap;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        MarketSnapshot.Builder before = new MarketSnapshot.Builder(1, 0, STOCKS);
+        MarketSnapshot.Builder after = new MarketSnapshot.Builder(2, 10_000, STOCKS);
+        codes = new String[STOCKS];
+        inflows = new double[STOCKS];
+        outflows = new double[STOCKS];
+        volumes = new double[STOCKS];
+        previousInflowMap = new HashMap<>();
+        previousOutflowMap = new HashMap<>();
+        previousVolumeMap = new HashMap<>();
+        for (int i = 0; i < STOCKS; i++) {
+            codes[i] = String.format("%06d", i);
+            double inflow = Math.abs(random.nextGaussian()) * 1e7;
+            double outflow = Math.abs(random.nextGaussian()) * 1e7;
+            if (random.nextDouble() >= 0.02) {
+                before.set(i, codes[i], "股票" + i, 10, 0, inflow, outflow, inflow + outflow);
+                previousInflowMap.put(codes[i], inflow);
+                previousOutflowMap.put(codes[i], outflow);
+                previousVolumeMap.put(codes[i], inflow + outflow);
+            }
+            inflows[i] = inflow + Math.abs(random.nextGaussian()) * 1e5;
+            outflows[i] = outflow + Math.abs(random.nextGaussian()) * 1e5;
+            volumes[i] = inflows[i] + outflows[i];
+            if (random.nextDouble() >= 0.02) {
+                after.set(i, codes[i], "股票" + i, 10, 0, inflows[i], outflows[i], volumes[i]);
+            }
+        }
+        previous = before.build();
+        current = after.build();
+    }
+
+    @Benchmark
+    public double columnar() {
+        double sum = 0;
+        for (int symbol = 0; symbol < STOCKS; symbol++) {
+            if (!current.isPresent(symbol) || !previous.isPresent(symbol)) {
+                continue;
+            }
+            sum += (current.inflow(symbol) - previous.inflow(symbol)) / 10
+                    + (current.outflow(symbol) - previous.outflow(symbol)) / 10
+                    + (current.volume(symbol) - previous.volume(symbol)) / 10;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double hashMap() {
+        double sum = 0;
+        for (int i = 0; i < STOCKS; i++) {
+            String code = codes[i];
+            if (!previousInflowMap.containsKey(code)) {
+                continue;
+            }
+            sum += (inflows[i] - previousInflowMap.get(code)) / 10
+                    + (outflows[i] - previousOutflowMap.get(code)) / 10
+                    + (volumes[i] - previousVolumeMap.get(code)) / 10;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,109 @@
+package com.stock.bench;
+
+import com.stock.persist.StockDataWriter;
+import com.stock.vo.SingleStock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一轮 5300 行数据的入库耗时：从提交到写入线程把 single_stock_data 和 latest_stock_quote 提交完成
+ * <p>
+ * 使用 MySQL 兼容模式的 H2 内存库，不包含网络往返，绝对值与线上 MySQL 没有可比性，
+ * 用来比较不同批大小以及写入路径（攒批、绑定参数、事务）改动前后的差别；
+ * 每轮测量前清空历史表，表的大小不随测量累积。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar StockDataWriterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StockDataWriterBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final long SEED = 20241126L;
+
+    @Param({"500", "1000", "5300"})
+    public int batchSize;
+
+    private String url;
+    private Connection keepAlive;
+    private StockDataWriter writer;
+    private List<SingleStock> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        url = BenchDatabase.url("writer_" + batchSize);
+        keepAlive = DriverManager.getConnection(url);
+        BenchDatabase.create(keepAlive);
+        writer = new StockDataWriter(() -> DriverManager.getConnection(url), 2, batchSize, 60_000);
+        writer.start();
+        rows = generateRows();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("TRUNCATE TABLE single_stock_data");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        writer.shutdown(10, TimeUnit.SECONDS);
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public void flushTick() {
+        writer.submit(rows, System.currentTimeMillis());
+        while (!writer.isIdle()) {
+            Thread.yield();
+        }
+    }
+
+    private static List<SingleStock> generateRows() {
+        Random random = new Random(SEED);
+        List<SingleStock> result = new ArrayList<>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            SingleStock stock = new SingleStock();
+            stock.setCode(String.format("%06d", i));
+            stock.setName("股票" + i);
+            stock.setCurrentPrice(Math.round((5 + random.nextDouble() * 50) * 100) / 100.0);
+            stock.setChangePercent(random.nextGaussian() * 3);
+            stock.setZhuliNetInflow(random.nextGaussian() * 1e7);
+            stock.setZhuliNetInflowPercent(random.nextGaussian() * 5);
+            stock.setTotalNetInflow(random.nextGaussian() * 1e7);
+            stock.setChaodadanNetInflow(random.nextGaussian() * 5e6);
+            stock.setBigdanNetInflow(random.nextGaussian() * 5e6);
+            stock.setZhongdanNetInflow(random.nextGaussian() * 2e6);
+            stock.setXiaodanNetInflow(random.nextGaussian() * 1e6);
+            stock.setTotalVolume(Math.abs(random.nextGaussian()) * 2e7);
+            stock.setInflowDiff(random.nextGaussian() * 1e5);
+            result.add(stock);
+        }
+        return result;
+    }
+}
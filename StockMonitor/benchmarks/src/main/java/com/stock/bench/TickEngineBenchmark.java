@@ -0,0 +1,109 @@
+package com.stock.bench;
+
+import com.stock.engine.TickEngine;
+import com.stock.vo.SingleStock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一轮采样的计算耗时随线程数的变化
+ * <p>
+ * 5300 只股票，资金按固定种子随机游走，预先生成若干轮数据循环使用，
+ * 正式测量前先跑满技术指标所需的历史长度，使每只股票都走完整的评分路径。
+ * <p>
+ * 运行：java -jar target/benchmarks.jar TickEngineBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TickEngineBenchmark {
+
+    private static final int STOCKS = 5300;
+    private static final int PREPARED_TICKS = 64;
+    private static final long SEED = 20241126L;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private TickEngine engine;
+    private List<List<SingleStock>> ticks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ticks = generateTicks();
+        engine = new TickEngine(10, threads);
+        // 历史数据填满到可以计算全部技术指标
+        for (int i = 0; i < PREPARED_TICKS; i++) {
+            engine.process(ticks.get(i));
+        }
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void processTick(Blackhole blackhole) {
+        List<SingleStock> tick = ticks.get(next);
+        next = next + 1 == PREPARED_TICKS ? 0 : next + 1;
+        blackhole.consume(engine.process(tick));
+    }
+
+    private static List<List<SingleStock>> generateTicks() {
+        Random random = new Random(SEED);
+        double[] prices = new double[STOCKS];
+        double[][] flows = new double[STOCKS][5];
+        for (int i = 0; i < STOCKS; i++) {
+            prices[i] = 5 + random.nextDouble() * 50;
+        }
+
+        List<List<SingleStock>> result = new ArrayList<>(PREPARED_TICKS);
+        for (int t = 0; t < PREPARED_TICKS; t++) {
+            List<SingleStock> stocks = new ArrayList<>(STOCKS);
+            for (int i = 0; i < STOCKS; i++) {
+                prices[i] = Math.max(0.01, prices[i] * (1 + random.nextGaussian() * 0.002));
+                for (int f = 0; f < 5; f++) {
+                    flows[i][f] += random.nextGaussian() * 1e5;
+                }
+                SingleStock stock = new SingleStock();
+                stock.setCode(String.format("%06d", i));
+                stock.setName("股票" + i);
+                stock.setCurrentPrice(prices[i]);
+                stock.setChangePercent(random.nextGaussian() * 3);
+                stock.setZhuliNetInflow(flows[i][0]);
+                stock.setZhuliNetInflowPercent(random.nextGaussian() * 5);
+                stock.setChaodadanNetInflow(flows[i][1]);
+                stock.setChaodadanNetInflowPercent(random.nextGaussian() * 5);
+                stock.setBigdanNetInflow(flows[i][2]);
+                stock.setZhongdanNetInflow(flows[i][3]);
+                stock.setXiaodanNetInflow(flows[i][4]);
+                stocks.add(stock);
+            }
+            result.add(stocks);
+        }
+        return result;
+    }
+}
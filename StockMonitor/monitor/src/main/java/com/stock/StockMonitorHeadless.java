@@ -0,0 +1,46 @@
+package com.stock;
+
+import com.stock.engine.TickResult;
+import com.stock.rank.RankView;
+import com.stock.vo.StockSpeed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面入口：采集机上运行，不加载 JavaFX，启动后立即开始抓取
+ * <p>
+ * 默认连接数据库入库，-Dheadless.database=false 时只写本地归档。
+ * -Dheadless.logTop=N 每轮在日志中输出排名前 N 的股票（默认0，不输出）。
+ * 需要在程序中读取排名时，直接创建 {@link StockMonitorService}，用 {@link StockMonitorService#subscribe}
+ * 订阅排名视图，再用 {@link StockMonitorService#awaitTick} 和 {@link StockMonitorService#ranked} 获取结果。
+ */
+@Slf4j
+public class StockMonitorHeadless {
+
+    public static void main(String[] args) throws InterruptedException {
+        StockMonitorService service = new StockMonitorService(
+                Boolean.parseBoolean(System.getProperty("headless.database", "true")));
+        int logTop = Integer.getInteger("headless.logTop", 0);
+        if (logTop > 0) {
+            service.subscribe(RankView.UP_TREND, logTop);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        service.start();
+
+        TickResult seen = null;
+        while (logTop > 0) {
+            TickResult next = service.awaitTick(seen, 1, TimeUnit.MINUTES);
+            if (next == null) {
+                continue;
+            }
+            seen = next;
+            int rank = 0;
+            for (StockSpeed speed : next.getRanking().top(RankView.UP_TREND, logTop)) {
+                log.info("{}. {} {} 上涨趋势 {} 流入 {} 流出 {}", ++rank, speed.getCode(), speed.getName(),
+                        String.format("%.2f", speed.getRankUpTrendScore()),
+                        String.format("%.2f", speed.getInSpeed()), String.format("%.2f", speed.getOutSpeed()));
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.stock;
+
+import com.stock.engine.TickEngine;
+import com.stock.engine.TickResult;
+import com.stock.fetch.QuoteClient;
+import com.stock.persist.StockDataWriter;
+import com.stock.persist.StorageMaintenance;
+import com.stock.persist.TickHistoryReader;
+import com.stock.rank.RankView;
+import com.stock.score.ScoringConfig;
+import com.stock.sink.ArchiveSink;
+import com.stock.sink.AsyncSink;
+import com.stock.sink.JdbcSink;
+import com.stock.sink.TickPublisher;
+import com.stock.sink.TickSink;
+import com.stock.store.TickArchive;
+import com.stock.utils.DBUtils;
+import com.stock.vo.Ma5Breakout;
+import com.stock.vo.RecordedTick;
+import com.stock.vo.SingleStock;
+import com.stock.vo.StockSpeed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时监控的运行时：抓取、计算，并把每轮结果发布给各输出端
+ * <p>
+ * 控制台、界面和无界面三个入口共用这一套流程，区别只在注册了哪些输出端：
+ * <ul>
+ * <li>启动时立即开始抓取，恢复计算状态在单独的线程上同时进行，首轮抓取完成后等恢复结束再计算</li>
+ * <li>计算在单个调度线程上进行，每轮的结果交给 {@link TickPublisher}，
+ * 数据库、本地归档、界面、控制台各自在自己的线程上消费，慢的输出端不会拖慢计算</li>
+ * <li>启用数据库时内置数据库输出端，启动时从数据库载入当日累计、均线和历史数据，并定期汇总清理原始数据</li>
+ * <li>本地归档输出端总是启用，重启时优先从归档重放检查点之后的数据</li>
+ * </ul>
+ * 本类不依赖 JavaFX，嵌入使用时先用 {@link #subscribe} 订阅需要的排名视图，
+ * 再通过 {@link #latest}、{@link #awaitTick}、{@link #ranked} 读取排名结果。
+ * 配置沿用系统属性：checkpoint.file、checkpoint.everyTicks、symbols.file、archive.dir、scoring.config、
+ * storage.raw.retentionDays、storage.minute.retentionDays、storage.maintenance.intervalSeconds。
+ */
+@Slf4j
+public class StockMonitorService {
+
+    static final int SAMPLE_INTERVAL = 10;  // 采样间隔（秒）
+
+    // 行情接口地址，分页参数 pn/pz 由 QuoteClient 追加
+    // 按代码升序（f12）分页：盘中不会变化，并发请求的各页互不重叠且不会漏行
+    private static final String QUOTE_URL = "https://push2.eastmoney.com/api/qt/clist/get?" +
+            "fid=f12" +
+            "&po=0" +
+            "&np=1" +
+            "&fltt=2" +
+            "&invt=2" +
+            "&ut=b2884a393a59ad64002292a3e90d46a5" +
+            "&fs=m%3A0%2Bt%3A6%2Bf%3A!2%2Cm%3A0%2Bt%3A13%2Bf%3A!2%2Cm%3A0%2Bt%3A80%2Bf%3A!2%2Cm%3A1%2Bt%3A2%2Bf%3A!2%2Cm%3A1%2Bt%3A23%2Bf%3A!2%2Cm%3A0%2Bt%3A7%2Bf%3A!2%2Cm%3A1%2Bt%3A3%2Bf%3A!2&fields=f12%2Cf14%2Cf2%2Cf3%2Cf62%2Cf184%2Cf66%2Cf69%2Cf72%2Cf75%2Cf78%2Cf81%2Cf84%2Cf87%2Cf204%2Cf205%2Cf124%2Cf1%2Cf13";
+
+    // 重放的最多轮数，超过时只重放最近的这些轮，当日累计和均线改为从数据库重新载入
+    private static final int MAX_REPLAY_TICKS = 360;
+
+    // 输出端队列容量（轮数）：入库和归档留出几轮余量，显示类只关心最新一轮
+    public static final int STORAGE_QUEUE = 4;
+    public static final int DISPLAY_QUEUE = 1;
+
+    private final boolean database;
+
+    /**
+     * 每轮采样的计算引擎，持有所有按股票保存的状态（上一轮资金、历史序列、技术指标、当日累计），
+     * 按股票分片在多个线程上并行计算
+     */
+    private final TickEngine tickEngine = new TickEngine(SAMPLE_INTERVAL, Runtime.getRuntime().availableProcessors());
+
+    // 每页1000行、4个并发请求，连接3秒、读取5秒超时，每页最多重试2次
+    private final QuoteClient quoteClient = new QuoteClient(QUOTE_URL, 1000, 4, 3000, 5000, 2);
+
+    private final TickPublisher publisher = new TickPublisher();
+
+    // 原始数据汇总成分钟线、日线，并清理过期数据，只在启用数据库时创建
+    private final StorageMaintenance storageMaintenance;
+    private JdbcSink jdbcSink;
+    private AsyncSink jdbcQueue;
+
+    // 热状态检查点，重启时从这里恢复，只有检查点之后的数据需要重放
+    private final Path checkpointFile = Paths.get(System.getProperty("checkpoint.file", "stock-monitor.ckpt"));
+    private final int checkpointEveryTicks = Integer.getInteger("checkpoint.everyTicks", 30);
+
+    // 股票字典：代码到下标的映射以及名称、市场，有新股票时保存，重启后下标保持不变
+    private final Path symbolsFile = Paths.get(System.getProperty("symbols.file", "symbols.dict"));
+
+    // 本地按列归档每轮抓取的原始行情
+    private final TickArchive tickArchive = new TickArchive(Paths.get(System.getProperty("archive.dir", "tick-archive")));
+
+    // 评分模型的权重和阈值，修改后下一轮自动生效
+    private final Path scoringConfig = Paths.get(System.getProperty("scoring.config", "scoring.properties"));
+
+    private ScheduledExecutorService scheduler;
+    // 恢复计算状态的进度，第一轮计算前等待它完成
+    private volatile CompletableFuture<Void> warmUpDone = CompletableFuture.completedFuture(null);
+    private long startNanos;
+    private boolean firstTickLogged;
+    // 启动恢复完成之后才允许保存检查点，避免用空状态覆盖上一次的检查点
+    private volatile boolean warm;
+    private int ticksSinceCheckpoint;
+    // 启动后才补齐了之前的日线，历史资金和均线收盘价需要重新载入
+    private volatile boolean reseedHistory;
+
+    /**
+     * @param database 是否连接数据库：入库、从数据库载入和重放、汇总清理。
+     *                 不连接时只从检查点和本地归档恢复状态
+     */
+    public StockMonitorService(boolean database) {
+        this.database = database;
+        this.storageMaintenance = database ? new StorageMaintenance(DBUtils::getConnection,
+                Integer.getInteger("storage.raw.retentionDays", 7),
+                Integer.getInteger("storage.minute.retentionDays", 60),
+                Integer.getInteger("storage.maintenance.intervalSeconds", 60)) : null;
+    }
+
+    /**
+     * 注册一个输出端，可以在运行中注册，注册后先收到最近一轮的结果
+     * @param capacity 队列容量（轮数），处理不及时丢弃最旧的
+     */
+    public AsyncSink addSink(TickSink sink, int capacity) {
+        return publisher.register(sink, capacity);
+    }
+
+    /**
+     * 开始定时采样，同时在后台恢复计算状态
+     * <p>
+     * 第一轮抓取和状态恢复并行，抓取完成后等待恢复结束再计算；重放只恢复状态，不发布结果，
+     * 所以内置的输出端可以先注册，不会重复入库或归档。
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        tickEngine.setScoring(new ScoringConfig(scoringConfig));
+        warmUpDone = CompletableFuture.runAsync(this::warmUp, r -> new Thread(r, "warm-up").start());
+
+        if (database) {
+            StockDataWriter writer = new StockDataWriter(2, 1000, SAMPLE_INTERVAL * 1000L);
+            writer.start();
+            jdbcSink = new JdbcSink(writer, 5000);
+            jdbcQueue = publisher.register(jdbcSink, STORAGE_QUEUE);
+        }
+        publisher.register(new ArchiveSink(tickArchive), STORAGE_QUEUE);
+
+        // 单线程调度即可，每轮的计算由 tickEngine 并行完成
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "tick-scheduler"));
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                runTick();
+            } catch (Exception e) {
+                log.error("本轮采样失败: {}", e.getMessage(), e);
+            }
+        }, 0, SAMPLE_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 按顺序停止：先停调度，再等各输出端把队列里的结果处理完（入库、归档），最后保存检查点
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(SAMPLE_INTERVAL, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        publisher.shutdown(10, TimeUnit.SECONDS);
+        saveCheckpoint();
+        saveSymbols();
+        if (storageMaintenance != null) {
+            storageMaintenance.shutdown();
+        }
+        quoteClient.shutdown();
+        tickEngine.shutdown();
+        if (database) {
+            DBUtils.shutdown();
+        }
+    }
+
+    public TickEngine getEngine() {
+        return tickEngine;
+    }
+
+    /**
+     * 当前突破五日线的股票，由计算线程每轮更新，可在任意线程读取
+     */
+    public List<Ma5Breakout> getMa5Breakouts() {
+        return tickEngine.getMa5Breakouts();
+    }
+
+    /**
+     * 最近一轮的计算结果，还没有时返回 null
+     */
+    public TickResult latest() {
+        return publisher.latest();
+    }
+
+    /**
+     * 等待比 seen 更新的一轮结果，seen 为 null 时等待第一轮
+     * @return 最新一轮的结果，超时返回 null
+     */
+    public TickResult awaitTick(TickResult seen, long timeout, TimeUnit unit) throws InterruptedException {
+        return publisher.awaitAfter(seen, timeout, unit);
+    }
+
+    /**
+     * 订阅排名视图的前 k 名，从下一轮开始计算
+     */
+    public void subscribe(RankView view, int k) {
+        tickEngine.subscribe(view, k);
+    }
+
+    /**
+     * 最近一轮某个排名视图的前 limit 支股票，还没有结果或没有订阅该视图时返回空列表
+     */
+    public List<StockSpeed> ranked(RankView view, int limit) {
+        TickResult current = publisher.latest();
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current.getRanking().top(view, limit);
+    }
+
+    /**
+     * 启动时恢复计算状态
+     * 有当天的检查点时直接载入，再把检查点之后的数据按轮重放；
+     * 没有检查点、检查点不是当天的或者重放不完整时，当日累计、均线和历史数据仍从数据库载入
+     */
+    private void warmUp() {
+        try {
+            restoreState();
+        } catch (RuntimeException e) {
+            // 恢复失败时从空状态开始计算，不保存检查点，避免覆盖上一次的检查点
+            log.error("恢复计算状态失败, 从空状态开始计算: {}", e.getMessage(), e);
+        }
+    }
+
+    private void restoreState() {
+        long start = System.currentTimeMillis();
+        try {
+            int symbols = tickEngine.loadSymbols(symbolsFile);
+            if (symbols >= 0) {
+                log.info("已载入股票字典: {} 只股票", symbols);
+            }
+        } catch (IOException e) {
+            log.warn("股票字典不可用, 重新分配下标: {}", e.getMessage());
+        }
+
+        long savedAt = -1;
+        try {
+            savedAt = tickEngine.restore(checkpointFile);
+            if (savedAt < 0) {
+                log.info("未找到检查点 {}", checkpointFile.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            log.warn("检查点不可用: {}", e.getMessage());
+        }
+
+        if (database) {
+            try (Connection conn = DBUtils.getConnection()) {
+                DBUtils.createRollupTables(conn);
+            } catch (SQLException e) {
+                log.error("创建汇总表失败: {}", e.getMessage());
+            }
+            // 停机期间积压的数据在后台汇总，不等它完成；补齐了之前的日线时下一轮计算前重新载入历史数据
+            storageMaintenance.setPastDaysListener(() -> reseedHistory = true);
+            storageMaintenance.start();
+        }
+
+        boolean restored = savedAt >= 0;
+        boolean sameDay = restored && tickEngine.getTradeDate().equals(LocalDate.now());
+        boolean complete = restored && replayAfter(savedAt) && sameDay;
+
+        if (!complete && database) {
+            if (!sameDay) {
+                // 载入之前各交易日的资金数据，之后每天跨日时自动记入前一天
+                tickEngine.seedFlowHistory();
+            }
+
+            // 载入当日累计资金数据，之后由每轮采样增量更新
+            tickEngine.seedIntradayFlow();
+            // 载入日收盘价，之后由每轮采样计算均线和五日线突破
+            tickEngine.seedMovingAverages();
+        }
+        warm = true;
+        log.info("计算状态准备完成, 耗时 {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 重放检查点之后的采样，只为恢复状态，计算结果丢弃
+     * 本地归档里有检查点当天的数据时从归档读取，否则从数据库读取
+     * @return 是否完整重放了检查点之后的全部数据
+     */
+    private boolean replayAfter(long savedAt) {
+        ZoneId zone = ZoneId.systemDefault();
+        List<RecordedTick> ticks;
+        String source;
+        try {
+            if (tickArchive.contains(Instant.ofEpochMilli(savedAt).atZone(zone).toLocalDate())) {
+                ticks = tickArchive.readAfter(savedAt, MAX_REPLAY_TICKS);
+                source = "归档";
+            } else if (database) {
+                ticks = new TickHistoryReader().readAfter(savedAt, MAX_REPLAY_TICKS);
+                source = "数据库";
+            } else {
+                log.info("归档中没有检查点当天的数据, 跳过重放");
+                return false;
+            }
+        } catch (IOException | SQLException e) {
+            log.error("读取检查点之后的数据失败: {}", e.getMessage());
+            return false;
+        }
+        for (RecordedTick recorded : ticks) {
+            tickEngine.rollover(Instant.ofEpochMilli(recorded.getCreateTime()).atZone(zone).toLocalDate());
+            tickEngine.process(recorded.getStocks(), recorded.getCreateTime());
+        }
+        log.info("已从{}重放检查点之后的 {} 轮数据", source, ticks.size());
+        return ticks.size() < MAX_REPLAY_TICKS;
+    }
+
+    /**
+     * 保存检查点，需在调度线程上或调度停止后调用
+     */
+    private void saveCheckpoint() {
+        if (!warm) {
+            return;
+        }
+        try {
+            tickEngine.checkpoint(checkpointFile);
+            ticksSinceCheckpoint = 0;
+        } catch (IOException e) {
+            log.error("保存检查点失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 字典有变化时保存，需在调度线程上或调度停止后调用
+     */
+    private void saveSymbols() {
+        if (!warm) {
+            return;
+        }
+        try {
+            tickEngine.saveSymbols(symbolsFile);
+        } catch (IOException e) {
+            log.error("保存股票字典失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 之前各轮的入库数据是否都已写入数据库
+     */
+    private boolean persistIdle() {
+        return jdbcSink == null || (jdbcQueue.isIdle() && jdbcSink.isIdle());
+    }
+
+    /**
+     * 一轮采样：抓取全市场行情、计算资金速度和各项评分，并发布给各输出端
+     */
+    private void runTick() throws IOException {
+        // 判断当前时间是否在交易时间内
+        Calendar now = Calendar.getInstance();
+        int currentTime = now.get(Calendar.HOUR_OF_DAY) * 100 + now.get(Calendar.MINUTE);  // 例如：9:30 = 930
+        boolean isTradeTime = (currentTime >= 930 && currentTime <= 1130) ||  // 上午交易时间
+                (currentTime >= 1300 && currentTime <= 1500);     // 下午交易时间
+        if (!isTradeTime) {
+            return;
+        }
+
+        // 分页并发抓取行情，跳过代码为空或价格缺失的行
+        List<SingleStock> stocks = quoteClient.fetch().toSingleStocks();
+        // 采样时间取抓取完成的时刻，作为快照时间和入库的 create_time，不受等待恢复和计算耗时影响
+        long sampledAt = System.currentTimeMillis();
+        // 第一轮只有抓取与状态恢复并行，之后对计算引擎的任何修改都要等恢复完成
+        warmUpDone.join();
+
+        // 上一轮的数据都已入库时保存检查点，重启后只需重放检查点之后入库的数据
+        if (ticksSinceCheckpoint >= checkpointEveryTicks && persistIdle()) {
+            saveCheckpoint();
+        }
+        tickEngine.rollover(LocalDate.now());
+        if (reseedHistory) {
+            reseedHistory = false;
+            tickEngine.seedFlowHistory();
+            tickEngine.seedMovingAverages();
+        }
+
+        // 计算资金速度和各项评分
+        TickResult tickResult = tickEngine.process(stocks, sampledAt);
+        ticksSinceCheckpoint++;
+        // 新股票在第一次出现的这一轮就写入字典
+        saveSymbols();
+        log.debug("本轮计算 {} 支股票, 耗时 {} ms", stocks.size(), TimeUnit.NANOSECONDS.toMillis(tickResult.getComputeNanos()));
+
+        publisher.publish(tickResult);
+        if (!firstTickLogged) {
+            firstTickLogged = true;
+            log.info("第一轮结果已发布, 距启动 {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.stock;
+
+import com.stock.engine.TickEngine;
+import com.stock.engine.TickResult;
+import com.stock.persist.StockDataWriter;
+import com.stock.persist.TickHistoryReader;
+import com.stock.rank.RankView;
+import com.stock.replay.ArchiveTickSource;
+import com.stock.replay.DatabaseTickSource;
+import com.stock.replay.ReplayReport;
+import com.stock.replay.ReplayRunner;
+import com.stock.replay.TickSource;
+import com.stock.score.ScoringConfig;
+import com.stock.store.TickArchive;
+import com.stock.ui.RealTimeRows;
+import com.stock.ui.StockData;
+import javafx.collections.FXCollections;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Paths;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 离线重放入口：用记录下来的采样驱动与实时运行相同的计算流水线，结束后输出各阶段耗时
+ * <p>
+ * 参数：
+ * <pre>
+ * --source archive|db   数据来源，默认本地归档
+ * --archive-dir 目录     归档目录，默认 tick-archive
+ * --from 2024-05-06     起始交易日，默认归档中最近的一天（数据库来源默认今天）
+ * --to 2024-05-06       结束交易日，包含，默认与起始日相同
+ * --speed 0             相对实时的倍速，0 表示尽快重放
+ * --parallelism N       计算线程数，默认 CPU 核数
+ * --jdbc-url URL        入库阶段写入的数据库，需已建好表；不指定时跳过入库，避免污染线上数据
+ * --top N               界面阶段更新的行数，默认 500
+ * --scoring 文件         评分模型配置，可在其中定义多个模型同时运行，默认使用内置参数
+ * </pre>
+ */
+@Slf4j
+public class StockReplayMain {
+
+    private static final int SAMPLE_INTERVAL = 10;  // 采样间隔（秒），与实时运行一致
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String sourceName = options.getOrDefault("source", "archive");
+        double speed = Double.parseDouble(options.getOrDefault("speed", "0"));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int topN = Integer.parseInt(options.getOrDefault("top", "500"));
+
+        TickSource source;
+        if ("archive".equals(sourceName)) {
+            TickArchive archive = new TickArchive(Paths.get(options.getOrDefault("archive-dir", "tick-archive")));
+            List<LocalDate> days = archive.days();
+            if (days.isEmpty() && !options.containsKey("from")) {
+                log.error("归档目录中没有数据");
+                return;
+            }
+            LocalDate from = options.containsKey("from")
+                    ? LocalDate.parse(options.get("from")) : days.get(days.size() - 1);
+            LocalDate to = options.containsKey("to") ? LocalDate.parse(options.get("to")) : from;
+            source = new ArchiveTickSource(archive, from, to);
+        } else if ("db".equals(sourceName)) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate from = options.containsKey("from") ? LocalDate.parse(options.get("from")) : LocalDate.now();
+            LocalDate to = options.containsKey("to") ? LocalDate.parse(options.get("to")) : from;
+            source = new DatabaseTickSource(new TickHistoryReader(),
+                    from.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        } else {
+            log.error("未知的数据来源: {}", sourceName);
+            return;
+        }
+
+        // 入库阶段只写入单独指定的数据库
+        StockDataWriter writer = null;
+        Consumer<TickResult> persist = null;
+        if (options.containsKey("jdbc-url")) {
+            String url = options.get("jdbc-url");
+            writer = new StockDataWriter(() -> DriverManager.getConnection(url), 2, 1000, SAMPLE_INTERVAL * 1000L);
+            writer.start();
+            StockDataWriter target = writer;
+            persist = result -> target.submit(result.getPersistRows(), result.getSnapshot().getTimestamp());
+        }
+
+        // 界面阶段：在不显示的列表上做与实时表格相同的增量更新
+        RealTimeRows rows = new RealTimeRows(FXCollections.<StockData>observableArrayList(), topN);
+        Consumer<TickResult> publish = result -> rows.apply(result.getRanking().top(RankView.UP_TREND));
+
+        TickEngine engine = new TickEngine(SAMPLE_INTERVAL, parallelism);
+        engine.subscribe(RankView.UP_TREND, topN);
+        if (options.containsKey("scoring")) {
+            engine.setScoring(new ScoringConfig(Paths.get(options.get("scoring"))));
+        }
+        try {
+            ReplayReport report = new ReplayRunner(engine, source, speed, persist, publish).run();
+            if (writer != null) {
+                writer.shutdown(60, TimeUnit.SECONDS);
+                log.info("入库 {} 行, 丢弃 {} 批", writer.getTotalFlushedRows(), writer.getDroppedBatches());
+            }
+            System.out.println(report);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("参数格式为 --名称 值: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,335 @@
+package com.stock.calc;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import com.stock.store.SymbolIndex;
+import com.stock.utils.DBUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * 按交易日和 10 分钟时段汇总的资金流入流出
+ * <p>
+ * 流入、流出与每轮计算的口径一致：五类订单当日累计净流入中正值部分之和、负值部分绝对值之和。
+ * <ul>
+ * <li>交易日：保存最近 {@link #MAX_DAYS} 个完整交易日的前缀和（环形存放），
+ * 近 N 日的流入流出为两个前缀和之差，查询为 O(1)</li>
+ * <li>时段：当天每个 10 分钟时段结束时的累计值，本身就是当天的前缀和，
+ * 最近 N 个时段的流入流出同样是一次相减</li>
+ * </ul>
+ * 跨日时 {@link #rollover} 把前一天最后的累计值记为一个完整交易日，不需要重新从数据库载入。
+ * 周末和节假日行情接口仍返回上一交易日的累计值，这样的一天所有股票都与上一个交易日相同，
+ * 和没有任何数据的一天一样不记入。
+ * <p>
+ * 数据按 {@link SymbolIndex} 下标存放，预先分配好容量后可以由多个线程分别记录各自负责的股票。
+ */
+@Slf4j
+public class FlowHistoryIndex {
+
+    public static final int MAX_DAYS = 20;       // 保留的完整交易日数
+    public static final int SLOTS_PER_DAY = 24;  // 每个交易日的 10 分钟时段数：上午、下午各 12 个
+
+    private static final int RING = MAX_DAYS + 1;
+    private static final int MORNING_OPEN = 9 * 60 + 30;
+    private static final int MORNING_CLOSE = 11 * 60 + 30;
+    private static final int AFTERNOON_OPEN = 13 * 60;
+    private static final String[] FLOW_COLUMNS = {"zhuli_net_inflow", "chaodadan_net_inflow", "bigdan_net_inflow",
+            "zhongdan_net_inflow", "xiaodan_net_inflow"};
+
+    // 交易日前缀和：[symbol * RING + 第 k 个交易日 % RING] 为前 k 个交易日之和
+    private double[] dayInflowSums = new double[0];
+    private double[] dayOutflowSums = new double[0];
+    private int days;
+    // 最近一个完整交易日的流入流出，用于识别休市日
+    private double[] closedInflows = new double[0];
+    private double[] closedOutflows = new double[0];
+
+    // 当天各时段结束时的累计值：[symbol * SLOTS_PER_DAY + slot]
+    private double[] slotInflows = new double[0];
+    private double[] slotOutflows = new double[0];
+    // 当天最后记录的时段，-1 表示当天还没有数据
+    private int[] lastSlots = new int[0];
+    private int capacity;
+    private LocalDate tradeDate = LocalDate.now();
+
+    public FlowHistoryIndex() {
+        ensureCapacity(1024);
+    }
+
+    /**
+     * 采样时间所在的时段：9:30 之前算第一个时段，午休算上午最后一个时段，15:00 之后算最后一个时段
+     */
+    public static int slotOf(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        if (minute < AFTERNOON_OPEN) {
+            return Math.max(0, Math.min(SLOTS_PER_DAY / 2 - 1, (Math.min(minute, MORNING_CLOSE - 1) - MORNING_OPEN) / 10));
+        }
+        return Math.min(SLOTS_PER_DAY - 1, SLOTS_PER_DAY / 2 + (minute - AFTERNOON_OPEN) / 10);
+    }
+
+    /**
+     * 从日线载入之前各交易日的资金数据，替换已有的交易日数据，当天的时段数据清空
+     * 日线的资金字段即每天最后一轮的累计值，40 个自然日足够覆盖 {@link #MAX_DAYS} 个交易日
+     */
+    public void seed(SymbolIndex symbols) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        int rows = 0;
+        try {
+            conn = DBUtils.getConnection();
+            String sql = "SELECT code, trade_date, " + String.join(", ", FLOW_COLUMNS) + " FROM stock_daily_bar " +
+                    "WHERE trade_date >= DATE_SUB(CURDATE(), INTERVAL 40 DAY) AND trade_date < CURDATE() " +
+                    "ORDER BY trade_date";
+            ps = conn.prepareStatement(sql);
+            rs = ps.executeQuery();
+
+            clearDays();
+            clearSlots();
+            tradeDate = LocalDate.now();
+            Date currentDate = null;
+            while (rs.next()) {
+                Date date = rs.getDate("trade_date");
+                if (!date.equals(currentDate)) {
+                    if (currentDate != null) {
+                        closeDay();
+                    }
+                    currentDate = date;
+                }
+                int symbol = symbols.idOf(rs.getString("code"));
+                ensureCapacity(symbol + 1);
+                double inflow = 0;
+                double outflow = 0;
+                for (String column : FLOW_COLUMNS) {
+                    double value = rs.getDouble(column);
+                    inflow += Math.max(value, 0);
+                    outflow += Math.abs(Math.min(value, 0));
+                }
+                record(symbol, SLOTS_PER_DAY - 1, inflow, outflow);
+                rows++;
+            }
+            if (currentDate != null) {
+                closeDay();
+            }
+        } catch (SQLException e) {
+            log.error("载入历史资金数据失败: {}", e.getMessage());
+        } finally {
+            DBUtils.close(conn, ps, rs);
+        }
+        log.info("历史资金数据载入完成, 共 {} 个交易日 {} 行", Math.min(days, MAX_DAYS), rows);
+    }
+
+    /**
+     * 跨日时把前一天最后的累计值记为一个完整交易日，并清空当天的时段数据；前一天没有交易时只清空
+     */
+    public void rollover(LocalDate today) {
+        if (today.equals(tradeDate)) {
+            return;
+        }
+        closeDay();
+        tradeDate = today;
+    }
+
+    /**
+     * 记录一只股票本轮的当日累计流入流出
+     * 当天第一次出现之前的时段按这次的累计值计，启动前或停牌前的资金不会算进最近几个时段
+     */
+    public void record(int symbol, int slot, double inflow, double outflow) {
+        if (symbol >= capacity) {
+            ensureCapacity(symbol + 1);
+        }
+        int base = symbol * SLOTS_PER_DAY;
+        int last = lastSlots[symbol];
+        if (slot > last) {
+            double fillIn = last < 0 ? inflow : slotInflows[base + last];
+            double fillOut = last < 0 ? outflow : slotOutflows[base + last];
+            for (int s = last + 1; s < slot; s++) {
+                slotInflows[base + s] = fillIn;
+                slotOutflows[base + s] = fillOut;
+            }
+            lastSlots[symbol] = slot;
+        }
+        slotInflows[base + slot] = inflow;
+        slotOutflows[base + slot] = outflow;
+    }
+
+    /**
+     * 已记入的完整交易日数，最多 {@link #MAX_DAYS}
+     */
+    public int getDays() {
+        return Math.min(days, MAX_DAYS);
+    }
+
+    /**
+     * 最近 n 个完整交易日（不含当天）的流入之和，n 超过已记入的天数时按已有天数计算
+     */
+    public double dayInflow(int symbol, int n) {
+        return daySum(dayInflowSums, symbol, n);
+    }
+
+    public double dayOutflow(int symbol, int n) {
+        return daySum(dayOutflowSums, symbol, n);
+    }
+
+    /**
+     * 当天到目前为止的流入
+     */
+    public double todayInflow(int symbol) {
+        int last = lastSlot(symbol);
+        return last < 0 ? 0 : slotInflows[symbol * SLOTS_PER_DAY + last];
+    }
+
+    public double todayOutflow(int symbol) {
+        int last = lastSlot(symbol);
+        return last < 0 ? 0 : slotOutflows[symbol * SLOTS_PER_DAY + last];
+    }
+
+    /**
+     * 当天最近 n 个时段（含正在进行的时段）的流入，超出当天的部分不计
+     */
+    public double slotInflow(int symbol, int n) {
+        return slotSum(slotInflows, symbol, n);
+    }
+
+    public double slotOutflow(int symbol, int n) {
+        return slotSum(slotOutflows, symbol, n);
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    /**
+     * 预先分配到指定股票数，并行记录前调用，保证记录过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= capacity) {
+            return;
+        }
+        int newSize = Math.max(symbolCount, capacity * 2);
+        dayInflowSums = Arrays.copyOf(dayInflowSums, newSize * RING);
+        dayOutflowSums = Arrays.copyOf(dayOutflowSums, newSize * RING);
+        slotInflows = Arrays.copyOf(slotInflows, newSize * SLOTS_PER_DAY);
+        slotOutflows = Arrays.copyOf(slotOutflows, newSize * SLOTS_PER_DAY);
+        closedInflows = Arrays.copyOf(closedInflows, newSize);
+        closedOutflows = Arrays.copyOf(closedOutflows, newSize);
+        lastSlots = Arrays.copyOf(lastSlots, newSize);
+        Arrays.fill(lastSlots, capacity, newSize, -1);
+        capacity = newSize;
+    }
+
+    public void writeState(StateWriter out, int symbolCount) throws IOException {
+        ensureCapacity(symbolCount);
+        out.writeLong(tradeDate.toEpochDay());
+        out.writeInt(days);
+        out.writeInt(symbolCount);
+        out.writeDoubles(dayInflowSums, symbolCount * RING);
+        out.writeDoubles(dayOutflowSums, symbolCount * RING);
+        out.writeDoubles(closedInflows, symbolCount);
+        out.writeDoubles(closedOutflows, symbolCount);
+        out.writeDoubles(slotInflows, symbolCount * SLOTS_PER_DAY);
+        out.writeDoubles(slotOutflows, symbolCount * SLOTS_PER_DAY);
+        out.writeInts(lastSlots, symbolCount);
+    }
+
+    public void readState(StateReader in) throws IOException {
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        int dayCount = in.readInt();
+        int symbolCount = in.readInt();
+        ensureCapacity(symbolCount);
+        clearDays();
+        clearSlots();
+        tradeDate = date;
+        days = dayCount;
+        in.readDoubles(dayInflowSums, symbolCount * RING);
+        in.readDoubles(dayOutflowSums, symbolCount * RING);
+        in.readDoubles(closedInflows, symbolCount);
+        in.readDoubles(closedOutflows, symbolCount);
+        in.readDoubles(slotInflows, symbolCount * SLOTS_PER_DAY);
+        in.readDoubles(slotOutflows, symbolCount * SLOTS_PER_DAY);
+        in.readInts(lastSlots, symbolCount);
+    }
+
+    /**
+     * 把当天最后的累计值追加为一个完整交易日，并清空当天的时段数据
+     * 当天没有交易（没有数据，或者所有股票都与上一个交易日相同）时不追加
+     */
+    private void closeDay() {
+        if (traded()) {
+            int from = days % RING;
+            int to = (days + 1) % RING;
+            for (int symbol = 0; symbol < capacity; symbol++) {
+                int base = symbol * RING;
+                double inflow = todayInflow(symbol);
+                double outflow = todayOutflow(symbol);
+                dayInflowSums[base + to] = dayInflowSums[base + from] + inflow;
+                dayOutflowSums[base + to] = dayOutflowSums[base + from] + outflow;
+                closedInflows[symbol] = inflow;
+                closedOutflows[symbol] = outflow;
+            }
+            days++;
+        }
+        clearSlots();
+    }
+
+    /**
+     * 当天是否有股票的累计流入流出与上一个交易日不同，还没有完整交易日时有数据即算
+     */
+    private boolean traded() {
+        for (int symbol = 0; symbol < capacity; symbol++) {
+            if (lastSlots[symbol] < 0) {
+                continue;
+            }
+            if (days == 0 || todayInflow(symbol) != closedInflows[symbol] || todayOutflow(symbol) != closedOutflows[symbol]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double daySum(double[] sums, int symbol, int n) {
+        int count = Math.min(n, getDays());
+        if (symbol >= capacity || count <= 0) {
+            return 0;
+        }
+        int base = symbol * RING;
+        return sums[base + days % RING] - sums[base + (days - count) % RING];
+    }
+
+    private double slotSum(double[] values, int symbol, int n) {
+        int last = lastSlot(symbol);
+        if (last < 0 || n <= 0) {
+            return 0;
+        }
+        int base = symbol * SLOTS_PER_DAY;
+        int before = last - n;
+        return values[base + last] - (before < 0 ? 0 : values[base + before]);
+    }
+
+    private int lastSlot(int symbol) {
+        return symbol < capacity ? lastSlots[symbol] : -1;
+    }
+
+    private void clearDays() {
+        Arrays.fill(dayInflowSums, 0);
+        Arrays.fill(dayOutflowSums, 0);
+        Arrays.fill(closedInflows, 0);
+        Arrays.fill(closedOutflows, 0);
+        days = 0;
+    }
+
+    private void clearSlots() {
+        Arrays.fill(slotInflows, 0);
+        Arrays.fill(slotOutflows, 0);
+        Arrays.fill(lastSlots, -1);
+    }
+}
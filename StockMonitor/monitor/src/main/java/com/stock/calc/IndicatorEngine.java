@@ -0,0 +1,342 @@
+package com.stock.calc;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 增量技术指标引擎
+ * <p>
+ * 按股票下标保存指标的中间状态，每个采样点调用一次 {@link #update(int, double)}，
+ * 之后读取指标值不再需要回看价格历史。
+ * <p>
+ * MACD：
+ * - EMA12、EMA26 以第一个价格为初值递推，每次一次乘加
+ * - DIF = EMA12 - EMA26
+ * - DEA 沿用原批量算法的口径：以最近9个DIF中最旧的一个为初值做9日EMA。
+ *   窗口滑动时按 DEA(n) = (1-α)·DEA(n-1) + α·DIF(n) + (1-α)^9·(DIF(n-8) - DIF(n-9)) 递推，
+ *   因此只需保存最近10个DIF
+ * - MACD = (DIF - DEA) * 2，不足26个数据点时为0
+ * <p>
+ * RSI：Wilder 平滑，前14个涨跌幅取简单平均作为初值，
+ * 之后 平均涨幅 = (前值 × 13 + 本次涨幅) / 14，平均跌幅同理，不足15个数据点时为50
+ * <p>
+ * KDJ：
+ * - 最近9个价格的最高、最低价用单调队列维护，每次更新均摊 O(1)
+ * - RSV = (收盘 - 最低) / (最高 - 最低) × 100，最高等于最低时取50
+ * - K = 2/3 × 前值K + 1/3 × RSV，D = 2/3 × 前值D + 1/3 × K，K、D 初值为50并在采样之间保留
+ * - J = 3K - 2D，不足9个数据点时为50
+ */
+public class IndicatorEngine {
+
+    public static final int MACD_MIN_SAMPLES = 26;
+    public static final int RSI_PERIOD = 14;
+    public static final int KDJ_PERIOD = 9;
+
+    private static final double ALPHA_12 = 2.0 / (12 + 1);
+    private static final double ALPHA_26 = 2.0 / (26 + 1);
+    private static final double ALPHA_9 = 2.0 / (9 + 1);
+    private static final int DEA_WINDOW = 9;
+    private static final int DIF_SLOTS = DEA_WINDOW + 1;
+    // 窗口最旧一项的权重 (1-α)^8 再乘以 (1-α)
+    private static final double DEA_TAIL_WEIGHT = Math.pow(1 - ALPHA_9, DEA_WINDOW);
+
+    private int[] counts = new int[0];
+    private double[] ema12 = new double[0];
+    private double[] ema26 = new double[0];
+    private double[] dea = new double[0];
+    private double[] difs = new double[0];
+
+    private double[] lastPrice = new double[0];
+    private double[] avgGain = new double[0];
+    private double[] avgLoss = new double[0];
+
+    private double[] kValue = new double[0];
+    private double[] dValue = new double[0];
+    // 单调队列：[股票下标 * KDJ_PERIOD + 槽位] 保存价格序号和价格，队首为窗口内最高/最低价
+    private int[] maxSeq = new int[0];
+    private double[] maxPrice = new double[0];
+    private int[] maxHead = new int[0];
+    private int[] maxSize = new int[0];
+    private int[] minSeq = new int[0];
+    private double[] minPrice = new double[0];
+    private int[] minHead = new int[0];
+    private int[] minSize = new int[0];
+
+    public IndicatorEngine() {
+        ensureCapacity(1024);
+    }
+
+    /**
+     * 输入一个新的价格，更新该股票的全部指标状态
+     */
+    public void update(int symbol, double price) {
+        if (symbol >= counts.length) {
+            ensureCapacity(symbol + 1);
+        }
+        int n = counts[symbol];
+        if (n == 0) {
+            ema12[symbol] = price;
+            ema26[symbol] = price;
+        } else {
+            ema12[symbol] += (price - ema12[symbol]) * ALPHA_12;
+            ema26[symbol] += (price - ema26[symbol]) * ALPHA_26;
+        }
+        double dif = ema12[symbol] - ema26[symbol];
+        int base = symbol * DIF_SLOTS;
+        difs[base + n % DIF_SLOTS] = dif;
+        n++;
+        counts[symbol] = n;
+
+        updateRSI(symbol, n, price);
+        updateKDJ(symbol, n, price);
+        lastPrice[symbol] = price;
+
+        if (n == DEA_WINDOW) {
+            // 第一个完整窗口直接计算
+            double value = difs[base];
+            for (int i = 1; i < DEA_WINDOW; i++) {
+                value += (difs[base + i] - value) * ALPHA_9;
+            }
+            dea[symbol] = value;
+        } else if (n > DEA_WINDOW) {
+            double newOldest = difs[base + (n - DEA_WINDOW) % DIF_SLOTS];
+            double oldOldest = difs[base + (n - DEA_WINDOW - 1) % DIF_SLOTS];
+            dea[symbol] += (dif - dea[symbol]) * ALPHA_9 + DEA_TAIL_WEIGHT * (newOldest - oldOldest);
+        }
+    }
+
+    private void updateRSI(int symbol, int n, double price) {
+        if (n == 1) {
+            return;
+        }
+        double change = price - lastPrice[symbol];
+        double gain = change > 0 ? change : 0;
+        double loss = change < 0 ? -change : 0;
+        int changes = n - 1;
+        if (changes <= RSI_PERIOD) {
+            // 初始阶段先累加，满14个涨跌幅后取平均
+            avgGain[symbol] += gain;
+            avgLoss[symbol] += loss;
+            if (changes == RSI_PERIOD) {
+                avgGain[symbol] /= RSI_PERIOD;
+                avgLoss[symbol] /= RSI_PERIOD;
+            }
+        } else {
+            avgGain[symbol] = (avgGain[symbol] * (RSI_PERIOD - 1) + gain) / RSI_PERIOD;
+            avgLoss[symbol] = (avgLoss[symbol] * (RSI_PERIOD - 1) + loss) / RSI_PERIOD;
+        }
+    }
+
+    private void updateKDJ(int symbol, int n, double price) {
+        int seq = n - 1;
+        int base = symbol * KDJ_PERIOD;
+        int expired = seq - KDJ_PERIOD;
+
+        // 最高价队列：队尾不大于新价格的元素不可能再成为最高价
+        int head = maxHead[symbol];
+        int size = maxSize[symbol];
+        if (size > 0 && maxSeq[base + head] <= expired) {
+            head = (head + 1) % KDJ_PERIOD;
+            size--;
+        }
+        while (size > 0 && maxPrice[base + (head + size - 1) % KDJ_PERIOD] <= price) {
+            size--;
+        }
+        int slot = base + (head + size) % KDJ_PERIOD;
+        maxSeq[slot] = seq;
+        maxPrice[slot] = price;
+        maxHead[symbol] = head;
+        maxSize[symbol] = size + 1;
+
+        // 最低价队列
+        head = minHead[symbol];
+        size = minSize[symbol];
+        if (size > 0 && minSeq[base + head] <= expired) {
+            head = (head + 1) % KDJ_PERIOD;
+            size--;
+        }
+        while (size > 0 && minPrice[base + (head + size - 1) % KDJ_PERIOD] >= price) {
+            size--;
+        }
+        slot = base + (head + size) % KDJ_PERIOD;
+        minSeq[slot] = seq;
+        minPrice[slot] = price;
+        minHead[symbol] = head;
+        minSize[symbol] = size + 1;
+
+        if (n < KDJ_PERIOD) {
+            return;
+        }
+        double high = maxPrice[base + maxHead[symbol]];
+        double low = minPrice[base + minHead[symbol]];
+        double rsv = high > low ? (price - low) / (high - low) * 100 : 50;
+        double prevK = n == KDJ_PERIOD ? 50 : kValue[symbol];
+        double prevD = n == KDJ_PERIOD ? 50 : dValue[symbol];
+        kValue[symbol] = 2.0 / 3.0 * prevK + 1.0 / 3.0 * rsv;
+        dValue[symbol] = 2.0 / 3.0 * prevD + 1.0 / 3.0 * kValue[symbol];
+    }
+
+    /**
+     * 已输入的价格个数
+     */
+    public int count(int symbol) {
+        return symbol < counts.length ? counts[symbol] : 0;
+    }
+
+    public double dif(int symbol) {
+        return ema12[symbol] - ema26[symbol];
+    }
+
+    public double dea(int symbol) {
+        return dea[symbol];
+    }
+
+    /**
+     * MACD = (DIF - DEA) * 2，数据不足时返回0
+     */
+    public double macd(int symbol) {
+        if (count(symbol) < MACD_MIN_SAMPLES) {
+            return 0;
+        }
+        return (dif(symbol) - dea[symbol]) * 2;
+    }
+
+    /**
+     * RSI，数据不足时返回50
+     */
+    public double rsi(int symbol) {
+        if (count(symbol) <= RSI_PERIOD) {
+            return 50;
+        }
+        double gain = avgGain[symbol];
+        double loss = avgLoss[symbol];
+        // 避免除以零
+        if (loss == 0) {
+            return gain > 0 ? 100 : 50;
+        }
+        double rs = gain / loss;
+        return 100.0 - (100.0 / (1.0 + rs));
+    }
+
+    public double kdjK(int symbol) {
+        return count(symbol) < KDJ_PERIOD ? 50 : kValue[symbol];
+    }
+
+    public double kdjD(int symbol) {
+        return count(symbol) < KDJ_PERIOD ? 50 : dValue[symbol];
+    }
+
+    /**
+     * KDJ 的 J 值，数据不足时返回50
+     */
+    public double kdj(int symbol) {
+        if (count(symbol) < KDJ_PERIOD) {
+            return 50;
+        }
+        return 3 * kValue[symbol] - 2 * dValue[symbol];
+    }
+
+    /**
+     * 写入前 symbolCount 只股票的指标中间状态
+     */
+    public void writeState(StateWriter out, int symbolCount) throws IOException {
+        ensureCapacity(symbolCount);
+        out.writeInt(symbolCount);
+        out.writeInts(counts, symbolCount);
+        out.writeDoubles(ema12, symbolCount);
+        out.writeDoubles(ema26, symbolCount);
+        out.writeDoubles(dea, symbolCount);
+        out.writeDoubles(difs, symbolCount * DIF_SLOTS);
+        out.writeDoubles(lastPrice, symbolCount);
+        out.writeDoubles(avgGain, symbolCount);
+        out.writeDoubles(avgLoss, symbolCount);
+        out.writeDoubles(kValue, symbolCount);
+        out.writeDoubles(dValue, symbolCount);
+        out.writeInts(maxSeq, symbolCount * KDJ_PERIOD);
+        out.writeDoubles(maxPrice, symbolCount * KDJ_PERIOD);
+        out.writeInts(maxHead, symbolCount);
+        out.writeInts(maxSize, symbolCount);
+        out.writeInts(minSeq, symbolCount * KDJ_PERIOD);
+        out.writeDoubles(minPrice, symbolCount * KDJ_PERIOD);
+        out.writeInts(minHead, symbolCount);
+        out.writeInts(minSize, symbolCount);
+    }
+
+    /**
+     * 读入检查点，没有出现在检查点里的股票从头开始
+     */
+    public void readState(StateReader in) throws IOException {
+        int symbolCount = in.readInt();
+        allocate(Math.max(symbolCount, 1024));
+        in.readInts(counts, symbolCount);
+        in.readDoubles(ema12, symbolCount);
+        in.readDoubles(ema26, symbolCount);
+        in.readDoubles(dea, symbolCount);
+        in.readDoubles(difs, symbolCount * DIF_SLOTS);
+        in.readDoubles(lastPrice, symbolCount);
+        in.readDoubles(avgGain, symbolCount);
+        in.readDoubles(avgLoss, symbolCount);
+        in.readDoubles(kValue, symbolCount);
+        in.readDoubles(dValue, symbolCount);
+        in.readInts(maxSeq, symbolCount * KDJ_PERIOD);
+        in.readDoubles(maxPrice, symbolCount * KDJ_PERIOD);
+        in.readInts(maxHead, symbolCount);
+        in.readInts(maxSize, symbolCount);
+        in.readInts(minSeq, symbolCount * KDJ_PERIOD);
+        in.readDoubles(minPrice, symbolCount * KDJ_PERIOD);
+        in.readInts(minHead, symbolCount);
+        in.readInts(minSize, symbolCount);
+    }
+
+    private void allocate(int size) {
+        counts = new int[size];
+        ema12 = new double[size];
+        ema26 = new double[size];
+        dea = new double[size];
+        difs = new double[size * DIF_SLOTS];
+        lastPrice = new double[size];
+        avgGain = new double[size];
+        avgLoss = new double[size];
+        kValue = new double[size];
+        dValue = new double[size];
+        maxSeq = new int[size * KDJ_PERIOD];
+        maxPrice = new double[size * KDJ_PERIOD];
+        maxHead = new int[size];
+        maxSize = new int[size];
+        minSeq = new int[size * KDJ_PERIOD];
+        minPrice = new double[size * KDJ_PERIOD];
+        minHead = new int[size];
+        minSize = new int[size];
+    }
+
+    /**
+     * 预先分配到指定股票数，并行计算前调用，保证计算过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= counts.length) {
+            return;
+        }
+        int newSize = Math.max(symbolCount, counts.length * 2);
+        counts = Arrays.copyOf(counts, newSize);
+        ema12 = Arrays.copyOf(ema12, newSize);
+        ema26 = Arrays.copyOf(ema26, newSize);
+        dea = Arrays.copyOf(dea, newSize);
+        difs = Arrays.copyOf(difs, newSize * DIF_SLOTS);
+        lastPrice = Arrays.copyOf(lastPrice, newSize);
+        avgGain = Arrays.copyOf(avgGain, newSize);
+        avgLoss = Arrays.copyOf(avgLoss, newSize);
+        kValue = Arrays.copyOf(kValue, newSize);
+        dValue = Arrays.copyOf(dValue, newSize);
+        maxSeq = Arrays.copyOf(maxSeq, newSize * KDJ_PERIOD);
+        maxPrice = Arrays.copyOf(maxPrice, newSize * KDJ_PERIOD);
+        maxHead = Arrays.copyOf(maxHead, newSize);
+        maxSize = Arrays.copyOf(maxSize, newSize);
+        minSeq = Arrays.copyOf(minSeq, newSize * KDJ_PERIOD);
+        minPrice = Arrays.copyOf(minPrice, newSize * KDJ_PERIOD);
+        minHead = Arrays.copyOf(minHead, newSize);
+        minSize = Arrays.copyOf(minSize, newSize);
+    }
+}
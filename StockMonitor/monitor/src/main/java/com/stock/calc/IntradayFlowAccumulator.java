@@ -0,0 +1,140 @@
+package com.stock.calc;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import com.stock.store.SymbolIndex;
+import com.stock.utils.ConnectionSource;
+import com.stock.utils.DBUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * 当日累计资金流向
+ * <p>
+ * 与原来按股票查询 single_stock_data 的 SUM(CASE ...) 口径一致：
+ * 每条入库记录的总净流入为正计入流入，为负取绝对值计入流出。
+ * 启动时从数据库初始化一次，之后每轮采样增量累加，查询为 O(1)。
+ * <p>
+ * 数据按 {@link SymbolIndex} 下标存放，不同股票互不影响，
+ * 预先分配好容量后可以由多个线程分别累加各自负责的股票。
+ */
+@Slf4j
+public class IntradayFlowAccumulator {
+
+    private double[] inflows = new double[0];
+    private double[] outflows = new double[0];
+    private LocalDate tradeDate = LocalDate.now();
+
+    public IntradayFlowAccumulator() {
+        ensureCapacity(1024);
+    }
+
+    /**
+     * 从数据库载入当天已入库的累计数据
+     * create_time 直接做范围比较，可以走 create_time 索引
+     */
+    public void seed(SymbolIndex symbols) {
+        seed(symbols, DBUtils::getConnection);
+    }
+
+    public void seed(SymbolIndex symbols, ConnectionSource connections) {
+        String sql = "SELECT code, " +
+                "SUM(CASE WHEN total_net_inflow > 0 THEN total_net_inflow ELSE 0 END) as day_inflow, " +
+                "SUM(CASE WHEN total_net_inflow < 0 THEN ABS(total_net_inflow) ELSE 0 END) as day_outflow " +
+                "FROM single_stock_data WHERE create_time >= CURDATE() GROUP BY code";
+        int count = 0;
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            clear();
+            tradeDate = LocalDate.now();
+            while (rs.next()) {
+                int symbol = symbols.idOf(rs.getString("code"));
+                ensureCapacity(symbol + 1);
+                inflows[symbol] = rs.getDouble("day_inflow");
+                outflows[symbol] = rs.getDouble("day_outflow");
+                count++;
+            }
+        } catch (SQLException e) {
+            log.error("载入当日累计资金数据失败: {}", e.getMessage());
+        }
+        log.info("当日累计资金数据载入完成, 共 {} 支股票", count);
+    }
+
+    /**
+     * 跨日时清空累计数据
+     */
+    public void rollover(LocalDate today) {
+        if (!today.equals(tradeDate)) {
+            clear();
+            tradeDate = today;
+        }
+    }
+
+    /**
+     * 累加一条入库记录的总净流入
+     */
+    public void add(int symbol, double totalNetInflow) {
+        if (symbol >= inflows.length) {
+            ensureCapacity(symbol + 1);
+        }
+        if (totalNetInflow > 0) {
+            inflows[symbol] += totalNetInflow;
+        } else if (totalNetInflow < 0) {
+            outflows[symbol] -= totalNetInflow;
+        }
+    }
+
+    public double getInflow(int symbol) {
+        return symbol < inflows.length ? inflows[symbol] : 0;
+    }
+
+    public double getOutflow(int symbol) {
+        return symbol < outflows.length ? outflows[symbol] : 0;
+    }
+
+    /**
+     * 预先分配到指定股票数，并行累加前调用，保证累加过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= inflows.length) {
+            return;
+        }
+        int newSize = Math.max(symbolCount, inflows.length * 2);
+        inflows = Arrays.copyOf(inflows, newSize);
+        outflows = Arrays.copyOf(outflows, newSize);
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public void writeState(StateWriter out, int symbolCount) throws IOException {
+        ensureCapacity(symbolCount);
+        out.writeLong(tradeDate.toEpochDay());
+        out.writeInt(symbolCount);
+        out.writeDoubles(inflows, symbolCount);
+        out.writeDoubles(outflows, symbolCount);
+    }
+
+    public void readState(StateReader in) throws IOException {
+        tradeDate = LocalDate.ofEpochDay(in.readLong());
+        int symbolCount = in.readInt();
+        ensureCapacity(symbolCount);
+        clear();
+        in.readDoubles(inflows, symbolCount);
+        in.readDoubles(outflows, symbolCount);
+    }
+
+    private void clear() {
+        Arrays.fill(inflows, 0);
+        Arrays.fill(outflows, 0);
+    }
+}
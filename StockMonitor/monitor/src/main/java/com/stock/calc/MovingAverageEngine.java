@@ -0,0 +1,322 @@
+package com.stock.calc;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import com.stock.store.SymbolIndex;
+import com.stock.utils.DBUtils;
+import com.stock.vo.Ma5Breakout;
+import com.stock.vo.SingleStock;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 日均线与五日线突破
+ * <p>
+ * 每只股票保存最近 19 个交易日的收盘价，N 日均线 = (前 N-1 日收盘价之和 + 当前价) / N，
+ * 前 N-1 日之和只在跨日时重新计算，盘中每轮更新是 O(1)。
+ * 收盘价来自两处：启动时从数据库载入每天最后一条记录的价格，
+ * 之后每次跨日把前一天最后一轮的价格作为收盘价追加进去。
+ * 周末和节假日行情接口仍返回上一交易日的数据，这样的一天所有价格都与最近的收盘价相同，不记入收盘价。
+ * <p>
+ * 突破：当前价从五日线下方（或上一交易日收盘在五日线下方）运行到上方时记为一次上穿，
+ * 记录时间；当日发生过上穿且当前仍在五日线之上的股票即为突破五日线。
+ * <p>
+ * 数据按 {@link SymbolIndex} 下标存放，预先分配好容量后可以由多个线程分别更新各自负责的股票。
+ */
+@Slf4j
+public class MovingAverageEngine {
+
+    public static final int MA5 = 0;
+    public static final int MA10 = 1;
+    public static final int MA20 = 2;
+    private static final int[] PERIODS = {5, 10, 20};
+    // 计算二十日线需要的历史收盘价个数
+    private static final int DAYS = 19;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte BELOW = 1;
+    private static final byte ABOVE = 2;
+
+    // 收盘价环形缓冲，第 symbol 只股票占 [symbol * DAYS, (symbol + 1) * DAYS)
+    private double[] closes = new double[0];
+    private int[] closeCounts = new int[0];
+    private int[] closeHeads = new int[0];
+    // 前 N-1 日收盘价之和，下标 [周期][股票]
+    private double[][] closeSums = new double[PERIODS.length][0];
+    private double[] lastPrices = new double[0];
+    private byte[] positions = new byte[0];
+    private long[] crossTimes = new long[0];
+    private LocalDate tradeDate = LocalDate.now();
+
+    public MovingAverageEngine() {
+        ensureCapacity(1024);
+    }
+
+    /**
+     * 从数据库载入之前各交易日的收盘价（stock_daily_bar）和当天最新一轮的数据
+     * 当天的数据取自 latest_stock_quote，按主键读取，不扫描历史表；
+     * 此时只能和上一交易日收盘比较，突破时间记为最新一条记录的时间
+     * @return 按当天最新数据判断的突破五日线股票
+     */
+    public List<Ma5Breakout> seed(SymbolIndex symbols) {
+        List<Ma5Breakout> breakouts = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        int closeCount = 0;
+        try {
+            conn = DBUtils.getConnection();
+            // 日线的收盘价即每天最后一轮的价格，40 个自然日足够覆盖 19 个交易日
+            String sql = "SELECT code, close_price FROM stock_daily_bar " +
+                    "WHERE trade_date >= DATE_SUB(CURDATE(), INTERVAL 40 DAY) AND trade_date < CURDATE() " +
+                    "ORDER BY code, trade_date";
+            ps = conn.prepareStatement(sql);
+            rs = ps.executeQuery();
+
+            clear();
+            tradeDate = LocalDate.now();
+            while (rs.next()) {
+                int symbol = symbols.idOf(rs.getString("code"));
+                ensureCapacity(symbol + 1);
+                addDailyClose(symbol, rs.getDouble("close_price"));
+                closeCount++;
+            }
+            DBUtils.close(null, ps, rs);
+
+            ps = conn.prepareStatement("SELECT * FROM latest_stock_quote WHERE create_time >= CURDATE()");
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                SingleStock stock = new SingleStock();
+                stock.setCode(rs.getString("code"));
+                stock.setName(rs.getString("name"));
+                stock.setCurrentPrice(rs.getDouble("current_price"));
+                stock.setChangePercent(rs.getDouble("change_percent"));
+                stock.setTotalNetInflow(rs.getDouble("total_net_inflow"));
+                stock.setZhuliNetInflow(rs.getDouble("zhuli_net_inflow"));
+                stock.setChaodadanNetInflow(rs.getDouble("chaodadan_net_inflow"));
+                stock.setBigdanNetInflow(rs.getDouble("bigdan_net_inflow"));
+                stock.setZhongdanNetInflow(rs.getDouble("zhongdan_net_inflow"));
+                stock.setXiaodanNetInflow(rs.getDouble("xiaodan_net_inflow"));
+                int symbol = symbols.idOf(stock.getCode());
+                ensureCapacity(symbol + 1);
+                update(symbol, stock.getCurrentPrice(), rs.getTimestamp("create_time").getTime());
+                Ma5Breakout breakout = breakout(symbol, stock, stock.getTotalNetInflow());
+                if (breakout != null) {
+                    breakouts.add(breakout);
+                }
+            }
+        } catch (SQLException e) {
+            log.error("载入均线数据失败: {}", e.getMessage());
+        } finally {
+            DBUtils.close(conn, ps, rs);
+        }
+        log.info("均线数据载入完成, 共 {} 个收盘价, 当前突破五日线 {} 支", closeCount, breakouts.size());
+        return breakouts;
+    }
+
+    /**
+     * 跨日时把前一天最后一轮的价格作为收盘价，并清空当日的突破状态
+     * 前一天没有交易（没有数据，或者价格全部与最近的收盘价相同）时不追加收盘价
+     */
+    public void rollover(LocalDate today) {
+        if (today.equals(tradeDate)) {
+            return;
+        }
+        if (traded()) {
+            for (int symbol = 0; symbol < lastPrices.length; symbol++) {
+                if (!Double.isNaN(lastPrices[symbol])) {
+                    addDailyClose(symbol, lastPrices[symbol]);
+                }
+            }
+        }
+        Arrays.fill(lastPrices, Double.NaN);
+        Arrays.fill(crossTimes, 0);
+        tradeDate = today;
+    }
+
+    /**
+     * 追加一个交易日的收盘价，并按收盘价与当日五日线的关系设置初始位置
+     */
+    public void addDailyClose(int symbol, double close) {
+        if (symbol >= lastPrices.length) {
+            ensureCapacity(symbol + 1);
+        }
+        if (!(close > 0)) {
+            return;
+        }
+        int base = symbol * DAYS;
+        closes[base + closeHeads[symbol]] = close;
+        closeHeads[symbol] = (closeHeads[symbol] + 1) % DAYS;
+        if (closeCounts[symbol] < DAYS) {
+            closeCounts[symbol]++;
+        }
+        for (int p = 0; p < PERIODS.length; p++) {
+            closeSums[p][symbol] = sumOfLast(symbol, PERIODS[p] - 1);
+        }
+        // 收盘价与包含它在内的五日均价比较
+        if (closeCounts[symbol] >= PERIODS[MA5]) {
+            double closeMa5 = sumOfLast(symbol, PERIODS[MA5]) / PERIODS[MA5];
+            positions[symbol] = close > closeMa5 ? ABOVE : BELOW;
+        } else {
+            positions[symbol] = UNKNOWN;
+        }
+    }
+
+    /**
+     * 用本轮价格更新均线状态
+     * @return 本轮是否向上突破五日线
+     */
+    public boolean update(int symbol, double price, long timestamp) {
+        if (!(price > 0)) {
+            return false;
+        }
+        lastPrices[symbol] = price;
+        double ma5 = ma(MA5, symbol);
+        if (Double.isNaN(ma5)) {
+            positions[symbol] = UNKNOWN;
+            return false;
+        }
+        byte position = price > ma5 ? ABOVE : BELOW;
+        boolean crossed = positions[symbol] == BELOW && position == ABOVE;
+        if (crossed) {
+            crossTimes[symbol] = timestamp;
+        }
+        positions[symbol] = position;
+        return crossed;
+    }
+
+    /**
+     * 以最新价格计算的均线，历史收盘价不足时返回 NaN
+     * @param kind MA5、MA10、MA20 之一
+     */
+    public double ma(int kind, int symbol) {
+        int period = PERIODS[kind];
+        if (symbol >= lastPrices.length || closeCounts[symbol] < period - 1 || Double.isNaN(lastPrices[symbol])) {
+            return Double.NaN;
+        }
+        return (closeSums[kind][symbol] + lastPrices[symbol]) / period;
+    }
+
+    public boolean isAbove(int symbol) {
+        return symbol < positions.length && positions[symbol] == ABOVE;
+    }
+
+    /**
+     * 当日最近一次上穿五日线的时间，没有上穿过返回 0
+     */
+    public long crossTime(int symbol) {
+        return symbol < crossTimes.length ? crossTimes[symbol] : 0;
+    }
+
+    /**
+     * 当日上穿过五日线且当前仍在其上方时返回突破记录，否则返回 null
+     */
+    public Ma5Breakout breakout(int symbol, SingleStock stock, double totalNetInflow) {
+        if (!isAbove(symbol) || crossTime(symbol) == 0) {
+            return null;
+        }
+        return new Ma5Breakout(stock.getCode(), stock.getName(), stock.getCurrentPrice(), stock.getChangePercent(),
+                ma(MA5, symbol), ma(MA10, symbol), ma(MA20, symbol),
+                totalNetInflow, stock.getZhuliNetInflow(), stock.getChaodadanNetInflow(),
+                stock.getBigdanNetInflow() + stock.getZhongdanNetInflow() + stock.getXiaodanNetInflow(),
+                crossTime(symbol));
+    }
+
+    /**
+     * 预先分配到指定股票数，并行更新前调用，保证更新过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= lastPrices.length) {
+            return;
+        }
+        int oldSize = lastPrices.length;
+        int newSize = Math.max(symbolCount, oldSize * 2);
+        closes = Arrays.copyOf(closes, newSize * DAYS);
+        closeCounts = Arrays.copyOf(closeCounts, newSize);
+        closeHeads = Arrays.copyOf(closeHeads, newSize);
+        for (int p = 0; p < PERIODS.length; p++) {
+            closeSums[p] = Arrays.copyOf(closeSums[p], newSize);
+        }
+        lastPrices = Arrays.copyOf(lastPrices, newSize);
+        Arrays.fill(lastPrices, oldSize, newSize, Double.NaN);
+        positions = Arrays.copyOf(positions, newSize);
+        crossTimes = Arrays.copyOf(crossTimes, newSize);
+    }
+
+    public void writeState(StateWriter out, int symbolCount) throws IOException {
+        ensureCapacity(symbolCount);
+        out.writeLong(tradeDate.toEpochDay());
+        out.writeInt(symbolCount);
+        out.writeDoubles(closes, symbolCount * DAYS);
+        out.writeInts(closeCounts, symbolCount);
+        out.writeInts(closeHeads, symbolCount);
+        for (double[] sums : closeSums) {
+            out.writeDoubles(sums, symbolCount);
+        }
+        out.writeDoubles(lastPrices, symbolCount);
+        out.writeBytes(positions, symbolCount);
+        out.writeLongs(crossTimes, symbolCount);
+    }
+
+    public void readState(StateReader in) throws IOException {
+        tradeDate = LocalDate.ofEpochDay(in.readLong());
+        int symbolCount = in.readInt();
+        ensureCapacity(symbolCount);
+        clear();
+        in.readDoubles(closes, symbolCount * DAYS);
+        in.readInts(closeCounts, symbolCount);
+        in.readInts(closeHeads, symbolCount);
+        for (double[] sums : closeSums) {
+            in.readDoubles(sums, symbolCount);
+        }
+        in.readDoubles(lastPrices, symbolCount);
+        in.readBytes(positions, symbolCount);
+        in.readLongs(crossTimes, symbolCount);
+    }
+
+    /**
+     * 当天是否有股票的价格与其最近的收盘价不同，还没有收盘价的股票有价格即算
+     */
+    private boolean traded() {
+        for (int symbol = 0; symbol < lastPrices.length; symbol++) {
+            double price = lastPrices[symbol];
+            if (Double.isNaN(price)) {
+                continue;
+            }
+            if (closeCounts[symbol] == 0 || price != closes[symbol * DAYS + (closeHeads[symbol] - 1 + DAYS) % DAYS]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double sumOfLast(int symbol, int count) {
+        int n = Math.min(count, closeCounts[symbol]);
+        int base = symbol * DAYS;
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += closes[base + (closeHeads[symbol] - i + DAYS) % DAYS];
+        }
+        return sum;
+    }
+
+    private void clear() {
+        Arrays.fill(closeCounts, 0);
+        Arrays.fill(closeHeads, 0);
+        for (double[] sums : closeSums) {
+            Arrays.fill(sums, 0);
+        }
+        Arrays.fill(lastPrices, Double.NaN);
+        Arrays.fill(positions, UNKNOWN);
+        Arrays.fill(crossTimes, 0);
+    }
+}
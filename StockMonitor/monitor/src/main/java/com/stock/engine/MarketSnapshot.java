@@ -0,0 +1,246 @@
+package com.stock.engine;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 一轮采样的全市场快照
+ * <p>
+ * 按 {@link com.stock.store.SymbolIndex} 下标存放，每个字段一个原始类型数组；
+ * 本轮没有出现的股票 present 为 false。
+ * 由 {@link Builder} 在计算过程中填充，build 之后不再修改，可以被任意线程同时读取。
+ */
+public final class MarketSnapshot {
+
+    // 五类订单的净流入
+    public static final int ZHULI = 0;
+    public static final int CHAODADAN = 1;
+    public static final int BIGDAN = 2;
+    public static final int ZHONGDAN = 3;
+    public static final int XIAODAN = 4;
+    public static final int FLOW_KINDS = 5;
+
+    static final MarketSnapshot EMPTY = new Builder(0, 0, 0).build();
+
+    private final long sequence;
+    private final long timestamp;
+    private final int symbolCount;
+    private final int presentCount;
+    private final boolean[] present;
+    private final String[] codes;
+    private final String[] names;
+    private final double[] prices;
+    private final double[] changePercents;
+    private final double[] inflows;
+    private final double[] outflows;
+    private final double[] volumes;
+    private final double[][] flows;
+
+    private MarketSnapshot(Builder builder) {
+        this.sequence = builder.sequence;
+        this.timestamp = builder.timestamp;
+        this.symbolCount = builder.present.length;
+        this.present = builder.present;
+        this.codes = builder.codes;
+        this.names = builder.names;
+        this.prices = builder.prices;
+        this.changePercents = builder.changePercents;
+        this.inflows = builder.inflows;
+        this.outflows = builder.outflows;
+        this.volumes = builder.volumes;
+        this.flows = builder.flows;
+        int count = 0;
+        for (boolean p : present) {
+            if (p) {
+                count++;
+            }
+        }
+        this.presentCount = count;
+    }
+
+    /**
+     * 采样轮次，每轮递增
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 采样时间（毫秒）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 数组长度，即构建时已分配下标的股票数
+     */
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * 本轮出现的股票数
+     */
+    public int getPresentCount() {
+        return presentCount;
+    }
+
+    public boolean isPresent(int symbol) {
+        return symbol < symbolCount && present[symbol];
+    }
+
+    public String code(int symbol) {
+        return codes[symbol];
+    }
+
+    public String name(int symbol) {
+        return names[symbol];
+    }
+
+    public double price(int symbol) {
+        return prices[symbol];
+    }
+
+    public double changePercent(int symbol) {
+        return changePercents[symbol];
+    }
+
+    /**
+     * 各类订单净流入中正值部分之和
+     */
+    public double inflow(int symbol) {
+        return inflows[symbol];
+    }
+
+    /**
+     * 各类订单净流入中负值部分的绝对值之和
+     */
+    public double outflow(int symbol) {
+        return outflows[symbol];
+    }
+
+    /**
+     * 资金成交额，流入与流出之和
+     */
+    public double volume(int symbol) {
+        return volumes[symbol];
+    }
+
+    /**
+     * @param kind ZHULI、CHAODADAN、BIGDAN、ZHONGDAN、XIAODAN 之一
+     */
+    public double flow(int kind, int symbol) {
+        return flows[kind][symbol];
+    }
+
+    public void writeState(StateWriter out) throws IOException {
+        out.writeLong(sequence);
+        out.writeLong(timestamp);
+        out.writeInt(symbolCount);
+        byte[] flags = new byte[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            flags[i] = (byte) (present[i] ? 1 : 0);
+        }
+        out.writeBytes(flags, symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            out.writeString(codes[i]);
+            out.writeString(names[i]);
+        }
+        out.writeDoubles(prices, symbolCount);
+        out.writeDoubles(changePercents, symbolCount);
+        out.writeDoubles(inflows, symbolCount);
+        out.writeDoubles(outflows, symbolCount);
+        out.writeDoubles(volumes, symbolCount);
+        for (double[] flow : flows) {
+            out.writeDoubles(flow, symbolCount);
+        }
+    }
+
+    public static MarketSnapshot readState(StateReader in) throws IOException {
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        int symbolCount = in.readInt();
+        Builder builder = new Builder(sequence, timestamp, symbolCount);
+        byte[] flags = new byte[symbolCount];
+        in.readBytes(flags, symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            builder.present[i] = flags[i] != 0;
+            builder.codes[i] = in.readString();
+            builder.names[i] = in.readString();
+        }
+        in.readDoubles(builder.prices, symbolCount);
+        in.readDoubles(builder.changePercents, symbolCount);
+        in.readDoubles(builder.inflows, symbolCount);
+        in.readDoubles(builder.outflows, symbolCount);
+        in.readDoubles(builder.volumes, symbolCount);
+        for (double[] flow : builder.flows) {
+            in.readDoubles(flow, symbolCount);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 快照的构建器
+     * <p>
+     * 不同线程可以同时写入不同下标，全部写完并 join 之后再调用 build。
+     */
+    public static final class Builder {
+        private final long sequence;
+        private final long timestamp;
+        private final boolean[] present;
+        private final String[] codes;
+        private final String[] names;
+        private final double[] prices;
+        private final double[] changePercents;
+        private final double[] inflows;
+        private final double[] outflows;
+        private final double[] volumes;
+        private final double[][] flows;
+        private boolean built;
+
+        public Builder(long sequence, long timestamp, int symbolCount) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.present = new boolean[symbolCount];
+            this.codes = new String[symbolCount];
+            this.names = new String[symbolCount];
+            this.prices = new double[symbolCount];
+            this.changePercents = new double[symbolCount];
+            this.inflows = new double[symbolCount];
+            this.outflows = new double[symbolCount];
+            this.volumes = new double[symbolCount];
+            this.flows = new double[FLOW_KINDS][symbolCount];
+            Arrays.fill(prices, Double.NaN);
+        }
+
+        public Builder set(int symbol, String code, String name, double price, double changePercent,
+                           double inflow, double outflow, double volume) {
+            present[symbol] = true;
+            codes[symbol] = code;
+            names[symbol] = name;
+            prices[symbol] = price;
+            changePercents[symbol] = changePercent;
+            inflows[symbol] = inflow;
+            outflows[symbol] = outflow;
+            volumes[symbol] = volume;
+            return this;
+        }
+
+        public Builder flow(int kind, int symbol, double value) {
+            flows[kind][symbol] = value;
+            return this;
+        }
+
+        public MarketSnapshot build() {
+            if (built) {
+                throw new IllegalStateException("快照已经构建过");
+            }
+            built = true;
+            return new MarketSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.stock.engine;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 上一轮与本轮快照的双缓冲
+ * <p>
+ * 两个快照放在同一个不可变的 {@link Frame} 里，发布新快照时整体替换，
+ * 读取方一次拿到的 previous/current 一定是相邻的两轮，不会看到一半新一半旧的状态。
+ * 快照本身不可变，替换下来的旧快照不会被复用，仍在读取它的线程不受影响。
+ */
+public class SnapshotBuffer {
+
+    private final AtomicReference<Frame> frame =
+            new AtomicReference<>(new Frame(MarketSnapshot.EMPTY, MarketSnapshot.EMPTY));
+
+    /**
+     * 发布新一轮快照，原来的本轮快照成为上一轮
+     * @return 发布后的 frame
+     */
+    public Frame publish(MarketSnapshot next) {
+        Frame current = frame.get();
+        Frame updated = new Frame(current.current, next);
+        // 只有计算线程发布，这里用 set 即可；需要多个发布方时改为 CAS 循环
+        frame.set(updated);
+        return updated;
+    }
+
+    public Frame frame() {
+        return frame.get();
+    }
+
+    public MarketSnapshot current() {
+        return frame.get().current;
+    }
+
+    public MarketSnapshot previous() {
+        return frame.get().previous;
+    }
+
+    /**
+     * 相邻两轮快照
+     */
+    public static final class Frame {
+        private final MarketSnapshot previous;
+        private final MarketSnapshot current;
+
+        Frame(MarketSnapshot previous, MarketSnapshot current) {
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public MarketSnapshot getPrevious() {
+            return previous;
+        }
+
+        public MarketSnapshot getCurrent() {
+            return current;
+        }
+    }
+}
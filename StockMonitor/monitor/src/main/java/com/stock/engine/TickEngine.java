@@ -0,0 +1,736 @@
+package com.stock.engine;
+
+import com.stock.calc.FlowHistoryIndex;
+import com.stock.calc.IndicatorEngine;
+import com.stock.calc.IntradayFlowAccumulator;
+import com.stock.calc.MovingAverageEngine;
+import com.stock.rank.RankView;
+import com.stock.rank.Ranker;
+import com.stock.rank.Ranking;
+import com.stock.score.DownTrendScorer;
+import com.stock.score.MomentumScorer;
+import com.stock.score.ScoreInputs;
+import com.stock.score.ScoreModel;
+import com.stock.score.ScoreTable;
+import com.stock.score.ScoringConfig;
+import com.stock.score.TechnicalScorer;
+import com.stock.score.UpTrendScorer;
+import com.stock.store.SeriesStore;
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import com.stock.store.SymbolIndex;
+import com.stock.vo.Ma5Breakout;
+import com.stock.vo.SingleStock;
+import com.stock.vo.StockSpeed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 每轮采样的计算流水线
+ * <p>
+ * 所有按股票保存的状态（历史序列、技术指标、日均线、当日累计、按日和时段汇总的资金）都放在以
+ * {@link SymbolIndex} 下标定位的数组里，计算过程中不再按代码查找。股票名称和市场也只在字典里存一份。
+ * 字典可以用 {@link #saveSymbols} 单独保存，重启时先用 {@link #loadSymbols} 载入，同一代码始终对应同一下标。
+ * 每轮计算分三步：
+ * <ol>
+ * <li>单线程预处理：分配股票下标并更新字典中的名称和市场、预先扩容所有数组，并按下标区间把股票分到各分片</li>
+ * <li>各分片在 ForkJoinPool 中并行填充本轮 {@link MarketSnapshot}，与上一轮快照比较得到资金速度，
+ * 把评分输入填入 {@link ScoreInputs}，再对自己的下标区间批量运行全部评分模型并生成 StockSpeed。
+ * 每个分片只读写自己区间内的数组元素，因此不需要加锁</li>
+ * <li>合并各分片结果，由 {@link Ranker} 一次遍历计算已订阅的各排名视图的前 K 名，
+ * 并通过 {@link SnapshotBuffer} 发布本轮快照</li>
+ * </ol>
+ * 分片按连续的下标区间划分而不是取模，相邻股票的数据由同一个线程写入，避免伪共享。
+ * <p>
+ * {@link #process} 本身不可重入，需由同一个调度线程依次调用。
+ * <p>
+ * 以上状态可以通过 {@link #checkpoint} 写入检查点文件，重启时用 {@link #restore} 载入，
+ * 不必再从数据库重新计算。
+ */
+@Slf4j
+public class TickEngine {
+
+    // 历史数据：价格、成交量以及技术指标历史
+    private static final int HISTORY_SIZE = 100; // 保存100个历史数据点
+    private static final int PRICE = 0;
+    private static final int VOLUME = 1;
+    private static final int MACD = 2;
+    private static final int RSI = 3;
+    private static final int KDJ = 4;
+
+    // 分钟数据：一个分析周期内的采样
+    private static final int ANALYSIS_PERIOD = 60;  // 分析周期（秒）
+    private static final int MINUTE_PRICE = 0;
+    private static final int MINUTE_INFLOW = 1;
+    private static final int MINUTE_OUTFLOW = 2;
+    private static final int MINUTE_VOLUME = 3;
+
+    // 检查点文件头，状态布局变化时递增版本号，旧文件直接放弃
+    private static final int CHECKPOINT_MAGIC = 0x534D434B;
+    private static final int CHECKPOINT_VERSION = 4;
+
+    // 上涨趋势评分使用的近几日资金流向的天数
+    private static final int HISTORY_DAYS = 5;
+
+    private final int sampleInterval;
+    private final int shards;
+    private final ForkJoinPool pool;
+
+    private final SymbolIndex symbolIndex = new SymbolIndex();
+    private final SeriesStore historyStore;
+    private final SeriesStore minuteStore;
+    private final IndicatorEngine indicatorEngine = new IndicatorEngine();
+    private final IntradayFlowAccumulator intradayFlow = new IntradayFlowAccumulator();
+    private final MovingAverageEngine movingAverages = new MovingAverageEngine();
+    private final FlowHistoryIndex flowHistory = new FlowHistoryIndex();
+    private final ScoreInputs scoreInputs = new ScoreInputs();
+    private final Ranker ranker = new Ranker();
+
+    // 评分模型，每轮开始时检查配置文件是否有变化
+    private volatile ScoringConfig scoring = ScoringConfig.defaults();
+
+    // 上一轮和本轮的快照，速度由两者相减得到
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    private long tick;
+
+    // 当前突破五日线的股票，按代码排序，每轮整体替换
+    private volatile List<Ma5Breakout> ma5Breakouts = Collections.emptyList();
+
+    /**
+     * @param sampleInterval 采样间隔（秒），用于换算速度
+     * @param parallelism    并行线程数，为 1 时在调用线程内顺序计算
+     */
+    public TickEngine(int sampleInterval, int parallelism) {
+        this.sampleInterval = sampleInterval;
+        this.shards = Math.max(1, parallelism);
+        this.pool = shards > 1 ? new ForkJoinPool(shards) : null;
+        this.historyStore = new SeriesStore(symbolIndex, 5, HISTORY_SIZE);
+        this.minuteStore = new SeriesStore(symbolIndex, 4, ANALYSIS_PERIOD / sampleInterval);
+    }
+
+    /**
+     * 从数据库载入当日累计资金数据，需在第一次 {@link #process} 之前调用
+     */
+    public void seedIntradayFlow() {
+        intradayFlow.seed(symbolIndex);
+    }
+
+    /**
+     * 从日线载入之前各交易日的资金数据，需在第一次 {@link #process} 之前调用
+     * 之后每天由 {@link #rollover} 自动把前一天记入，不需要再次载入
+     */
+    public void seedFlowHistory() {
+        flowHistory.seed(symbolIndex);
+    }
+
+    /**
+     * 从数据库载入日收盘价和当天最新数据，需在第一次 {@link #process} 之前调用
+     */
+    public void seedMovingAverages() {
+        List<Ma5Breakout> breakouts = movingAverages.seed(symbolIndex);
+        breakouts.sort((a, b) -> a.getCode().compareTo(b.getCode()));
+        ma5Breakouts = Collections.unmodifiableList(breakouts);
+    }
+
+    /**
+     * 跨日时清空当日累计数据，把前一天的最后价格计入日收盘价，最后的累计资金计入按日汇总
+     * 前一天休市（行情与上一交易日相同）时不计入日收盘价和按日汇总
+     */
+    public void rollover(LocalDate today) {
+        intradayFlow.rollover(today);
+        movingAverages.rollover(today);
+        flowHistory.rollover(today);
+    }
+
+    /**
+     * 当日累计数据所属的交易日
+     */
+    public LocalDate getTradeDate() {
+        return intradayFlow.getTradeDate();
+    }
+
+    /**
+     * 最近一轮的突破五日线股票，可在任意线程读取
+     */
+    public List<Ma5Breakout> getMa5Breakouts() {
+        return ma5Breakouts;
+    }
+
+    /**
+     * 载入股票字典，需在 {@link #restore} 和第一次 {@link #process} 之前调用
+     * @return 载入的股票数，文件不存在时返回 -1
+     * @throws IOException 文件损坏或版本不一致
+     */
+    public int loadSymbols(Path file) throws IOException {
+        return symbolIndex.load(file);
+    }
+
+    /**
+     * 字典有新增股票或名称、市场变化时保存，需在调度线程的两轮计算之间或调度停止后调用
+     * @return 是否写入了文件
+     */
+    public boolean saveSymbols(Path file) throws IOException {
+        if (!symbolIndex.isDirty()) {
+            return false;
+        }
+        symbolIndex.save(file);
+        log.info("股票字典已保存: {} 只股票", symbolIndex.size());
+        return true;
+    }
+
+    /**
+     * 股票字典，只能在调度线程上读取
+     */
+    public SymbolIndex symbols() {
+        return symbolIndex;
+    }
+
+    /**
+     * 按交易日和时段汇总的资金，只能在调度线程上读取
+     */
+    public FlowHistoryIndex flowHistory() {
+        return flowHistory;
+    }
+
+    /**
+     * 更换评分模型配置，从下一轮开始生效
+     */
+    public void setScoring(ScoringConfig scoring) {
+        this.scoring = scoring;
+    }
+
+    /**
+     * 订阅排名视图的前 k 名，从下一轮开始出现在 {@link TickResult#getRanking} 中
+     * 可在任意线程调用，同一视图被多次订阅时取最大的 k
+     */
+    public void subscribe(RankView view, int k) {
+        ranker.subscribe(view, k);
+    }
+
+    /**
+     * 最近发布的相邻两轮快照，可在任意线程读取
+     */
+    public SnapshotBuffer.Frame snapshots() {
+        return snapshots.frame();
+    }
+
+    public int getParallelism() {
+        return shards;
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 把全部热状态写入检查点文件
+     * 先写同目录下的临时文件再原子替换，写到一半退出不会破坏上一个检查点。
+     * 不能与 {@link #process} 同时执行，需在调度线程的两轮计算之间或调度停止后调用
+     * @return 检查点时间（毫秒）
+     */
+    public long checkpoint(Path file) throws IOException {
+        long start = System.nanoTime();
+        long savedAt = System.currentTimeMillis();
+        int symbolCount = symbolIndex.size();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (StateWriter out = new StateWriter(tmp)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(savedAt);
+            out.writeInt(sampleInterval);
+            out.writeLong(tick);
+            symbolIndex.writeState(out);
+            historyStore.writeState(out, symbolCount);
+            minuteStore.writeState(out, symbolCount);
+            indicatorEngine.writeState(out, symbolCount);
+            intradayFlow.writeState(out, symbolCount);
+            movingAverages.writeState(out, symbolCount);
+            snapshots.current().writeState(out);
+            flowHistory.writeState(out, symbolCount);
+            out.finish();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("检查点已保存: {} 只股票, 耗时 {} ms", symbolCount, (System.nanoTime() - start) / 1_000_000);
+        return savedAt;
+    }
+
+    /**
+     * 从检查点文件恢复热状态，需在第一次 {@link #process} 之前调用
+     * 文件头和校验和在修改任何状态之前检查，不通过时状态保持不变
+     * @return 检查点时间（毫秒），文件不存在时返回 -1
+     * @throws IOException 文件损坏、版本或采样间隔不一致
+     */
+    public long restore(Path file) throws IOException {
+        long start = System.nanoTime();
+        StateReader in;
+        try {
+            in = new StateReader(file);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        if (in.readInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("不是检查点文件: " + file);
+        }
+        int version = in.readInt();
+        if (version != CHECKPOINT_VERSION) {
+            throw new IOException("检查点版本不一致: " + version);
+        }
+        long savedAt = in.readLong();
+        int interval = in.readInt();
+        if (interval != sampleInterval) {
+            throw new IOException("检查点采样间隔不一致: " + interval + " 秒");
+        }
+        long savedTick = in.readLong();
+        // 与已载入的字典不一致时在这里失败，状态保持不变
+        symbolIndex.readState(in);
+        tick = savedTick;
+        historyStore.readState(in);
+        minuteStore.readState(in);
+        indicatorEngine.readState(in);
+        intradayFlow.readState(in);
+        movingAverages.readState(in);
+        ensureCapacity(symbolIndex.size());
+        MarketSnapshot snapshot = MarketSnapshot.readState(in);
+        flowHistory.readState(in);
+        snapshots.publish(snapshot);
+        ma5Breakouts = breakoutsOf(snapshot);
+        log.info("已从检查点恢复: {} 只股票, 耗时 {} ms", symbolIndex.size(), (System.nanoTime() - start) / 1_000_000);
+        return savedAt;
+    }
+
+    /**
+     * 计算一轮采样
+     * 与上一轮都出现的股票才计算速度和评分，并作为入库数据返回
+     */
+    public TickResult process(List<SingleStock> stocks) {
+        return process(stocks, System.currentTimeMillis());
+    }
+
+    /**
+     * 按指定的采样时间计算一轮，重放历史数据时传入记录的时间，结果与实时计算时一致
+     * @param now 本轮采样时间（毫秒），用作快照时间和均线突破时间
+     */
+    public TickResult process(List<SingleStock> stocks, long now) {
+        long start = System.nanoTime();
+        tick++;
+        int n = stocks.size();
+        // 本轮所有分片使用同一组模型
+        ScoringConfig config = scoring;
+        config.refresh();
+        ScoreModel[] models = config.models();
+
+        // 1. 分配下标、更新字典并预先扩容，之后并行阶段不会再改变任何数组引用
+        int[] symbols = new int[n];
+        for (int i = 0; i < n; i++) {
+            SingleStock stock = stocks.get(i);
+            symbols[i] = symbolIndex.define(stock.getCode(), stock.getName(), stock.getMarket());
+        }
+        int slot = FlowHistoryIndex.slotOf(Instant.ofEpochMilli(now).atZone(ZoneId.systemDefault()).toLocalTime());
+        int symbolCount = symbolIndex.size();
+        ensureCapacity(symbolCount);
+        MarketSnapshot previous = snapshots.current();
+        MarketSnapshot.Builder builder = new MarketSnapshot.Builder(tick, now, symbolCount);
+        if (n == 0) {
+            MarketSnapshot snapshot = builder.build();
+            snapshots.publish(snapshot);
+            return new TickResult(Collections.emptyList(), Collections.emptyList(), stocks, ma5Breakouts,
+                    snapshot, ScoreTable.empty(), Ranking.empty(), System.nanoTime() - start);
+        }
+
+        // 按下标区间分片
+        int block = (symbolCount + shards - 1) / shards;
+        int[] shardSizes = new int[shards];
+        for (int i = 0; i < n; i++) {
+            shardSizes[symbols[i] / block]++;
+        }
+        int[][] members = new int[shards][];
+        for (int s = 0; s < shards; s++) {
+            members[s] = new int[shardSizes[s]];
+            shardSizes[s] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int s = symbols[i] / block;
+            members[s][shardSizes[s]++] = i;
+        }
+
+        // 2. 各分片并行计算
+        ScoreTable scores = new ScoreTable(models, symbolCount);
+        ShardResult[] results = new ShardResult[shards];
+        if (pool == null) {
+            results[0] = computeShard(stocks, symbols, members[0], 0, symbolCount,
+                    slot, previous, builder, scores, now);
+        } else {
+            List<ForkJoinTask<ShardResult>> tasks = new ArrayList<>(shards);
+            for (int s = 0; s < shards; s++) {
+                int[] shardMembers = members[s];
+                int from = Math.min(s * block, symbolCount);
+                int to = Math.min(from + block, symbolCount);
+                tasks.add(pool.submit(() -> computeShard(stocks, symbols, shardMembers, from, to,
+                        slot, previous, builder, scores, now)));
+            }
+            for (int s = 0; s < shards; s++) {
+                results[s] = tasks.get(s).join();
+            }
+        }
+
+        // 3. 各分片都已结束，快照可以构建并发布
+        MarketSnapshot snapshot = builder.build();
+        snapshots.publish(snapshot);
+
+        // 合并各分片结果并计算排名
+        int speedCount = 0;
+        int rowCount = 0;
+        int breakoutCount = 0;
+        for (ShardResult result : results) {
+            speedCount += result.speeds.size();
+            rowCount += result.rows.size();
+            breakoutCount += result.breakouts.size();
+        }
+        List<StockSpeed> speeds = new ArrayList<>(speedCount);
+        List<SingleStock> rows = new ArrayList<>(rowCount);
+        List<Ma5Breakout> breakouts = new ArrayList<>(breakoutCount);
+        for (ShardResult result : results) {
+            speeds.addAll(result.speeds);
+            rows.addAll(result.rows);
+            breakouts.addAll(result.breakouts);
+        }
+        Ranking ranking = ranker.rank(speeds);
+        breakouts.sort((a, b) -> a.getCode().compareTo(b.getCode()));
+        ma5Breakouts = Collections.unmodifiableList(breakouts);
+
+        return new TickResult(speeds, rows, stocks, ma5Breakouts, snapshot, scores, ranking,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * 计算一个分片：先逐只股票更新状态并填充评分输入，再对分片的下标区间 [from, to) 批量评分，
+     * 最后把默认模型的得分写回 StockSpeed
+     */
+    private ShardResult computeShard(List<SingleStock> stocks, int[] symbols, int[] shardMembers, int from, int to,
+                                     int slot, MarketSnapshot previous,
+                                     MarketSnapshot.Builder builder, ScoreTable scores, long now) {
+        ShardResult result = new ShardResult(shardMembers.length);
+        for (int index : shardMembers) {
+            computeStock(stocks.get(index), symbols[index], slot, previous, builder, scores, now, result);
+        }
+
+        scores.compute(scoreInputs, from, to);
+        double[] upTrend = defaultColumn(scores, UpTrendScorer.NAME);
+        double[] downTrend = defaultColumn(scores, DownTrendScorer.NAME);
+        double[] momentum = defaultColumn(scores, MomentumScorer.NAME);
+        double[] technical = defaultColumn(scores, TechnicalScorer.NAME);
+        for (int i = 0; i < result.speeds.size(); i++) {
+            StockSpeed speed = result.speeds.get(i);
+            int symbol = result.speedSymbols[i];
+            speed.setRankUpTrendScore(upTrend == null ? 0 : upTrend[symbol]);
+            speed.setRankDownTrendScore(downTrend == null ? 0 : downTrend[symbol]);
+            speed.setMomentumScore(momentum == null ? 0 : momentum[symbol]);
+            speed.setMacd(technical == null ? 0 : technical[symbol]);
+        }
+        return result;
+    }
+
+    private static double[] defaultColumn(ScoreTable scores, String scorer) {
+        return scores.getModelCount() == 0 ? null : scores.column(0, scorer);
+    }
+
+    private void computeStock(SingleStock singleStock, int symbol, int slot,
+                              MarketSnapshot previous, MarketSnapshot.Builder builder, ScoreTable scores,
+                              long now, ShardResult result) {
+        // 计算总流入金额
+        double totalInflow = Math.max(singleStock.getZhuliNetInflow(), 0) +
+                Math.max(singleStock.getChaodadanNetInflow(), 0) +
+                Math.max(singleStock.getBigdanNetInflow(), 0) +
+                Math.max(singleStock.getZhongdanNetInflow(), 0) +
+                Math.max(singleStock.getXiaodanNetInflow(), 0);
+
+        // 计算总流出金额
+        double totalOutflow = Math.abs(Math.min(singleStock.getZhuliNetInflow(), 0)) +
+                Math.abs(Math.min(singleStock.getChaodadanNetInflow(), 0)) +
+                Math.abs(Math.min(singleStock.getBigdanNetInflow(), 0)) +
+                Math.abs(Math.min(singleStock.getZhongdanNetInflow(), 0)) +
+                Math.abs(Math.min(singleStock.getXiaodanNetInflow(), 0));
+
+        // 计算总成交量
+        double volume = totalInflow + totalOutflow;
+        // 名称取字典中保存的那一份
+        String name = symbolIndex.nameOf(symbol);
+
+        // 写入本轮快照
+        builder.set(symbol, singleStock.getCode(), name, singleStock.getCurrentPrice(),
+                        singleStock.getChangePercent(), totalInflow, totalOutflow, volume)
+                .flow(MarketSnapshot.ZHULI, symbol, singleStock.getZhuliNetInflow())
+                .flow(MarketSnapshot.CHAODADAN, symbol, singleStock.getChaodadanNetInflow())
+                .flow(MarketSnapshot.BIGDAN, symbol, singleStock.getBigdanNetInflow())
+                .flow(MarketSnapshot.ZHONGDAN, symbol, singleStock.getZhongdanNetInflow())
+                .flow(MarketSnapshot.XIAODAN, symbol, singleStock.getXiaodanNetInflow());
+
+        // 记录到当天的时段汇总
+        flowHistory.record(symbol, slot, totalInflow, totalOutflow);
+
+        // 更新日均线，当日上穿过五日线且仍在其上方的股票列入突破列表
+        movingAverages.update(symbol, singleStock.getCurrentPrice(), now);
+        Ma5Breakout breakout = movingAverages.breakout(symbol, singleStock, totalInflow - totalOutflow);
+        if (breakout != null) {
+            result.breakouts.add(breakout);
+        }
+
+        // 只有上一轮也出现过的股票才能计算速度
+        if (!previous.isPresent(symbol)) {
+            return;
+        }
+        double inflowDiff = totalInflow - previous.inflow(symbol);
+        double outflowDiff = totalOutflow - previous.outflow(symbol);
+        double volumeDiff = volume - previous.volume(symbol);
+
+        // 计算速度（万元/秒）
+        double inSpeed = inflowDiff / sampleInterval;
+        double outSpeed = outflowDiff / sampleInterval;
+        double volumeSpeed = volumeDiff / sampleInterval;
+
+        // 更新分钟数据
+        updateMinuteData(symbol, singleStock.getCurrentPrice(), totalInflow, totalOutflow, volume);
+
+        // 填充评分输入，得分在分片结束时批量计算
+        scoreInputs.setFlow(symbol, inSpeed, outSpeed, volumeSpeed,
+                intradayFlow.getInflow(symbol), intradayFlow.getOutflow(symbol),
+                flowHistory.dayInflow(symbol, HISTORY_DAYS), flowHistory.dayOutflow(symbol, HISTORY_DAYS));
+        scoreInputs.setQuote(symbol, singleStock.getChangePercent(),
+                singleStock.getZhuliNetInflowPercent(), singleStock.getChaodadanNetInflowPercent());
+        scoreInputs.setTechnical(symbol, false, 0, 0, 0, 0, 0, 0);
+        scores.markScored(symbol);
+
+        // 添加到结果列表
+        if (Math.abs(inSpeed) > 0 || Math.abs(outSpeed) > 0) {
+            StockSpeed speedResult = new StockSpeed(
+                    singleStock.getCode(),
+                    name,
+                    inSpeed,
+                    outSpeed,
+                    singleStock.getChange(),
+                    singleStock.getChangePercent(),
+                    volumeSpeed,
+                    0,
+                    0
+            );
+            speedResult.setCurrentPrice(singleStock.getCurrentPrice());
+            speedResult.setNetSpeed(inSpeed - outSpeed);
+            speedResult.setZhuliNetInflow(singleStock.getZhuliNetInflow());
+            speedResult.setZhuliNetInflowPercent(singleStock.getZhuliNetInflowPercent());
+            speedResult.setBigOrderNetInflow(singleStock.getBigdanNetInflow());
+            speedResult.setBigOrderNetInflowPercent(singleStock.getBigdanNetInflowPercent());
+            speedResult.setVolume(volume);
+            speedResult.setTurnoverRate(volume / (singleStock.getCurrentPrice() * 100));
+            speedResult.setAvgPrice(singleStock.getCurrentPrice());
+            updateTechnicalInputs(symbol, singleStock.getCurrentPrice(), volume);
+            speedResult.setRsi(indicatorEngine.rsi(symbol));
+            speedResult.setKdj(indicatorEngine.kdj(symbol));
+            result.addSpeed(speedResult, symbol);
+        }
+
+        // 收集本轮需要入库的数据，并累加到当日资金流向
+        result.rows.add(toPersistRow(singleStock, totalInflow, totalOutflow,
+                previous.inflow(symbol) - previous.outflow(symbol)));
+        intradayFlow.add(symbol, singleStock.getTotalNetInflow());
+    }
+
+    /**
+     * 更新历史数据并填充技术指标评分的输入
+     */
+    private void updateTechnicalInputs(int symbol, double price, double volume) {
+        // 更新历史数据
+        updateHistoryData(symbol, price, volume);
+
+        // 历史数据不足时技术评分取中性值
+        if (historyStore.size(PRICE, symbol) < 26) {
+            return;
+        }
+
+        scoreInputs.setTechnical(symbol, true,
+                indicatorEngine.macd(symbol),
+                indicatorEngine.rsi(symbol),
+                indicatorEngine.kdj(symbol),
+                detectMACDCross(symbol),
+                detectRSISignal(symbol),
+                detectKDJCross(symbol));
+    }
+
+    private void updateHistoryData(int symbol, double price, double volume) {
+        // 更新价格和成交量历史
+        historyStore.append(PRICE, symbol, price);
+        historyStore.append(VOLUME, symbol, volume);
+        indicatorEngine.update(symbol, price);
+
+        // 只在有足够历史数据时才计算技术指标
+        if (historyStore.size(PRICE, symbol) >= 26) {  // 使用最大所需的历史数据长度
+            // 计算并更新技术指标历史，超出容量时自动覆盖最旧的数据
+            historyStore.append(MACD, symbol, indicatorEngine.macd(symbol));
+            historyStore.append(RSI, symbol, indicatorEngine.rsi(symbol));
+            historyStore.append(KDJ, symbol, indicatorEngine.kdj(symbol));
+        }
+    }
+
+    /**
+     * 检测MACD金叉死叉信号
+     * 金叉：MACD从负转正
+     * 死叉：MACD从正转负
+     */
+    private int detectMACDCross(int symbol) {
+        if (historyStore.size(MACD, symbol) < 2) {
+            return 0;
+        }
+
+        double current = historyStore.latest(MACD, symbol, 0);
+        double previous = historyStore.latest(MACD, symbol, 1);
+
+        if (previous < 0 && current > 0) {
+            return 1;  // 金叉
+        } else if (previous > 0 && current < 0) {
+            return -1; // 死叉
+        }
+        return 0;     // 无信号
+    }
+
+    /**
+     * 检测RSI超买超卖信号
+     * 超买：RSI > 80
+     * 超卖：RSI < 20
+     */
+    private int detectRSISignal(int symbol) {
+        if (historyStore.size(RSI, symbol) < 2) {
+            return 0;
+        }
+
+        double current = historyStore.latest(RSI, symbol, 0);
+
+        if (current > 80) {
+            return -1; // 超买信号
+        } else if (current < 20) {
+            return 1;  // 超卖信号
+        }
+        return 0;     // 无信号
+    }
+
+    /**
+     * 检测KDJ交叉信号
+     * 金叉：J线上穿K线
+     * 死叉：J线下穿K线
+     */
+    private int detectKDJCross(int symbol) {
+        if (historyStore.size(KDJ, symbol) < 2) {
+            return 0;
+        }
+
+        double current = historyStore.latest(KDJ, symbol, 0);
+        double previous = historyStore.latest(KDJ, symbol, 1);
+
+        // 使用KDJ的J值判断趋势变化
+        if (previous < 20 && current > 20) {
+            return 1;  // 金叉
+        } else if (previous > 80 && current < 80) {
+            return -1; // 死叉
+        }
+        return 0;     // 无信号
+    }
+
+    private void updateMinuteData(int symbol, double price, double inflow, double outflow, double volume) {
+        minuteStore.append(MINUTE_PRICE, symbol, price);
+        minuteStore.append(MINUTE_INFLOW, symbol, inflow);
+        minuteStore.append(MINUTE_OUTFLOW, symbol, outflow);
+        minuteStore.append(MINUTE_VOLUME, symbol, volume);
+    }
+
+    /**
+     * 补全入库需要的汇总字段
+     * @param previousNetInflow 上一轮快照中的总净流入，入库时直接写入差值，查询不必再关联上一条记录
+     */
+    private static SingleStock toPersistRow(SingleStock stock, double totalInflow, double totalOutflow,
+                                            double previousNetInflow) {
+        double totalAmount = totalInflow + totalOutflow;
+        double totalNetInflowPercent = 0.0;
+        if (totalAmount > 0) {
+            totalNetInflowPercent = (totalInflow - totalOutflow) / totalAmount * 100;
+        }
+        stock.setTotalNetInflow(totalInflow - totalOutflow);
+        stock.setTotalNetInflowPercent(totalNetInflowPercent);
+        stock.setTotalVolume(totalAmount);
+        stock.setInflowDiff(totalInflow - totalOutflow - previousNetInflow);
+        return stock;
+    }
+
+    /**
+     * 按快照中的最新价格重新判断突破五日线的股票
+     */
+    private List<Ma5Breakout> breakoutsOf(MarketSnapshot snapshot) {
+        List<Ma5Breakout> breakouts = new ArrayList<>();
+        for (int symbol = 0; symbol < snapshot.getSymbolCount(); symbol++) {
+            if (!snapshot.isPresent(symbol)) {
+                continue;
+            }
+            SingleStock stock = new SingleStock();
+            stock.setCode(snapshot.code(symbol));
+            stock.setName(snapshot.name(symbol));
+            stock.setCurrentPrice(snapshot.price(symbol));
+            stock.setChangePercent(snapshot.changePercent(symbol));
+            stock.setZhuliNetInflow(snapshot.flow(MarketSnapshot.ZHULI, symbol));
+            stock.setChaodadanNetInflow(snapshot.flow(MarketSnapshot.CHAODADAN, symbol));
+            stock.setBigdanNetInflow(snapshot.flow(MarketSnapshot.BIGDAN, symbol));
+            stock.setZhongdanNetInflow(snapshot.flow(MarketSnapshot.ZHONGDAN, symbol));
+            stock.setXiaodanNetInflow(snapshot.flow(MarketSnapshot.XIAODAN, symbol));
+            Ma5Breakout breakout = movingAverages.breakout(symbol, stock,
+                    snapshot.inflow(symbol) - snapshot.outflow(symbol));
+            if (breakout != null) {
+                breakouts.add(breakout);
+            }
+        }
+        breakouts.sort((a, b) -> a.getCode().compareTo(b.getCode()));
+        return Collections.unmodifiableList(breakouts);
+    }
+
+    private void ensureCapacity(int symbolCount) {
+        historyStore.ensureCapacity(symbolCount);
+        minuteStore.ensureCapacity(symbolCount);
+        indicatorEngine.ensureCapacity(symbolCount);
+        intradayFlow.ensureCapacity(symbolCount);
+        movingAverages.ensureCapacity(symbolCount);
+        flowHistory.ensureCapacity(symbolCount);
+        scoreInputs.ensureCapacity(symbolCount);
+    }
+
+    /**
+     * 单个分片的计算结果，只由该分片的线程写入
+     */
+    private static final class ShardResult {
+        final List<StockSpeed> speeds;
+        // 与 speeds 一一对应的股票下标
+        final int[] speedSymbols;
+        final List<SingleStock> rows;
+        final List<Ma5Breakout> breakouts = new ArrayList<>();
+
+        ShardResult(int expected) {
+            this.speeds = new ArrayList<>(expected);
+            this.speedSymbols = new int[expected];
+            this.rows = new ArrayList<>(expected);
+        }
+
+        void addSpeed(StockSpeed speed, int symbol) {
+            speedSymbols[speeds.size()] = symbol;
+            speeds.add(speed);
+        }
+    }
+}
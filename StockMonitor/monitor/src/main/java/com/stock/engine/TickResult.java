@@ -0,0 +1,77 @@
+package com.stock.engine;
+
+import com.stock.rank.Ranking;
+import com.stock.score.ScoreTable;
+import com.stock.vo.Ma5Breakout;
+import com.stock.vo.SingleStock;
+import com.stock.vo.StockSpeed;
+
+import java.util.List;
+
+/**
+ * 一轮采样的计算结果
+ */
+public class TickResult {
+
+    // 速度结果，按股票下标分片的顺序排列，不排序；排名见 ranking
+    private final List<StockSpeed> speeds;
+    // 本轮需要入库的数据
+    private final List<SingleStock> persistRows;
+    // 本轮输入的全部行情，与抓取结果相同
+    private final List<SingleStock> stocks;
+    // 当前突破五日线的股票，按代码排序
+    private final List<Ma5Breakout> ma5Breakouts;
+    // 本轮发布的快照
+    private final MarketSnapshot snapshot;
+    // 全部评分模型的得分，按股票下标存放
+    private final ScoreTable scores;
+    // 已订阅排名视图的前 K 名
+    private final Ranking ranking;
+    // 计算耗时（纳秒），不含抓取和解析
+    private final long computeNanos;
+
+    public TickResult(List<StockSpeed> speeds, List<SingleStock> persistRows, List<SingleStock> stocks,
+                      List<Ma5Breakout> ma5Breakouts, MarketSnapshot snapshot, ScoreTable scores, Ranking ranking,
+                      long computeNanos) {
+        this.speeds = speeds;
+        this.persistRows = persistRows;
+        this.stocks = stocks;
+        this.ma5Breakouts = ma5Breakouts;
+        this.snapshot = snapshot;
+        this.scores = scores;
+        this.ranking = ranking;
+        this.computeNanos = computeNanos;
+    }
+
+    public List<StockSpeed> getSpeeds() {
+        return speeds;
+    }
+
+    public List<SingleStock> getPersistRows() {
+        return persistRows;
+    }
+
+    public List<SingleStock> getStocks() {
+        return stocks;
+    }
+
+    public List<Ma5Breakout> getMa5Breakouts() {
+        return ma5Breakouts;
+    }
+
+    public MarketSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public ScoreTable getScores() {
+        return scores;
+    }
+
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    public long getComputeNanos() {
+        return computeNanos;
+    }
+}
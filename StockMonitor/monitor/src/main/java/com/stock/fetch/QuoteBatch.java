@@ -0,0 +1,167 @@
+package com.stock.fetch;
+
+import com.stock.vo.SingleStock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一次行情接口返回的数据，按列存放
+ * <p>
+ * 数值字段每列一个 double 数组，接口返回 "-" 或缺少该字段时记为 NaN。
+ * 同一个实例可以反复用于每轮解析，数组只在行数变多时扩容。
+ */
+public class QuoteBatch {
+
+    // 数值列，与接口字段的对应关系见 QuoteStreamDecoder
+    public static final int PRICE = 0;                  // f2   当前价格
+    public static final int CHANGE_PERCENT = 1;         // f3   今日涨跌幅
+    public static final int ZHULI = 2;                  // f62  今日主力净流入
+    public static final int ZHULI_PERCENT = 3;          // f184 今日主力净流入百分比
+    public static final int CHAODADAN = 4;              // f66  今日超大单净流入
+    public static final int CHAODADAN_PERCENT = 5;      // f69  今日超大单净流入百分比
+    public static final int BIGDAN = 6;                 // f72  今日大单净流入
+    public static final int BIGDAN_PERCENT = 7;         // f75  今日大单净流入百分比
+    public static final int ZHONGDAN = 8;               // f78  今日中单净流入
+    public static final int ZHONGDAN_PERCENT = 9;       // f81  今日中单净流入百分比
+    public static final int XIAODAN = 10;               // f84  今日小单净流入
+    public static final int XIAODAN_PERCENT = 11;       // f87  今日小单净流入百分比
+    public static final int MARKET = 12;                // f13  市场：0 深市，1 沪市
+    public static final int COLUMN_COUNT = 13;
+
+    private String[] codes;
+    private String[] names;
+    private final double[][] columns = new double[COLUMN_COUNT][];
+    private int size;
+    // 接口返回的 data.total，即全部分页的总行数
+    private int total;
+
+    public QuoteBatch() {
+        this(6000);
+    }
+
+    public QuoteBatch(int initialCapacity) {
+        codes = new String[initialCapacity];
+        names = new String[initialCapacity];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c] = new double[initialCapacity];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(codes, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+        total = 0;
+    }
+
+    /**
+     * 追加一行，所有数值列初始化为缺失
+     * @return 新行的下标
+     */
+    public int addRow() {
+        if (size == codes.length) {
+            int newCapacity = Math.max(16, size * 2);
+            codes = Arrays.copyOf(codes, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                columns[c] = Arrays.copyOf(columns[c], newCapacity);
+            }
+        }
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c][size] = Double.NaN;
+        }
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * 复制另一个批次中的一行，用于合并分页结果
+     */
+    void appendRow(QuoteBatch source, int sourceRow) {
+        int row = addRow();
+        codes[row] = source.codes[sourceRow];
+        names[row] = source.names[sourceRow];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c][row] = source.columns[c][sourceRow];
+        }
+    }
+
+    public String code(int row) {
+        return codes[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public double value(int column, int row) {
+        return columns[column][row];
+    }
+
+    public boolean isMissing(int column, int row) {
+        return Double.isNaN(columns[column][row]);
+    }
+
+    void setCode(int row, String code) {
+        codes[row] = code;
+    }
+
+    void setName(int row, String name) {
+        names[row] = name;
+    }
+
+    void setValue(int column, int row, double value) {
+        columns[column][row] = value;
+    }
+
+    /**
+     * 转换为计算引擎使用的对象
+     * 与原来的解析口径一致：跳过代码为空或当前价格缺失的行，其余缺失字段按 0 处理
+     */
+    public List<SingleStock> toSingleStocks() {
+        List<SingleStock> stocks = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            if (codes[row] == null || codes[row].isEmpty() || isMissing(PRICE, row)) {
+                continue;
+            }
+            SingleStock singleStock = new SingleStock();
+            singleStock.setCode(codes[row]);
+            singleStock.setName(names[row]);
+            if (!isMissing(MARKET, row)) {
+                singleStock.setMarket((int) columns[MARKET][row]);
+            }
+            singleStock.setCurrentPrice(orZero(PRICE, row));
+            singleStock.setChangePercent(orZero(CHANGE_PERCENT, row));
+            singleStock.setZhuliNetInflow(orZero(ZHULI, row));
+            singleStock.setZhuliNetInflowPercent(orZero(ZHULI_PERCENT, row));
+            singleStock.setChaodadanNetInflow(orZero(CHAODADAN, row));
+            singleStock.setChaodadanNetInflowPercent(orZero(CHAODADAN_PERCENT, row));
+            singleStock.setBigdanNetInflow(orZero(BIGDAN, row));
+            singleStock.setBigdanNetInflowPercent(orZero(BIGDAN_PERCENT, row));
+            singleStock.setZhongdanNetInflow(orZero(ZHONGDAN, row));
+            singleStock.setZhongdanNetInflowPercent(orZero(ZHONGDAN_PERCENT, row));
+            singleStock.setXiaodanNetInflow(orZero(XIAODAN, row));
+            singleStock.setXiaodanNetInflowPercent(orZero(XIAODAN_PERCENT, row));
+            stocks.add(singleStock);
+        }
+        return stocks;
+    }
+
+    private double orZero(int column, int row) {
+        double value = columns[column][row];
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+}
@@ -0,0 +1,211 @@
+package com.stock.fetch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 分页并发的行情抓取客户端
+ * <p>
+ * 把全市场按 pn/pz 拆成多页并发请求，每页的响应流直接交给 {@link QuoteStreamDecoder} 解析，
+ * 最后按页序合并成一个批次。
+ * <ul>
+ * <li>请求 gzip 压缩，设置连接和读取超时，每页失败后单独重试</li>
+ * <li>响应读完后只关闭输入流、不断开连接，由 HttpURLConnection 的 keep-alive 缓存复用连接
+ * （JDK 默认每个主机缓存 5 个，http.maxConnections 可调整）</li>
+ * <li>记住上一次的总行数，之后每轮一开始就并发请求全部分页，不必等第一页返回</li>
+ * </ul>
+ * 请求应按代码等不会在盘中变化的字段排序（fid=f12），各页互不重叠且合起来覆盖全部股票。
+ * 按资金等实时变化的字段排序时，翻页期间排序变化可能使同一只股票出现在相邻两页，也可能从两页之间漏掉：
+ * 重复的行按代码去重，保留先出现的一行；合并后少于总行数时记录警告并计数，漏掉的股票本轮按未出现处理。
+ */
+@Slf4j
+public class QuoteClient {
+
+    private final String baseUrl;
+    private final int pageSize;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final ExecutorService executor;
+    private final ThreadLocal<QuoteStreamDecoder> decoders = ThreadLocal.withInitial(QuoteStreamDecoder::new);
+
+    // 上一次返回的总行数，用于预估页数
+    private volatile int lastTotal;
+    // 合并后少于总行数的轮数
+    private volatile long incompleteFetches;
+
+    /**
+     * @param baseUrl              不含 pn、pz 参数的请求地址
+     * @param pageSize             每页行数
+     * @param concurrency          同时进行的请求数
+     * @param connectTimeoutMillis 连接超时
+     * @param readTimeoutMillis    读取超时
+     * @param maxRetries           每页失败后的最多重试次数
+     */
+    public QuoteClient(String baseUrl, int pageSize, int concurrency,
+                       int connectTimeoutMillis, int readTimeoutMillis, int maxRetries) {
+        this.baseUrl = baseUrl;
+        this.pageSize = pageSize;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = 200;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "quote-fetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 抓取全部分页并合并
+     * 任意一页重试后仍然失败时整轮失败，避免缺页的数据被当作股票停牌处理
+     */
+    public QuoteBatch fetch() throws IOException {
+        int expectedPages = lastTotal > 0 ? pageCount(lastTotal) : 1;
+        List<Future<QuoteBatch>> futures = new ArrayList<>(expectedPages);
+        for (int page = 1; page <= expectedPages; page++) {
+            futures.add(submitPage(page));
+        }
+
+        QuoteBatch first = await(futures.get(0));
+        int total = first.getTotal();
+        lastTotal = total;
+        // 总数比预估的多时补齐剩余分页
+        for (int page = expectedPages + 1; page <= pageCount(total); page++) {
+            futures.add(submitPage(page));
+        }
+
+        QuoteBatch merged = new QuoteBatch(Math.max(total, pageSize));
+        merged.setTotal(total);
+        Set<String> seen = new HashSet<>(Math.max(16, total * 2));
+        for (Future<QuoteBatch> future : futures) {
+            QuoteBatch page = await(future);
+            for (int row = 0; row < page.size(); row++) {
+                String code = page.code(row);
+                if (code == null || seen.add(code)) {
+                    merged.appendRow(page, row);
+                }
+            }
+        }
+        if (merged.size() < total) {
+            incompleteFetches++;
+            log.warn("行情合并后 {} 行, 少于总数 {}, 翻页期间排序变化漏掉了部分股票, 累计 {} 轮",
+                    merged.size(), total, incompleteFetches);
+        }
+        return merged;
+    }
+
+    /**
+     * 合并后少于总行数的轮数
+     */
+    public long getIncompleteFetches() {
+        return incompleteFetches;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private int pageCount(int total) {
+        return Math.max(1, (total + pageSize - 1) / pageSize);
+    }
+
+    private Future<QuoteBatch> submitPage(int page) {
+        return executor.submit(() -> fetchPage(page));
+    }
+
+    private QuoteBatch fetchPage(int page) throws IOException {
+        IOException lastError = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(retryBackoffMillis * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待重试时被中断");
+                }
+            }
+            try {
+                return requestPage(page);
+            } catch (IOException e) {
+                lastError = e;
+                log.warn("行情第 {} 页请求失败(第 {} 次): {}", page, attempt + 1, e.toString());
+            }
+        }
+        throw lastError;
+    }
+
+    private QuoteBatch requestPage(int page) throws IOException {
+        URL url = new URL(baseUrl + (baseUrl.indexOf('?') >= 0 ? "&" : "?") + "pn=" + page + "&pz=" + pageSize);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("GET");
+        conn.setRequestProperty("User-Agent", "Mozilla/5.0");
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        conn.setConnectTimeout(connectTimeoutMillis);
+        conn.setReadTimeout(readTimeoutMillis);
+
+        int status = conn.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            // 读完错误响应，连接仍可复用
+            InputStream error = conn.getErrorStream();
+            if (error != null) {
+                try (InputStream in = error) {
+                    drain(in);
+                }
+            }
+            throw new IOException("HTTP " + status);
+        }
+
+        InputStream raw = conn.getInputStream();
+        try (InputStream in = "gzip".equalsIgnoreCase(conn.getContentEncoding()) ? new GZIPInputStream(raw, 8192) : raw) {
+            QuoteBatch batch = decoders.get().decode(in, new QuoteBatch(pageSize));
+            // JSONP 结尾的 ");" 等剩余内容也要读完，连接才会放回 keep-alive 缓存
+            drain(in);
+            return batch;
+        } catch (IOException e) {
+            // 解析或读取失败的连接不再复用
+            conn.disconnect();
+            throw e;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] skip = new byte[512];
+        while (in.read(skip) >= 0) {
+            // 丢弃
+        }
+    }
+
+    private static QuoteBatch await(Future<QuoteBatch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待行情分页时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("行情分页抓取失败", cause);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.stock.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 行情接口 clist/get 返回数据的流式解析
+ * <p>
+ * 直接按字节读取响应流，跳过 JSONP 包装，只进入 data.diff，
+ * 把 f12/f14 和各数值字段写入 {@link QuoteBatch} 的对应列，其余字段原样跳过；
+ * 同时记录 data.total 供分页请求计算页数。
+ * 不构建 JSON 树；数值在字节上直接解析，不生成中间字符串，
+ * 只有有效数字超过 15 位或带指数的罕见情况才交给 Double.parseDouble，结果与其完全一致。
+ * "-"、null 或缺少的字段记为 NaN。
+ * <p>
+ * 内部缓冲区在多次解析之间复用，实例不是线程安全的。
+ */
+public class QuoteStreamDecoder {
+
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIFF = "diff".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TOTAL = "total".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int CODE_FIELD = 12;
+    private static final int NAME_FIELD = 14;
+
+    // 字段编号 fN 到数值列的映射，-1 表示不需要的字段
+    private static final int[] FIELD_COLUMNS = new int[256];
+
+    // 不超过 15 位有效数字、10 的 0~22 次方都可以精确表示，一次除法即得到正确舍入的结果
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        Arrays.fill(FIELD_COLUMNS, -1);
+        FIELD_COLUMNS[2] = QuoteBatch.PRICE;
+        FIELD_COLUMNS[3] = QuoteBatch.CHANGE_PERCENT;
+        FIELD_COLUMNS[62] = QuoteBatch.ZHULI;
+        FIELD_COLUMNS[184] = QuoteBatch.ZHULI_PERCENT;
+        FIELD_COLUMNS[66] = QuoteBatch.CHAODADAN;
+        FIELD_COLUMNS[69] = QuoteBatch.CHAODADAN_PERCENT;
+        FIELD_COLUMNS[72] = QuoteBatch.BIGDAN;
+        FIELD_COLUMNS[75] = QuoteBatch.BIGDAN_PERCENT;
+        FIELD_COLUMNS[78] = QuoteBatch.ZHONGDAN;
+        FIELD_COLUMNS[81] = QuoteBatch.ZHONGDAN_PERCENT;
+        FIELD_COLUMNS[84] = QuoteBatch.XIAODAN;
+        FIELD_COLUMNS[87] = QuoteBatch.XIAODAN_PERCENT;
+        FIELD_COLUMNS[13] = QuoteBatch.MARKET;
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] buffer = new byte[16 * 1024];
+    private int position;
+    private int limit;
+    private InputStream in;
+
+    // 键名、数字和字符串的临时缓冲
+    private byte[] scratch = new byte[64];
+    private char[] chars = new char[64];
+
+    /**
+     * 解析整个响应，结果追加到 batch（调用前不会清空）
+     * @return 传入的 batch
+     */
+    public QuoteBatch decode(InputStream input, QuoteBatch batch) throws IOException {
+        this.in = input;
+        this.position = 0;
+        this.limit = 0;
+        try {
+            // 跳过 JSONP 回调名和左括号
+            int c;
+            do {
+                c = read();
+            } while (c != '{' && c != -1);
+            if (c == -1) {
+                throw new IOException("行情数据中没有找到 JSON 对象");
+            }
+            readRoot(batch);
+            return batch;
+        } finally {
+            this.in = null;
+        }
+    }
+
+    public QuoteBatch decode(byte[] payload, QuoteBatch batch) throws IOException {
+        return decode(new ByteArrayInputStream(payload), batch);
+    }
+
+    private void readRoot(QuoteBatch batch) throws IOException {
+        int c = nextToken();
+        while (c != '}') {
+            int keyLength = readKey(c);
+            if (matches(DATA, keyLength) && peekToken() == '{') {
+                nextToken();
+                readData(batch);
+            } else {
+                skipValue();
+            }
+            c = nextSeparator('}');
+        }
+    }
+
+    private void readData(QuoteBatch batch) throws IOException {
+        int c = nextToken();
+        while (c != '}') {
+            int keyLength = readKey(c);
+            if (matches(DIFF, keyLength)) {
+                readDiff(batch);
+            } else if (matches(TOTAL, keyLength)) {
+                double total = readNumber();
+                batch.setTotal(Double.isNaN(total) ? 0 : (int) total);
+            } else {
+                skipValue();
+            }
+            c = nextSeparator('}');
+        }
+    }
+
+    /**
+     * diff 在 np=1 时是数组，np=0 时是以序号为键的对象，两种都支持
+     */
+    private void readDiff(QuoteBatch batch) throws IOException {
+        int c = nextToken();
+        if (c == '[') {
+            c = nextToken();
+            while (c != ']') {
+                expect(c, '{');
+                readRow(batch);
+                c = nextSeparator(']');
+            }
+        } else if (c == '{') {
+            c = nextToken();
+            while (c != '}') {
+                readKey(c);
+                expect(nextToken(), '{');
+                readRow(batch);
+                c = nextSeparator('}');
+            }
+        } else {
+            skipRemainingScalar();
+        }
+    }
+
+    private void readRow(QuoteBatch batch) throws IOException {
+        int row = batch.addRow();
+        int c = nextToken();
+        while (c != '}') {
+            int field = fieldNumber(readKey(c));
+            if (field == CODE_FIELD) {
+                batch.setCode(row, readText());
+            } else if (field == NAME_FIELD) {
+                batch.setName(row, readText());
+            } else if (field >= 0 && field < FIELD_COLUMNS.length && FIELD_COLUMNS[field] >= 0) {
+                batch.setValue(FIELD_COLUMNS[field], row, readNumber());
+            } else {
+                skipValue();
+            }
+            c = nextSeparator('}');
+        }
+    }
+
+    /**
+     * 读取键名到 scratch 并消费其后的冒号
+     * @return 键名的字节数
+     */
+    private int readKey(int c) throws IOException {
+        expect(c, '"');
+        int length = 0;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw new IOException("行情数据意外结束");
+            }
+            if (c == '\\') {
+                c = read();
+            }
+            length = appendScratch(length, c);
+        }
+        expect(nextToken(), ':');
+        return length;
+    }
+
+    /**
+     * fN 形式的键返回 N，其余返回 -1
+     */
+    private int fieldNumber(int keyLength) {
+        if (keyLength < 2 || keyLength > 5 || scratch[0] != 'f') {
+            return -1;
+        }
+        int number = 0;
+        for (int i = 1; i < keyLength; i++) {
+            int digit = scratch[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+
+    private boolean matches(byte[] expected, int keyLength) {
+        if (keyLength != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (scratch[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取字符串字段；数字形式的值按原文返回，null 返回 null
+     */
+    private String readText() throws IOException {
+        int c = nextToken();
+        if (c == '"') {
+            return readString();
+        }
+        int length = readScalar(c);
+        if (length == 4 && scratch[0] == 'n' && scratch[1] == 'u' && scratch[2] == 'l' && scratch[3] == 'l') {
+            return null;
+        }
+        return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 读取数值字段；"-"、空串、null 以及无法解析的值返回 NaN
+     */
+    private double readNumber() throws IOException {
+        int c = nextToken();
+        int length;
+        if (c == '"') {
+            length = 0;
+            while ((c = read()) != '"') {
+                if (c == -1) {
+                    throw new IOException("行情数据意外结束");
+                }
+                length = appendScratch(length, c);
+            }
+            if (length == 0 || (length == 1 && scratch[0] == '-')) {
+                return Double.NaN;
+            }
+        } else {
+            length = readScalar(c);
+            if (scratch[0] == 'n') {
+                return Double.NaN;
+            }
+        }
+        return parseNumber(length);
+    }
+
+    private double parseNumber(int length) {
+        int i = 0;
+        boolean negative = false;
+        if (scratch[0] == '-') {
+            negative = true;
+            i++;
+        } else if (scratch[0] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; i < length; i++) {
+            int b = scratch[i];
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                // 指数或非法字符
+                return parseSlow(length);
+            }
+            anyDigit = true;
+            if (mantissa != 0 || digit != 0) {
+                if (++significantDigits > MAX_FAST_DIGITS) {
+                    return parseSlow(length);
+                }
+            }
+            mantissa = mantissa * 10 + digit;
+            if (fraction) {
+                scale++;
+            }
+        }
+        if (!anyDigit || scale >= POWERS_OF_TEN.length) {
+            return parseSlow(length);
+        }
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int length) {
+        try {
+            return Double.parseDouble(new String(scratch, 0, length, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 解码字符串内容（开头的引号已消费），支持 UTF-8 多字节字符和 \\uXXXX 转义
+     */
+    private String readString() throws IOException {
+        int length = 0;
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw new IOException("行情数据意外结束");
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'u':
+                        length = appendChar(length, (char) readHex4());
+                        break;
+                    case 'n':
+                        length = appendChar(length, '\n');
+                        break;
+                    case 't':
+                        length = appendChar(length, '\t');
+                        break;
+                    case 'r':
+                        length = appendChar(length, '\r');
+                        break;
+                    case 'b':
+                        length = appendChar(length, '\b');
+                        break;
+                    case 'f':
+                        length = appendChar(length, '\f');
+                        break;
+                    case -1:
+                        throw new IOException("行情数据意外结束");
+                    default:
+                        // \" \\ \/
+                        length = appendChar(length, (char) c);
+                        break;
+                }
+            } else if (c < 0x80) {
+                length = appendChar(length, (char) c);
+            } else if (c < 0xE0) {
+                length = appendChar(length, (char) (((c & 0x1F) << 6) | continuation()));
+            } else if (c < 0xF0) {
+                int codePoint = ((c & 0x0F) << 12) | (continuation() << 6);
+                length = appendChar(length, (char) (codePoint | continuation()));
+            } else {
+                int codePoint = ((c & 0x07) << 18) | (continuation() << 12);
+                codePoint |= continuation() << 6;
+                codePoint |= continuation();
+                length = appendChar(length, Character.highSurrogate(codePoint));
+                length = appendChar(length, Character.lowSurrogate(codePoint));
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    private int continuation() throws IOException {
+        int c = read();
+        if ((c & 0xC0) != 0x80) {
+            throw new IOException("行情数据不是合法的 UTF-8 编码");
+        }
+        return c & 0x3F;
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = read();
+            int digit = Character.digit(c, 16);
+            if (c == -1 || digit < 0) {
+                throw new IOException("行情数据中的 \\u 转义不合法");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 读取数字或 true/false/null 到 scratch，不消费其后的分隔符
+     */
+    private int readScalar(int first) throws IOException {
+        int length = appendScratch(0, first);
+        while (!isDelimiter(peek())) {
+            length = appendScratch(length, read());
+        }
+        return length;
+    }
+
+    private void skipRemainingScalar() throws IOException {
+        while (!isDelimiter(peek())) {
+            read();
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = nextToken();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = read();
+                if (c == -1) {
+                    throw new IOException("行情数据意外结束");
+                } else if (c == '"') {
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+        } else {
+            skipRemainingScalar();
+        }
+    }
+
+    private void skipString() throws IOException {
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw new IOException("行情数据意外结束");
+            }
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    /**
+     * 读取值后面的逗号或结束符；遇到逗号时返回下一个键的起始字符
+     */
+    private int nextSeparator(int close) throws IOException {
+        int c = nextToken();
+        if (c == ',') {
+            return nextToken();
+        }
+        expect(c, close);
+        return c;
+    }
+
+    private static void expect(int actual, int expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("行情数据格式错误: 期望 '" + (char) expected + "', 实际 "
+                    + (actual == -1 ? "结束" : "'" + (char) actual + "'"));
+        }
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == -1;
+    }
+
+    private int nextToken() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private int appendScratch(int length, int b) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length] = (byte) b;
+        return length + 1;
+    }
+
+    private int appendChar(int length, char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length] = c;
+        return length + 1;
+    }
+}
@@ -0,0 +1,319 @@
+package com.stock.persist;
+
+import com.stock.utils.ConnectionSource;
+import com.stock.utils.DBUtils;
+import com.stock.vo.SingleStock;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * single_stock_data 的异步批量写入器
+ * <p>
+ * 每个采样周期的全部行作为一个批次放入有界队列，由唯一的写入线程取出，
+ * 使用一个连接、一个事务通过 JDBC batch 写入（配合 rewriteBatchedStatements=true 改写为多行 INSERT）。
+ * <p>
+ * 写入线程只有一个，因此上一轮数据提交完成之前不会开始写下一轮，各轮写入不会交错。
+ * <p>
+ * 同一个事务里还会 upsert latest_stock_quote（每只股票一行，保存最新一轮数据），
+ * 界面上"每只股票最新一条"的查询直接按主键读这张表，不必在历史表上分组取最大时间。
+ * 两张表在同一事务中提交，latest_stock_quote 不会领先或落后于历史表。
+ * 同一批次的所有行使用同一个 create_time，即这一轮的采样时间，而不是写入时间：
+ * 写入落后时 create_time 仍与这一轮的快照时间一致，按时间分页、分钟汇总和重放都以它为准。
+ */
+@Slf4j
+public class StockDataWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO single_stock_data (code, name, current_price, change_amount, change_percent, " +
+            "zhuli_net_inflow, zhuli_net_inflow_percent, total_net_inflow, total_net_inflow_percent, " +
+            "chaodadan_net_inflow, chaodadan_net_inflow_percent, bigdan_net_inflow, bigdan_net_inflow_percent, " +
+            "zhongdan_net_inflow, zhongdan_net_inflow_percent, xiaodan_net_inflow, xiaodan_net_inflow_percent, " +
+            "total_volume, inflow_diff, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_LATEST_SQL = "INSERT INTO latest_stock_quote (code, name, current_price, change_amount, change_percent, " +
+            "zhuli_net_inflow, zhuli_net_inflow_percent, total_net_inflow, total_net_inflow_percent, " +
+            "chaodadan_net_inflow, chaodadan_net_inflow_percent, bigdan_net_inflow, bigdan_net_inflow_percent, " +
+            "zhongdan_net_inflow, zhongdan_net_inflow_percent, xiaodan_net_inflow, xiaodan_net_inflow_percent, " +
+            "total_volume, inflow_diff, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), current_price = VALUES(current_price), " +
+            "change_amount = VALUES(change_amount), change_percent = VALUES(change_percent), " +
+            "zhuli_net_inflow = VALUES(zhuli_net_inflow), zhuli_net_inflow_percent = VALUES(zhuli_net_inflow_percent), " +
+            "total_net_inflow = VALUES(total_net_inflow), total_net_inflow_percent = VALUES(total_net_inflow_percent), " +
+            "chaodadan_net_inflow = VALUES(chaodadan_net_inflow), chaodadan_net_inflow_percent = VALUES(chaodadan_net_inflow_percent), " +
+            "bigdan_net_inflow = VALUES(bigdan_net_inflow), bigdan_net_inflow_percent = VALUES(bigdan_net_inflow_percent), " +
+            "zhongdan_net_inflow = VALUES(zhongdan_net_inflow), zhongdan_net_inflow_percent = VALUES(zhongdan_net_inflow_percent), " +
+            "xiaodan_net_inflow = VALUES(xiaodan_net_inflow), xiaodan_net_inflow_percent = VALUES(xiaodan_net_inflow_percent), " +
+            "total_volume = VALUES(total_volume), inflow_diff = VALUES(inflow_diff), create_time = VALUES(create_time)";
+
+    // 停止标记：排在所有已提交批次之后，写入线程取到它时队列里之前的批次都已处理完
+    private static final Batch STOP = new Batch(new ArrayList<>(0), 0);
+
+    private final ConnectionSource connections;
+
+    private final BlockingQueue<Batch> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // 写入统计
+    private volatile long lastFlushMillis;
+    private volatile int lastFlushRows;
+    private volatile long totalFlushedRows;
+    private volatile long droppedBatches;
+    private volatile long failedBatches;
+    // 已入队和已处理完（提交或回滚）的批次数，两者相等说明没有在途数据
+    private volatile long submittedBatches;
+    private volatile long completedBatches;
+
+    /**
+     * @param queueCapacity      最多缓存的采样批次数
+     * @param batchSize          每次 executeBatch 的行数
+     * @param offerTimeoutMillis 队列满时提交方最长等待时间，超时后丢弃该批次
+     */
+    public StockDataWriter(int queueCapacity, int batchSize, long offerTimeoutMillis) {
+        this(DBUtils::getConnection, queueCapacity, batchSize, offerTimeoutMillis);
+    }
+
+    public StockDataWriter(ConnectionSource connections, int queueCapacity, int batchSize, long offerTimeoutMillis) {
+        this.connections = connections;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writerThread = new Thread(this::runLoop, "stock-data-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * 提交一个采样周期的全部数据
+     * @param sampledAt 本轮采样时间（毫秒），写入 create_time
+     * @return 是否成功进入写入队列
+     */
+    public boolean submit(List<SingleStock> rows, long sampledAt) {
+        if (rows == null || rows.isEmpty()) {
+            return true;
+        }
+        if (!running) {
+            droppedBatches++;
+            log.warn("写入器已停止，丢弃本轮 {} 条数据", rows.size());
+            return false;
+        }
+        try {
+            if (queue.offer(new Batch(rows, sampledAt), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                submittedBatches++;
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedBatches++;
+        log.warn("写入队列已满，丢弃本轮 {} 条数据，累计丢弃 {} 批", rows.size(), droppedBatches);
+        return false;
+    }
+
+    /**
+     * 停止写入线程，等待队列中剩余的数据写完
+     * 不中断写入线程，而是在队尾放入停止标记，正在写的批次和之后排队的批次都会正常写完
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            if (!queue.offer(STOP, timeout, unit)) {
+                log.warn("写入队列已满，{} {} 内未能放入停止标记", timeout, unit);
+            }
+            writerThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int pending = queue.size() - (queue.contains(STOP) ? 1 : 0);
+        if (writerThread.isAlive() || pending > 0) {
+            log.warn("写入线程未在 {} {} 内结束，仍有 {} 批数据未写入", timeout, unit, pending);
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                // 只由停止标记结束，意外的中断不丢弃排队中的批次
+                continue;
+            }
+            if (batch == STOP) {
+                break;
+            }
+            try {
+                flush(batch.rows, batch.sampledAt);
+            } finally {
+                completedBatches++;
+            }
+        }
+    }
+
+    /**
+     * 已提交的批次是否都已处理完，只在提交方线程上判断才有意义
+     * 为 true 时之前各轮的数据都已入库（或已回滚），之后入库的行 create_time 一定晚于此刻
+     */
+    public boolean isIdle() {
+        return completedBatches == submittedBatches;
+    }
+
+    private void flush(List<SingleStock> rows, long sampledAt) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        PreparedStatement latest = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(INSERT_SQL);
+            latest = conn.prepareStatement(UPSERT_LATEST_SQL);
+            Timestamp createTime = new Timestamp(sampledAt);
+            writeBatches(ps, rows, createTime);
+            writeBatches(latest, rows, createTime);
+            conn.commit();
+
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            lastFlushMillis = elapsedMillis;
+            lastFlushRows = rows.size();
+            totalFlushedRows += rows.size();
+            log.info("批量写入 {} 条数据, 耗时 {} ms, {} 条/秒", rows.size(), elapsedMillis, rows.size() * 1000L / elapsedMillis);
+        } catch (SQLException | RuntimeException e) {
+            // 连接池超时、绑定时的非法值等运行时异常同样回滚本批次，写入线程继续处理后面的批次
+            failedBatches++;
+            log.error("批量写入数据库时发生错误, 本轮 {} 条数据回滚: {}", rows.size(), e.toString());
+            rollback(conn);
+        } finally {
+            resetAutoCommit(conn);
+            close(latest);
+            close(ps);
+            close(conn);
+        }
+    }
+
+    private void writeBatches(PreparedStatement ps, List<SingleStock> rows, Timestamp createTime) throws SQLException {
+        int pending = 0;
+        for (SingleStock stock : rows) {
+            bind(ps, stock, createTime);
+            ps.addBatch();
+            if (++pending == batchSize) {
+                ps.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            ps.executeBatch();
+        }
+    }
+
+    private static void bind(PreparedStatement ps, SingleStock stock, Timestamp createTime) throws SQLException {
+        int paramIndex = 1;
+        ps.setString(paramIndex++, stock.getCode());
+        ps.setString(paramIndex++, stock.getName());
+        ps.setDouble(paramIndex++, stock.getCurrentPrice());
+        ps.setDouble(paramIndex++, stock.getChange());
+        ps.setDouble(paramIndex++, stock.getChangePercent());
+        ps.setDouble(paramIndex++, nanToZero(stock.getZhuliNetInflow()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getZhuliNetInflowPercent()));
+        ps.setDouble(paramIndex++, stock.getTotalNetInflow());
+        ps.setDouble(paramIndex++, stock.getTotalNetInflowPercent());
+        ps.setDouble(paramIndex++, nanToZero(stock.getChaodadanNetInflow()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getChaodadanNetInflowPercent()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getBigdanNetInflow()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getBigdanNetInflowPercent()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getZhongdanNetInflow()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getZhongdanNetInflowPercent()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getXiaodanNetInflow()));
+        ps.setDouble(paramIndex++, nanToZero(stock.getXiaodanNetInflowPercent()));
+        ps.setDouble(paramIndex++, stock.getTotalVolume());
+        ps.setDouble(paramIndex++, stock.getInflowDiff());
+        ps.setTimestamp(paramIndex, createTime);
+    }
+
+    private static double nanToZero(double value) {
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    private static void rollback(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            log.error("回滚失败", e);
+        }
+    }
+
+    private static void close(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.error("关闭数据库资源失败", e);
+        }
+    }
+
+    private static void resetAutoCommit(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.error("恢复自动提交失败", e);
+        }
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public int getLastFlushRows() {
+        return lastFlushRows;
+    }
+
+    public long getTotalFlushedRows() {
+        return totalFlushedRows;
+    }
+
+    public long getDroppedBatches() {
+        return droppedBatches;
+    }
+
+    /**
+     * 写入失败（已回滚）的批次数
+     */
+    public long getFailedBatches() {
+        return failedBatches;
+    }
+
+    /**
+     * 一轮的入库数据和采样时间
+     */
+    private static final class Batch {
+        final List<SingleStock> rows;
+        final long sampledAt;
+
+        Batch(List<SingleStock> rows, long sampledAt) {
+            this.rows = rows;
+            this.sampledAt = sampledAt;
+        }
+    }
+}
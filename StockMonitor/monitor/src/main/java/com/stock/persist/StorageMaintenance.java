@@ -0,0 +1,391 @@
+package com.stock.persist;
+
+import com.stock.utils.ConnectionSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原始数据的汇总、分区和过期清理
+ * <p>
+ * single_stock_data 每 10 秒一轮，一天约 760 万行，只保留最近几天。
+ * 原始数据按分钟汇总到 stock_minute_bar，再按交易日汇总到 stock_daily_bar：
+ * 价格取开高低收，资金字段取这一分钟（一天）最后一轮的累计值，inflow_diff 取合计，sample_count 为原始行数。
+ * 历史数据载入、均线收盘价和界面的历史查询都读汇总表。
+ * <p>
+ * 每个周期依次：
+ * <ol>
+ * <li>汇总上次汇总到的分钟至当前分钟之前的原始数据，最后一分钟重新汇总，补上迟到写入的行</li>
+ * <li>把完整的交易日由分钟线汇总成日线，当天在收盘后 {@link #DAILY_ROLLUP_TIME} 之后汇总</li>
+ * <li>MySQL 上为原始表和分钟线表预建之后几天的日分区，整分区删除超过保留天数的数据；
+ *     没有分区的表（未迁移的旧库、测试用的 H2）按时间分批 DELETE</li>
+ * </ol>
+ * 汇总失败时本周期不做清理，原始数据不会在汇总之前被删除。
+ */
+@Slf4j
+public class StorageMaintenance {
+
+    static final LocalTime DAILY_ROLLUP_TIME = LocalTime.of(15, 5);
+
+    private static final int PARTITIONS_AHEAD = 3;
+    private static final int DELETE_CHUNK = 10000;
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /** 原始表 create_time 是 TIMESTAMP，只能按 UNIX_TIMESTAMP 分区；分钟线 bar_time 是 DATETIME，按 TO_DAYS 分区 */
+    static final PartitionedTable RAW = new PartitionedTable("single_stock_data", "create_time", "UNIX_TIMESTAMP");
+    static final PartitionedTable MINUTE = new PartitionedTable("stock_minute_bar", "bar_time", "TO_DAYS");
+
+    private static final String BAR_COLUMNS = "code, %s, name, open_price, high_price, low_price, close_price, change_percent, " +
+            "zhuli_net_inflow, zhuli_net_inflow_percent, total_net_inflow, chaodadan_net_inflow, " +
+            "bigdan_net_inflow, zhongdan_net_inflow, xiaodan_net_inflow, total_volume, inflow_diff, sample_count";
+
+    private static final String BAR_UPDATE = "ON DUPLICATE KEY UPDATE name = VALUES(name), open_price = VALUES(open_price), " +
+            "high_price = VALUES(high_price), low_price = VALUES(low_price), close_price = VALUES(close_price), " +
+            "change_percent = VALUES(change_percent), zhuli_net_inflow = VALUES(zhuli_net_inflow), " +
+            "zhuli_net_inflow_percent = VALUES(zhuli_net_inflow_percent), total_net_inflow = VALUES(total_net_inflow), " +
+            "chaodadan_net_inflow = VALUES(chaodadan_net_inflow), bigdan_net_inflow = VALUES(bigdan_net_inflow), " +
+            "zhongdan_net_inflow = VALUES(zhongdan_net_inflow), xiaodan_net_inflow = VALUES(xiaodan_net_inflow), " +
+            "total_volume = VALUES(total_volume), inflow_diff = VALUES(inflow_diff), sample_count = VALUES(sample_count)";
+
+    private static final String MINUTE_OF = "FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(create_time) / 60) * 60)";
+
+    // 开盘价、收盘价按分钟内最小、最大 id 取回原始行；两端的 create_time 范围用于分区裁剪
+    private static final String MINUTE_ROLLUP_SQL = "INSERT INTO stock_minute_bar (" + String.format(BAR_COLUMNS, "bar_time") + ") " +
+            "SELECT g.code, g.bar_time, l.name, o.current_price, g.high_price, g.low_price, l.current_price, l.change_percent, " +
+            "l.zhuli_net_inflow, l.zhuli_net_inflow_percent, l.total_net_inflow, l.chaodadan_net_inflow, " +
+            "l.bigdan_net_inflow, l.zhongdan_net_inflow, l.xiaodan_net_inflow, l.total_volume, g.inflow_diff, g.sample_count " +
+            "FROM (SELECT code, " + MINUTE_OF + " AS bar_time, MIN(id) AS first_id, MAX(id) AS last_id, " +
+            "    MAX(current_price) AS high_price, MIN(current_price) AS low_price, " +
+            "    SUM(inflow_diff) AS inflow_diff, COUNT(*) AS sample_count " +
+            "    FROM single_stock_data WHERE create_time >= ? AND create_time < ? " +
+            "    GROUP BY code, " + MINUTE_OF + ") g " +
+            "INNER JOIN single_stock_data o ON o.id = g.first_id AND o.create_time >= ? AND o.create_time < ? " +
+            "INNER JOIN single_stock_data l ON l.id = g.last_id AND l.create_time >= ? AND l.create_time < ? " +
+            BAR_UPDATE;
+
+    private static final String DAILY_ROLLUP_SQL = "INSERT INTO stock_daily_bar (" + String.format(BAR_COLUMNS, "trade_date") + ") " +
+            "SELECT g.code, CAST(g.first_time AS DATE), l.name, o.open_price, g.high_price, g.low_price, l.close_price, l.change_percent, " +
+            "l.zhuli_net_inflow, l.zhuli_net_inflow_percent, l.total_net_inflow, l.chaodadan_net_inflow, " +
+            "l.bigdan_net_inflow, l.zhongdan_net_inflow, l.xiaodan_net_inflow, l.total_volume, g.inflow_diff, g.sample_count " +
+            "FROM (SELECT code, MIN(bar_time) AS first_time, MAX(bar_time) AS last_time, " +
+            "    MAX(high_price) AS high_price, MIN(low_price) AS low_price, " +
+            "    SUM(inflow_diff) AS inflow_diff, SUM(sample_count) AS sample_count " +
+            "    FROM stock_minute_bar WHERE bar_time >= ? AND bar_time < ? GROUP BY code) g " +
+            "INNER JOIN stock_minute_bar o ON o.code = g.code AND o.bar_time = g.first_time " +
+            "INNER JOIN stock_minute_bar l ON l.code = g.code AND l.bar_time = g.last_time " +
+            BAR_UPDATE;
+
+    private final ConnectionSource connections;
+    private final int rawRetentionDays;
+    private final int minuteRetentionDays;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService scheduler;
+    // 补齐了今天之前的日线时在维护线程上调用
+    private volatile Runnable pastDaysListener;
+
+    /**
+     * @param rawRetentionDays    原始数据保留今天之前的天数
+     * @param minuteRetentionDays 分钟线保留今天之前的天数，日线一直保留
+     * @param intervalSeconds     执行周期
+     */
+    public StorageMaintenance(ConnectionSource connections, int rawRetentionDays, int minuteRetentionDays, long intervalSeconds) {
+        this.connections = connections;
+        this.rawRetentionDays = rawRetentionDays;
+        this.minuteRetentionDays = minuteRetentionDays;
+        this.intervalSeconds = intervalSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 按周期在后台执行，第一次立即执行；停机期间积压的数据在后台汇总，不阻塞调用方
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 某个周期补齐了今天之前的日线（例如停机错过了收盘后的汇总）时调用，在维护线程上执行
+     */
+    public void setPastDaysListener(Runnable listener) {
+        this.pastDaysListener = listener;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 执行一个周期，失败只记录日志
+     */
+    public void runOnce() {
+        long start = System.nanoTime();
+        try {
+            runOnce(LocalDateTime.now());
+            log.debug("存储维护完成, 耗时 {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (SQLException e) {
+            log.error("存储维护失败: {}", e.getMessage());
+        }
+    }
+
+    void runOnce(LocalDateTime now) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            int minuteRows = rollupMinutes(conn, now);
+            LocalDate today = now.toLocalDate();
+            LocalDate dailyFrom = dailyFrom(conn, today);
+            int dailyRows = dailyFrom == null ? 0 : rollupDays(conn, dailyFrom, now);
+            boolean mysql = "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+            int purgedRaw = purge(conn, mysql, RAW, today, today.minusDays(rawRetentionDays));
+            int purgedMinute = purge(conn, mysql, MINUTE, today, today.minusDays(minuteRetentionDays));
+            if (minuteRows + dailyRows + purgedRaw + purgedMinute > 0) {
+                log.info("存储维护: 分钟线 {} 行, 日线 {} 行, 清理原始数据 {}, 清理分钟线 {}",
+                        minuteRows, dailyRows, purgedRaw, purgedMinute);
+            }
+            Runnable listener = pastDaysListener;
+            if (listener != null && dailyRows > 0 && dailyFrom.isBefore(today)) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * 汇总到 now 所在分钟之前，积压的数据按小时分段，每段一条语句
+     */
+    private int rollupMinutes(Connection conn, LocalDateTime now) throws SQLException {
+        LocalDateTime end = now.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime from = queryTime(conn, "SELECT MAX(bar_time) FROM stock_minute_bar");
+        if (from == null) {
+            from = queryTime(conn, "SELECT MIN(create_time) FROM single_stock_data");
+            if (from == null) {
+                return 0;
+            }
+            from = from.truncatedTo(ChronoUnit.MINUTES);
+        }
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(MINUTE_ROLLUP_SQL)) {
+            while (from.isBefore(end)) {
+                LocalDateTime chunkEnd = from.plusHours(1).isBefore(end) ? from.plusHours(1) : end;
+                Timestamp lower = Timestamp.valueOf(from);
+                Timestamp upper = Timestamp.valueOf(chunkEnd);
+                for (int i = 1; i <= 6; i += 2) {
+                    ps.setTimestamp(i, lower);
+                    ps.setTimestamp(i + 1, upper);
+                }
+                rows += ps.executeUpdate();
+                from = chunkEnd;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 日线从最后一个已汇总的交易日之后开始；最后一个是今天（收盘后已汇总过）时重新汇总今天
+     * @return 没有任何分钟线时返回 null
+     */
+    private LocalDate dailyFrom(Connection conn, LocalDate today) throws SQLException {
+        LocalDateTime lastDay = queryTime(conn, "SELECT MAX(trade_date) FROM stock_daily_bar");
+        if (lastDay != null) {
+            return lastDay.toLocalDate().isBefore(today) ? lastDay.toLocalDate().plusDays(1) : today;
+        }
+        LocalDateTime firstBar = queryTime(conn, "SELECT MIN(bar_time) FROM stock_minute_bar");
+        return firstBar == null ? null : firstBar.toLocalDate();
+    }
+
+    /**
+     * 汇总 from 到 now 之前完整的交易日，当天在 {@link #DAILY_ROLLUP_TIME} 之后才汇总
+     */
+    private int rollupDays(Connection conn, LocalDate from, LocalDateTime now) throws SQLException {
+        LocalDate today = now.toLocalDate();
+        LocalDate end = now.toLocalTime().isBefore(DAILY_ROLLUP_TIME) ? today : today.plusDays(1);
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(DAILY_ROLLUP_SQL)) {
+            for (LocalDate day = from; day.isBefore(end); day = day.plusDays(1)) {
+                ps.setTimestamp(1, Timestamp.valueOf(day.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+                rows += ps.executeUpdate();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 清理 keepFrom 之前的数据
+     * @return 删除的分区数或行数
+     */
+    private int purge(Connection conn, boolean mysql, PartitionedTable table, LocalDate today, LocalDate keepFrom) throws SQLException {
+        List<String> partitions = mysql ? partitions(conn, table.name) : new ArrayList<>();
+        if (partitions.isEmpty()) {
+            return deleteBefore(conn, table, keepFrom);
+        }
+        addPartitions(conn, table, partitions, today);
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            LocalDate day = partitionDate(partition);
+            if (day != null && day.isBefore(keepFrom)) {
+                expired.add(partition);
+            }
+        }
+        if (!expired.isEmpty()) {
+            execute(conn, "ALTER TABLE " + table.name + " DROP PARTITION " + String.join(", ", expired));
+            log.info("{} 删除过期分区 {}", table.name, expired);
+        }
+        return expired.size();
+    }
+
+    private static int deleteBefore(Connection conn, PartitionedTable table, LocalDate keepFrom) throws SQLException {
+        int total = 0;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM " + table.name + " WHERE " + table.timeColumn + " < ? LIMIT " + DELETE_CHUNK)) {
+            ps.setTimestamp(1, Timestamp.valueOf(keepFrom.atStartOfDay()));
+            int deleted;
+            do {
+                deleted = ps.executeUpdate();
+                total += deleted;
+            } while (deleted == DELETE_CHUNK);
+        }
+        return total;
+    }
+
+    /**
+     * 预建到 today + PARTITIONS_AHEAD 的日分区，中间停机漏建的日期一并补上，
+     * 已经落在 p_future 里的数据随 REORGANIZE 移到对应分区
+     */
+    private static void addPartitions(Connection conn, PartitionedTable table, List<String> partitions, LocalDate today) throws SQLException {
+        LocalDate last = null;
+        for (String partition : partitions) {
+            LocalDate day = partitionDate(partition);
+            if (day != null && (last == null || day.isAfter(last))) {
+                last = day;
+            }
+        }
+        LocalDate from = last == null ? today : last.plusDays(1);
+        LocalDate to = today.plusDays(PARTITIONS_AHEAD);
+        if (from.isAfter(to)) {
+            return;
+        }
+        String definitions = table.dayPartitions(from, to);
+        if (partitions.contains(FUTURE_PARTITION)) {
+            execute(conn, "ALTER TABLE " + table.name + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    definitions + ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        } else {
+            execute(conn, "ALTER TABLE " + table.name + " ADD PARTITION (" + definitions + ")");
+        }
+        log.info("{} 新建分区 {} 至 {}", table.name, from, to);
+    }
+
+    /**
+     * 把已有的未分区表改为按天分区，只用于 MySQL。
+     * 原始表的主键要先改成 (id, create_time)，分区列必须包含在每个唯一键里。
+     * 会重建整张表，数据量大时耗时很长，只在初始化数据库时执行。
+     */
+    public static void partitionTables(Connection conn, LocalDate today) throws SQLException {
+        if (!"MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        for (PartitionedTable table : new PartitionedTable[]{RAW, MINUTE}) {
+            if (!partitions(conn, table.name).isEmpty()) {
+                continue;
+            }
+            LocalDateTime first = queryTime(conn, "SELECT MIN(" + table.timeColumn + ") FROM " + table.name);
+            LocalDate from = first == null || first.toLocalDate().isAfter(today) ? today : first.toLocalDate();
+            if (table == RAW) {
+                execute(conn, "ALTER TABLE single_stock_data DROP PRIMARY KEY, ADD PRIMARY KEY (id, create_time)");
+            }
+            log.info("{} 改为按天分区, 从 {} 开始", table.name, from);
+            execute(conn, "ALTER TABLE " + table.name + " PARTITION BY RANGE (" + table.partitionFunction + "(" +
+                    table.timeColumn + ")) (" + table.dayPartitions(from, today.plusDays(PARTITIONS_AHEAD)) +
+                    ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        }
+    }
+
+    private static List<String> partitions(Connection conn, String table) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 分区名 pYYYYMMDD 对应的日期，p_future 返回 null
+     */
+    static LocalDate partitionDate(String partition) {
+        if (partition.length() != 9 || partition.charAt(0) != 'p' || FUTURE_PARTITION.equals(partition)) {
+            return null;
+        }
+        return LocalDate.parse(partition.substring(1), PARTITION_DATE);
+    }
+
+    private static LocalDateTime queryTime(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) {
+                return null;
+            }
+            Timestamp time = rs.getTimestamp(1);
+            return time == null ? null : time.toLocalDateTime();
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * 按天分区的表，分区 pYYYYMMDD 存放这一天的数据
+     */
+    static final class PartitionedTable {
+        final String name;
+        final String timeColumn;
+        final String partitionFunction;
+
+        PartitionedTable(String name, String timeColumn, String partitionFunction) {
+            this.name = name;
+            this.timeColumn = timeColumn;
+            this.partitionFunction = partitionFunction;
+        }
+
+        /**
+         * from 到 to（含）每天一个分区的定义
+         */
+        String dayPartitions(LocalDate from, LocalDate to) {
+            StringBuilder sql = new StringBuilder();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                if (sql.length() > 0) {
+                    sql.append(", ");
+                }
+                sql.append("PARTITION p").append(day.format(PARTITION_DATE))
+                        .append(" VALUES LESS THAN (").append(partitionFunction)
+                        .append("('").append(day.plusDays(1)).append("'))");
+            }
+            return sql.toString();
+        }
+    }
+}
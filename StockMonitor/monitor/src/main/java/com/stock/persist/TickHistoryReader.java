@@ -0,0 +1,151 @@
+package com.stock.persist;
+
+import com.stock.utils.ConnectionSource;
+import com.stock.utils.DBUtils;
+import com.stock.vo.RecordedTick;
+import com.stock.vo.SingleStock;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按轮读回 single_stock_data 中的原始数据
+ * <p>
+ * 写入器每轮只提交一个批次，同一批次的行 create_time 相同，因此一个 create_time 就是一轮采样。
+ * 先按 create_time 索引取出最近的若干个时间点，再一次范围查询读回这些轮的全部行。
+ */
+public class TickHistoryReader {
+
+    private static final String TICK_TIMES_SQL = "SELECT DISTINCT create_time FROM single_stock_data " +
+            "WHERE create_time > ? ORDER BY create_time DESC LIMIT ?";
+
+    private static final String RANGE_TIMES_SQL = "SELECT DISTINCT create_time FROM single_stock_data " +
+            "WHERE create_time >= ? AND create_time < ? ORDER BY create_time";
+
+    private static final String ROWS_SQL = "SELECT code, name, current_price, change_amount, change_percent, " +
+            "zhuli_net_inflow, zhuli_net_inflow_percent, total_net_inflow, total_net_inflow_percent, " +
+            "chaodadan_net_inflow, chaodadan_net_inflow_percent, bigdan_net_inflow, bigdan_net_inflow_percent, " +
+            "zhongdan_net_inflow, zhongdan_net_inflow_percent, xiaodan_net_inflow, xiaodan_net_inflow_percent, " +
+            "total_volume, inflow_diff, create_time FROM single_stock_data " +
+            "WHERE create_time >= ? AND create_time <= ? ORDER BY create_time, id";
+
+    private final ConnectionSource connections;
+
+    public TickHistoryReader() {
+        this(DBUtils::getConnection);
+    }
+
+    public TickHistoryReader(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * 读取某一时刻之后入库的采样，最多取最近的 maxTicks 轮
+     * @param afterMillis 只读 create_time 晚于这一时刻的行
+     * @return 按时间先后排列的各轮数据
+     */
+    public List<RecordedTick> readAfter(long afterMillis, int maxTicks) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            Timestamp first;
+            Timestamp last;
+            try (PreparedStatement ps = conn.prepareStatement(TICK_TIMES_SQL)) {
+                ps.setTimestamp(1, new Timestamp(afterMillis));
+                ps.setInt(2, maxTicks);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return Collections.emptyList();
+                    }
+                    last = rs.getTimestamp(1);
+                    first = last;
+                    while (rs.next()) {
+                        first = rs.getTimestamp(1);
+                    }
+                }
+            }
+
+            return readRange(conn, first, last);
+        }
+    }
+
+    /**
+     * 某一时间段内各轮的入库时间，按时间先后排列
+     * @param fromMillis 包含
+     * @param toMillis   不包含
+     */
+    public List<Long> tickTimes(long fromMillis, long toMillis) throws SQLException {
+        List<Long> times = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(RANGE_TIMES_SQL)) {
+            ps.setTimestamp(1, new Timestamp(fromMillis));
+            ps.setTimestamp(2, new Timestamp(toMillis));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    times.add(rs.getTimestamp(1).getTime());
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * 读取一轮采样的全部行
+     * @param createTime {@link #tickTimes} 返回的入库时间
+     */
+    public RecordedTick readTick(long createTime) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            Timestamp time = new Timestamp(createTime);
+            List<RecordedTick> ticks = readRange(conn, time, time);
+            return ticks.isEmpty() ? new RecordedTick(createTime, new ArrayList<>()) : ticks.get(0);
+        }
+    }
+
+    private static List<RecordedTick> readRange(Connection conn, Timestamp first, Timestamp last) throws SQLException {
+        List<RecordedTick> ticks = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(ROWS_SQL)) {
+            ps.setTimestamp(1, first);
+            ps.setTimestamp(2, last);
+            try (ResultSet rs = ps.executeQuery()) {
+                RecordedTick current = null;
+                while (rs.next()) {
+                    long createTime = rs.getTimestamp("create_time").getTime();
+                    if (current == null || current.getCreateTime() != createTime) {
+                        current = new RecordedTick(createTime, new ArrayList<>());
+                        ticks.add(current);
+                    }
+                    current.getStocks().add(toSingleStock(rs));
+                }
+            }
+        }
+        return ticks;
+    }
+
+    private static SingleStock toSingleStock(ResultSet rs) throws SQLException {
+        SingleStock stock = new SingleStock();
+        stock.setCode(rs.getString("code"));
+        stock.setName(rs.getString("name"));
+        stock.setCurrentPrice(rs.getDouble("current_price"));
+        stock.setChange(rs.getDouble("change_amount"));
+        stock.setChangePercent(rs.getDouble("change_percent"));
+        stock.setZhuliNetInflow(rs.getDouble("zhuli_net_inflow"));
+        stock.setZhuliNetInflowPercent(rs.getDouble("zhuli_net_inflow_percent"));
+        stock.setTotalNetInflow(rs.getDouble("total_net_inflow"));
+        stock.setTotalNetInflowPercent(rs.getDouble("total_net_inflow_percent"));
+        stock.setChaodadanNetInflow(rs.getDouble("chaodadan_net_inflow"));
+        stock.setChaodadanNetInflowPercent(rs.getDouble("chaodadan_net_inflow_percent"));
+        stock.setBigdanNetInflow(rs.getDouble("bigdan_net_inflow"));
+        stock.setBigdanNetInflowPercent(rs.getDouble("bigdan_net_inflow_percent"));
+        stock.setZhongdanNetInflow(rs.getDouble("zhongdan_net_inflow"));
+        stock.setZhongdanNetInflowPercent(rs.getDouble("zhongdan_net_inflow_percent"));
+        stock.setXiaodanNetInflow(rs.getDouble("xiaodan_net_inflow"));
+        stock.setXiaodanNetInflowPercent(rs.getDouble("xiaodan_net_inflow_percent"));
+        stock.setTotalVolume(rs.getDouble("total_volume"));
+        stock.setInflowDiff(rs.getDouble("inflow_diff"));
+        return stock;
+    }
+}
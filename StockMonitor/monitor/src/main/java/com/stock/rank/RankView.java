@@ -0,0 +1,52 @@
+package com.stock.rank;
+
+import com.stock.vo.StockSpeed;
+
+/**
+ * 排名视图：每个视图按一项指标从高到低取前 K 名
+ * <p>
+ * 得分类取默认模型的得分。
+ */
+public enum RankView {
+
+    /** 上涨趋势得分 */
+    UP_TREND {
+        @Override
+        public double key(StockSpeed speed) {
+            return speed.getRankUpTrendScore();
+        }
+    },
+    /** 下跌趋势得分 */
+    DOWN_TREND {
+        @Override
+        public double key(StockSpeed speed) {
+            return speed.getRankDownTrendScore();
+        }
+    },
+    /** 动量评分 */
+    MOMENTUM {
+        @Override
+        public double key(StockSpeed speed) {
+            return speed.getMomentumScore();
+        }
+    },
+    /** 净流入速度（万元/秒） */
+    NET_SPEED {
+        @Override
+        public double key(StockSpeed speed) {
+            return speed.getNetSpeed();
+        }
+    },
+    /** 主力净流入（万元） */
+    ZHULI_INFLOW {
+        @Override
+        public double key(StockSpeed speed) {
+            return speed.getZhuliNetInflow();
+        }
+    };
+
+    /**
+     * 排名依据的取值，越大排名越靠前
+     */
+    public abstract double key(StockSpeed speed);
+}
@@ -0,0 +1,91 @@
+package com.stock.rank;
+
+import com.stock.vo.StockSpeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 排名阶段：一次遍历本轮结果，同时维护所有已订阅视图的前 K 名
+ * <p>
+ * 使用方通过 {@link #subscribe} 订阅需要的视图，同一视图被多次订阅时取最大的 K。
+ * 没有订阅的视图不计算，每个视图的代价为 O(n log k)，不再对全部结果排序。
+ * <p>
+ * 订阅可以在任意线程进行，从下一次 {@link #rank} 开始生效；{@link #rank} 需由同一个线程依次调用。
+ */
+public final class Ranker {
+
+    private static final RankView[] VIEWS = RankView.values();
+
+    // 各视图订阅的 K，按视图序号存放，0 表示未订阅；修改时整体替换
+    private volatile int[] limits = new int[VIEWS.length];
+    // 各视图的堆，K 变化时重建
+    private final TopK[] heaps = new TopK[VIEWS.length];
+
+    /**
+     * 订阅一个视图的前 k 名
+     */
+    public synchronized void subscribe(RankView view, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须为正数: " + k);
+        }
+        int[] updated = Arrays.copyOf(limits, limits.length);
+        updated[view.ordinal()] = Math.max(updated[view.ordinal()], k);
+        limits = updated;
+    }
+
+    /**
+     * 视图当前订阅的 K，未订阅时为 0
+     */
+    public int limit(RankView view) {
+        return limits[view.ordinal()];
+    }
+
+    /**
+     * 计算已订阅视图的排名；取值相同时按在 speeds 中的先后顺序排列
+     */
+    public Ranking rank(List<StockSpeed> speeds) {
+        int[] current = limits;
+        List<TopK> active = new ArrayList<>(VIEWS.length);
+        List<RankView> activeViews = new ArrayList<>(VIEWS.length);
+        for (RankView view : VIEWS) {
+            int k = current[view.ordinal()];
+            if (k == 0) {
+                continue;
+            }
+            TopK heap = heaps[view.ordinal()];
+            if (heap == null || heap.capacity() != k) {
+                heap = new TopK(k);
+                heaps[view.ordinal()] = heap;
+            }
+            heap.clear();
+            active.add(heap);
+            activeViews.add(view);
+        }
+        List<StockSpeed>[] views = Ranking.newViews(VIEWS.length);
+        if (active.isEmpty()) {
+            return new Ranking(views);
+        }
+
+        TopK[] heapArray = active.toArray(new TopK[0]);
+        RankView[] viewArray = activeViews.toArray(new RankView[0]);
+        for (int i = 0; i < speeds.size(); i++) {
+            StockSpeed speed = speeds.get(i);
+            for (int v = 0; v < heapArray.length; v++) {
+                heapArray[v].offer(viewArray[v].key(speed), i);
+            }
+        }
+
+        for (int v = 0; v < heapArray.length; v++) {
+            int[] ranked = heapArray[v].drain();
+            List<StockSpeed> top = new ArrayList<>(ranked.length);
+            for (int index : ranked) {
+                top.add(speeds.get(index));
+            }
+            views[viewArray[v].ordinal()] = Collections.unmodifiableList(top);
+        }
+        return new Ranking(views);
+    }
+}
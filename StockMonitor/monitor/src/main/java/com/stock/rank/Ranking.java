@@ -0,0 +1,57 @@
+package com.stock.rank;
+
+import com.stock.vo.StockSpeed;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一轮采样各排名视图的前 K 名
+ * <p>
+ * 只包含计算时已订阅的视图，未订阅的视图返回空列表。发布之后不再修改，可以被任意线程读取。
+ */
+public final class Ranking {
+
+    private static final Ranking EMPTY = new Ranking(newViews(RankView.values().length));
+
+    private final List<StockSpeed>[] views;
+
+    Ranking(List<StockSpeed>[] views) {
+        this.views = views;
+    }
+
+    /**
+     * 按视图序号存放排名结果的数组，未计算的视图为 null
+     */
+    @SuppressWarnings("unchecked")
+    static List<StockSpeed>[] newViews(int n) {
+        return (List<StockSpeed>[]) new List<?>[n];
+    }
+
+    public static Ranking empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 视图的排名结果，从第一名开始；本轮没有订阅该视图时返回空列表
+     */
+    public List<StockSpeed> top(RankView view) {
+        List<StockSpeed> ranked = views[view.ordinal()];
+        return ranked == null ? Collections.emptyList() : ranked;
+    }
+
+    /**
+     * 视图的前 limit 名
+     */
+    public List<StockSpeed> top(RankView view, int limit) {
+        List<StockSpeed> ranked = top(view);
+        return ranked.size() <= limit ? ranked : ranked.subList(0, limit);
+    }
+
+    /**
+     * 本轮是否计算了该视图
+     */
+    public boolean contains(RankView view) {
+        return views[view.ordinal()] != null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.stock.rank;
+
+/**
+ * 容量为 k 的小顶堆，保留取值最大的 k 个元素
+ * <p>
+ * 键和元素编号分别放在 double[] 和 int[] 里，不装箱。取值相同时编号小的排在前面，
+ * 因此按编号顺序放入时，结果与对全部元素稳定排序后取前 k 个一致。
+ * 取值按 {@link Double#compare} 比较，与原先的全量排序相同。
+ * <p>
+ * 放入 n 个元素的代价为 O(n log k)，可以 {@link #clear} 后重复使用。
+ */
+public final class TopK {
+
+    private final double[] keys;
+    private final int[] items;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k 不能为负数: " + k);
+        }
+        this.keys = new double[k];
+        this.items = new int[k];
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 放入一个元素，堆满时只有排在当前第 k 名之前的才会替换它
+     */
+    public void offer(double key, int item) {
+        if (size < keys.length) {
+            keys[size] = key;
+            items[size] = item;
+            siftUp(size++);
+        } else if (size > 0 && before(key, item, keys[0], items[0])) {
+            keys[0] = key;
+            items[0] = item;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 按排名从前到后取出全部元素编号，之后堆为空
+     */
+    public int[] drain() {
+        int[] ranked = new int[size];
+        while (size > 0) {
+            ranked[size - 1] = items[0];
+            size--;
+            if (size > 0) {
+                keys[0] = keys[size];
+                items[0] = items[size];
+                siftDown(0);
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * a 是否排在 b 前面：取值大的在前，取值相同时编号小的在前
+     */
+    private static boolean before(double keyA, int itemA, double keyB, int itemB) {
+        int c = Double.compare(keyA, keyB);
+        return c > 0 || (c == 0 && itemA < itemB);
+    }
+
+    // 堆顶是排名最靠后的元素
+    private void siftUp(int i) {
+        double key = keys[i];
+        int item = items[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(keys[parent], items[parent], key, item)) {
+                break;
+            }
+            keys[i] = keys[parent];
+            items[i] = items[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+
+    private void siftDown(int i) {
+        double key = keys[i];
+        int item = items[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && before(keys[child], items[child], keys[right], items[right])) {
+                child = right;
+            }
+            if (!before(key, item, keys[child], items[child])) {
+                break;
+            }
+            keys[i] = keys[child];
+            items[i] = items[child];
+            i = child;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+}
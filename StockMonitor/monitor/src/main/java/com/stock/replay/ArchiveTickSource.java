@@ -0,0 +1,51 @@
+package com.stock.replay;
+
+import com.stock.store.TickArchive;
+import com.stock.store.TickArchiveReader;
+import com.stock.vo.RecordedTick;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 从本地采样归档逐轮读取，每天的归档在读到时才映射
+ */
+public class ArchiveTickSource implements TickSource {
+
+    private final TickArchive archive;
+    private final Iterator<LocalDate> days;
+    private TickArchiveReader reader;
+    private int tick;
+
+    /**
+     * @param from 起始交易日，包含
+     * @param to   结束交易日，包含
+     */
+    public ArchiveTickSource(TickArchive archive, LocalDate from, LocalDate to) throws IOException {
+        this.archive = archive;
+        List<LocalDate> selected = new ArrayList<>();
+        for (LocalDate day : archive.days()) {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                selected.add(day);
+            }
+        }
+        this.days = selected.iterator();
+    }
+
+    @Override
+    public RecordedTick next() throws IOException {
+        while (reader == null || tick >= reader.tickCount()) {
+            if (!days.hasNext()) {
+                return null;
+            }
+            reader = archive.open(days.next());
+            tick = 0;
+        }
+        RecordedTick recorded = new RecordedTick(reader.tickTime(tick), reader.stocks(tick));
+        tick++;
+        return recorded;
+    }
+}
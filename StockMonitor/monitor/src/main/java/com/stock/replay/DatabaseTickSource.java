@@ -0,0 +1,45 @@
+package com.stock.replay;
+
+import com.stock.persist.TickHistoryReader;
+import com.stock.vo.RecordedTick;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 从 single_stock_data 逐轮读取，先取出时间段内各轮的入库时间，再每轮按 create_time 查询一次
+ */
+public class DatabaseTickSource implements TickSource {
+
+    private final TickHistoryReader reader;
+    private final long fromMillis;
+    private final long toMillis;
+    private List<Long> times;
+    private int next;
+
+    /**
+     * @param fromMillis 包含
+     * @param toMillis   不包含
+     */
+    public DatabaseTickSource(TickHistoryReader reader, long fromMillis, long toMillis) {
+        this.reader = reader;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    @Override
+    public RecordedTick next() throws IOException {
+        try {
+            if (times == null) {
+                times = reader.tickTimes(fromMillis, toMillis);
+            }
+            if (next >= times.size()) {
+                return null;
+            }
+            return reader.readTick(times.get(next++));
+        } catch (SQLException e) {
+            throw new IOException("读取 single_stock_data 失败: " + e.getMessage(), e);
+        }
+    }
+}
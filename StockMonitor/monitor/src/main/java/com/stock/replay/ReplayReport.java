@@ -0,0 +1,68 @@
+package com.stock.replay;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次重放的统计：总轮数、总行数、总耗时，以及各阶段的耗时分布
+ */
+public class ReplayReport {
+
+    private final int ticks;
+    private final long rows;
+    private final long wallNanos;
+    private final List<StageStats> stages;
+
+    public ReplayReport(int ticks, long rows, long wallNanos, List<StageStats> stages) {
+        this.ticks = ticks;
+        this.rows = rows;
+        this.wallNanos = wallNanos;
+        this.stages = stages;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public List<StageStats> getStages() {
+        return stages;
+    }
+
+    public StageStats stage(String name) {
+        for (StageStats stage : stages) {
+            if (stage.getName().equals(name)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    public double ticksPerSecond() {
+        return wallNanos == 0 ? 0 : ticks * (double) TimeUnit.SECONDS.toNanos(1) / wallNanos;
+    }
+
+    public double rowsPerSecond() {
+        return wallNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("重放 %d 轮, %d 行, 耗时 %.1f s, %.1f 轮/秒, %.0f 行/秒",
+                ticks, rows, wallNanos / (double) TimeUnit.SECONDS.toNanos(1), ticksPerSecond(), rowsPerSecond()));
+        for (StageStats stage : stages) {
+            if (stage.getCount() > 0) {
+                sb.append(System.lineSeparator()).append("  ").append(stage);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.stock.replay;
+
+import com.stock.engine.TickEngine;
+import com.stock.engine.TickResult;
+import com.stock.vo.RecordedTick;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 用记录下来的采样驱动计算流水线，与实时运行走同一个 {@link TickEngine}
+ * <p>
+ * 时钟是虚拟的：每轮以记录的采样时间作为计算时间，跨日时按记录的日期换日，
+ * 因此同样的数据重放多次得到的结果完全相同，可以离线做性能分析和回归比较。
+ * <p>
+ * speed 为 0 时尽快重放；大于 0 时按记录时间的间隔除以 speed 等待，
+ * 午休、隔夜这类超过 {@link #MAX_GAP_MILLIS} 的间隔按该上限计。
+ * <p>
+ * 每轮依次经过读取、计算、入库、界面四个阶段，分别计时；入库和界面可以为 null，表示跳过。
+ */
+@Slf4j
+public class ReplayRunner {
+
+    public static final String LOAD = "读取";
+    public static final String COMPUTE = "计算";
+    public static final String PERSIST = "入库";
+    public static final String PUBLISH = "界面";
+
+    static final long MAX_GAP_MILLIS = 60_000;
+    private static final int PROGRESS_TICKS = 360;
+
+    private final TickEngine engine;
+    private final TickSource source;
+    private final double speed;
+    private final Consumer<TickResult> persist;
+    private final Consumer<TickResult> publish;
+    private final ZoneId zone;
+
+    /**
+     * @param speed   相对实时的倍速，0 表示不等待
+     * @param persist 入库阶段，接收每轮的计算结果（入库数据和采样时间），可以为 null
+     * @param publish 界面阶段，接收每轮的计算结果，可以为 null
+     */
+    public ReplayRunner(TickEngine engine, TickSource source, double speed,
+                        Consumer<TickResult> persist, Consumer<TickResult> publish) {
+        this(engine, source, speed, persist, publish, ZoneId.systemDefault());
+    }
+
+    public ReplayRunner(TickEngine engine, TickSource source, double speed,
+                        Consumer<TickResult> persist, Consumer<TickResult> publish, ZoneId zone) {
+        this.engine = engine;
+        this.source = source;
+        this.speed = speed;
+        this.persist = persist;
+        this.publish = publish;
+        this.zone = zone;
+    }
+
+    public ReplayReport run() throws IOException, InterruptedException {
+        StageStats load = new StageStats(LOAD);
+        StageStats compute = new StageStats(COMPUTE);
+        StageStats persistStage = new StageStats(PERSIST);
+        StageStats publishStage = new StageStats(PUBLISH);
+
+        long wallStart = System.nanoTime();
+        long virtualElapsed = 0;
+        long lastTime = Long.MIN_VALUE;
+        int ticks = 0;
+        long rows = 0;
+        while (true) {
+            long start = System.nanoTime();
+            RecordedTick recorded = source.next();
+            if (recorded == null) {
+                break;
+            }
+            load.record(System.nanoTime() - start);
+
+            long time = recorded.getCreateTime();
+            if (lastTime != Long.MIN_VALUE) {
+                virtualElapsed += Math.min(Math.max(0, time - lastTime), MAX_GAP_MILLIS);
+            }
+            lastTime = time;
+            if (speed > 0) {
+                long dueNanos = wallStart + (long) (TimeUnit.MILLISECONDS.toNanos(virtualElapsed) / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+
+            start = System.nanoTime();
+            engine.rollover(Instant.ofEpochMilli(time).atZone(zone).toLocalDate());
+            TickResult result = engine.process(recorded.getStocks(), time);
+            compute.record(System.nanoTime() - start);
+
+            if (persist != null) {
+                start = System.nanoTime();
+                persist.accept(result);
+                persistStage.record(System.nanoTime() - start);
+            }
+            if (publish != null) {
+                start = System.nanoTime();
+                publish.accept(result);
+                publishStage.record(System.nanoTime() - start);
+            }
+
+            ticks++;
+            rows += recorded.getStocks().size();
+            if (ticks % PROGRESS_TICKS == 0) {
+                log.info("已重放 {} 轮, 记录时间 {}", ticks, Instant.ofEpochMilli(time).atZone(zone).toLocalDateTime());
+            }
+        }
+        return new ReplayReport(ticks, rows, System.nanoTime() - wallStart,
+                Arrays.asList(load, compute, persistStage, publishStage));
+    }
+}
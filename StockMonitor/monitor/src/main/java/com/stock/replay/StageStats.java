@@ -0,0 +1,67 @@
+package com.stock.replay;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个处理阶段每轮的耗时，记录全部样本，报告时排序取分位数
+ */
+public class StageStats {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+    private long totalNanos;
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        totalNanos += nanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * @param percentile 0 到 100
+     */
+    public long percentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d 轮, 合计 %.1f ms, 平均 %.3f ms, p50 %.3f ms, p99 %.3f ms, 最大 %.3f ms",
+                name, count, millis(totalNanos), millis(getMeanNanos()), millis(percentileNanos(50)),
+                millis(percentileNanos(99)), millis(percentileNanos(100)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
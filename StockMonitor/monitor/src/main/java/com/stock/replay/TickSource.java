@@ -0,0 +1,16 @@
+package com.stock.replay;
+
+import com.stock.vo.RecordedTick;
+
+import java.io.IOException;
+
+/**
+ * 重放用的历史采样来源，按时间先后逐轮返回
+ */
+public interface TickSource {
+
+    /**
+     * @return 下一轮采样，没有更多数据时返回 null
+     */
+    RecordedTick next() throws IOException;
+}
@@ -0,0 +1,62 @@
+package com.stock.score;
+
+/**
+ * 下跌趋势评分，总分100分，计算逻辑与上涨趋势相反：
+ * <p>
+ * 1. 资金流出速度(outflow，默认30分)：流出速度大于流入速度时，outflow × 流出速度 / (流入速度 + 流出速度)
+ * 2. 跌幅(默认20分)：min(change.max, |涨跌幅 × change.factor|)，只计负涨幅
+ * 3. 主力净流出占比(默认25分)：min(zhuli.max, |主力净流入占比 × zhuli.factor|)，只计负值
+ * 4. 超大单净流出占比(默认15分)：min(chaodadan.max, |超大单净流入占比 × chaodadan.factor|)，只计负值
+ * 5. 成交量变化(默认10分)：min(volume.max, 成交量变化速度 / volume.divisor)，只计正值
+ */
+public final class DownTrendScorer implements Scorer {
+
+    public static final String NAME = "downTrend";
+
+    private final double outflowWeight;
+    private final double changeFactor;
+    private final double changeMax;
+    private final double zhuliFactor;
+    private final double zhuliMax;
+    private final double chaodadanFactor;
+    private final double chaodadanMax;
+    private final double volumeDivisor;
+    private final double volumeMax;
+
+    public DownTrendScorer(ScoreWeights weights) {
+        this.outflowWeight = weights.get(NAME + ".outflow", 30);
+        this.changeFactor = weights.get(NAME + ".change.factor", 2);
+        this.changeMax = weights.get(NAME + ".change.max", 20);
+        this.zhuliFactor = weights.get(NAME + ".zhuli.factor", 2.5);
+        this.zhuliMax = weights.get(NAME + ".zhuli.max", 25);
+        this.chaodadanFactor = weights.get(NAME + ".chaodadan.factor", 1.5);
+        this.chaodadanMax = weights.get(NAME + ".chaodadan.max", 15);
+        this.volumeDivisor = weights.get(NAME + ".volume.divisor", 1000);
+        this.volumeMax = weights.get(NAME + ".volume.max", 10);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void score(ScoreInputs inputs, int from, int to, double[] out) {
+        double[] in = inputs.inSpeeds();
+        double[] outflow = inputs.outSpeeds();
+        double[] volume = inputs.volumeSpeeds();
+        double[] change = inputs.changePercents();
+        double[] zhuli = inputs.zhuliPercents();
+        double[] chaodadan = inputs.chaodadanPercents();
+        for (int i = from; i < to; i++) {
+            double flowSum = in[i] + outflow[i];
+            double score = 0;
+            score += outflow[i] > in[i] && flowSum > 0 ? outflowWeight * (outflow[i] / flowSum) : 0;
+            score += change[i] < 0 ? Math.min(changeMax, Math.abs(change[i] * changeFactor)) : 0;
+            score += zhuli[i] < 0 ? Math.min(zhuliMax, Math.abs(zhuli[i] * zhuliFactor)) : 0;
+            score += chaodadan[i] < 0 ? Math.min(chaodadanMax, Math.abs(chaodadan[i] * chaodadanFactor)) : 0;
+            score += volume[i] > 0 ? Math.min(volumeMax, volume[i] / volumeDivisor) : 0;
+            out[i] = Math.min(100, score);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.stock.score;
+
+/**
+ * 动量评分，结果截断到 [0, 100]：
+ * <p>
+ * 1. 价格动量(默认40分)：min(change.max, |涨跌幅| × change.factor)
+ * 2. 资金动量(flow，默认40分)：flow × 净流入速度 / (|流入速度| + |流出速度|)，可以为负
+ * 3. 成交量动量(默认20分)：min(volume.max, (流入速度 + 流出速度) / volume.divisor)
+ */
+public final class MomentumScorer implements Scorer {
+
+    public static final String NAME = "momentum";
+
+    private final double changeFactor;
+    private final double changeMax;
+    private final double flowWeight;
+    private final double volumeDivisor;
+    private final double volumeMax;
+
+    public MomentumScorer(ScoreWeights weights) {
+        this.changeFactor = weights.get(NAME + ".change.factor", 4);
+        this.changeMax = weights.get(NAME + ".change.max", 40);
+        this.flowWeight = weights.get(NAME + ".flow", 40);
+        this.volumeDivisor = weights.get(NAME + ".volume.divisor", 1000);
+        this.volumeMax = weights.get(NAME + ".volume.max", 20);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void score(ScoreInputs inputs, int from, int to, double[] out) {
+        double[] in = inputs.inSpeeds();
+        double[] outflow = inputs.outSpeeds();
+        double[] change = inputs.changePercents();
+        for (int i = from; i < to; i++) {
+            double absSum = Math.abs(in[i]) + Math.abs(outflow[i]);
+            double score = 0;
+            // NaN 与自身不相等，缺失的输入不计分
+            score += change[i] == change[i] ? Math.min(changeMax, Math.abs(change[i]) * changeFactor) : 0;
+            score += absSum > 0 ? flowWeight * ((in[i] - outflow[i]) / absSum) : 0;
+            score += in[i] == in[i] && outflow[i] == outflow[i]
+                    ? Math.min(volumeMax, (in[i] + outflow[i]) / volumeDivisor) : 0;
+            out[i] = Math.max(0, Math.min(100, score));
+        }
+    }
+}
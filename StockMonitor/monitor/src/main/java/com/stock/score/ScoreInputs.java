@@ -0,0 +1,165 @@
+package com.stock.score;
+
+import java.util.Arrays;
+
+/**
+ * 一轮评分的输入，按 {@link com.stock.store.SymbolIndex} 下标存放，每项一列
+ * <p>
+ * 由 {@link com.stock.engine.TickEngine} 的各分片填充自己区间内的元素，
+ * 填充完成后在同一线程内交给各 {@link Scorer} 批量计算。数组在两轮之间复用，
+ * 本轮没有计算速度的股票保留的是旧值，只有 {@link ScoreTable#isScored} 为 true 的下标才有意义。
+ */
+public final class ScoreInputs {
+
+    private double[] inSpeeds = new double[0];
+    private double[] outSpeeds = new double[0];
+    private double[] volumeSpeeds = new double[0];
+    private double[] changePercents = new double[0];
+    private double[] zhuliPercents = new double[0];
+    private double[] chaodadanPercents = new double[0];
+    private double[] dayInflows = new double[0];
+    private double[] dayOutflows = new double[0];
+    private double[] historyInflows = new double[0];
+    private double[] historyOutflows = new double[0];
+    private boolean[] technicalReady = new boolean[0];
+    private double[] macds = new double[0];
+    private double[] rsis = new double[0];
+    private double[] kdjs = new double[0];
+    private int[] macdSignals = new int[0];
+    private int[] rsiSignals = new int[0];
+    private int[] kdjSignals = new int[0];
+
+    public ScoreInputs() {
+        ensureCapacity(1024);
+    }
+
+    /**
+     * 资金速度（万元/秒）以及当日、近几日的累计流入流出
+     */
+    public void setFlow(int symbol, double inSpeed, double outSpeed, double volumeSpeed,
+                        double dayInflow, double dayOutflow, double historyInflow, double historyOutflow) {
+        inSpeeds[symbol] = inSpeed;
+        outSpeeds[symbol] = outSpeed;
+        volumeSpeeds[symbol] = volumeSpeed;
+        dayInflows[symbol] = dayInflow;
+        dayOutflows[symbol] = dayOutflow;
+        historyInflows[symbol] = historyInflow;
+        historyOutflows[symbol] = historyOutflow;
+    }
+
+    public void setQuote(int symbol, double changePercent, double zhuliPercent, double chaodadanPercent) {
+        changePercents[symbol] = changePercent;
+        zhuliPercents[symbol] = zhuliPercent;
+        chaodadanPercents[symbol] = chaodadanPercent;
+    }
+
+    /**
+     * 技术指标及交叉信号，信号取值 1、0、-1
+     * @param ready 历史数据是否足够计算指标，不足时技术评分取中性值
+     */
+    public void setTechnical(int symbol, boolean ready, double macd, double rsi, double kdj,
+                             int macdSignal, int rsiSignal, int kdjSignal) {
+        technicalReady[symbol] = ready;
+        macds[symbol] = macd;
+        rsis[symbol] = rsi;
+        kdjs[symbol] = kdj;
+        macdSignals[symbol] = macdSignal;
+        rsiSignals[symbol] = rsiSignal;
+        kdjSignals[symbol] = kdjSignal;
+    }
+
+    public double[] inSpeeds() {
+        return inSpeeds;
+    }
+
+    public double[] outSpeeds() {
+        return outSpeeds;
+    }
+
+    public double[] volumeSpeeds() {
+        return volumeSpeeds;
+    }
+
+    public double[] changePercents() {
+        return changePercents;
+    }
+
+    public double[] zhuliPercents() {
+        return zhuliPercents;
+    }
+
+    public double[] chaodadanPercents() {
+        return chaodadanPercents;
+    }
+
+    public double[] dayInflows() {
+        return dayInflows;
+    }
+
+    public double[] dayOutflows() {
+        return dayOutflows;
+    }
+
+    public double[] historyInflows() {
+        return historyInflows;
+    }
+
+    public double[] historyOutflows() {
+        return historyOutflows;
+    }
+
+    public boolean[] technicalReady() {
+        return technicalReady;
+    }
+
+    public double[] macds() {
+        return macds;
+    }
+
+    public double[] rsis() {
+        return rsis;
+    }
+
+    public double[] kdjs() {
+        return kdjs;
+    }
+
+    public int[] macdSignals() {
+        return macdSignals;
+    }
+
+    public int[] rsiSignals() {
+        return rsiSignals;
+    }
+
+    public int[] kdjSignals() {
+        return kdjSignals;
+    }
+
+    /**
+     * 预先分配到指定股票数，并行填充前调用，保证填充过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= inSpeeds.length) {
+            return;
+        }
+        int newSize = Math.max(symbolCount, inSpeeds.length * 2);
+        inSpeeds = Arrays.copyOf(inSpeeds, newSize);
+        outSpeeds = Arrays.copyOf(outSpeeds, newSize);
+        volumeSpeeds = Arrays.copyOf(volumeSpeeds, newSize);
+        changePercents = Arrays.copyOf(changePercents, newSize);
+        zhuliPercents = Arrays.copyOf(zhuliPercents, newSize);
+        chaodadanPercents = Arrays.copyOf(chaodadanPercents, newSize);
+        dayInflows = Arrays.copyOf(dayInflows, newSize);
+        dayOutflows = Arrays.copyOf(dayOutflows, newSize);
+        historyInflows = Arrays.copyOf(historyInflows, newSize);
+        historyOutflows = Arrays.copyOf(historyOutflows, newSize);
+        technicalReady = Arrays.copyOf(technicalReady, newSize);
+        macds = Arrays.copyOf(macds, newSize);
+        rsis = Arrays.copyOf(rsis, newSize);
+        kdjs = Arrays.copyOf(kdjs, newSize);
+        macdSignals = Arrays.copyOf(macdSignals, newSize);
+        rsiSignals = Arrays.copyOf(rsiSignals, newSize);
+        kdjSignals = Arrays.copyOf(kdjSignals, newSize);
+    }
+}
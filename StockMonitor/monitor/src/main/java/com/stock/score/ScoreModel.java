@@ -0,0 +1,59 @@
+package com.stock.score;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一个评分模型：一组按顺序执行的 {@link Scorer}
+ * <p>
+ * 模型之间互不影响，同一轮里可以同时运行多个模型，
+ * 输入只填充一次，每多一个模型只多几遍数组循环。
+ */
+public final class ScoreModel {
+
+    private final String name;
+    private final List<Scorer> scorers;
+
+    public ScoreModel(String name, List<Scorer> scorers) {
+        this.name = name;
+        this.scorers = Collections.unmodifiableList(new ArrayList<>(scorers));
+        for (int i = 0; i < this.scorers.size(); i++) {
+            if (indexOf(this.scorers.get(i).name()) != i) {
+                throw new IllegalArgumentException("模型 " + name + " 中评分名称重复: " + this.scorers.get(i).name());
+            }
+        }
+    }
+
+    /**
+     * 由内置的上涨趋势、下跌趋势、动量、技术指标四项评分组成的模型
+     */
+    public static ScoreModel builtin(ScoreWeights weights) {
+        List<Scorer> scorers = new ArrayList<>(4);
+        scorers.add(new UpTrendScorer(weights));
+        scorers.add(new DownTrendScorer(weights));
+        scorers.add(new MomentumScorer(weights));
+        scorers.add(new TechnicalScorer(weights));
+        return new ScoreModel(weights.getModel(), scorers);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Scorer> getScorers() {
+        return scorers;
+    }
+
+    /**
+     * 评分在模型中的位置，没有时返回 -1
+     */
+    public int indexOf(String scorer) {
+        for (int i = 0; i < scorers.size(); i++) {
+            if (scorers.get(i).name().equals(scorer)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+package com.stock.score;
+
+import java.util.List;
+
+/**
+ * 一轮采样全部模型的评分结果
+ * <p>
+ * 每个模型的每项评分一列，按股票下标存放。每轮新建，发布之后不再修改，可以被任意线程读取。
+ * 只有 {@link #isScored} 为 true 的股票（与上一轮都出现、计算了速度）才有得分。
+ */
+public final class ScoreTable {
+
+    static final ScoreTable EMPTY = new ScoreTable(new ScoreModel[0], 0);
+
+    private final ScoreModel[] models;
+    private final double[][][] columns;
+    private final boolean[] scored;
+
+    public ScoreTable(ScoreModel[] models, int symbolCount) {
+        this.models = models;
+        this.columns = new double[models.length][][];
+        for (int m = 0; m < models.length; m++) {
+            int scorers = models[m].getScorers().size();
+            columns[m] = new double[scorers][symbolCount];
+        }
+        this.scored = new boolean[symbolCount];
+    }
+
+    public static ScoreTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 用全部模型计算下标 [from, to) 的得分
+     * 不同线程可以同时计算不相交的区间
+     */
+    public void compute(ScoreInputs inputs, int from, int to) {
+        for (int m = 0; m < models.length; m++) {
+            List<Scorer> scorers = models[m].getScorers();
+            for (int s = 0; s < scorers.size(); s++) {
+                scorers.get(s).score(inputs, from, to, columns[m][s]);
+            }
+        }
+    }
+
+    public void markScored(int symbol) {
+        scored[symbol] = true;
+    }
+
+    public boolean isScored(int symbol) {
+        return symbol < scored.length && scored[symbol];
+    }
+
+    public int getModelCount() {
+        return models.length;
+    }
+
+    public ScoreModel getModel(int model) {
+        return models[model];
+    }
+
+    /**
+     * 模型在本轮中的位置，没有时返回 -1
+     */
+    public int indexOf(String model) {
+        for (int m = 0; m < models.length; m++) {
+            if (models[m].getName().equals(model)) {
+                return m;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 某个模型某项评分的整列，没有该模型或评分时返回 null
+     */
+    public double[] column(String model, String scorer) {
+        int m = indexOf(model);
+        if (m < 0) {
+            return null;
+        }
+        return column(m, scorer);
+    }
+
+    public double[] column(int model, String scorer) {
+        int s = models[model].indexOf(scorer);
+        return s < 0 ? null : columns[model][s];
+    }
+
+    /**
+     * 单只股票的得分，没有该模型、评分或本轮未评分时返回 NaN
+     */
+    public double score(String model, String scorer, int symbol) {
+        double[] column = column(model, scorer);
+        if (column == null || !isScored(symbol)) {
+            return Double.NaN;
+        }
+        return column[symbol];
+    }
+}
@@ -0,0 +1,44 @@
+package com.stock.score;
+
+import java.util.Properties;
+
+/**
+ * 某个评分模型的权重和阈值
+ * <p>
+ * 先查找以模型名为前缀的键（如 steady.upTrend.realtimeFlow），
+ * 没有时使用不带前缀的公共配置，再没有时使用评分类里的默认值。
+ */
+public final class ScoreWeights {
+
+    static final ScoreWeights DEFAULTS = new ScoreWeights(ScoringConfig.DEFAULT_MODEL, new Properties());
+
+    private final String model;
+    private final Properties properties;
+
+    public ScoreWeights(String model, Properties properties) {
+        this.model = model;
+        this.properties = properties;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * @throws IllegalArgumentException 配置的值不是数字
+     */
+    public double get(String key, double defaultValue) {
+        String value = properties.getProperty(model + "." + key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("评分参数 " + key + " 不是数字: " + value);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.stock.score;
+
+/**
+ * 评分模型中的一项评分
+ * <p>
+ * 按下标区间批量计算：输入从 {@link ScoreInputs} 的各列读取，结果写入 out 的同一下标。
+ * 实现应当只在区间内做原始类型数组上的循环，不分配对象、不读写共享状态，
+ * 同一实例会被多个分片线程同时调用，各自处理不相交的区间。
+ */
+public interface Scorer {
+
+    /**
+     * 评分名称，同一模型内唯一
+     */
+    String name();
+
+    /**
+     * 计算下标 [from, to) 的得分
+     */
+    void score(ScoreInputs inputs, int from, int to, double[] out);
+}
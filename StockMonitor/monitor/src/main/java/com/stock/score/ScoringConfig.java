@@ -0,0 +1,167 @@
+package com.stock.score;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 评分模型配置，可在运行中修改并自动重新载入
+ * <p>
+ * 配置文件为 properties 格式（UTF-8）：
+ * <pre>
+ * # 默认模型的参数，键名见各评分类
+ * upTrend.realtimeFlow=20
+ * downTrend.volume.divisor=1000
+ * # 与默认模型并行运行的其他模型，参数以模型名为前缀，未配置的沿用默认模型
+ * models=steady,aggressive
+ * aggressive.upTrend.change.max=30
+ * </pre>
+ * 默认模型总是排在第一个，实时表格显示的就是它的得分。
+ * <p>
+ * {@link #refresh()} 由计算线程在每轮开始时调用，只比较文件的修改时间和大小，
+ * 有变化才重新解析；解析失败时记录错误并继续使用原来的模型。
+ * 文件不存在时使用内置默认参数。
+ */
+@Slf4j
+public final class ScoringConfig {
+
+    public static final String DEFAULT_MODEL = "default";
+
+    private final Path file;
+    private volatile ScoreModel[] models;
+    // 上次载入时文件的修改时间和大小，只由调用 refresh 的线程读写
+    private long loadedModified = -1;
+    private long loadedSize = -1;
+
+    public ScoringConfig(Path file) {
+        this.file = file;
+        this.models = defaultModels();
+        refresh();
+    }
+
+    private ScoringConfig(ScoreModel[] models) {
+        this.file = null;
+        this.models = models;
+    }
+
+    /**
+     * 只有内置默认模型，不读取文件
+     */
+    public static ScoringConfig defaults() {
+        return new ScoringConfig(defaultModels());
+    }
+
+    /**
+     * 固定的一组模型，不读取文件，用于自定义 {@link Scorer}
+     */
+    public static ScoringConfig of(ScoreModel... models) {
+        if (models.length == 0) {
+            throw new IllegalArgumentException("至少需要一个评分模型");
+        }
+        return new ScoringConfig(models.clone());
+    }
+
+    /**
+     * 当前生效的模型，第一个为默认模型
+     * 返回的数组不会被修改，重新载入时整体替换
+     */
+    public ScoreModel[] models() {
+        return models;
+    }
+
+    /**
+     * 配置文件有变化时重新载入
+     * @return 是否换用了新的模型
+     */
+    public boolean refresh() {
+        if (file == null) {
+            return false;
+        }
+        long modified;
+        long size;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            modified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        } catch (NoSuchFileException e) {
+            if (loadedModified == -1) {
+                return false;
+            }
+            loadedModified = -1;
+            loadedSize = -1;
+            models = defaultModels();
+            log.info("评分配置文件 {} 已删除, 恢复默认参数", file);
+            return true;
+        } catch (IOException e) {
+            log.warn("读取评分配置文件属性失败: {}", e.getMessage());
+            return false;
+        }
+        if (modified == loadedModified && size == loadedSize) {
+            return false;
+        }
+        loadedModified = modified;
+        loadedSize = size;
+        try {
+            Properties properties = new Properties();
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            ScoreModel[] loaded = parse(properties);
+            models = loaded;
+            log.info("评分配置已载入: {} 个模型 {}", loaded.length, names(loaded));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("评分配置文件 {} 无效, 继续使用原来的参数: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 按配置构建全部模型，默认模型在前
+     * @throws IllegalArgumentException 参数不是数字或模型名无效
+     */
+    public static ScoreModel[] parse(Properties properties) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(DEFAULT_MODEL);
+        String extra = properties.getProperty("models", "");
+        for (String name : extra.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.contains(".")) {
+                throw new IllegalArgumentException("模型名不能包含点号: " + name);
+            }
+            names.add(name);
+        }
+        List<ScoreModel> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(ScoreModel.builtin(new ScoreWeights(name, properties)));
+        }
+        return result.toArray(new ScoreModel[0]);
+    }
+
+    private static ScoreModel[] defaultModels() {
+        return new ScoreModel[]{ScoreModel.builtin(ScoreWeights.DEFAULTS)};
+    }
+
+    private static List<String> names(ScoreModel[] models) {
+        List<String> names = new ArrayList<>(models.length);
+        for (ScoreModel model : models) {
+            names.add(model.getName());
+        }
+        return names;
+    }
+}
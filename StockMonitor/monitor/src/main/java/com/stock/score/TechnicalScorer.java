@@ -0,0 +1,129 @@
+package com.stock.score;
+
+/**
+ * 技术指标评分，结果截断到 [0, 100]，历史数据不足时取 neutral（默认50）
+ * <p>
+ * MACD(默认40分)：MACD 为正时 min(macd.max, MACD × macd.factor)，金叉再加 macd.cross；
+ * MACD 不为正且死叉时减 macd.cross。
+ * <p>
+ * RSI(默认30分)：在 [rsi.low, rsi.high] 区间内得 rsi.inRange，处于 [rsi.neutralLow, rsi.neutralHigh] 再加 rsi.neutralBonus；
+ * 低于下限按 rsi.edge × RSI / rsi.low 计分，超卖信号加 rsi.signal；
+ * 高于上限按 rsi.edge × (100 - RSI) / rsi.low 计分，超买信号减 rsi.signal。
+ * <p>
+ * KDJ(默认30分)：在 [kdj.low, kdj.high] 区间内得 kdj.inRange，金叉再加 kdj.signal；
+ * 低于下限按 kdj.edge × J / kdj.low 计分，金叉加 kdj.signal；
+ * 高于上限按 kdj.edge × (100 - J) / kdj.low 计分，死叉减 kdj.signal。
+ */
+public final class TechnicalScorer implements Scorer {
+
+    public static final String NAME = "technical";
+
+    private final double neutral;
+    private final double macdFactor;
+    private final double macdMax;
+    private final double macdCross;
+    private final double rsiLow;
+    private final double rsiHigh;
+    private final double rsiInRange;
+    private final double rsiNeutralLow;
+    private final double rsiNeutralHigh;
+    private final double rsiNeutralBonus;
+    private final double rsiEdge;
+    private final double rsiSignal;
+    private final double kdjLow;
+    private final double kdjHigh;
+    private final double kdjInRange;
+    private final double kdjEdge;
+    private final double kdjSignal;
+
+    public TechnicalScorer(ScoreWeights weights) {
+        this.neutral = weights.get(NAME + ".neutral", 50);
+        this.macdFactor = weights.get(NAME + ".macd.factor", 15);
+        this.macdMax = weights.get(NAME + ".macd.max", 30);
+        this.macdCross = weights.get(NAME + ".macd.cross", 10);
+        this.rsiLow = weights.get(NAME + ".rsi.low", 30);
+        this.rsiHigh = weights.get(NAME + ".rsi.high", 70);
+        this.rsiInRange = weights.get(NAME + ".rsi.inRange", 20);
+        this.rsiNeutralLow = weights.get(NAME + ".rsi.neutralLow", 45);
+        this.rsiNeutralHigh = weights.get(NAME + ".rsi.neutralHigh", 55);
+        this.rsiNeutralBonus = weights.get(NAME + ".rsi.neutralBonus", 10);
+        this.rsiEdge = weights.get(NAME + ".rsi.edge", 30);
+        this.rsiSignal = weights.get(NAME + ".rsi.signal", 10);
+        this.kdjLow = weights.get(NAME + ".kdj.low", 20);
+        this.kdjHigh = weights.get(NAME + ".kdj.high", 80);
+        this.kdjInRange = weights.get(NAME + ".kdj.inRange", 20);
+        this.kdjEdge = weights.get(NAME + ".kdj.edge", 30);
+        this.kdjSignal = weights.get(NAME + ".kdj.signal", 10);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void score(ScoreInputs inputs, int from, int to, double[] out) {
+        boolean[] ready = inputs.technicalReady();
+        double[] macds = inputs.macds();
+        double[] rsis = inputs.rsis();
+        double[] kdjs = inputs.kdjs();
+        int[] macdSignals = inputs.macdSignals();
+        int[] rsiSignals = inputs.rsiSignals();
+        int[] kdjSignals = inputs.kdjSignals();
+        for (int i = from; i < to; i++) {
+            if (!ready[i]) {
+                out[i] = neutral;
+                continue;
+            }
+            double macd = macds[i];
+            double rsi = rsis[i];
+            double kdj = kdjs[i];
+            double score = 0;
+
+            if (macd > 0) {
+                score += Math.min(macdMax, macd * macdFactor);
+                if (macdSignals[i] == 1) {
+                    score += macdCross;
+                }
+            } else if (macdSignals[i] == -1) {
+                score -= macdCross;
+            }
+
+            if (rsi >= rsiLow && rsi <= rsiHigh) {
+                score += rsiInRange;
+                if (rsi >= rsiNeutralLow && rsi <= rsiNeutralHigh) {
+                    score += rsiNeutralBonus;
+                }
+            } else if (rsi < rsiLow) {
+                score += rsiEdge * (rsi / rsiLow);
+                if (rsiSignals[i] == 1) {
+                    score += rsiSignal;
+                }
+            } else {
+                score += rsiEdge * ((100 - rsi) / rsiLow);
+                if (rsiSignals[i] == -1) {
+                    score -= rsiSignal;
+                }
+            }
+
+            if (kdj >= kdjLow && kdj <= kdjHigh) {
+                score += kdjInRange;
+                if (kdjSignals[i] == 1) {
+                    score += kdjSignal;
+                }
+            } else if (kdj < kdjLow) {
+                score += kdjEdge * (kdj / kdjLow);
+                if (kdjSignals[i] == 1) {
+                    score += kdjSignal;
+                }
+            } else {
+                score += kdjEdge * ((100 - kdj) / kdjLow);
+                if (kdjSignals[i] == -1) {
+                    score -= kdjSignal;
+                }
+            }
+
+            out[i] = Math.max(0, Math.min(100, score));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.stock.score;
+
+/**
+ * 上涨趋势评分，总分100分，默认由以下5项各20分组成：
+ * <p>
+ * 1. 实时资金流向：流入速度大于流出速度时，realtimeFlow × 流入速度 / (流入速度 + 流出速度)
+ * 2. 当日累计资金流向：当日流入大于流出时，dayFlow × 当日流入 / (当日流入 + 当日流出)
+ * 3. 近几日资金流向：historyFlow × 近几日流入 / (近几日流入 + 近几日流出)
+ * 4. 涨幅：min(change.max, 涨跌幅 × change.factor)，只计正涨幅
+ * 5. 主力净流入占比：min(zhuli.max, 主力净流入占比 × zhuli.factor)，只计正值
+ * <p>
+ * 结果截断到 [0, 100]。各项写成对整个区间的直线循环，没有方法调用和对象访问。
+ */
+public final class UpTrendScorer implements Scorer {
+
+    public static final String NAME = "upTrend";
+
+    private final double realtimeFlow;
+    private final double dayFlow;
+    private final double historyFlow;
+    private final double changeFactor;
+    private final double changeMax;
+    private final double zhuliFactor;
+    private final double zhuliMax;
+
+    public UpTrendScorer(ScoreWeights weights) {
+        this.realtimeFlow = weights.get(NAME + ".realtimeFlow", 20);
+        this.dayFlow = weights.get(NAME + ".dayFlow", 20);
+        this.historyFlow = weights.get(NAME + ".historyFlow", 20);
+        this.changeFactor = weights.get(NAME + ".change.factor", 2);
+        this.changeMax = weights.get(NAME + ".change.max", 20);
+        this.zhuliFactor = weights.get(NAME + ".zhuli.factor", 2);
+        this.zhuliMax = weights.get(NAME + ".zhuli.max", 20);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void score(ScoreInputs inputs, int from, int to, double[] out) {
+        double[] in = inputs.inSpeeds();
+        double[] outflow = inputs.outSpeeds();
+        double[] dayIn = inputs.dayInflows();
+        double[] dayOut = inputs.dayOutflows();
+        double[] historyIn = inputs.historyInflows();
+        double[] historyOut = inputs.historyOutflows();
+        double[] change = inputs.changePercents();
+        double[] zhuli = inputs.zhuliPercents();
+        for (int i = from; i < to; i++) {
+            double flowSum = in[i] + outflow[i];
+            double daySum = dayIn[i] + dayOut[i];
+            double historySum = historyIn[i] + historyOut[i];
+            double score = 0;
+            score += in[i] > outflow[i] && flowSum > 0 ? realtimeFlow * (in[i] / flowSum) : 0;
+            score += dayIn[i] > dayOut[i] && daySum > 0 ? dayFlow * (dayIn[i] / daySum) : 0;
+            score += historySum > 0 ? historyFlow * (historyIn[i] / historySum) : 0;
+            score += change[i] > 0 ? Math.min(changeMax, change[i] * changeFactor) : 0;
+            score += zhuli[i] > 0 ? Math.min(zhuliMax, zhuli[i] * zhuliFactor) : 0;
+            out[i] = Math.max(0, Math.min(100, score));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+import com.stock.store.TickArchive;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * 把每轮抓取到的原始行情追加到本地按列归档，时间取本轮快照的采样时间
+ */
+@Slf4j
+public class ArchiveSink implements TickSink {
+
+    private final TickArchive archive;
+
+    /**
+     * @param archive 关闭输出端时一并关闭
+     */
+    public ArchiveSink(TickArchive archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public String name() {
+        return "archive";
+    }
+
+    @Override
+    public void accept(TickResult result) throws IOException {
+        if (!result.getStocks().isEmpty()) {
+            archive.append(result.getSnapshot().getTimestamp(), result.getStocks());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            log.error("关闭采样归档失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 为一个 {@link TickSink} 配一个专用线程和有界队列
+ * <p>
+ * 计算线程调用 {@link #offer} 只做入队，从不阻塞；队列满时丢弃最旧的一轮，
+ * 输出端追上之后拿到的总是最新的结果。
+ */
+@Slf4j
+public final class AsyncSink {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final TickSink sink;
+    private final BlockingQueue<TickResult> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // 已入队和已处理（含丢弃）的轮数，两者相等时队列已清空
+    private volatile long submitted;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AsyncSink(TickSink sink, int capacity) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::runLoop, "sink-" + sink.name());
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * 提交一轮结果，同一时刻只能有一个线程调用
+     */
+    public void offer(TickResult result) {
+        submitted++;
+        while (!queue.offer(result)) {
+            if (queue.poll() != null) {
+                completed.incrementAndGet();
+                long total = dropped.incrementAndGet();
+                if (total == 1 || total % 100 == 0) {
+                    log.warn("输出端 {} 处理不及, 丢弃最旧的一轮结果, 累计丢弃 {} 轮", sink.name(), total);
+                }
+            }
+        }
+    }
+
+    /**
+     * 提交的结果是否都已处理完
+     */
+    public boolean isIdle() {
+        return completed.get() == submitted;
+    }
+
+    public TickSink getSink() {
+        return sink;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 停止接收，处理完队列中剩余的结果后关闭输出端
+     * @return 是否在超时前处理完
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        // 不中断线程：中断可能打断输出端正在进行的写入，例如写入器入队时的等待
+        running = false;
+        try {
+            thread.join(Math.max(1, unit.toMillis(timeout)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean drained = !thread.isAlive();
+        if (!drained) {
+            log.warn("输出端 {} 未在 {} ms 内处理完, 剩余 {} 轮", sink.name(), unit.toMillis(timeout), queue.size());
+        }
+        try {
+            sink.close();
+        } catch (RuntimeException e) {
+            log.error("关闭输出端 {} 失败: {}", sink.name(), e.getMessage());
+        }
+        return drained;
+    }
+
+    private void runLoop() {
+        while (running || !queue.isEmpty()) {
+            TickResult result;
+            try {
+                // 定时醒来检查是否已停止
+                result = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (result == null) {
+                continue;
+            }
+            try {
+                sink.accept(result);
+            } catch (Exception e) {
+                log.error("输出端 {} 处理失败: {}", sink.name(), e.getMessage());
+            } finally {
+                completed.incrementAndGet();
+            }
+        }
+    }
+}
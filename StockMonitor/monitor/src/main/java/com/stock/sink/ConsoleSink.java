@@ -0,0 +1,84 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+import com.stock.rank.RankView;
+import com.stock.rank.TopK;
+import com.stock.vo.StockSpeed;
+
+import java.io.PrintStream;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 在终端里按上涨趋势分数刷新显示资金速度最快的股票
+ * <p>
+ * 只显示流入或流出速度超过 minSpeed 的股票，跳过涨幅超过 9.5% 的（已接近涨停）。
+ * 过滤和取前 limit 名在一次遍历中完成，不对全部结果排序。
+ */
+public class ConsoleSink implements TickSink {
+
+    private final PrintStream out;
+    private final int limit;
+    private final double minSpeed;
+    private final TopK top;
+
+    /**
+     * @param limit    最多显示的行数
+     * @param minSpeed 流入或流出速度（万元/秒）的下限
+     */
+    public ConsoleSink(PrintStream out, int limit, double minSpeed) {
+        this.out = out;
+        this.limit = limit;
+        this.minSpeed = minSpeed;
+        this.top = new TopK(limit);
+    }
+
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public void accept(TickResult result) {
+        StringBuilder text = new StringBuilder(limit * 120);
+        // 清屏
+        text.append("\033[H\033[2J");
+        text.append("更新时间: ").append(new Date(result.getSnapshot().getTimestamp())).append('\n');
+        text.append(String.format("%-8s %-8s %12s %12s %10s %8s %12s %8s %8s%n",
+                "代码", "名称", "流入速度", "流出速度", "涨跌额", "涨跌幅", "成交速度", "上涨分", "下跌分"));
+        text.append("------------------------------------------------------------------------------------\n");
+
+        // 按上涨趋势分数取满足条件的前 limit 名
+        List<StockSpeed> speeds = result.getSpeeds();
+        top.clear();
+        for (int i = 0; i < speeds.size(); i++) {
+            StockSpeed speed = speeds.get(i);
+            if (Math.abs(speed.getInSpeed()) <= minSpeed && Math.abs(speed.getOutSpeed()) <= minSpeed) {
+                continue;
+            }
+            if (speed.getChangePercent() > 9.5) {
+                continue;
+            }
+            top.offer(RankView.UP_TREND.key(speed), i);
+        }
+        int[] ranked = top.drain();
+        for (int index : ranked) {
+            StockSpeed speed = speeds.get(index);
+            text.append(String.format("%-8s %-8s %12.2f %12.2f %10.2f %8.2f%% %12.2f %8.2f %8.2f%n",
+                    speed.getCode(),
+                    speed.getName(),
+                    speed.getInSpeed(),
+                    speed.getOutSpeed(),
+                    speed.getChange(),
+                    speed.getChangePercent(),
+                    speed.getVolumeSpeed(),
+                    speed.getRankUpTrendScore(),
+                    speed.getRankDownTrendScore()));
+        }
+        if (ranked.length == 0) {
+            text.append("无满足需求的更新数据\n");
+        }
+        out.print(text);
+        out.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+import com.stock.persist.StockDataWriter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把每轮的入库数据交给 {@link StockDataWriter} 批量写入
+ * <p>
+ * 写入器队列满时 submit 会等待，等待发生在本输出端的线程上，不影响计算线程。
+ */
+public class JdbcSink implements TickSink {
+
+    private final StockDataWriter writer;
+    private final long shutdownTimeoutMillis;
+
+    /**
+     * @param writer 已启动的写入器，关闭输出端时一并关闭
+     */
+    public JdbcSink(StockDataWriter writer, long shutdownTimeoutMillis) {
+        this.writer = writer;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    @Override
+    public String name() {
+        return "jdbc";
+    }
+
+    @Override
+    public void accept(TickResult result) {
+        writer.submit(result.getPersistRows(), result.getSnapshot().getTimestamp());
+    }
+
+    /**
+     * 交给写入器的数据是否都已提交
+     */
+    public boolean isIdle() {
+        return writer.isIdle();
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown(shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
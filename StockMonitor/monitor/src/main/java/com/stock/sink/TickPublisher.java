@@ -0,0 +1,83 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把每轮计算结果分发给全部已注册的输出端
+ * <p>
+ * 每个输出端有自己的线程和队列，{@link #publish} 只做入队。
+ * 输出端可以在运行中注册，注册时会先收到最近一轮的结果。
+ */
+public final class TickPublisher {
+
+    private final List<AsyncSink> sinks = new CopyOnWriteArrayList<>();
+    private volatile TickResult latest;
+
+    /**
+     * 注册并启动一个输出端
+     * @param capacity 队列容量（轮数），处理不及时丢弃最旧的
+     */
+    public AsyncSink register(TickSink sink, int capacity) {
+        AsyncSink async = new AsyncSink(sink, capacity);
+        async.start();
+        synchronized (this) {
+            TickResult current = latest;
+            if (current != null) {
+                async.offer(current);
+            }
+            sinks.add(async);
+        }
+        return async;
+    }
+
+    /**
+     * 发布一轮结果，只能由计算线程调用
+     */
+    public void publish(TickResult result) {
+        synchronized (this) {
+            latest = result;
+            for (AsyncSink sink : sinks) {
+                sink.offer(result);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * 最近发布的一轮结果，还没有时返回 null
+     */
+    public TickResult latest() {
+        return latest;
+    }
+
+    /**
+     * 等待比 seen 更新的一轮结果，seen 为 null 时等待第一轮
+     * @return 最近发布的一轮结果，超时返回 null
+     */
+    public synchronized TickResult awaitAfter(TickResult seen, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (latest == seen) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return latest;
+    }
+
+    /**
+     * 按注册顺序依次停止全部输出端，总共最多等待 timeout
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (AsyncSink sink : sinks) {
+            sink.shutdown(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        sinks.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package com.stock.sink;
+
+import com.stock.engine.TickResult;
+
+/**
+ * 每轮计算结果的输出端，例如控制台、界面、数据库、本地归档
+ * <p>
+ * 通过 {@link TickPublisher} 注册后在自己的线程上依次收到每一轮结果，
+ * 处理得再慢也只会让自己的队列丢弃旧的结果，不会拖慢计算线程。
+ * TickResult 及其中的数据在发布后不再修改，输出端只读不写。
+ */
+public interface TickSink {
+
+    /**
+     * 名称，用于线程名和日志
+     */
+    String name();
+
+    /**
+     * 处理一轮结果，抛出的异常只记录日志，不影响下一轮
+     */
+    void accept(TickResult result) throws Exception;
+
+    /**
+     * 队列中的结果都处理完之后调用，释放输出端持有的资源
+     */
+    default void close() {
+    }
+}
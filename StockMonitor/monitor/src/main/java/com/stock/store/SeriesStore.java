@@ -0,0 +1,169 @@
+package com.stock.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 按列存储的定长时间序列
+ * <p>
+ * 每个序列（价格、成交量、指标等）是一块连续的 double 数组，
+ * 每只股票占其中 capacity 个槽位组成环形缓冲区，写满后覆盖最旧的数据。
+ * 追加和读取都不产生装箱对象，也不需要移动元素。
+ */
+public class SeriesStore {
+
+    private final SymbolIndex symbols;
+    private final int seriesCount;
+    private final int capacity;
+
+    // [序列][股票下标 * capacity + 槽位]
+    private double[][] data;
+    // [序列][股票下标] 下一个写入槽位
+    private int[][] heads;
+    // [序列][股票下标] 已有数据个数
+    private int[][] sizes;
+    private int allocatedSymbols;
+
+    public SeriesStore(SymbolIndex symbols, int seriesCount, int capacity) {
+        this.symbols = symbols;
+        this.seriesCount = seriesCount;
+        this.capacity = capacity;
+        this.data = new double[seriesCount][0];
+        this.heads = new int[seriesCount][0];
+        this.sizes = new int[seriesCount][0];
+        ensureCapacity(Math.max(symbols.size(), 1024));
+    }
+
+    /**
+     * 追加一个数据点，缓冲区已满时覆盖最旧的数据
+     */
+    public void append(int series, int symbol, double value) {
+        if (symbol >= allocatedSymbols) {
+            ensureCapacity(symbol + 1);
+        }
+        int head = heads[series][symbol];
+        data[series][symbol * capacity + head] = value;
+        heads[series][symbol] = head + 1 == capacity ? 0 : head + 1;
+        if (sizes[series][symbol] < capacity) {
+            sizes[series][symbol]++;
+        }
+    }
+
+    /**
+     * 已有数据个数，还没有分配的股票为 0
+     */
+    public int size(int series, int symbol) {
+        return symbol < allocatedSymbols ? sizes[series][symbol] : 0;
+    }
+
+    /**
+     * 按时间顺序读取，index 为 0 表示最旧的数据
+     * @throws IndexOutOfBoundsException index 不在 [0, size) 内，还没有分配的股票按没有数据处理
+     */
+    public double get(int series, int symbol, int index) {
+        int size = checkIndex(series, symbol, index);
+        int slot = heads[series][symbol] - size + index;
+        if (slot < 0) {
+            slot += capacity;
+        }
+        return data[series][symbol * capacity + slot];
+    }
+
+    /**
+     * 从最新的数据往前读取，back 为 0 表示最新的数据
+     * @throws IndexOutOfBoundsException back 不在 [0, size) 内，还没有分配的股票按没有数据处理
+     */
+    public double latest(int series, int symbol, int back) {
+        checkIndex(series, symbol, back);
+        int slot = heads[series][symbol] - 1 - back;
+        if (slot < 0) {
+            slot += capacity;
+        }
+        return data[series][symbol * capacity + slot];
+    }
+
+    /**
+     * 按时间顺序复制到目标数组，返回复制的个数
+     */
+    public int copyTo(int series, int symbol, double[] dst) {
+        int size = size(series, symbol);
+        if (size == 0) {
+            return 0;
+        }
+        int base = symbol * capacity;
+        int start = heads[series][symbol] - size;
+        if (start >= 0) {
+            System.arraycopy(data[series], base + start, dst, 0, size);
+        } else {
+            int tail = -start;
+            System.arraycopy(data[series], base + capacity - tail, dst, 0, tail);
+            System.arraycopy(data[series], base, dst, tail, size - tail);
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public SymbolIndex symbols() {
+        return symbols;
+    }
+
+    /**
+     * 写入前 symbolCount 只股票的全部序列
+     */
+    public void writeState(StateWriter out, int symbolCount) throws IOException {
+        ensureCapacity(symbolCount);
+        out.writeInt(seriesCount);
+        out.writeInt(capacity);
+        out.writeInt(symbolCount);
+        for (int s = 0; s < seriesCount; s++) {
+            out.writeDoubles(data[s], symbolCount * capacity);
+            out.writeInts(heads[s], symbolCount);
+            out.writeInts(sizes[s], symbolCount);
+        }
+    }
+
+    public void readState(StateReader in) throws IOException {
+        int savedSeries = in.readInt();
+        int savedCapacity = in.readInt();
+        if (savedSeries != seriesCount || savedCapacity != capacity) {
+            throw new IOException("序列结构不一致: " + savedSeries + "x" + savedCapacity + ", 当前 " + seriesCount + "x" + capacity);
+        }
+        int symbolCount = in.readInt();
+        ensureCapacity(symbolCount);
+        for (int s = 0; s < seriesCount; s++) {
+            Arrays.fill(data[s], 0);
+            Arrays.fill(heads[s], 0);
+            Arrays.fill(sizes[s], 0);
+            in.readDoubles(data[s], symbolCount * capacity);
+            in.readInts(heads[s], symbolCount);
+            in.readInts(sizes[s], symbolCount);
+        }
+    }
+
+    /**
+     * 预先分配到指定股票数，并行写入前调用，保证写入过程中数组不会扩容
+     */
+    public void ensureCapacity(int symbolCount) {
+        if (symbolCount <= allocatedSymbols) {
+            return;
+        }
+        int newSize = Math.max(symbolCount, allocatedSymbols * 2);
+        for (int s = 0; s < seriesCount; s++) {
+            data[s] = Arrays.copyOf(data[s], newSize * capacity);
+            heads[s] = Arrays.copyOf(heads[s], newSize);
+            sizes[s] = Arrays.copyOf(sizes[s], newSize);
+        }
+        allocatedSymbols = newSize;
+    }
+
+    private int checkIndex(int series, int symbol, int index) {
+        int size = size(series, symbol);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("序列 " + series + " 股票 " + symbol + " 只有 " + size + " 个数据: " + index);
+        }
+        return size;
+    }
+}
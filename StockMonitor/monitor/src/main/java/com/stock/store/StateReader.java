@@ -0,0 +1,114 @@
+package com.stock.store;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 读取 {@link StateWriter} 写出的检查点
+ * <p>
+ * 整个文件一次读入内存并校验 CRC32，之后数组整块复制出来。
+ * 不使用内存映射，映射在 Windows 上会锁住文件，下一次检查点无法替换它。
+ */
+public final class StateReader {
+
+    private final ByteBuffer buffer;
+
+    public StateReader(Path file) throws IOException {
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Long.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("检查点文件大小异常: " + size);
+            }
+            content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) {
+                    throw new IOException("检查点文件读取不完整");
+                }
+            }
+        }
+        content.flip();
+        int payload = content.limit() - Long.BYTES;
+        long expected = content.getLong(payload);
+        content.limit(payload);
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        if (crc.getValue() != expected) {
+            throw new IOException("检查点文件校验失败");
+        }
+        this.buffer = content;
+    }
+
+    public int readInt() throws IOException {
+        try {
+            return buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public long readLong() throws IOException {
+        try {
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public double readDouble() throws IOException {
+        try {
+            return buffer.getDouble();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        readBytes(bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void readBytes(byte[] dst, int length) throws IOException {
+        require(length);
+        buffer.get(dst, 0, length);
+    }
+
+    public void readInts(int[] dst, int length) throws IOException {
+        require((long) length * Integer.BYTES);
+        buffer.asIntBuffer().get(dst, 0, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+    }
+
+    public void readLongs(long[] dst, int length) throws IOException {
+        require((long) length * Long.BYTES);
+        buffer.asLongBuffer().get(dst, 0, length);
+        buffer.position(buffer.position() + length * Long.BYTES);
+    }
+
+    public void readDoubles(double[] dst, int length) throws IOException {
+        require((long) length * Double.BYTES);
+        buffer.asDoubleBuffer().get(dst, 0, length);
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+
+    private void require(long bytes) throws IOException {
+        if (bytes < 0 || bytes > buffer.remaining()) {
+            throw truncated();
+        }
+    }
+
+    private static IOException truncated() {
+        return new IOException("检查点内容不完整");
+    }
+}
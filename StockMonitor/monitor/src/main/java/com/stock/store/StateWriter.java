@@ -0,0 +1,135 @@
+package com.stock.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 状态检查点的二进制写入
+ * <p>
+ * 基本类型按大端顺序写入缓冲区，数组整块复制进缓冲区，缓冲区满了写入文件。
+ * {@link #finish()} 在末尾追加前面全部内容的 CRC32，由 {@link StateReader} 校验。
+ */
+public final class StateWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    public StateWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * 写入字符串，null 写为长度 -1
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, bytes.length);
+    }
+
+    public void writeBytes(byte[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int n = Math.min(length - offset, buffer.remaining());
+            buffer.put(values, offset, n);
+            offset += n;
+        }
+    }
+
+    public void writeInts(int[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(Integer.BYTES);
+            int n = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+        }
+    }
+
+    public void writeLongs(long[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(Long.BYTES);
+            int n = Math.min(length - offset, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Long.BYTES);
+            offset += n;
+        }
+    }
+
+    public void writeDoubles(double[] values, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            ensure(Double.BYTES);
+            int n = Math.min(length - offset, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Double.BYTES);
+            offset += n;
+        }
+    }
+
+    /**
+     * 写入校验和并刷到磁盘，之后只能 close
+     */
+    public void finish() throws IOException {
+        flush();
+        ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+        trailer.putLong(crc.getValue());
+        trailer.flip();
+        while (trailer.hasRemaining()) {
+            channel.write(trailer);
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
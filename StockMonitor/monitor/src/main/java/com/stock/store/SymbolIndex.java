@@ -0,0 +1,193 @@
+package com.stock.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 股票字典：股票代码到连续整数下标的映射，同时保存名称和所属市场
+ * <p>
+ * 第一次出现的代码分配下一个下标，之后保持不变，
+ * 各类按股票存储的数组都用这个下标定位。名称和市场每只股票只存一份，取值变化时才更新。
+ * <p>
+ * 字典可以用 {@link #save} 单独保存、{@link #load} 载入，重启后同一代码仍得到同一下标。
+ * 修改只能由一个线程进行；不修改时可以被多个线程同时读取。
+ */
+public class SymbolIndex {
+
+    // 字典文件头，布局变化时递增版本号
+    private static final int DICTIONARY_MAGIC = 0x534D5344;
+    private static final int DICTIONARY_VERSION = 1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] codes = new String[1024];
+    private String[] names = new String[1024];
+    private int[] markets = new int[1024];
+    private int size;
+    // 上次保存之后是否有新增股票或名称、市场变化
+    private boolean dirty;
+
+    /**
+     * 获取代码对应的下标，不存在时分配新下标
+     */
+    public int idOf(String code) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            return id;
+        }
+        if (size == codes.length) {
+            grow(size * 2);
+        }
+        codes[size] = code;
+        markets[size] = -1;
+        ids.put(code, size);
+        dirty = true;
+        return size++;
+    }
+
+    /**
+     * 获取代码对应的下标，并记录名称和市场
+     * @param name   为 null 时保留原有名称
+     * @param market 为负数（未知）时保留原有市场
+     */
+    public int define(String code, String name, int market) {
+        int id = idOf(code);
+        if (name != null && !name.equals(names[id])) {
+            names[id] = name;
+            dirty = true;
+        }
+        if (market >= 0 && market != markets[id]) {
+            markets[id] = market;
+            dirty = true;
+        }
+        return id;
+    }
+
+    /**
+     * 查找代码对应的下标，不存在返回 -1
+     */
+    public int find(String code) {
+        Integer id = ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    public String codeOf(int id) {
+        return codes[id];
+    }
+
+    /**
+     * 最近一次记录的名称，没有时返回 null
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * 所属市场（行情接口 f13：0 深市，1 沪市），未知时返回 -1
+     */
+    public int marketOf(int id) {
+        return markets[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void writeState(StateWriter out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeString(codes[i]);
+            out.writeString(names[i] == null ? "" : names[i]);
+            out.writeInt(markets[i]);
+        }
+    }
+
+    /**
+     * 按检查点中的顺序恢复下标
+     * <p>
+     * 已载入字典时，两者必须一个是另一个的前缀（检查点之后新增的股票只会追加在字典末尾），
+     * 此时保留较长的一份；不一致时抛出异常且不修改当前映射。未载入字典时直接采用检查点中的映射。
+     * @throws IOException 与已载入的字典不一致
+     */
+    public void readState(StateReader in) throws IOException {
+        int count = in.readInt();
+        String[] readCodes = new String[count];
+        String[] readNames = new String[count];
+        int[] readMarkets = new int[count];
+        for (int i = 0; i < count; i++) {
+            readCodes[i] = in.readString();
+            String name = in.readString();
+            readNames[i] = name.isEmpty() ? null : name;
+            readMarkets[i] = in.readInt();
+        }
+        int common = Math.min(count, size);
+        for (int i = 0; i < common; i++) {
+            if (!readCodes[i].equals(codes[i])) {
+                throw new IOException("检查点与股票字典不一致: 下标 " + i + " 为 " + readCodes[i] + "/" + codes[i]);
+            }
+        }
+        boolean wasDirty = dirty;
+        for (int i = 0; i < count; i++) {
+            define(readCodes[i], readNames[i], readMarkets[i]);
+        }
+        // 只从检查点补回已有的内容时不需要重新保存字典
+        dirty = wasDirty || count > common;
+    }
+
+    /**
+     * 保存字典：先写同目录下的临时文件再原子替换
+     */
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (StateWriter out = new StateWriter(tmp)) {
+            out.writeInt(DICTIONARY_MAGIC);
+            out.writeInt(DICTIONARY_VERSION);
+            writeState(out);
+            out.finish();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    /**
+     * 载入字典，需在分配任何下标之前调用
+     * @return 载入的股票数，文件不存在时返回 -1
+     * @throws IOException 文件损坏或版本不一致，此时映射保持为空
+     */
+    public int load(Path file) throws IOException {
+        if (size > 0) {
+            throw new IllegalStateException("已分配下标后不能再载入字典");
+        }
+        StateReader in;
+        try {
+            in = new StateReader(file);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        if (in.readInt() != DICTIONARY_MAGIC) {
+            throw new IOException("不是股票字典文件: " + file);
+        }
+        int version = in.readInt();
+        if (version != DICTIONARY_VERSION) {
+            throw new IOException("股票字典版本不一致: " + version);
+        }
+        readState(in);
+        dirty = false;
+        return size;
+    }
+
+    private void grow(int capacity) {
+        codes = Arrays.copyOf(codes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        markets = Arrays.copyOf(markets, capacity);
+    }
+}
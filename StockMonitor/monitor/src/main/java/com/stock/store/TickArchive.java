@@ -0,0 +1,400 @@
+package com.stock.store;
+
+import com.stock.vo.RecordedTick;
+import com.stock.vo.SingleStock;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地按列存储的采样归档，每个交易日一个目录，只追加
+ * <p>
+ * 目录下每列一个文件，每行定长：股票下标为 int，价格和各类资金为 double，涨跌额和百分比为 float。
+ * symbols.dat 是当天的代码字典，股票第一次出现时追加代码和名称；
+ * ticks.idx 是时间索引，每轮一条（采样时间, 截至本轮的总行数），一轮的行是连续的一段。
+ * <p>
+ * 每轮先写字典和各列，最后写索引，索引是提交点：进程中途退出时，
+ * 下次打开会按索引截掉多写的行，读取方也只读索引覆盖的部分。
+ * 读取由 {@link TickArchiveReader} 通过内存映射完成。
+ * <p>
+ * 写入不是线程安全的，需由同一个线程依次调用 {@link #append}。
+ */
+@Slf4j
+public class TickArchive implements Closeable {
+
+    static final int MAGIC = 0x54434B41;
+    static final int VERSION = 1;
+    static final int INDEX_HEADER = 16;
+    static final int INDEX_ENTRY = 16;
+    static final String INDEX_FILE = "ticks.idx";
+    static final String SYMBOL_FILE = "symbols.dat";
+    static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // 列下标
+    static final int SYMBOL = 0;
+    static final int PRICE = 1;
+    static final int CHANGE = 2;
+    static final int CHANGE_PERCENT = 3;
+    // 主力、超大单、大单、中单、小单净流入，顺序与 MarketSnapshot 的资金类型一致
+    static final int FLOW = 4;
+    static final int FLOW_PERCENT = 9;
+
+    static final String[] COLUMN_FILES = {
+            "symbol.i32", "price.f64", "change.f32", "change_percent.f32",
+            "zhuli.f64", "chaodadan.f64", "bigdan.f64", "zhongdan.f64", "xiaodan.f64",
+            "zhuli_percent.f32", "chaodadan_percent.f32", "bigdan_percent.f32", "zhongdan_percent.f32", "xiaodan_percent.f32"
+    };
+    static final int[] COLUMN_WIDTHS = {4, 8, 4, 4, 8, 8, 8, 8, 8, 4, 4, 4, 4, 4};
+
+    private final Path root;
+    private final ZoneId zone;
+    private DayWriter writer;
+
+    public TickArchive(Path root) {
+        this(root, ZoneId.systemDefault());
+    }
+
+    public TickArchive(Path root, ZoneId zone) {
+        this.root = root;
+        this.zone = zone;
+    }
+
+    /**
+     * 追加一轮采样，跨日时自动切换到新一天的目录
+     * @param timeMillis 采样时间，同一天内不能早于上一轮
+     */
+    public void append(long timeMillis, List<SingleStock> stocks) throws IOException {
+        LocalDate day = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+        if (writer == null || !writer.day.equals(day)) {
+            closeWriter();
+            writer = new DayWriter(day, dayDirectory(day));
+        }
+        writer.append(timeMillis, stocks);
+    }
+
+    /**
+     * 已有归档的交易日，按日期升序
+     */
+    public List<LocalDate> days() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        List<LocalDate> days = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+            for (Path dir : dirs) {
+                if (!Files.isRegularFile(dir.resolve(INDEX_FILE))) {
+                    continue;
+                }
+                try {
+                    days.add(LocalDate.parse(dir.getFileName().toString(), DAY_FORMAT));
+                } catch (DateTimeParseException e) {
+                    // 不是归档目录
+                }
+            }
+        }
+        Collections.sort(days);
+        return days;
+    }
+
+    public boolean contains(LocalDate day) {
+        return Files.isRegularFile(dayDirectory(day).resolve(INDEX_FILE));
+    }
+
+    /**
+     * 打开某一天的归档，不存在时返回 null
+     * 只能看到打开时已经写入的轮次
+     */
+    public TickArchiveReader open(LocalDate day) throws IOException {
+        if (!contains(day)) {
+            return null;
+        }
+        return new TickArchiveReader(day, dayDirectory(day));
+    }
+
+    /**
+     * 读取某一时刻之后归档的采样，最多取最近的 maxTicks 轮
+     * @return 按时间先后排列的各轮数据
+     */
+    public List<RecordedTick> readAfter(long afterMillis, int maxTicks) throws IOException {
+        LocalDate from = Instant.ofEpochMilli(afterMillis).atZone(zone).toLocalDate();
+        ArrayDeque<RecordedTick> ticks = new ArrayDeque<>();
+        for (LocalDate day : days()) {
+            if (day.isBefore(from)) {
+                continue;
+            }
+            TickArchiveReader reader = open(day);
+            // 只物化最后 maxTicks 轮，更早的轮次直接跳过
+            int first = Math.max(reader.firstTickAfter(afterMillis), reader.tickCount() - maxTicks);
+            for (int tick = first; tick < reader.tickCount(); tick++) {
+                ticks.addLast(new RecordedTick(reader.tickTime(tick), reader.stocks(tick)));
+                if (ticks.size() > maxTicks) {
+                    ticks.removeFirst();
+                }
+            }
+        }
+        return new ArrayList<>(ticks);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeWriter();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            DayWriter closing = writer;
+            writer = null;
+            closing.close();
+        }
+    }
+
+    private Path dayDirectory(LocalDate day) {
+        return root.resolve(day.format(DAY_FORMAT));
+    }
+
+    /**
+     * 一天的写入端，打开时按索引恢复到最后一个完整的轮次
+     */
+    private static final class DayWriter implements Closeable {
+        private final LocalDate day;
+        private final FileChannel index;
+        private final FileChannel symbolFile;
+        private final FileChannel[] columns = new FileChannel[COLUMN_FILES.length];
+        private final ByteBuffer[] buffers = new ByteBuffer[COLUMN_FILES.length];
+        private final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+        private final Map<String, Integer> symbols = new HashMap<>();
+        private long rows;
+        private long lastTime = Long.MIN_VALUE;
+
+        DayWriter(LocalDate day, Path dir) throws IOException {
+            this.day = day;
+            Files.createDirectories(dir);
+            index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            symbolFile = FileChannel.open(dir.resolve(SYMBOL_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = FileChannel.open(dir.resolve(COLUMN_FILES[c]), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                buffers[c] = ByteBuffer.allocate(COLUMN_WIDTHS[c] * 1024);
+            }
+            try {
+                recover();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void recover() throws IOException {
+            if (index.size() < INDEX_HEADER) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+                header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+                index.truncate(0);
+                writeFully(index, header, 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(8);
+                readFully(index, header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("归档索引格式不符: " + day);
+                }
+                long ticks = (index.size() - INDEX_HEADER) / INDEX_ENTRY;
+                index.truncate(INDEX_HEADER + ticks * INDEX_ENTRY);
+                if (ticks > 0) {
+                    ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY);
+                    readFully(index, last, INDEX_HEADER + (ticks - 1) * INDEX_ENTRY);
+                    lastTime = last.getLong(0);
+                    rows = last.getLong(8);
+                }
+            }
+            for (int c = 0; c < columns.length; c++) {
+                long expected = rows * COLUMN_WIDTHS[c];
+                if (columns[c].size() < expected) {
+                    throw new IOException("归档列 " + COLUMN_FILES[c] + " 短于索引记录的行数: " + day);
+                }
+                // 截掉最后一轮没有写完索引的行
+                if (columns[c].size() > expected) {
+                    log.warn("归档 {} 列 {} 有未提交的数据, 截断到 {} 行", day, COLUMN_FILES[c], rows);
+                    columns[c].truncate(expected);
+                }
+                columns[c].position(expected);
+            }
+            long valid = readSymbols();
+            symbolFile.truncate(valid);
+            symbolFile.position(valid);
+            index.position(index.size());
+        }
+
+        /**
+         * 读入代码字典，返回最后一条完整记录的结尾位置
+         */
+        private long readSymbols() throws IOException {
+            ByteBuffer content = ByteBuffer.allocate((int) symbolFile.size());
+            readFully(symbolFile, content, 0);
+            content.flip();
+            long valid = 0;
+            while (content.remaining() >= 4) {
+                String code = readString(content);
+                if (code == null || content.remaining() < 4) {
+                    break;
+                }
+                String name = readString(content);
+                if (name == null) {
+                    break;
+                }
+                symbols.put(code, symbols.size());
+                valid = content.position();
+            }
+            return valid;
+        }
+
+        void append(long timeMillis, List<SingleStock> stocks) throws IOException {
+            if (timeMillis < lastTime) {
+                throw new IOException("归档时间倒退: " + timeMillis + " < " + lastTime);
+            }
+            int n = stocks.size();
+            for (int c = 0; c < buffers.length; c++) {
+                if (buffers[c].capacity() < n * COLUMN_WIDTHS[c]) {
+                    buffers[c] = ByteBuffer.allocate(n * COLUMN_WIDTHS[c]);
+                }
+                buffers[c].clear();
+            }
+            ByteBuffer added = null;
+            for (SingleStock stock : stocks) {
+                Integer symbol = symbols.get(stock.getCode());
+                if (symbol == null) {
+                    symbol = symbols.size();
+                    symbols.put(stock.getCode(), symbol);
+                    added = appendSymbol(added, stock.getCode(), stock.getName());
+                }
+                buffers[SYMBOL].putInt(symbol);
+                buffers[PRICE].putDouble(stock.getCurrentPrice());
+                buffers[CHANGE].putFloat((float) stock.getChange());
+                buffers[CHANGE_PERCENT].putFloat((float) stock.getChangePercent());
+                buffers[FLOW].putDouble(stock.getZhuliNetInflow());
+                buffers[FLOW + 1].putDouble(stock.getChaodadanNetInflow());
+                buffers[FLOW + 2].putDouble(stock.getBigdanNetInflow());
+                buffers[FLOW + 3].putDouble(stock.getZhongdanNetInflow());
+                buffers[FLOW + 4].putDouble(stock.getXiaodanNetInflow());
+                buffers[FLOW_PERCENT].putFloat((float) stock.getZhuliNetInflowPercent());
+                buffers[FLOW_PERCENT + 1].putFloat((float) stock.getChaodadanNetInflowPercent());
+                buffers[FLOW_PERCENT + 2].putFloat((float) stock.getBigdanNetInflowPercent());
+                buffers[FLOW_PERCENT + 3].putFloat((float) stock.getZhongdanNetInflowPercent());
+                buffers[FLOW_PERCENT + 4].putFloat((float) stock.getXiaodanNetInflowPercent());
+            }
+
+            // 字典和各列先写，索引最后写
+            if (added != null) {
+                added.flip();
+                writeFully(symbolFile, added);
+            }
+            for (int c = 0; c < columns.length; c++) {
+                buffers[c].flip();
+                writeFully(columns[c], buffers[c]);
+            }
+            rows += n;
+            lastTime = timeMillis;
+            entry.clear();
+            entry.putLong(timeMillis).putLong(rows).flip();
+            writeFully(index, entry);
+        }
+
+        private static ByteBuffer appendSymbol(ByteBuffer buffer, String code, String name) {
+            byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+            byte[] nameBytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+            int needed = 8 + codeBytes.length + nameBytes.length;
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(Math.max(4096, needed));
+            } else if (buffer.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            buffer.putInt(codeBytes.length).put(codeBytes).putInt(nameBytes.length).put(nameBytes);
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (FileChannel channel : columns) {
+                failure = closeQuietly(channel, failure);
+            }
+            failure = closeQuietly(symbolFile, failure);
+            failure = closeQuietly(index, failure);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * 读取长度前缀的 UTF-8 字符串，内容不完整时返回 null
+     */
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("归档文件读取不完整");
+            }
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static IOException closeQuietly(FileChannel channel, IOException failure) {
+        if (channel == null) {
+            return failure;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+}
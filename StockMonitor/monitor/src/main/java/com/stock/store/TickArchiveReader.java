@@ -0,0 +1,215 @@
+package com.stock.store;
+
+import com.stock.vo.SingleStock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.stock.store.TickArchive.CHANGE;
+import static com.stock.store.TickArchive.CHANGE_PERCENT;
+import static com.stock.store.TickArchive.COLUMN_FILES;
+import static com.stock.store.TickArchive.COLUMN_WIDTHS;
+import static com.stock.store.TickArchive.FLOW;
+import static com.stock.store.TickArchive.FLOW_PERCENT;
+import static com.stock.store.TickArchive.INDEX_ENTRY;
+import static com.stock.store.TickArchive.INDEX_FILE;
+import static com.stock.store.TickArchive.INDEX_HEADER;
+import static com.stock.store.TickArchive.MAGIC;
+import static com.stock.store.TickArchive.PRICE;
+import static com.stock.store.TickArchive.SYMBOL;
+import static com.stock.store.TickArchive.SYMBOL_FILE;
+import static com.stock.store.TickArchive.VERSION;
+
+/**
+ * 一天归档的只读视图
+ * <p>
+ * 索引和各列文件以只读方式映射到内存，按行号直接读取，不经过数据库也不复制数据；
+ * 只包含打开时索引中已经提交的轮次。可以在多个线程中同时读取。
+ */
+public final class TickArchiveReader {
+
+    private final LocalDate day;
+    private final int tickCount;
+    private final long[] tickTimes;
+    private final int[] tickEnds;
+    private final ByteBuffer[] columns = new ByteBuffer[COLUMN_FILES.length];
+    private final String[] codes;
+    private final String[] names;
+
+    TickArchiveReader(LocalDate day, Path dir) throws IOException {
+        this.day = day;
+        MappedByteBuffer index = map(dir.resolve(INDEX_FILE), -1);
+        if (index.capacity() < INDEX_HEADER || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("归档索引格式不符: " + day);
+        }
+        tickCount = (index.capacity() - INDEX_HEADER) / INDEX_ENTRY;
+        tickTimes = new long[tickCount];
+        tickEnds = new int[tickCount];
+        for (int t = 0; t < tickCount; t++) {
+            int offset = INDEX_HEADER + t * INDEX_ENTRY;
+            tickTimes[t] = index.getLong(offset);
+            tickEnds[t] = (int) index.getLong(offset + 8);
+        }
+        int rows = rowCount();
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = map(dir.resolve(COLUMN_FILES[c]), (long) rows * COLUMN_WIDTHS[c]);
+        }
+
+        // 代码字典很小，直接读成数组
+        ByteBuffer dictionary = map(dir.resolve(SYMBOL_FILE), -1);
+        List<String> codeList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        while (dictionary.remaining() >= 4) {
+            String code = TickArchive.readString(dictionary);
+            if (code == null || dictionary.remaining() < 4) {
+                break;
+            }
+            String name = TickArchive.readString(dictionary);
+            if (name == null) {
+                break;
+            }
+            codeList.add(code);
+            nameList.add(name);
+        }
+        codes = codeList.toArray(new String[0]);
+        names = nameList.toArray(new String[0]);
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public int tickCount() {
+        return tickCount;
+    }
+
+    public long tickTime(int tick) {
+        return tickTimes[tick];
+    }
+
+    /**
+     * 第 tick 轮的第一行
+     */
+    public int firstRow(int tick) {
+        return tick == 0 ? 0 : tickEnds[tick - 1];
+    }
+
+    /**
+     * 第 tick 轮最后一行之后的行号
+     */
+    public int endRow(int tick) {
+        return tickEnds[tick];
+    }
+
+    public int rowCount() {
+        return tickCount == 0 ? 0 : tickEnds[tickCount - 1];
+    }
+
+    /**
+     * 采样时间晚于 timeMillis 的第一轮，没有时返回 tickCount
+     */
+    public int firstTickAfter(long timeMillis) {
+        int position = Arrays.binarySearch(tickTimes, timeMillis);
+        if (position < 0) {
+            return -position - 1;
+        }
+        // 时间相同的轮次都不算在内
+        while (position < tickCount && tickTimes[position] == timeMillis) {
+            position++;
+        }
+        return position;
+    }
+
+    public int symbolCount() {
+        return codes.length;
+    }
+
+    public String code(int symbol) {
+        return codes[symbol];
+    }
+
+    public String name(int symbol) {
+        return names[symbol];
+    }
+
+    public int symbol(int row) {
+        return columns[SYMBOL].getInt(row * 4);
+    }
+
+    public double price(int row) {
+        return columns[PRICE].getDouble(row * 8);
+    }
+
+    public float change(int row) {
+        return columns[CHANGE].getFloat(row * 4);
+    }
+
+    public float changePercent(int row) {
+        return columns[CHANGE_PERCENT].getFloat(row * 4);
+    }
+
+    /**
+     * 某类资金的净流入
+     * @param kind 0 到 4 依次为主力、超大单、大单、中单、小单
+     */
+    public double flow(int kind, int row) {
+        return columns[FLOW + kind].getDouble(row * 8);
+    }
+
+    public float flowPercent(int kind, int row) {
+        return columns[FLOW_PERCENT + kind].getFloat(row * 4);
+    }
+
+    /**
+     * 还原第 tick 轮的行情数据，字段与抓取时一致
+     */
+    public List<SingleStock> stocks(int tick) {
+        int end = endRow(tick);
+        List<SingleStock> stocks = new ArrayList<>(end - firstRow(tick));
+        for (int row = firstRow(tick); row < end; row++) {
+            int symbol = symbol(row);
+            SingleStock stock = new SingleStock();
+            stock.setCode(codes[symbol]);
+            stock.setName(names[symbol]);
+            stock.setCurrentPrice(price(row));
+            stock.setChange(change(row));
+            stock.setChangePercent(changePercent(row));
+            stock.setZhuliNetInflow(flow(0, row));
+            stock.setChaodadanNetInflow(flow(1, row));
+            stock.setBigdanNetInflow(flow(2, row));
+            stock.setZhongdanNetInflow(flow(3, row));
+            stock.setXiaodanNetInflow(flow(4, row));
+            stock.setZhuliNetInflowPercent(flowPercent(0, row));
+            stock.setChaodadanNetInflowPercent(flowPercent(1, row));
+            stock.setBigdanNetInflowPercent(flowPercent(2, row));
+            stock.setZhongdanNetInflowPercent(flowPercent(3, row));
+            stock.setXiaodanNetInflowPercent(flowPercent(4, row));
+            stocks.add(stock);
+        }
+        return stocks;
+    }
+
+    /**
+     * 只读映射文件的前 size 字节，size 为 -1 时映射整个文件
+     */
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = size < 0 ? channel.size() : size;
+            if (channel.size() < length) {
+                throw new IOException("归档文件 " + file.getFileName() + " 短于索引记录的行数");
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("归档文件过大: " + file.getFileName());
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+}
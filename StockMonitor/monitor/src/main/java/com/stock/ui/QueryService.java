@@ -0,0 +1,253 @@
+package com.stock.ui;
+
+import com.stock.utils.ConnectionSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 界面数据库查询的后台执行服务
+ * <p>
+ * 查询在有界线程池中执行，结果通过 deliver 执行器（界面中为 Platform::runLater）交回 FX 线程，
+ * 查询结果按 chunkSize 分批送达，表格可以边查边显示。
+ * <p>
+ * 每个查询属于一个通道（如"历史数据"），同一通道提交新查询时取消上一个：
+ * 排队中的直接移出队列，执行中的调用 Statement.cancel 并停止读取，
+ * 被取消查询的回调一律不再送达，旧结果不会覆盖新结果。
+ * 取消标记在 deliver 线程上检查，只要取消和提交都在 FX 线程上进行就不存在竞争。
+ */
+@Slf4j
+public class QueryService {
+
+    private final ConnectionSource connections;
+    private final ThreadPoolExecutor executor;
+    private final Executor deliver;
+    private final int chunkSize;
+    private final int fetchSize;
+    private final Map<String, Ticket> running = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads       查询线程数
+     * @param queueCapacity 最多排队的查询数，超出时查询直接失败
+     * @param chunkSize     每批送达的行数
+     * @param fetchSize     传给 Statement.setFetchSize，0 表示使用驱动默认值；
+     *                      MySQL 驱动需要 Integer.MIN_VALUE 才会逐行读取而不是把结果全部读进内存
+     * @param deliver       回调执行器
+     */
+    public QueryService(ConnectionSource connections, int threads, int queueCapacity,
+                        int chunkSize, int fetchSize, Executor deliver) {
+        this.connections = connections;
+        this.chunkSize = chunkSize;
+        this.fetchSize = fetchSize;
+        this.deliver = deliver;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "db-query-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 执行查询，按批送达映射后的行
+     * @param channel   查询通道，同一通道上的上一个查询会被取消
+     * @param statement 在查询线程上创建并绑定参数的语句
+     * @param mapper    在查询线程上把当前行映射为结果对象
+     */
+    public <T> Ticket query(String channel, StatementFactory statement, RowMapper<T> mapper, RowListener<T> listener) {
+        Ticket ticket = new Ticket(channel);
+        return submit(ticket, listener, () -> {
+            int total = 0;
+            try (Connection conn = connections.getConnection();
+                 PreparedStatement ps = statement.prepare(conn)) {
+                if (fetchSize != 0) {
+                    ps.setFetchSize(fetchSize);
+                }
+                ticket.statement = ps;
+                if (ticket.cancelled) {
+                    return 0;
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<T> chunk = new ArrayList<>(chunkSize);
+                    while (!ticket.cancelled && rs.next()) {
+                        chunk.add(mapper.map(rs));
+                        total++;
+                        if (chunk.size() == chunkSize) {
+                            deliverRows(ticket, listener, chunk);
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        deliverRows(ticket, listener, chunk);
+                    }
+                }
+            } finally {
+                ticket.statement = null;
+            }
+            return total;
+        });
+    }
+
+    /**
+     * 在查询线程上执行任意数据库操作，例如测试连接、建表
+     */
+    public <T> Ticket execute(String channel, Callable<T> task, Callback<T> callback) {
+        return submit(new Ticket(channel), callback, task);
+    }
+
+    /**
+     * 取消通道上正在执行或排队的查询
+     */
+    public void cancel(String channel) {
+        Ticket ticket = running.get(channel);
+        if (ticket != null) {
+            ticket.cancel();
+        }
+    }
+
+    public void shutdown() {
+        for (Ticket ticket : running.values()) {
+            ticket.cancel();
+        }
+        executor.shutdownNow();
+    }
+
+    private <T> Ticket submit(Ticket ticket, Callback<T> callback, Callable<T> task) {
+        Ticket previous = running.put(ticket.channel, ticket);
+        if (previous != null) {
+            previous.cancel();
+        }
+        deliver(ticket, callback::onStart);
+        try {
+            ticket.future = executor.submit(() -> run(ticket, callback, task));
+        } catch (RejectedExecutionException e) {
+            log.warn("查询队列已满，拒绝查询 {}", ticket.channel);
+            running.remove(ticket.channel, ticket);
+            deliver(ticket, () -> callback.onError(e));
+        }
+        return ticket;
+    }
+
+    private <T> void run(Ticket ticket, Callback<T> callback, Callable<T> task) {
+        if (ticket.cancelled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            T result = task.call();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (ticket.cancelled) {
+                log.info("查询 {} 已取消, 耗时 {} ms", ticket.channel, elapsedMillis);
+                return;
+            }
+            log.info("查询 {} 完成, 耗时 {} ms", ticket.channel, elapsedMillis);
+            deliver(ticket, () -> callback.onSuccess(result));
+        } catch (Throwable e) {
+            if (ticket.cancelled) {
+                // Statement.cancel 会让执行中的查询抛出异常，属于正常取消
+                log.info("查询 {} 已取消: {}", ticket.channel, e.getMessage());
+                return;
+            }
+            log.error("查询 {} 失败", ticket.channel, e);
+            deliver(ticket, () -> callback.onError(e));
+        } finally {
+            running.remove(ticket.channel, ticket);
+        }
+    }
+
+    private <T> void deliverRows(Ticket ticket, RowListener<T> listener, List<T> rows) {
+        deliver(ticket, () -> listener.onRows(rows));
+    }
+
+    private void deliver(Ticket ticket, Runnable action) {
+        deliver.execute(() -> {
+            if (!ticket.cancelled) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 一次提交的查询
+     */
+    public final class Ticket {
+        private final String channel;
+        private volatile boolean cancelled;
+        private volatile PreparedStatement statement;
+        private volatile Future<?> future;
+
+        private Ticket(String channel) {
+            this.channel = channel;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * 取消查询，之后不会再有任何回调
+         */
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running.remove(channel, this);
+            Future<?> f = future;
+            if (f != null && f.cancel(false)) {
+                executor.remove((Runnable) f);
+            }
+            PreparedStatement ps = statement;
+            if (ps != null) {
+                try {
+                    ps.cancel();
+                } catch (SQLException e) {
+                    log.warn("取消查询 {} 失败: {}", channel, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public interface StatementFactory {
+        PreparedStatement prepare(Connection conn) throws SQLException;
+    }
+
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 查询回调，全部在 deliver 执行器上调用
+     */
+    public interface Callback<T> {
+        default void onStart() {
+        }
+
+        void onSuccess(T result);
+
+        void onError(Throwable error);
+    }
+
+    /**
+     * 逐批接收行的查询回调，onSuccess 收到总行数
+     */
+    public interface RowListener<T> extends Callback<Integer> {
+        void onRows(List<T> rows);
+    }
+}
@@ -0,0 +1,117 @@
+package com.stock.ui;
+
+import com.stock.vo.StockSpeed;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实时数据表格的按代码增量更新
+ * <p>
+ * 每只股票始终对应同一个 {@link StockData} 行：
+ * 新进入前 N 名的股票追加一行，跌出前 N 名的移除，其余行只设置取值有变化的属性，
+ * 最后用 FXCollections.sort 按排名重排（产生的是置换事件而不是整表替换），
+ * 表格的选中行和滚动位置因此得以保留。
+ * <p>
+ * 必须在 FX 线程调用，但不依赖 FX 运行时，可以单独测试和做基准测试。
+ */
+public class RealTimeRows {
+
+    private final ObservableList<StockData> rows;
+    private final Map<String, StockData> rowsByCode = new HashMap<>();
+    private final Map<StockData, Integer> ranks = new IdentityHashMap<>();
+    private final int topN;
+
+    public RealTimeRows(ObservableList<StockData> rows, int topN) {
+        this.rows = rows;
+        this.topN = topN;
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    /**
+     * @param ranked 按排名排好序的结果，只取前 topN 条
+     */
+    public void apply(List<StockSpeed> ranked) {
+        int count = Math.min(topN, ranked.size());
+        ranks.clear();
+        List<StockData> added = new ArrayList<>();
+        for (int rank = 0; rank < count; rank++) {
+            StockSpeed speed = ranked.get(rank);
+            StockData row = rowsByCode.get(speed.getCode());
+            if (row == null) {
+                row = new StockData();
+                rowsByCode.put(speed.getCode(), row);
+                added.add(row);
+            }
+            update(row, speed);
+            ranks.put(row, rank);
+        }
+
+        // 移除跌出前 N 名的股票
+        if (rowsByCode.size() > ranks.size()) {
+            Iterator<StockData> it = rowsByCode.values().iterator();
+            while (it.hasNext()) {
+                if (!ranks.containsKey(it.next())) {
+                    it.remove();
+                }
+            }
+            rows.removeIf(row -> !ranks.containsKey(row));
+        }
+        if (!added.isEmpty()) {
+            rows.addAll(added);
+        }
+        // 排名没变时不排序：FXCollections.sort 即使顺序不变也会发出置换事件
+        if (!inRankOrder()) {
+            FXCollections.sort(rows, (a, b) -> Integer.compare(ranks.get(a), ranks.get(b)));
+        }
+    }
+
+    private boolean inRankOrder() {
+        for (int i = 0; i < rows.size(); i++) {
+            if (ranks.get(rows.get(i)) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void update(StockData row, StockSpeed speed) {
+        setIfChanged(row.codeProperty(), speed.getCode());
+        setIfChanged(row.nameProperty(), speed.getName());
+        setIfChanged(row.currentPriceProperty(), speed.getCurrentPrice());
+        setIfChanged(row.netInflowProperty(), speed.getZhuliNetInflow());
+        setIfChanged(row.changePercentProperty(), speed.getChangePercent());
+        setIfChanged(row.mainForcePercentProperty(), speed.getZhuliNetInflowPercent());
+        setIfChanged(row.momentumScoreProperty(), speed.getMomentumScore());
+        setIfChanged(row.upTrendScoreProperty(), speed.getRankUpTrendScore());
+        setIfChanged(row.downTrendScoreProperty(), speed.getRankDownTrendScore());
+        setIfChanged(row.volumeProperty(), speed.getVolume());
+    }
+
+    /**
+     * 只在取值变化时设置；用 Double.compare 比较，NaN 不会每次都触发刷新
+     */
+    private static void setIfChanged(DoubleProperty property, double value) {
+        if (Double.compare(property.get(), value) != 0) {
+            property.set(value);
+        }
+    }
+
+    private static void setIfChanged(StringProperty property, String value) {
+        String current = property.get();
+        if (current == null ? value != null : !current.equals(value)) {
+            property.set(value);
+        }
+    }
+}
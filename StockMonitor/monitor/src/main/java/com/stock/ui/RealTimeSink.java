@@ -0,0 +1,35 @@
+package com.stock.ui;
+
+import com.stock.engine.TickResult;
+import com.stock.rank.RankView;
+import com.stock.sink.TickSink;
+import com.stock.vo.StockSpeed;
+
+import java.util.List;
+
+/**
+ * 把每轮上涨趋势排名交给界面的实时表格，界面按帧率合并后在 FX 线程上刷新
+ * <p>
+ * 需要订阅 {@link RankView#UP_TREND} 的前 {@link StockMonitorUI#getRealTimeTopN} 名。
+ */
+public class RealTimeSink implements TickSink {
+
+    private final StockMonitorUI ui;
+
+    public RealTimeSink(StockMonitorUI ui) {
+        this.ui = ui;
+    }
+
+    @Override
+    public String name() {
+        return "javafx";
+    }
+
+    @Override
+    public void accept(TickResult result) {
+        List<StockSpeed> ranked = result.getRanking().top(RankView.UP_TREND);
+        if (!ranked.isEmpty()) {
+            ui.updateRealTimeData(ranked);
+        }
+    }
+}
@@ -21,6 +21,9 @@ public class StockData {
     private final DoubleProperty mainForceInflow;    // 主力净流入
     private final DoubleProperty superLargeInflow;   // 超大单净流入
     private final DoubleProperty otherInflow;        // 其他净流入
+    private final DoubleProperty ma5;                // 五日均线
+    private final DoubleProperty ma10;               // 十日均线
+    private final DoubleProperty ma20;               // 二十日均线
 
     public StockData() {
         this.code = new SimpleStringProperty();
@@ -41,6 +44,9 @@ public class StockData {
         this.mainForceInflow = new SimpleDoubleProperty();
         this.superLargeInflow = new SimpleDoubleProperty();
         this.otherInflow = new SimpleDoubleProperty();
+        this.ma5 = new SimpleDoubleProperty();
+        this.ma10 = new SimpleDoubleProperty();
+        this.ma20 = new SimpleDoubleProperty();
     }
 
     // Getters and Setters for all properties
@@ -236,4 +242,40 @@ public class StockData {
     public void setOtherInflow(double otherInflow) {
         this.otherInflow.set(otherInflow);
     }
+
+    public double getMa5() {
+        return ma5.get();
+    }
+
+    public DoubleProperty ma5Property() {
+        return ma5;
+    }
+
+    public void setMa5(double ma5) {
+        this.ma5.set(ma5);
+    }
+
+    public double getMa10() {
+        return ma10.get();
+    }
+
+    public DoubleProperty ma10Property() {
+        return ma10;
+    }
+
+    public void setMa10(double ma10) {
+        this.ma10.set(ma10);
+    }
+
+    public double getMa20() {
+        return ma20.get();
+    }
+
+    public DoubleProperty ma20Property() {
+        return ma20;
+    }
+
+    public void setMa20(double ma20) {
+        this.ma20.set(ma20);
+    }
 } 
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.stock.ui;
 
-import cn.hutool.core.date.StopWatch;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -11,16 +11,23 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import com.stock.persist.StorageMaintenance;
 import com.stock.utils.DBUtils;
+import com.stock.vo.Ma5Breakout;
 import com.stock.vo.StockSpeed;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Properties;
 import java.io.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class StockMonitorUI extends Application {
@@ -32,6 +39,48 @@ public class StockMonitorUI extends Application {
     private TextField pageSizeField;
     private TabPane tabPane;
     private ObservableList<StockData> realTimeData = FXCollections.observableArrayList();
+
+    // 实时数据只显示排名前 N 的股票，FX 线程每秒最多刷新 maxFps 次，可用 -Dui.realtime.topN / -Dui.realtime.maxFps 调整
+    private static final int REAL_TIME_TOP_N = Integer.getInteger("ui.realtime.topN", 500);
+    private static final int REAL_TIME_MAX_FPS = Integer.getInteger("ui.realtime.maxFps", 5);
+    // 计算线程只替换待刷新的数据，两次刷新之间到达的多轮结果只保留最新一轮
+    private final AtomicReference<List<StockSpeed>> pendingRealTime = new AtomicReference<>();
+    private RealTimeRows realTimeRows;
+    // FX 线程刷新耗时统计
+    private long fxUpdateCount;
+    private long fxUpdateNanos;
+    private long fxUpdateMaxNanos;
+
+    // 数据库查询全部在后台线程执行，同一通道提交新查询时取消旧查询
+    private static final String QUERY_HISTORY = "历史数据";
+    private static final String QUERY_CUSTOM = "自定义查询";
+    private static final String QUERY_TEST_CONNECTION = "测试连接";
+    private static final String QUERY_INIT_DATABASE = "初始化数据库";
+    private static final String QUERY_SYMBOLS = "股票代码";
+    private final QueryService queryService =
+            new QueryService(DBUtils::getConnection, 2, 16, 200, Integer.MIN_VALUE, Platform::runLater);
+    private TableView<StockData> breakMA5Table;
+    private static final DateTimeFormatter CROSS_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+    private TableView<StockData> customQueryTable;
+    private ProgressIndicator historyLoading;
+    // 历史查询：输入先在内存代码表中解析成代码，再按 (code, create_time) 游标分页，翻到第几页都只走索引
+    private static final int HISTORY_MAX_CODES = 200;
+    private volatile SymbolSearch symbolSearch = SymbolSearch.EMPTY;
+    private Label historyPageLabel;
+    // 默认查分钟线，原始 10 秒数据只保留最近几天
+    private static final String GRANULARITY_RAW = "10秒";
+    private static final String GRANULARITY_MINUTE = "1分钟";
+    private static final String GRANULARITY_DAILY = "日线";
+    private ComboBox<String> historyGranularity;
+    private String historyTableGranularity;
+    private List<String> historyCodes = new ArrayList<>();
+    // 第 i 页从 historyPages.get(i) 之后开始，第一页为 null
+    private final List<HistoryCursor> historyPages = new ArrayList<>();
+    private int historyPage;
+    private ProgressIndicator dbConfigLoading;
+    private Label breakMA5Status;
+    private ProgressIndicator customQueryLoading;
     
     @Override
     public void start(Stage primaryStage) {
@@ -56,6 +105,11 @@ public class StockMonitorUI extends Application {
         Tab breakMA5Tab = new Tab("突破五日线");
         breakMA5Tab.setClosable(false);
         breakMA5Tab.setContent(createBreakMA5Content());
+        breakMA5Tab.setOnSelectionChanged(e -> {
+            if (breakMA5Tab.isSelected()) {
+                refreshBreakMA5Data();
+            }
+        });
         
         // 自定义查询标签页
         Tab customQueryTab = new Tab("自定义查询");
@@ -93,10 +147,53 @@ public class StockMonitorUI extends Application {
         
         // 加载数据库配置
         loadDBProperties();
+
+        startRealTimeRefresher();
         
         // 设置UI实例到主类
         com.stock.StockMonitorMain2.setUI(this);
     }
+
+    @Override
+    public void stop() {
+        queryService.shutdown();
+    }
+
+    private static ProgressIndicator createLoadingIndicator() {
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(24, 24);
+        indicator.setVisible(false);
+        return indicator;
+    }
+
+    /**
+     * 查询开始时清空表格并显示加载标记，查询结果逐批追加到表格
+     */
+    private QueryService.RowListener<StockData> tableLoader(TableView<StockData> table, ProgressIndicator loading) {
+        return new QueryService.RowListener<StockData>() {
+            @Override
+            public void onStart() {
+                loading.setVisible(true);
+                table.setItems(FXCollections.observableArrayList());
+            }
+
+            @Override
+            public void onRows(List<StockData> rows) {
+                table.getItems().addAll(rows);
+            }
+
+            @Override
+            public void onSuccess(Integer rowCount) {
+                loading.setVisible(false);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                loading.setVisible(false);
+                showAlert(Alert.AlertType.ERROR, "查询失败: " + error.getMessage());
+            }
+        };
+    }
     
     private TableCell<StockData, Number> createMoneyCell() {
         return new TableCell<StockData, Number>() {
@@ -157,6 +254,8 @@ public class StockMonitorUI extends Application {
         // 设置表格选择模式
         realTimeTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         realTimeTable.setEditable(false);
+        realTimeTable.setItems(realTimeData);
+        realTimeRows = new RealTimeRows(realTimeData, REAL_TIME_TOP_N);
         
         // 创建列并绑定数据
         TableColumn<StockData, String> codeCol = new TableColumn<>("代码");
@@ -310,9 +409,18 @@ public class StockMonitorUI extends Application {
         searchField.setPrefWidth(200);
         searchField.getStyleClass().add("search-field");
         
+        historyGranularity = new ComboBox<>(FXCollections.observableArrayList(
+                GRANULARITY_RAW, GRANULARITY_MINUTE, GRANULARITY_DAILY));
+        historyGranularity.setValue(GRANULARITY_MINUTE);
+        historyGranularity.setOnAction(e -> {
+            if (!historyCodes.isEmpty()) {
+                startHistorySearch(historyCodes);
+            }
+        });
+
         Button searchBtn = new Button("搜索");
         searchBtn.getStyleClass().add("search-button");
-        searchBtn.setOnAction(e -> searchHistoryData(1)); // 从第1页开始搜索
+        searchBtn.setOnAction(e -> searchHistoryData()); // 从第1页开始搜索
         
         // 分页控制区域
         HBox pageBox = new HBox(10);
@@ -324,26 +432,26 @@ public class StockMonitorUI extends Application {
         pageSizeField.setText(50+"");
         pageSizeField.getStyleClass().add("search-field");
         Button prevBtn = new Button("上一页");
-        Label pageLabel = new Label("第1页");
+        historyPageLabel = new Label("第1页");
         Button nextBtn = new Button("下一页");
         
         prevBtn.setOnAction(e -> {
-            int currentPage = Integer.parseInt(pageLabel.getText().replaceAll("第|页", ""));
-            if (currentPage > 1) {
-                searchHistoryData(currentPage - 1);
-                pageLabel.setText("第" + (currentPage - 1) + "页");
+            if (historyPage > 0) {
+                loadHistoryPage(historyPage - 1);
             }
         });
         
+        // 上一页不满时没有下一页的游标
         nextBtn.setOnAction(e -> {
-            int currentPage = Integer.parseInt(pageLabel.getText().replaceAll("第|页", ""));
-            searchHistoryData(currentPage + 1);
-            pageLabel.setText("第" + (currentPage + 1) + "页");
+            if (historyPage + 1 < historyPages.size()) {
+                loadHistoryPage(historyPage + 1);
+            }
         });
         
-        pageBox.getChildren().addAll(pageSizeBtn, pageSizeField, prevBtn, pageLabel, nextBtn);
+        pageBox.getChildren().addAll(pageSizeBtn, pageSizeField, prevBtn, historyPageLabel, nextBtn);
         
-        searchBox.getChildren().addAll( searchField, searchBtn, pageBox);
+        historyLoading = createLoadingIndicator();
+        searchBox.getChildren().addAll( searchField, historyGranularity, searchBtn, pageBox, historyLoading);
         
         // 历史数据表格
         historyTable = new TableView<>();
@@ -456,7 +564,7 @@ public class StockMonitorUI extends Application {
         return vbox;
     }
     
-    private void searchHistoryData(int page) {
+    private void searchHistoryData() {
 
         String searchText = searchField.getText().trim();
         if (searchText.isEmpty()) {
@@ -464,68 +572,165 @@ public class StockMonitorUI extends Application {
             return;
         }
 
-        int PAGE_SIZE = 50;
+        List<String> codes = symbolSearch.find(searchText, HISTORY_MAX_CODES);
+        if (!codes.isEmpty()) {
+            startHistorySearch(codes);
+            return;
+        }
+        // 代码表为空或有新上市的股票，重新加载一次再找
+        queryService.execute(QUERY_SYMBOLS, () -> {
+            try (Connection conn = DBUtils.getConnection()) {
+                return SymbolSearch.load(conn);
+            }
+        }, new QueryService.Callback<SymbolSearch>() {
+            @Override
+            public void onStart() {
+                historyLoading.setVisible(true);
+            }
+
+            @Override
+            public void onSuccess(SymbolSearch result) {
+                historyLoading.setVisible(false);
+                symbolSearch = result;
+                List<String> reloaded = result.find(searchText, HISTORY_MAX_CODES);
+                if (reloaded.isEmpty()) {
+                    historyTable.setItems(FXCollections.observableArrayList());
+                    showAlert(Alert.AlertType.INFORMATION, "没有找到匹配的股票: " + searchText);
+                } else {
+                    startHistorySearch(reloaded);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                historyLoading.setVisible(false);
+                showAlert(Alert.AlertType.ERROR, "加载股票代码失败: " + error.getMessage());
+            }
+        });
+    }
+
+    private void startHistorySearch(List<String> codes) {
+        historyCodes = codes;
+        historyTableGranularity = historyGranularity.getValue();
+        historyPages.clear();
+        historyPages.add(null);
+        loadHistoryPage(0);
+    }
+
+    private void loadHistoryPage(int page) {
+        int pageSize = 50;
         String pageSizeText = pageSizeField.getText().trim();
         if (!pageSizeText.isEmpty()) {
-            PAGE_SIZE = Integer.parseInt(pageSizeText);
+            pageSize = Integer.parseInt(pageSizeText);
         }
-        int offset = (page - 1) * PAGE_SIZE;
-        Connection conn = null;
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-        StopWatch sw = new StopWatch("获取数据任务");
-        try {
-            conn = DBUtils.getConnection();
-            String sql = "SELECT a.*, " +
-                        "(a.total_net_inflow - IFNULL(b.total_net_inflow, 0)) as inflow_diff, " +
-                        "(a.bigdan_net_inflow + a.zhongdan_net_inflow + a.xiaodan_net_inflow) as other_inflow " +
-                        "FROM single_stock_data a " +
-                        "LEFT JOIN single_stock_data b ON a.code = b.code " +
-                        "AND b.create_time = (SELECT MAX(create_time) FROM single_stock_data c " +
-                        "WHERE c.code = a.code AND c.create_time < a.create_time) " +
-                        "WHERE a.code LIKE ? OR a.name LIKE ? " +
-                        "ORDER BY a.create_time DESC " +
-                        "LIMIT ? OFFSET ?";
-            ps = conn.prepareStatement(sql);
-            ps.setString(1, "%" + searchText + "%");
-            ps.setString(2, "%" + searchText + "%");
-            ps.setInt(3, PAGE_SIZE);
-            ps.setInt(4, offset);
-            sw.start("执行查询");
-            rs = ps.executeQuery();
-            sw.stop();
-            sw.start("循环解析数据");
-            ObservableList<StockData> data = FXCollections.observableArrayList();
-            while (rs.next()) {
-                StockData stockData = new StockData();
-                stockData.setCode(rs.getString("code"));
-                stockData.setName(rs.getString("name"));
-                stockData.setCurrentPrice(rs.getDouble("current_price"));
-                stockData.setNetInflow(rs.getDouble("total_net_inflow"));
-                stockData.setChangePercent(rs.getDouble("change_percent"));
-                stockData.setMainForcePercent(rs.getDouble("zhuli_net_inflow_percent"));
-                stockData.setVolume(rs.getDouble("total_volume"));
-                stockData.setCreateTime(rs.getString("create_time"));
-                
-                // 设置增字段的值
-                stockData.setInflowDiff(rs.getDouble("inflow_diff"));
-                stockData.setMainForceInflow(rs.getDouble("zhuli_net_inflow"));
-                stockData.setSuperLargeInflow(rs.getDouble("chaodadan_net_inflow"));
-                stockData.setOtherInflow(rs.getDouble("other_inflow"));
-                
-                data.add(stockData);
+        int limit = pageSize;
+        List<String> codes = historyCodes;
+        HistoryCursor after = historyPages.get(page);
+        historyPage = page;
+        historyPageLabel.setText("第" + (page + 1) + "页");
+
+        // 汇总表的列按原始表的列名取别名，共用下面的行映射
+        String table;
+        String timeColumn;
+        String columns;
+        if (GRANULARITY_RAW.equals(historyTableGranularity)) {
+            table = "single_stock_data";
+            timeColumn = "a.create_time";
+            columns = "a.*";
+        } else {
+            boolean daily = GRANULARITY_DAILY.equals(historyTableGranularity);
+            table = daily ? "stock_daily_bar" : "stock_minute_bar";
+            timeColumn = daily ? "a.trade_date" : "a.bar_time";
+            columns = "a.code, a.name, a.close_price AS current_price, a.change_percent, " +
+                    "a.zhuli_net_inflow, a.zhuli_net_inflow_percent, a.total_net_inflow, a.chaodadan_net_inflow, " +
+                    "a.total_volume, a.inflow_diff, " + timeColumn + " AS create_time";
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + columns + ", " +
+                "(a.bigdan_net_inflow + a.zhongdan_net_inflow + a.xiaodan_net_inflow) as other_inflow " +
+                "FROM " + table + " a WHERE a.code IN (");
+        for (int i = 0; i < codes.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        if (after != null) {
+            sql.append(" AND (a.code > ? OR (a.code = ? AND ").append(timeColumn).append(" < ?))");
+        }
+        sql.append(" ORDER BY a.code ASC, ").append(timeColumn).append(" DESC LIMIT ?");
+
+        // 本页最后一行就是下一页的游标，在查询线程上记录
+        AtomicReference<HistoryCursor> last = new AtomicReference<>();
+        QueryService.RowListener<StockData> loader = tableLoader(historyTable, historyLoading);
+        queryService.query(QUERY_HISTORY, conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql.toString());
+            int index = 1;
+            for (String code : codes) {
+                ps.setString(index++, code);
+            }
+            if (after != null) {
+                ps.setString(index++, after.code);
+                ps.setString(index++, after.code);
+                ps.setTimestamp(index++, after.createTime);
             }
-            historyTable.setItems(data);
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "查询失败: " + e.getMessage());
-        } finally {
-            DBUtils.close(conn, ps, rs);
+            ps.setInt(index, limit);
+            return ps;
+        }, rs -> {
+            StockData stockData = new StockData();
+            stockData.setCode(rs.getString("code"));
+            stockData.setName(rs.getString("name"));
+            stockData.setCurrentPrice(rs.getDouble("current_price"));
+            stockData.setNetInflow(rs.getDouble("total_net_inflow"));
+            stockData.setChangePercent(rs.getDouble("change_percent"));
+            stockData.setMainForcePercent(rs.getDouble("zhuli_net_inflow_percent"));
+            stockData.setVolume(rs.getDouble("total_volume"));
+            stockData.setCreateTime(rs.getString("create_time"));
+
+            // 设置增字段的值，inflow_diff 由写入方按上一轮计算好
+            stockData.setInflowDiff(rs.getDouble("inflow_diff"));
+            stockData.setMainForceInflow(rs.getDouble("zhuli_net_inflow"));
+            stockData.setSuperLargeInflow(rs.getDouble("chaodadan_net_inflow"));
+            stockData.setOtherInflow(rs.getDouble("other_inflow"));
+            last.set(new HistoryCursor(stockData.getCode(), rs.getTimestamp("create_time")));
+            return stockData;
+        }, new QueryService.RowListener<StockData>() {
+            @Override
+            public void onStart() {
+                loader.onStart();
+            }
+
+            @Override
+            public void onRows(List<StockData> rows) {
+                loader.onRows(rows);
+            }
+
+            @Override
+            public void onSuccess(Integer rowCount) {
+                loader.onSuccess(rowCount);
+                while (historyPages.size() > page + 1) {
+                    historyPages.remove(historyPages.size() - 1);
+                }
+                if (rowCount == limit) {
+                    historyPages.add(last.get());
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                loader.onError(error);
+            }
+        });
+    }
+
+    /**
+     * 历史查询翻页的位置：上一页最后一行
+     */
+    private static final class HistoryCursor {
+        private final String code;
+        private final Timestamp createTime;
+
+        private HistoryCursor(String code, Timestamp createTime) {
+            this.code = code;
+            this.createTime = createTime;
         }
-        sw.stop();
-        sw.setKeepTaskList(true); //是否构建TaskInfo信息
-        Arrays.stream(sw.getTaskInfo()).forEach(stopWatch -> log.info(stopWatch.getTaskName() + "耗时:" + stopWatch.getTimeMillis() + "ms"));
-        log.info("详细打印：" + sw.prettyPrint());
-        log.info("所有任务总耗时：" + sw.getTotalTimeMillis() + "ms");
     }
     
     private VBox createDBConfigContent() {
@@ -631,7 +836,8 @@ public class StockMonitorUI extends Application {
         initBtn.setStyle(secondaryButtonStyle);
         initBtn.setOnAction(e -> initializeDatabase());
         
-        buttonBox.getChildren().addAll(saveBtn, testBtn, initBtn);
+        dbConfigLoading = createLoadingIndicator();
+        buttonBox.getChildren().addAll(saveBtn, testBtn, initBtn, dbConfigLoading);
         
         vbox.getChildren().addAll(titleLabel, gridPane, buttonBox);
         
@@ -679,53 +885,76 @@ public class StockMonitorUI extends Application {
     }
     
     private void testConnection() {
-        try {
+        queryService.execute(QUERY_TEST_CONNECTION, () -> {
             DBUtils.testConnection();
-            showAlert(Alert.AlertType.INFORMATION, "数据库连接成功！");
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "数据库连接失败: " + e.getMessage());
-        }
+            return null;
+        }, adminCallback("数据库连接成功！", "数据库连接失败: "));
     }
     
     private void initializeDatabase() {
-        try {
-            Connection conn = DBUtils.getConnection();
-            Statement stmt = conn.createStatement();
-            
-            // 创建数据表的SQL
-            String createTableSQL = "CREATE TABLE IF NOT EXISTS single_stock_data (" +
-                "id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '自增主键'," +
-                "code VARCHAR(10) NOT NULL COMMENT '股票代码'," +
-                "name VARCHAR(50) NOT NULL COMMENT '股票名称'," +
-                "current_price DECIMAL(10,2) NOT NULL COMMENT '当前价格'," +
-                "zhuli_net_inflow DECIMAL(20,2) COMMENT '今日主力净流入'," +
-                "zhuli_net_inflow_percent DECIMAL(10,4) COMMENT '今日主力净流百分比'," +
-                "total_net_inflow DECIMAL(20,2) COMMENT '总净流入'," +
-                "total_net_inflow_percent DECIMAL(10,4) COMMENT '总净流入百分比'," +
-                "chaodadan_net_inflow DECIMAL(20,2) COMMENT '超大单净流入'," +
-                "chaodadan_net_inflow_percent DECIMAL(10,4) COMMENT '超大单净流入百分比'," +
-                "bigdan_net_inflow DECIMAL(20,2) COMMENT '大单净流入'," +
-                "bigdan_net_inflow_percent DECIMAL(10,4) COMMENT '大单净流入百分比'," +
-                "zhongdan_net_inflow DECIMAL(20,2) COMMENT '中单净流入'," +
-                "zhongdan_net_inflow_percent DECIMAL(10,4) COMMENT '中单净流入百分比'," +
-                "xiaodan_net_inflow DECIMAL(20,2) COMMENT '小单净流入'," +
-                "xiaodan_net_inflow_percent DECIMAL(10,4) COMMENT '小单净流入百分比'," +
-                "change_amount DECIMAL(10,2) COMMENT '涨跌额'," +
-                "change_percent DECIMAL(10,4) COMMENT '涨跌幅'," +
-                "total_volume DECIMAL(20,2) COMMENT '总成交量'," +
-                "create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'," +
-                "update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'," +
-                "INDEX idx_code (code)," +
-                "INDEX idx_create_time (create_time)," +
-                "INDEX idx_code_create_time (code, create_time)" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='股票实时数据表'";
-            
-            stmt.execute(createTableSQL);
-            showAlert(Alert.AlertType.INFORMATION, "数据库初始化成功！");
-            
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "数据库初始化失败: " + e.getMessage());
-        }
+        // 创建数据表的SQL
+        String createTableSQL = "CREATE TABLE IF NOT EXISTS single_stock_data (" +
+            "id BIGINT AUTO_INCREMENT COMMENT '自增主键'," +
+            "code VARCHAR(10) NOT NULL COMMENT '股票代码'," +
+            "name VARCHAR(50) NOT NULL COMMENT '股票名称'," +
+            "current_price DECIMAL(10,2) NOT NULL COMMENT '当前价格'," +
+            "zhuli_net_inflow DECIMAL(20,2) COMMENT '今日主力净流入'," +
+            "zhuli_net_inflow_percent DECIMAL(10,4) COMMENT '今日主力净流百分比'," +
+            "total_net_inflow DECIMAL(20,2) COMMENT '总净流入'," +
+            "total_net_inflow_percent DECIMAL(10,4) COMMENT '总净流入百分比'," +
+            "chaodadan_net_inflow DECIMAL(20,2) COMMENT '超大单净流入'," +
+            "chaodadan_net_inflow_percent DECIMAL(10,4) COMMENT '超大单净流入百分比'," +
+            "bigdan_net_inflow DECIMAL(20,2) COMMENT '大单净流入'," +
+            "bigdan_net_inflow_percent DECIMAL(10,4) COMMENT '大单净流入百分比'," +
+            "zhongdan_net_inflow DECIMAL(20,2) COMMENT '中单净流入'," +
+            "zhongdan_net_inflow_percent DECIMAL(10,4) COMMENT '中单净流入百分比'," +
+            "xiaodan_net_inflow DECIMAL(20,2) COMMENT '小单净流入'," +
+            "xiaodan_net_inflow_percent DECIMAL(10,4) COMMENT '小单净流入百分比'," +
+            "change_amount DECIMAL(10,2) COMMENT '涨跌额'," +
+            "change_percent DECIMAL(10,4) COMMENT '涨跌幅'," +
+            "total_volume DECIMAL(20,2) COMMENT '总成交量'," +
+            "inflow_diff DECIMAL(20,2) COMMENT '较上一轮总净流入差值'," +
+            "create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'," +
+            "update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'," +
+            "PRIMARY KEY (id, create_time)," +
+            "INDEX idx_create_time (create_time)," +
+            "INDEX idx_code_create_time (code, create_time)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='股票实时数据表' " +
+            "PARTITION BY RANGE (UNIX_TIMESTAMP(create_time)) (PARTITION p_future VALUES LESS THAN MAXVALUE)";
+
+        queryService.execute(QUERY_INIT_DATABASE, () -> {
+            try (Connection conn = DBUtils.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute(createTableSQL);
+                DBUtils.upgradeSchema(conn);
+                DBUtils.createLatestQuoteTable(conn);
+                DBUtils.createRollupTables(conn);
+                // 旧库的表没有分区，在这里一次性改为按天分区
+                StorageMaintenance.partitionTables(conn, LocalDate.now());
+            }
+            return null;
+        }, adminCallback("数据库初始化成功！", "数据库初始化失败: "));
+    }
+
+    private QueryService.Callback<Void> adminCallback(String successMessage, String errorPrefix) {
+        return new QueryService.Callback<Void>() {
+            @Override
+            public void onStart() {
+                dbConfigLoading.setVisible(true);
+            }
+
+            @Override
+            public void onSuccess(Void result) {
+                dbConfigLoading.setVisible(false);
+                showAlert(Alert.AlertType.INFORMATION, successMessage);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                dbConfigLoading.setVisible(false);
+                showAlert(Alert.AlertType.ERROR, errorPrefix + error.getMessage());
+            }
+        };
     }
     
     private void showAlert(Alert.AlertType type, String message) {
@@ -749,9 +978,13 @@ public class StockMonitorUI extends Application {
                           "-fx-background-color: #4a90e2; -fx-text-fill: white; " +
                           "-fx-background-radius: 4; -fx-cursor: hand;");
         refreshBtn.setOnAction(e -> refreshBreakMA5Data());
+        breakMA5Status = new Label();
+        breakMA5Status.setStyle("-fx-font-size: 14px; -fx-text-fill: #666666;");
+        HBox toolBox = new HBox(10, refreshBtn, breakMA5Status);
+        toolBox.setAlignment(Pos.CENTER_LEFT);
         
         // 创建表格
-        TableView<StockData> breakMA5Table = new TableView<>();
+        breakMA5Table = new TableView<>();
         breakMA5Table.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
         
         // 设置表格填充属性
@@ -907,118 +1140,125 @@ public class StockMonitorUI extends Application {
         });
         otherCol.setPrefWidth(120);
         
+        TableColumn<StockData, Number> ma5Col = new TableColumn<>("五日线");
+        ma5Col.setCellValueFactory(cellData -> cellData.getValue().ma5Property());
+        ma5Col.setCellFactory(column -> createPriceCell());
+        ma5Col.setPrefWidth(100);
+
+        TableColumn<StockData, Number> ma10Col = new TableColumn<>("十日线");
+        ma10Col.setCellValueFactory(cellData -> cellData.getValue().ma10Property());
+        ma10Col.setCellFactory(column -> createPriceCell());
+        ma10Col.setPrefWidth(100);
+
+        TableColumn<StockData, Number> ma20Col = new TableColumn<>("二十日线");
+        ma20Col.setCellValueFactory(cellData -> cellData.getValue().ma20Property());
+        ma20Col.setCellFactory(column -> createPriceCell());
+        ma20Col.setPrefWidth(100);
+
+        TableColumn<StockData, String> crossTimeCol = new TableColumn<>("突破时间");
+        crossTimeCol.setCellValueFactory(cellData -> cellData.getValue().createTimeProperty());
+        crossTimeCol.setPrefWidth(100);
+        
         breakMA5Table.getColumns().addAll(
-            codeCol, nameCol, priceCol, changeCol, netInflowCol,
-            mainForceCol, superLargeCol, otherCol
+            codeCol, nameCol, priceCol, changeCol, ma5Col, ma10Col, ma20Col, crossTimeCol,
+            netInflowCol, mainForceCol, superLargeCol, otherCol
         );
         
-        vbox.getChildren().addAll(refreshBtn, breakMA5Table);
+        vbox.getChildren().addAll(toolBox, breakMA5Table);
         
         return vbox;
     }
     
+    /**
+     * 五日线突破由计算线程在每轮采样中维护，这里只把内存中的结果显示出来
+     */
     private void refreshBreakMA5Data() {
-        String sql = "";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DBUtils.getConnection();
-            
-            // 修改SQL查询，使用正确的关联方式
-            sql = 
-                "SELECT t.code, t.name, t.current_price, t.change_percent, t.total_net_inflow, t.zhuli_net_inflow, t.chaodadan_net_inflow, t.other_inflow  " +
-                  "FROM (SELECT s1.code, s1.name, s1.current_price, s1.change_percent, s1.total_net_inflow, s1.zhuli_net_inflow, s1.chaodadan_net_inflow, " +
-                  "        (s1.bigdan_net_inflow + s1.zhongdan_net_inflow + s1.xiaodan_net_inflow) AS other_inflow, " +
-                  "        (SELECT AVG(current_price) FROM single_stock_data WHERE code = s1.code AND create_time <= s1.create_time ORDER BY create_time DESC LIMIT 5 ) AS ma5  " +
-                  "    FROM single_stock_data s1 " +
-                  "   INNER JOIN (SELECT code, MAX(create_time) AS max_time FROM single_stock_data GROUP BY code) latest ON s1.code = latest.code  " +
-                  "        AND s1.create_time = latest.max_time  " +
-                  "    ) t  " +
-                  "WHERE " +
-                  "    t.current_price > t.ma5  " +
-                  "    AND EXISTS ( " +
-                  "    SELECT 1  " +
-                  "    FROM single_stock_data s3  " +
-                  "    WHERE " +
-                  "        s3.code = t.code  " +
-                  "        AND s3.create_time < ( " +
-                  "            SELECT MAX(create_time)  " +
-                  "            FROM single_stock_data  " +
-                  "            WHERE code = t.code " +
-                  "        )  " +
-                  "        AND s3.current_price < ( " +
-                  "            SELECT AVG(current_price)  " +
-                  "            FROM single_stock_data  " +
-                  "            WHERE  " +
-                  "                code = s3.code  " +
-                  "                AND create_time <= s3.create_time  " +
-                  "            ORDER BY create_time DESC  " +
-                  "            LIMIT 5 " +
-                  "        )  " +
-                  "    ORDER BY s3.create_time DESC  " +
-                  "    LIMIT 1  " +
-                  "    )  " +
-                  "ORDER BY t.code";
-            
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            
-            ObservableList<StockData> data = FXCollections.observableArrayList();
-            while (rs.next()) {
-                StockData stockData = new StockData();
-                stockData.setCode(rs.getString("code"));
-                stockData.setName(rs.getString("name"));
-                stockData.setCurrentPrice(rs.getDouble("current_price"));
-                stockData.setChangePercent(rs.getDouble("change_percent"));
-                stockData.setNetInflow(rs.getDouble("total_net_inflow"));
-                stockData.setMainForceInflow(rs.getDouble("zhuli_net_inflow"));
-                stockData.setSuperLargeInflow(rs.getDouble("chaodadan_net_inflow"));
-                stockData.setOtherInflow(rs.getDouble("other_inflow"));
-                data.add(stockData);
-            }
-            
-            // 获取表格引用并更新数据
-            TableView<StockData> breakMA5Table = (TableView<StockData>) ((VBox) tabPane.getTabs().get(3).getContent()).getChildren().get(1);
-            breakMA5Table.setItems(data);
-            
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "查询失败: " + e.getMessage());
-            log.error("查询失败：{}", sql);
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "系统错误: " + e.getMessage());
-            log.error("系统错误：", e);
-        } finally {
-            DBUtils.close(conn, stmt, rs);
+        List<Ma5Breakout> breakouts = com.stock.StockMonitorMain2.getMa5Breakouts();
+        ObservableList<StockData> data = FXCollections.observableArrayList();
+        for (Ma5Breakout breakout : breakouts) {
+            StockData stockData = new StockData();
+            stockData.setCode(breakout.getCode());
+            stockData.setName(breakout.getName());
+            stockData.setCurrentPrice(breakout.getCurrentPrice());
+            stockData.setChangePercent(breakout.getChangePercent());
+            stockData.setMa5(breakout.getMa5());
+            stockData.setMa10(breakout.getMa10());
+            stockData.setMa20(breakout.getMa20());
+            stockData.setCreateTime(CROSS_TIME_FORMAT.format(Instant.ofEpochMilli(breakout.getCrossTime())));
+            stockData.setNetInflow(breakout.getTotalNetInflow());
+            stockData.setMainForceInflow(breakout.getZhuliNetInflow());
+            stockData.setSuperLargeInflow(breakout.getChaodadanNetInflow());
+            stockData.setOtherInflow(breakout.getOtherInflow());
+            data.add(stockData);
         }
+        breakMA5Table.setItems(data);
+        breakMA5Status.setText("共 " + data.size() + " 支, 刷新于 " + CROSS_TIME_FORMAT.format(Instant.now()));
+    }
+
+    private TableCell<StockData, Number> createPriceCell() {
+        return new TableCell<StockData, Number>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null || Double.isNaN(item.doubleValue())) {
+                    setText(null);
+                    getStyleClass().removeAll("number");
+                } else {
+                    setText(String.format("%8.2f", item.doubleValue()));
+                    getStyleClass().add("number");
+                }
+            }
+        };
     }
     
+    /**
+     * 实时表格显示的行数，也就是需要订阅的上涨趋势排名数
+     */
+    public int getRealTimeTopN() {
+        return REAL_TIME_TOP_N;
+    }
+
+    /**
+     * 提交一轮实时结果，可在任意线程调用
+     * speedResults 按上涨趋势排名排好序，只记录为待刷新数据，由 FX 线程按帧率合并后应用
+     */
     public void updateRealTimeData(List<StockSpeed> speedResults) {
-        // 在后台线程中准备数据
-        List<StockData> newData = new ArrayList<>();
-        for (StockSpeed result : speedResults) {
-            StockData stockData = new StockData();
-            stockData.setCode(result.getCode());
-            stockData.setName(result.getName());
-            stockData.setCurrentPrice(result.getCurrentPrice());
-            stockData.setNetInflow(result.getZhuliNetInflow());
-            stockData.setChangePercent(result.getChangePercent());
-            stockData.setMainForcePercent(result.getZhuliNetInflowPercent());
-            stockData.setMomentumScore(result.getMomentumScore());
-            stockData.setUpTrendScore(result.getRankUpTrendScore());
-            stockData.setDownTrendScore(result.getRankDownTrendScore());
-            stockData.setVolume(result.getVolume());
-            newData.add(stockData);
-        }
-        
-        // 只在UI线程中执行最终的更新
-        Platform.runLater(() -> {
-            realTimeData.clear();
-            realTimeData.addAll(newData);
-            if (realTimeTable.getItems() != realTimeData) {
-                realTimeTable.setItems(realTimeData);
+        int count = Math.min(REAL_TIME_TOP_N, speedResults.size());
+        pendingRealTime.set(new ArrayList<>(speedResults.subList(0, count)));
+    }
+
+    private void startRealTimeRefresher() {
+        long minFrameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, REAL_TIME_MAX_FPS);
+        new AnimationTimer() {
+            private long lastApply;
+
+            @Override
+            public void handle(long now) {
+                if (now - lastApply < minFrameNanos || pendingRealTime.get() == null) {
+                    return;
+                }
+                lastApply = now;
+                List<StockSpeed> pending = pendingRealTime.getAndSet(null);
+                long start = System.nanoTime();
+                realTimeRows.apply(pending);
+                // 用户点击列头排序时按用户的排序显示
+                if (!realTimeTable.getSortOrder().isEmpty()) {
+                    realTimeTable.sort();
+                }
+                recordFxUpdate(System.nanoTime() - start, pending.size());
             }
-        });
+        }.start();
+    }
+
+    private void recordFxUpdate(long nanos, int rows) {
+        fxUpdateCount++;
+        fxUpdateNanos += nanos;
+        fxUpdateMaxNanos = Math.max(fxUpdateMaxNanos, nanos);
+        if (fxUpdateCount % 30 == 0) {
+            log.info("实时数据刷新 {} 次, 本次 {} 行耗时 {} ms, 平均 {} ms, 最大 {} ms",
+                    fxUpdateCount, rows, nanos / 1_000_000.0,
+                    fxUpdateNanos / fxUpdateCount / 1_000_000.0, fxUpdateMaxNanos / 1_000_000.0);
+        }
     }
     
     private VBox createCustomQueryContent() {
@@ -1076,9 +1316,12 @@ public class StockMonitorUI extends Application {
             executeCustomQuery(name, code, inflow, changeMin, changeMax);
         });
         queryPane.add(queryButton, 4, 1);
+        customQueryLoading = createLoadingIndicator();
+        queryPane.add(customQueryLoading, 5, 1);
 
         // 创建结果表格
         TableView<StockData> resultTable = new TableView<>();
+        customQueryTable = resultTable;
         resultTable.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
         VBox.setVgrow(resultTable, Priority.ALWAYS);
 
@@ -1164,25 +1407,16 @@ public class StockMonitorUI extends Application {
     }
 
     private void executeCustomQuery(String name, String code, String inflow, String changeMin, String changeMax) {
-        Connection conn = null;
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-        try {
-            StringBuilder sql = new StringBuilder(
-                "SELECT a.*, " +
-                "(a.bigdan_net_inflow + a.zhongdan_net_inflow + a.xiaodan_net_inflow) as other_inflow " +
-                "FROM single_stock_data a " +
-                "INNER JOIN (" +
-                "    SELECT code, MAX(create_time) as max_time " +
-                "    FROM single_stock_data " +
-                "    WHERE create_time < DATE_SUB(NOW(), INTERVAL 20 SECOND) " +
-                "    GROUP BY code" +
-                ") b ON a.code = b.code AND a.create_time = b.max_time " +
-                "WHERE 1=1 "
-            );
-
-            List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+            "SELECT a.*, " +
+            "(a.bigdan_net_inflow + a.zhongdan_net_inflow + a.xiaodan_net_inflow) as other_inflow " +
+            "FROM latest_stock_quote a " +
+            "WHERE 1=1 "
+        );
 
+        // 参数在 FX 线程上解析，查询交给后台线程
+        List<Object> params = new ArrayList<>();
+        try {
             if (!name.isEmpty()) {
                 sql.append("AND a.name LIKE ? ");
                 params.add("%" + name + "%");
@@ -1203,44 +1437,31 @@ public class StockMonitorUI extends Application {
                 sql.append("AND a.change_percent <= ? ");
                 params.add(Double.parseDouble(changeMax));
             }
+        } catch (NumberFormatException e) {
+            showAlert(Alert.AlertType.ERROR, "请输入有效的数字");
+            return;
+        }
 
-            conn = DBUtils.getConnection();
-            ps = conn.prepareStatement(sql.toString());
-
+        queryService.query(QUERY_CUSTOM, conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql.toString());
             // 设置参数
             for (int i = 0; i < params.size(); i++) {
                 ps.setObject(i + 1, params.get(i));
             }
-
-            rs = ps.executeQuery();
-            ObservableList<StockData> data = FXCollections.observableArrayList();
-
-            while (rs.next()) {
-                StockData stockData = new StockData();
-                stockData.setCode(rs.getString("code"));
-                stockData.setName(rs.getString("name"));
-                stockData.setCurrentPrice(rs.getDouble("current_price"));
-                stockData.setNetInflow(rs.getDouble("total_net_inflow"));
-                stockData.setChangePercent(rs.getDouble("change_percent"));
-                stockData.setMainForceInflow(rs.getDouble("zhuli_net_inflow"));
-                stockData.setSuperLargeInflow(rs.getDouble("chaodadan_net_inflow"));
-                stockData.setOtherInflow(rs.getDouble("other_inflow"));
-                stockData.setCreateTime(rs.getString("create_time"));
-                data.add(stockData);
-            }
-
-            // 获取表格引用并更新数据
-            TableView<StockData> resultTable = (TableView<StockData>) 
-                ((VBox) tabPane.getTabs().get(4).getContent()).getChildren().get(1);
-            resultTable.setItems(data);
-
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "查询失败: " + e.getMessage());
-        } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "请输入有效的数字");
-        } finally {
-            DBUtils.close(conn, ps, rs);
-        }
+            return ps;
+        }, rs -> {
+            StockData stockData = new StockData();
+            stockData.setCode(rs.getString("code"));
+            stockData.setName(rs.getString("name"));
+            stockData.setCurrentPrice(rs.getDouble("current_price"));
+            stockData.setNetInflow(rs.getDouble("total_net_inflow"));
+            stockData.setChangePercent(rs.getDouble("change_percent"));
+            stockData.setMainForceInflow(rs.getDouble("zhuli_net_inflow"));
+            stockData.setSuperLargeInflow(rs.getDouble("chaodadan_net_inflow"));
+            stockData.setOtherInflow(rs.getDouble("other_inflow"));
+            stockData.setCreateTime(rs.getString("create_time"));
+            return stockData;
+        }, tableLoader(customQueryTable, customQueryLoading));
     }
     
     public static void main(String[] args) {
@@ -0,0 +1,88 @@
+package com.stock.ui;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 股票代码和名称的内存索引，历史查询先在这里把输入解析成代码，再按代码查库，
+ * 不再对 code、name 做 LIKE '%x%' 全表扫描
+ * <p>
+ * 只读，重新加载时整体替换。
+ */
+public final class SymbolSearch {
+
+    public static final SymbolSearch EMPTY = new SymbolSearch(Collections.emptyMap());
+
+    private static final String LOAD_SQL = "SELECT code, name FROM latest_stock_quote";
+
+    private final String[] codes;
+    private final String[] names;
+
+    /**
+     * @param codeToName 代码到名称
+     */
+    public SymbolSearch(Map<String, String> codeToName) {
+        TreeMap<String, String> sorted = new TreeMap<>(codeToName);
+        this.codes = sorted.keySet().toArray(new String[0]);
+        this.names = new String[codes.length];
+        int i = 0;
+        for (String name : sorted.values()) {
+            names[i++] = name == null ? "" : name.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 从 latest_stock_quote 加载，每只股票一行
+     */
+    public static SymbolSearch load(Connection conn) throws SQLException {
+        Map<String, String> codeToName = new TreeMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LOAD_SQL)) {
+            while (rs.next()) {
+                codeToName.put(rs.getString("code"), rs.getString("name"));
+            }
+        }
+        return new SymbolSearch(codeToName);
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * 按输入查找股票代码，按代码升序返回
+     * <p>
+     * 代码或名称完全相同时只返回这一只；否则返回代码或名称包含输入的股票，最多 limit 只。
+     */
+    public List<String> find(String text, int limit) {
+        String key = text.trim().toUpperCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int exact = Arrays.binarySearch(codes, key);
+        if (exact >= 0) {
+            return Collections.singletonList(codes[exact]);
+        }
+        for (int i = 0; i < codes.length; i++) {
+            if (names[i].equals(key)) {
+                return Collections.singletonList(codes[i]);
+            }
+        }
+        List<String> matched = new ArrayList<>();
+        for (int i = 0; i < codes.length && matched.size() < limit; i++) {
+            if (codes[i].contains(key) || names[i].contains(key)) {
+                matched.add(codes[i]);
+            }
+        }
+        return matched;
+    }
+}
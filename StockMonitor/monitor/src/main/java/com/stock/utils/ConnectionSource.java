@@ -0,0 +1,14 @@
+package com.stock.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 数据库连接的来源
+ * <p>
+ * 正常运行时为 DBUtils::getConnection，测试和基准测试可以换成内存数据库。
+ */
+public interface ConnectionSource {
+
+    Connection getConnection() throws SQLException;
+}
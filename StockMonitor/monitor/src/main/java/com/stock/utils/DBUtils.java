@@ -228,12 +228,166 @@ public class DBUtils {
                 System.err.println("警告: single_stock_data表不存在，尝试创建...");
                 createTable(conn);
             }
+            upgradeSchema(conn);
+            ResultSet latest = metaData.getTables(null, null, "latest_stock_quote", null);
+            if (!latest.next()) {
+                System.err.println("警告: latest_stock_quote表不存在，尝试创建...");
+                createLatestQuoteTable(conn);
+            }
+            createRollupTables(conn);
+        }
+    }
+
+    /**
+     * 为旧版本建立的表补充后来增加的列和索引，已经存在的跳过
+     * <ul>
+     * <li>inflow_diff：较上一轮总净流入的差值，由写入方计算，之前的历史行为 NULL</li>
+     * <li>idx_code_create_time：历史查询按 (code, create_time) 做游标分页</li>
+     * </ul>
+     */
+    public static void upgradeSchema(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "single_stock_data", "inflow_diff",
+                "DECIMAL(20,2) COMMENT '较上一轮总净流入差值' AFTER total_volume");
+        addColumnIfMissing(conn, "latest_stock_quote", "inflow_diff",
+                "DECIMAL(20,2) COMMENT '较上一轮总净流入差值' AFTER total_volume");
+        addIndexIfMissing(conn, "single_stock_data", "idx_code_create_time", "(code, create_time)");
+    }
+
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet tables = metaData.getTables(null, null, table, null);
+             ResultSet columns = metaData.getColumns(null, null, table, column)) {
+            if (!tables.next() || columns.next()) {
+                return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            System.out.println("为" + table + "表增加列 " + column);
+        }
+    }
+
+    private static void addIndexIfMissing(Connection conn, String table, String index, String columns) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet tables = metaData.getTables(null, null, table, null)) {
+            if (!tables.next()) {
+                return;
+            }
+        }
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, true)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD INDEX " + index + " " + columns);
+            System.out.println("为" + table + "表增加索引 " + index);
+        }
+    }
+
+    /**
+     * 创建每只股票最新一轮数据的表，并从历史表回填
+     * <p>
+     * 由 StockDataWriter 在写入历史数据的同一事务中 upsert，主键为股票代码。
+     * 回填需要扫描一次历史表，只在建表时执行。
+     */
+    public static void createLatestQuoteTable(Connection conn) throws SQLException {
+        String createTableSQL = "CREATE TABLE IF NOT EXISTS latest_stock_quote (" +
+            "code VARCHAR(10) NOT NULL PRIMARY KEY COMMENT '股票代码'," +
+            "name VARCHAR(50) COMMENT '股票名称'," +
+            "current_price DECIMAL(10,2) COMMENT '当前价格'," +
+            "change_amount DECIMAL(10,2) COMMENT '涨跌额'," +
+            "change_percent DECIMAL(10,4) COMMENT '涨跌幅'," +
+            "zhuli_net_inflow DECIMAL(20,2) COMMENT '今日主力净流入'," +
+            "zhuli_net_inflow_percent DECIMAL(10,4) COMMENT '今日主力净流百分比'," +
+            "total_net_inflow DECIMAL(20,2) COMMENT '总净流入'," +
+            "total_net_inflow_percent DECIMAL(10,4) COMMENT '总净流入百分比'," +
+            "chaodadan_net_inflow DECIMAL(20,2) COMMENT '超大单净流入'," +
+            "chaodadan_net_inflow_percent DECIMAL(10,4) COMMENT '超大单净流入百分比'," +
+            "bigdan_net_inflow DECIMAL(20,2) COMMENT '大单净流入'," +
+            "bigdan_net_inflow_percent DECIMAL(10,4) COMMENT '大单净流入百分比'," +
+            "zhongdan_net_inflow DECIMAL(20,2) COMMENT '中单净流入'," +
+            "zhongdan_net_inflow_percent DECIMAL(10,4) COMMENT '中单净流入百分比'," +
+            "xiaodan_net_inflow DECIMAL(20,2) COMMENT '小单净流入'," +
+            "xiaodan_net_inflow_percent DECIMAL(10,4) COMMENT '小单净流入百分比'," +
+            "total_volume DECIMAL(20,2) COMMENT '总成交量'," +
+            "inflow_diff DECIMAL(20,2) COMMENT '较上一轮总净流入差值'," +
+            "create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最新一轮的时间'" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='每只股票最新一轮数据'";
+
+        String backfillSQL = "INSERT IGNORE INTO latest_stock_quote (code, name, current_price, change_amount, change_percent, " +
+            "zhuli_net_inflow, zhuli_net_inflow_percent, total_net_inflow, total_net_inflow_percent, " +
+            "chaodadan_net_inflow, chaodadan_net_inflow_percent, bigdan_net_inflow, bigdan_net_inflow_percent, " +
+            "zhongdan_net_inflow, zhongdan_net_inflow_percent, xiaodan_net_inflow, xiaodan_net_inflow_percent, " +
+            "total_volume, inflow_diff, create_time) " +
+            "SELECT a.code, a.name, a.current_price, a.change_amount, a.change_percent, " +
+            "a.zhuli_net_inflow, a.zhuli_net_inflow_percent, a.total_net_inflow, a.total_net_inflow_percent, " +
+            "a.chaodadan_net_inflow, a.chaodadan_net_inflow_percent, a.bigdan_net_inflow, a.bigdan_net_inflow_percent, " +
+            "a.zhongdan_net_inflow, a.zhongdan_net_inflow_percent, a.xiaodan_net_inflow, a.xiaodan_net_inflow_percent, " +
+            "a.total_volume, a.inflow_diff, a.create_time " +
+            "FROM single_stock_data a " +
+            "INNER JOIN (SELECT code, MAX(create_time) AS max_time FROM single_stock_data GROUP BY code) b " +
+            "ON a.code = b.code AND a.create_time = b.max_time";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(createTableSQL);
+            int rows = stmt.executeUpdate(backfillSQL);
+            System.out.println("成功创建latest_stock_quote表，回填 " + rows + " 条");
         }
     }
     
+    /**
+     * 创建分钟线和日线汇总表，由 StorageMaintenance 从原始数据汇总
+     * <p>
+     * 价格为开高低收，资金字段为这一分钟（一天）最后一轮的累计值，inflow_diff 为合计，sample_count 为原始行数。
+     * 分钟线按天分区，先只有 p_future 一个分区，日分区由 StorageMaintenance 预建。
+     */
+    public static void createRollupTables(Connection conn) throws SQLException {
+        String columns =
+            "name VARCHAR(50) COMMENT '股票名称'," +
+            "open_price DECIMAL(10,2) COMMENT '开盘价'," +
+            "high_price DECIMAL(10,2) COMMENT '最高价'," +
+            "low_price DECIMAL(10,2) COMMENT '最低价'," +
+            "close_price DECIMAL(10,2) COMMENT '收盘价'," +
+            "change_percent DECIMAL(10,4) COMMENT '涨跌幅'," +
+            "zhuli_net_inflow DECIMAL(20,2) COMMENT '主力净流入'," +
+            "zhuli_net_inflow_percent DECIMAL(10,4) COMMENT '主力净流入百分比'," +
+            "total_net_inflow DECIMAL(20,2) COMMENT '总净流入'," +
+            "chaodadan_net_inflow DECIMAL(20,2) COMMENT '超大单净流入'," +
+            "bigdan_net_inflow DECIMAL(20,2) COMMENT '大单净流入'," +
+            "zhongdan_net_inflow DECIMAL(20,2) COMMENT '中单净流入'," +
+            "xiaodan_net_inflow DECIMAL(20,2) COMMENT '小单净流入'," +
+            "total_volume DECIMAL(20,2) COMMENT '总成交量'," +
+            "inflow_diff DECIMAL(20,2) COMMENT '总净流入变化合计'," +
+            "sample_count INT COMMENT '原始数据行数',";
+        String minuteSQL = "CREATE TABLE IF NOT EXISTS stock_minute_bar (" +
+            "code VARCHAR(10) NOT NULL COMMENT '股票代码'," +
+            "bar_time DATETIME NOT NULL COMMENT '分钟开始时间'," +
+            columns +
+            "PRIMARY KEY (code, bar_time)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='分钟线' " +
+            "PARTITION BY RANGE (TO_DAYS(bar_time)) (PARTITION p_future VALUES LESS THAN MAXVALUE)";
+        String dailySQL = "CREATE TABLE IF NOT EXISTS stock_daily_bar (" +
+            "code VARCHAR(10) NOT NULL COMMENT '股票代码'," +
+            "trade_date DATE NOT NULL COMMENT '交易日'," +
+            columns +
+            "PRIMARY KEY (code, trade_date)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日线'";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(minuteSQL);
+            stmt.execute(dailySQL);
+        }
+    }
+
+    /**
+     * 原始数据表按 create_time 按天分区，分区列必须在主键里，主键为 (id, create_time)
+     */
     private static void createTable(Connection conn) throws SQLException {
         String createTableSQL = "CREATE TABLE IF NOT EXISTS single_stock_data (" +
-            "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            "id BIGINT AUTO_INCREMENT," +
             "code VARCHAR(10) NOT NULL," +
             "name VARCHAR(50)," +
             "current_price DECIMAL(10,2)," +
@@ -252,10 +406,13 @@ public class DBUtils {
             "xiaodan_net_inflow DECIMAL(20,2)," +
             "xiaodan_net_inflow_percent DECIMAL(10,2)," +
             "total_volume DECIMAL(20,2)," +
-            "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "INDEX idx_code (code)," +
-            "INDEX idx_create_time (create_time)" +
-            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+            "inflow_diff DECIMAL(20,2)," +
+            "create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+            "PRIMARY KEY (id, create_time)," +
+            "INDEX idx_create_time (create_time)," +
+            "INDEX idx_code_create_time (code, create_time)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 " +
+            "PARTITION BY RANGE (UNIX_TIMESTAMP(create_time)) (PARTITION p_future VALUES LESS THAN MAXVALUE)";
         
         try (Statement stmt = conn.createStatement()) {
             stmt.execute(createTableSQL);
@@ -0,0 +1,24 @@
+package com.stock.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 当日向上突破五日均线、且当前仍在五日线之上的股票
+ */
+@Data
+@AllArgsConstructor
+public class Ma5Breakout {
+    private String code;                // 股票代码
+    private String name;                // 股票名称
+    private double currentPrice;        // 当前价格
+    private double changePercent;       // 涨跌幅
+    private double ma5;                 // 五日均线
+    private double ma10;                // 十日均线
+    private double ma20;                // 二十日均线
+    private double totalNetInflow;      // 总净流入
+    private double zhuliNetInflow;      // 主力净流入
+    private double chaodadanNetInflow;  // 超大单净流入
+    private double otherInflow;         // 大单、中单、小单净流入之和
+    private long crossTime;             // 最近一次上穿五日线的时间（毫秒）
+}
@@ -0,0 +1,16 @@
+package com.stock.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 已入库的一轮采样，同一轮的所有行 create_time 相同
+ */
+@Data
+@AllArgsConstructor
+public class RecordedTick {
+    private long createTime;            // 入库时间（毫秒）
+    private List<SingleStock> stocks;   // 本轮数据
+}
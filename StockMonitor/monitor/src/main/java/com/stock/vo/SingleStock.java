@@ -6,6 +6,7 @@ import lombok.Data;
 public class SingleStock {
     private String code;                      // 股票代码
     private String name;                      // 股票名称
+    private int market = -1;                  // 市场（f13）：0 深市，1 沪市，-1 未知
     private double currentPrice;              // 当前价格
     private double zhuliNetInflow;            // 今日主力净流入
     private double zhuliNetInflowPercent;     // 今日主力净流入百分比
@@ -22,6 +23,7 @@ public class SingleStock {
     private double change;                    // 涨跌额
     private double changePercent;             // 涨跌幅
     private double totalVolume;               // 总成交量
+    private double inflowDiff;                // 较上一轮总净流入差值
 //    private double openPrice;               // 开盘价
 //    private double highPrice;               // 最高价
 //    private double lowPrice;                // 最低价
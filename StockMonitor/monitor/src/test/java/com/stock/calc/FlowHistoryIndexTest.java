@@ -0,0 +1,183 @@
+package com.stock.calc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 前缀和查询必须与直接累加的结果一致，跨日时自动记入前一天
+ */
+public class FlowHistoryIndexTest {
+
+    private static final int SYMBOLS = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mapsTradingTimeToSlots() {
+        assertEquals(0, FlowHistoryIndex.slotOf(LocalTime.of(9, 15)));
+        assertEquals(0, FlowHistoryIndex.slotOf(LocalTime.of(9, 39)));
+        assertEquals(1, FlowHistoryIndex.slotOf(LocalTime.of(9, 40)));
+        assertEquals(11, FlowHistoryIndex.slotOf(LocalTime.of(11, 30)));
+        assertEquals(11, FlowHistoryIndex.slotOf(LocalTime.of(12, 0)));
+        assertEquals(12, FlowHistoryIndex.slotOf(LocalTime.of(13, 0)));
+        assertEquals(23, FlowHistoryIndex.slotOf(LocalTime.of(14, 55)));
+        assertEquals(23, FlowHistoryIndex.slotOf(LocalTime.of(15, 0)));
+    }
+
+    @Test
+    public void dayAndSlotQueriesMatchDirectSums() {
+        Random random = new Random(11);
+        FlowHistoryIndex index = new FlowHistoryIndex();
+        LocalDate day = LocalDate.of(2024, 5, 6);
+        index.rollover(day);
+        // 每只股票每天最后的累计流入、流出
+        List<double[][]> closes = new ArrayList<>();
+        for (int d = 0; d < 30; d++) {
+            double[][] close = new double[SYMBOLS][2];
+            double[][] slotValues = new double[SYMBOLS * FlowHistoryIndex.SLOTS_PER_DAY][2];
+            // 当天第一次出现之前的时段按第一轮采样的累计值计
+            double[][] firstSeen = new double[SYMBOLS][];
+            int[] firstSlot = new int[SYMBOLS];
+            for (int slot = 0; slot < FlowHistoryIndex.SLOTS_PER_DAY; slot++) {
+                for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                    // 第 7 只股票偶尔缺席整个时段（收盘时段总有数据）
+                    if (symbol == 7 && slot < FlowHistoryIndex.SLOTS_PER_DAY - 1 && random.nextInt(3) == 0) {
+                        slotValues[symbol * FlowHistoryIndex.SLOTS_PER_DAY + slot] = close[symbol].clone();
+                        continue;
+                    }
+                    // 一个时段内多轮采样，只保留最后一轮
+                    for (int sample = 0; sample < 3; sample++) {
+                        close[symbol][0] += random.nextDouble() * 1e4;
+                        close[symbol][1] += random.nextDouble() * 1e4;
+                        index.record(symbol, slot, close[symbol][0], close[symbol][1]);
+                        if (firstSeen[symbol] == null) {
+                            firstSeen[symbol] = close[symbol].clone();
+                            firstSlot[symbol] = slot;
+                        }
+                    }
+                    slotValues[symbol * FlowHistoryIndex.SLOTS_PER_DAY + slot] = close[symbol].clone();
+                }
+            }
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                for (int slot = 0; slot < firstSlot[symbol]; slot++) {
+                    slotValues[symbol * FlowHistoryIndex.SLOTS_PER_DAY + slot] = firstSeen[symbol].clone();
+                }
+            }
+            assertSlots(index, slotValues, close);
+            closes.add(close);
+
+            day = day.plusDays(1);
+            index.rollover(day);
+            // 休市日没有数据，不算一个交易日
+            index.rollover(day.plusDays(1));
+            day = day.plusDays(1);
+
+            int completed = closes.size();
+            assertEquals(Math.min(completed, FlowHistoryIndex.MAX_DAYS), index.getDays());
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                for (int n : new int[]{1, 5, 20, 25}) {
+                    double inflow = 0;
+                    double outflow = 0;
+                    for (int back = 1; back <= Math.min(n, Math.min(completed, FlowHistoryIndex.MAX_DAYS)); back++) {
+                        inflow += closes.get(completed - back)[symbol][0];
+                        outflow += closes.get(completed - back)[symbol][1];
+                    }
+                    assertEquals(inflow, index.dayInflow(symbol, n), 1e-3);
+                    assertEquals(outflow, index.dayOutflow(symbol, n), 1e-3);
+                }
+                assertEquals(0, index.todayInflow(symbol), 0);
+            }
+        }
+        // 从未出现过的股票
+        assertEquals(0, index.dayInflow(5000, 5), 0);
+    }
+
+    @Test
+    public void weekendDoesNotRepeatFridaySession() {
+        FlowHistoryIndex index = new FlowHistoryIndex();
+        LocalDate friday = LocalDate.of(2024, 5, 10);
+        index.rollover(friday);
+        index.record(0, 23, 100, 40);
+        index.record(1, 23, 50, 20);
+        // 周六、周日行情接口仍返回周五的累计值
+        index.rollover(friday.plusDays(1));
+        index.record(0, 5, 100, 40);
+        index.record(1, 5, 50, 20);
+        index.rollover(friday.plusDays(2));
+        index.record(0, 5, 100, 40);
+        index.record(1, 5, 50, 20);
+        index.rollover(friday.plusDays(3));
+
+        assertEquals(1, index.getDays());
+        assertEquals(100, index.dayInflow(0, 5), 0);
+        assertEquals(20, index.dayOutflow(1, 5), 0);
+        assertEquals(0, index.todayInflow(0), 0);
+
+        // 周一只有一只股票的累计值变化，仍是一个交易日
+        index.record(0, 23, 100, 40);
+        index.record(1, 23, 60, 20);
+        index.rollover(friday.plusDays(4));
+        assertEquals(2, index.getDays());
+        assertEquals(200, index.dayInflow(0, 5), 0);
+        assertEquals(110, index.dayInflow(1, 5), 0);
+    }
+
+    @Test
+    public void stateRoundTrips() throws IOException {
+        FlowHistoryIndex index = new FlowHistoryIndex();
+        index.rollover(LocalDate.of(2024, 5, 6));
+        index.record(3, 2, 100, 40);
+        index.rollover(LocalDate.of(2024, 5, 7));
+        index.record(3, 0, 10, 5);
+        index.record(3, 4, 30, 9);
+
+        Path file = folder.getRoot().toPath().resolve("flow.bin");
+        try (StateWriter out = new StateWriter(file)) {
+            index.writeState(out, 4);
+            out.finish();
+        }
+        FlowHistoryIndex restored = new FlowHistoryIndex();
+        restored.readState(new StateReader(file));
+
+        assertEquals(LocalDate.of(2024, 5, 7), restored.getTradeDate());
+        assertEquals(1, restored.getDays());
+        assertEquals(100, restored.dayInflow(3, 5), 0);
+        assertEquals(40, restored.dayOutflow(3, 5), 0);
+        assertEquals(30, restored.todayInflow(3), 0);
+        assertEquals(20, restored.slotInflow(3, 2), 0);
+        assertEquals(30, restored.slotInflow(3, 5), 0);
+
+        // 恢复后仍能识别与上一个交易日相同的休市日
+        restored.record(3, 23, 100, 40);
+        restored.rollover(LocalDate.of(2024, 5, 8));
+        assertEquals(1, restored.getDays());
+    }
+
+    private static void assertSlots(FlowHistoryIndex index, double[][] slotValues, double[][] close) {
+        int last = FlowHistoryIndex.SLOTS_PER_DAY - 1;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            assertEquals(close[symbol][0], index.todayInflow(symbol), 0);
+            assertEquals(close[symbol][1], index.todayOutflow(symbol), 0);
+            for (int n = 1; n <= FlowHistoryIndex.SLOTS_PER_DAY + 2; n++) {
+                int before = last - n;
+                double[] start = before < 0 ? new double[2] : slotValues[symbol * FlowHistoryIndex.SLOTS_PER_DAY + before];
+                assertEquals(close[symbol][0] - start[0], index.slotInflow(symbol, n), 1e-6);
+                assertEquals(close[symbol][1] - start[1], index.slotOutflow(symbol, n), 1e-6);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.stock.calc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * 增量指标与批量算法的对比
+ * MACD 的批量算法按原 StockMonitorMain2 的写法保留在测试中作为参照，价格历史同样只保留最近100个点；
+ * RSI、KDJ 与每次从头扫描的写法对比
+ */
+public class IndicatorEngineTest {
+
+    private static final int HISTORY_SIZE = 100;
+    private static final int TICKS = 1000;
+
+    @Test
+    public void macdMatchesBatchFormula() {
+        Random random = new Random(20241126L);
+        IndicatorEngine engine = new IndicatorEngine();
+        List<Double> prices = new ArrayList<>();
+        double price = 10.0;
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            price = Math.max(0.01, Math.round((price + random.nextGaussian() * 0.05) * 100) / 100.0);
+            prices.add(price);
+            if (prices.size() > HISTORY_SIZE) {
+                prices.remove(0);
+            }
+            engine.update(0, price);
+
+            double expected = batchMACD(prices);
+            if (tick < HISTORY_SIZE) {
+                // 历史未满时两者的初值完全相同
+                assertEquals("tick " + tick, expected, engine.macd(0), 1e-12);
+            } else {
+                // 历史满后批量算法以窗口内最旧价格为初值，与递推值只差 (25/27)^99 量级
+                assertEquals("tick " + tick, expected, engine.macd(0), 5e-4);
+            }
+        }
+    }
+
+    @Test
+    public void rsiMatchesWilderSmoothing() {
+        Random random = new Random(7L);
+        IndicatorEngine engine = new IndicatorEngine();
+        List<Double> prices = new ArrayList<>();
+        double price = 10.0;
+
+        for (int tick = 0; tick < 300; tick++) {
+            price = Math.max(0.01, Math.round((price + random.nextGaussian() * 0.05) * 100) / 100.0);
+            prices.add(price);
+            engine.update(0, price);
+            assertEquals("tick " + tick, batchWilderRSI(prices), engine.rsi(0), 1e-9);
+        }
+    }
+
+    @Test
+    public void kdjMatchesWindowScan() {
+        Random random = new Random(11L);
+        IndicatorEngine engine = new IndicatorEngine();
+        List<Double> prices = new ArrayList<>();
+        double price = 10.0;
+        double k = 50;
+        double d = 50;
+
+        for (int tick = 0; tick < 300; tick++) {
+            // 偶尔保持价格不变，覆盖最高价等于最低价的情况
+            if (tick > 50 && tick < 65) {
+                price = 10.0;
+            } else {
+                price = Math.max(0.01, Math.round((price + random.nextGaussian() * 0.05) * 100) / 100.0);
+            }
+            prices.add(price);
+            engine.update(0, price);
+
+            double expected = 50;
+            if (prices.size() >= 9) {
+                List<Double> last9 = prices.subList(prices.size() - 9, prices.size());
+                double high = Collections.max(last9);
+                double low = Collections.min(last9);
+                double rsv = high > low ? (price - low) / (high - low) * 100 : 50;
+                k = 2.0 / 3.0 * k + 1.0 / 3.0 * rsv;
+                d = 2.0 / 3.0 * d + 1.0 / 3.0 * k;
+                expected = 3 * k - 2 * d;
+            }
+            assertEquals("tick " + tick, expected, engine.kdj(0), 1e-9);
+        }
+    }
+
+    @Test
+    public void symbolsAreIndependent() {
+        IndicatorEngine engine = new IndicatorEngine();
+        IndicatorEngine single = new IndicatorEngine();
+        for (int tick = 0; tick < 60; tick++) {
+            engine.update(0, 10 + tick * 0.1);
+            engine.update(5000, 20 - tick * 0.1);
+            single.update(0, 20 - tick * 0.1);
+        }
+        assertEquals(single.macd(0), engine.macd(5000), 0);
+        assertEquals(single.rsi(0), engine.rsi(5000), 0);
+        assertEquals(single.kdj(0), engine.kdj(5000), 0);
+        assertEquals(0, engine.macd(1), 0);
+    }
+
+    private static double batchMACD(List<Double> prices) {
+        if (prices.size() < 26) {
+            return 0;
+        }
+        double dif = batchEMA(prices, 12) - batchEMA(prices, 26);
+        List<Double> difHistory = new ArrayList<>();
+        for (int i = prices.size() - 9; i < prices.size(); i++) {
+            difHistory.add(batchEMA(prices.subList(0, i + 1), 12) - batchEMA(prices.subList(0, i + 1), 26));
+        }
+        double dea = batchEMA(difHistory, 9);
+        return (dif - dea) * 2;
+    }
+
+    private static double batchWilderRSI(List<Double> prices) {
+        if (prices.size() < 15) {
+            return 50;
+        }
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= 14; i++) {
+            double change = prices.get(i) - prices.get(i - 1);
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= 14;
+        loss /= 14;
+        for (int i = 15; i < prices.size(); i++) {
+            double change = prices.get(i) - prices.get(i - 1);
+            gain = (gain * 13 + Math.max(change, 0)) / 14;
+            loss = (loss * 13 + Math.max(-change, 0)) / 14;
+        }
+        if (loss == 0) {
+            return gain > 0 ? 100 : 50;
+        }
+        return 100.0 - (100.0 / (1.0 + gain / loss));
+    }
+
+    private static double batchEMA(List<Double> prices, int period) {
+        double multiplier = 2.0 / (period + 1);
+        double ema = prices.get(0);
+        for (int i = 1; i < prices.size(); i++) {
+            ema = (prices.get(i) - ema) * multiplier + ema;
+        }
+        return ema;
+    }
+}
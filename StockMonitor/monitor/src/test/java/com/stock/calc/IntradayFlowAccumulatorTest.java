@@ -0,0 +1,164 @@
+package com.stock.calc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import com.stock.persist.H2Schema;
+import com.stock.store.StateReader;
+import com.stock.store.StateWriter;
+import com.stock.store.SymbolIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 增量累加的结果必须与原来按股票 SUM(CASE ...) 查询的结果一致
+ */
+public class IntradayFlowAccumulatorTest {
+
+    private static final String URL = H2Schema.url("intraday_flow");
+    private static final int STOCKS = 20;
+
+    // 原来每轮按股票查询的口径
+    private static final String SUM_SQL = "SELECT " +
+            "SUM(CASE WHEN total_net_inflow > 0 THEN total_net_inflow ELSE 0 END), " +
+            "SUM(CASE WHEN total_net_inflow < 0 THEN ABS(total_net_inflow) ELSE 0 END) " +
+            "FROM single_stock_data WHERE code = ? AND create_time >= CURDATE()";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection keepAlive;
+
+    @Before
+    public void setUp() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL);
+        H2Schema.create(keepAlive);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    public void accumulatesLikeSumQueryAndSeedsFromDatabase() throws SQLException {
+        Random random = new Random(5);
+        SymbolIndex symbols = new SymbolIndex();
+        IntradayFlowAccumulator accumulator = new IntradayFlowAccumulator();
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < STOCKS; i++) {
+                // 两位小数，与 DECIMAL(20,2) 列一致；约三分之一为负
+                double value = Math.round((random.nextDouble() - 0.35) * 1e8) / 100.0;
+                if (i == 3) {
+                    value = 0;
+                }
+                insert(code(i), value, today.plusSeconds(round * 10L));
+                accumulator.add(symbols.idOf(code(i)), value);
+            }
+        }
+        // 前一天的数据不计入
+        for (int i = 0; i < STOCKS; i++) {
+            insert(code(i), 1e6, today.minusHours(1));
+        }
+
+        IntradayFlowAccumulator seeded = new IntradayFlowAccumulator();
+        SymbolIndex seededSymbols = new SymbolIndex();
+        seeded.seed(seededSymbols, () -> DriverManager.getConnection(URL));
+        assertEquals(LocalDate.now(), seeded.getTradeDate());
+        for (int i = 0; i < STOCKS; i++) {
+            double[] expected = sum(code(i));
+            int symbol = symbols.find(code(i));
+            assertEquals(expected[0], accumulator.getInflow(symbol), 1e-4);
+            assertEquals(expected[1], accumulator.getOutflow(symbol), 1e-4);
+            int seededSymbol = seededSymbols.find(code(i));
+            assertEquals(expected[0], seeded.getInflow(seededSymbol), 1e-4);
+            assertEquals(expected[1], seeded.getOutflow(seededSymbol), 1e-4);
+        }
+        assertEquals(0, accumulator.getInflow(symbols.find(code(3))), 0);
+        assertEquals(0, accumulator.getOutflow(symbols.find(code(3))), 0);
+    }
+
+    @Test
+    public void resetsOnDayChangeOnly() {
+        IntradayFlowAccumulator accumulator = new IntradayFlowAccumulator();
+        LocalDate day = LocalDate.of(2024, 5, 6);
+        accumulator.rollover(day);
+        accumulator.add(0, 100);
+        accumulator.add(0, -30);
+        accumulator.add(2000, 5);
+
+        accumulator.rollover(day);
+        assertEquals(100, accumulator.getInflow(0), 0);
+        assertEquals(30, accumulator.getOutflow(0), 0);
+        assertEquals(5, accumulator.getInflow(2000), 0);
+
+        accumulator.rollover(day.plusDays(1));
+        assertEquals(day.plusDays(1), accumulator.getTradeDate());
+        assertEquals(0, accumulator.getInflow(0), 0);
+        assertEquals(0, accumulator.getOutflow(0), 0);
+        assertEquals(0, accumulator.getInflow(2000), 0);
+        // 从未出现过的股票
+        assertEquals(0, accumulator.getInflow(100_000), 0);
+    }
+
+    @Test
+    public void stateRoundTrips() throws IOException {
+        IntradayFlowAccumulator accumulator = new IntradayFlowAccumulator();
+        accumulator.rollover(LocalDate.of(2024, 5, 6));
+        accumulator.add(1, 12.5);
+        accumulator.add(2, -7.25);
+
+        Path file = folder.getRoot().toPath().resolve("flow.bin");
+        try (StateWriter out = new StateWriter(file)) {
+            accumulator.writeState(out, 3);
+            out.finish();
+        }
+        IntradayFlowAccumulator restored = new IntradayFlowAccumulator();
+        restored.add(0, 99);
+        restored.readState(new StateReader(file));
+
+        assertEquals(LocalDate.of(2024, 5, 6), restored.getTradeDate());
+        assertEquals(0, restored.getInflow(0), 0);
+        assertEquals(12.5, restored.getInflow(1), 0);
+        assertEquals(7.25, restored.getOutflow(2), 0);
+    }
+
+    private double[] sum(String code) throws SQLException {
+        try (PreparedStatement ps = keepAlive.prepareStatement(SUM_SQL)) {
+            ps.setString(1, code);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new double[]{rs.getDouble(1), rs.getDouble(2)};
+            }
+        }
+    }
+
+    private void insert(String code, double totalNetInflow, LocalDateTime time) throws SQLException {
+        try (PreparedStatement ps = keepAlive.prepareStatement(
+                "INSERT INTO single_stock_data (code, total_net_inflow, create_time) VALUES (?, ?, ?)")) {
+            ps.setString(1, code);
+            ps.setDouble(2, totalNetInflow);
+            ps.setTimestamp(3, Timestamp.valueOf(time));
+            ps.executeUpdate();
+        }
+    }
+
+    private static String code(int i) {
+        return String.format("%06d", i);
+    }
+}
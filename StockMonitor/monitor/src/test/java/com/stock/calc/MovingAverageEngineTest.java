@@ -0,0 +1,117 @@
+package com.stock.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import com.stock.vo.Ma5Breakout;
+import com.stock.vo.SingleStock;
+import org.junit.Test;
+
+public class MovingAverageEngineTest {
+
+    @Test
+    public void averagesIncludeCurrentPrice() {
+        MovingAverageEngine engine = new MovingAverageEngine();
+        for (int day = 1; day <= 19; day++) {
+            engine.addDailyClose(0, day);
+        }
+        engine.update(0, 20, 1);
+        assertEquals(18, engine.ma(MovingAverageEngine.MA5, 0), 1e-9);
+        assertEquals(15.5, engine.ma(MovingAverageEngine.MA10, 0), 1e-9);
+        assertEquals(10.5, engine.ma(MovingAverageEngine.MA20, 0), 1e-9);
+
+        // 收盘价不足 19 个时没有二十日线
+        engine.addDailyClose(1, 10);
+        engine.update(1, 10, 1);
+        assertTrue(Double.isNaN(engine.ma(MovingAverageEngine.MA5, 1)));
+        assertTrue(Double.isNaN(engine.ma(MovingAverageEngine.MA20, 1)));
+    }
+
+    @Test
+    public void detectsCrossAboveMa5() {
+        MovingAverageEngine engine = new MovingAverageEngine();
+        for (int day = 0; day < 5; day++) {
+            engine.addDailyClose(0, 10);
+        }
+        assertFalse(engine.update(0, 9.9, 1000));
+        assertNull(engine.breakout(0, stock(9.9), 0));
+
+        assertTrue(engine.update(0, 10.5, 2000));
+        Ma5Breakout breakout = engine.breakout(0, stock(10.5), 123);
+        assertNotNull(breakout);
+        assertEquals(10.1, breakout.getMa5(), 1e-9);
+        assertEquals(2000, breakout.getCrossTime());
+        assertEquals(123, breakout.getTotalNetInflow(), 0);
+
+        // 回到五日线下方后不再算突破，再次上穿时更新时间
+        assertFalse(engine.update(0, 9, 3000));
+        assertNull(engine.breakout(0, stock(9), 0));
+        assertTrue(engine.update(0, 11, 4000));
+        assertEquals(4000, engine.crossTime(0));
+        assertFalse(engine.update(0, 11.2, 5000));
+        assertEquals(4000, engine.crossTime(0));
+    }
+
+    @Test
+    public void rolloverTurnsLastPriceIntoClose() {
+        MovingAverageEngine engine = new MovingAverageEngine();
+        for (int day = 0; day < 5; day++) {
+            engine.addDailyClose(0, 10);
+            engine.addDailyClose(1, 10);
+        }
+        engine.update(0, 11, 1000);
+        engine.update(1, 9, 1000);
+        engine.rollover(LocalDate.now().plusDays(1));
+
+        // 前一天收在五日线上方，次日继续上涨不算新的突破
+        assertEquals(0, engine.crossTime(0));
+        assertFalse(engine.update(0, 12, 2000));
+        assertNull(engine.breakout(0, stock(12), 0));
+        // 前一天收在五日线下方，次日高开到五日线上方算作突破
+        assertTrue(engine.update(1, 11, 2000));
+        assertEquals((10 * 3 + 9 + 11) / 5.0, engine.ma(MovingAverageEngine.MA5, 1), 1e-9);
+    }
+
+    @Test
+    public void weekendDoesNotRepeatFridayClose() {
+        MovingAverageEngine engine = new MovingAverageEngine();
+        LocalDate friday = LocalDate.of(2024, 5, 10);
+        engine.rollover(friday);
+        for (int day = 1; day <= 4; day++) {
+            engine.addDailyClose(0, day);
+            engine.addDailyClose(1, 10);
+        }
+        engine.update(0, 5, 1000);
+        engine.update(1, 10, 1000);
+        // 周六、周日行情接口仍返回周五收盘的数据
+        engine.rollover(friday.plusDays(1));
+        engine.update(0, 5, 2000);
+        engine.update(1, 10, 2000);
+        engine.rollover(friday.plusDays(2));
+        engine.update(0, 5, 3000);
+        engine.update(1, 10, 3000);
+        engine.rollover(friday.plusDays(3));
+
+        // 周五的收盘价只记入一次
+        engine.update(0, 6, 4000);
+        assertEquals((2 + 3 + 4 + 5 + 6) / 5.0, engine.ma(MovingAverageEngine.MA5, 0), 1e-9);
+        // 周一只有第一只股票的价格变化，第二只与收盘价相同，仍是一个交易日
+        engine.update(1, 10, 4000);
+        engine.rollover(friday.plusDays(4));
+        engine.update(0, 6, 5000);
+        assertEquals((3 + 4 + 5 + 6 + 6) / 5.0, engine.ma(MovingAverageEngine.MA5, 0), 1e-9);
+    }
+
+    private static SingleStock stock(double price) {
+        SingleStock stock = new SingleStock();
+        stock.setCode("600519");
+        stock.setName("贵州茅台");
+        stock.setCurrentPrice(price);
+        return stock;
+    }
+}
@@ -0,0 +1,320 @@
+package com.stock.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import com.stock.rank.RankView;
+import com.stock.score.ScoreModel;
+import com.stock.score.ScoreTable;
+import com.stock.score.ScoreWeights;
+import com.stock.score.ScoringConfig;
+import com.stock.score.UpTrendScorer;
+import com.stock.vo.SingleStock;
+import com.stock.vo.StockSpeed;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 并行分片计算与单线程计算的结果必须完全一致
+ */
+public class TickEngineTest {
+
+    private static final int STOCKS = 500;
+    private static final int TICKS = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parallelMatchesSequential() {
+        TickEngine sequential = new TickEngine(10, 1);
+        TickEngine parallel = new TickEngine(10, 4);
+        for (RankView view : RankView.values()) {
+            sequential.subscribe(view, 20);
+            parallel.subscribe(view, 20);
+        }
+        try {
+            for (int tick = 0; tick < TICKS; tick++) {
+                TickResult expected = sequential.process(generateTick(tick));
+                TickResult actual = parallel.process(generateTick(tick));
+
+                assertEquals("tick " + tick, expected.getPersistRows().size(), actual.getPersistRows().size());
+                assertEquals("tick " + tick, expected.getSpeeds().size(), actual.getSpeeds().size());
+                Map<String, StockSpeed> actualByCode = new HashMap<>();
+                for (StockSpeed speed : actual.getSpeeds()) {
+                    actualByCode.put(speed.getCode(), speed);
+                }
+                for (StockSpeed speed : expected.getSpeeds()) {
+                    StockSpeed other = actualByCode.get(speed.getCode());
+                    assertEquals(speed.getInSpeed(), other.getInSpeed(), 0);
+                    assertEquals(speed.getRankUpTrendScore(), other.getRankUpTrendScore(), 0);
+                    assertEquals(speed.getRankDownTrendScore(), other.getRankDownTrendScore(), 0);
+                    assertEquals(speed.getMomentumScore(), other.getMomentumScore(), 0);
+                    assertEquals(speed.getMacd(), other.getMacd(), 0);
+                    assertEquals(speed.getRsi(), other.getRsi(), 0);
+                    assertEquals(speed.getKdj(), other.getKdj(), 0);
+                }
+                // 排名与对全部结果排序后取前 20 名一致
+                for (RankView view : RankView.values()) {
+                    List<StockSpeed> sorted = new ArrayList<>(actual.getSpeeds());
+                    sorted.sort((a, b) -> Double.compare(view.key(b), view.key(a)));
+                    List<StockSpeed> ranked = actual.getRanking().top(view);
+                    List<StockSpeed> sequentialRanked = expected.getRanking().top(view);
+                    assertEquals(Math.min(20, sorted.size()), ranked.size());
+                    assertEquals(ranked.size(), sequentialRanked.size());
+                    for (int i = 0; i < ranked.size(); i++) {
+                        assertSame(sorted.get(i), ranked.get(i));
+                        assertEquals(view.key(sequentialRanked.get(i)), view.key(ranked.get(i)), 0);
+                    }
+                }
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void speedNeedsConsecutiveTicks() {
+        TickEngine engine = new TickEngine(10, 2);
+        try {
+            // 第一轮没有上一轮数据
+            assertEquals(0, engine.process(generateTick(0)).getPersistRows().size());
+            assertEquals(STOCKS, engine.process(generateTick(1)).getPersistRows().size());
+
+            // 中间缺席一轮的股票重新开始计算
+            List<SingleStock> partial = generateTick(2).subList(0, STOCKS / 2);
+            assertEquals(STOCKS / 2, engine.process(new ArrayList<>(partial)).getPersistRows().size());
+            assertEquals(STOCKS / 2, engine.process(generateTick(3)).getPersistRows().size());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void persistRowsCarryInflowDiff() {
+        TickEngine engine = new TickEngine(10, 2);
+        try {
+            engine.process(generateTick(0));
+            List<SingleStock> previous = engine.process(generateTick(1)).getPersistRows();
+            List<SingleStock> current = engine.process(generateTick(2)).getPersistRows();
+            assertEquals(STOCKS, current.size());
+            for (int i = 0; i < STOCKS; i++) {
+                SingleStock stock = current.get(i);
+                assertEquals(stock.getCode(), previous.get(i).getCode());
+                assertEquals(stock.getTotalNetInflow() - previous.get(i).getTotalNetInflow(), stock.getInflowDiff(), 1e-6);
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void publishesConsecutiveSnapshots() {
+        TickEngine engine = new TickEngine(10, 2);
+        try {
+            List<SingleStock> first = generateTick(0);
+            engine.process(first);
+            TickResult result = engine.process(new ArrayList<>(generateTick(1).subList(0, 10)));
+
+            SnapshotBuffer.Frame frame = engine.snapshots();
+            MarketSnapshot previous = frame.getPrevious();
+            MarketSnapshot current = frame.getCurrent();
+            assertSame(result.getSnapshot(), current);
+            assertEquals(previous.getSequence() + 1, current.getSequence());
+            assertEquals(STOCKS, previous.getPresentCount());
+            assertEquals(10, current.getPresentCount());
+            assertTrue(current.isPresent(9));
+            assertFalse(current.isPresent(10));
+
+            SingleStock stock = first.get(3);
+            assertEquals(stock.getCode(), previous.code(3));
+            assertEquals(stock.getZhuliNetInflow(), previous.flow(MarketSnapshot.ZHULI, 3), 0);
+            assertEquals(Math.max(stock.getZhuliNetInflow(), 0) + Math.max(stock.getChaodadanNetInflow(), 0)
+                            + Math.max(stock.getBigdanNetInflow(), 0) + Math.max(stock.getZhongdanNetInflow(), 0)
+                            + Math.max(stock.getXiaodanNetInflow(), 0),
+                    previous.inflow(3), 0);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void runsScoringModelsSideBySide() {
+        Properties properties = new Properties();
+        properties.setProperty("flowOnly.upTrend.change.max", "0");
+        properties.setProperty("flowOnly.upTrend.zhuli.max", "0");
+        TickEngine engine = new TickEngine(10, 4);
+        engine.setScoring(ScoringConfig.of(
+                ScoreModel.builtin(new ScoreWeights(ScoringConfig.DEFAULT_MODEL, properties)),
+                ScoreModel.builtin(new ScoreWeights("flowOnly", properties))));
+        try {
+            engine.process(generateTick(0));
+            TickResult result = engine.process(generateTick(1));
+            ScoreTable scores = result.getScores();
+            assertEquals(2, scores.getModelCount());
+
+            Map<String, Integer> symbols = new HashMap<>();
+            MarketSnapshot snapshot = result.getSnapshot();
+            for (int symbol = 0; symbol < snapshot.getSymbolCount(); symbol++) {
+                symbols.put(snapshot.code(symbol), symbol);
+            }
+            int differing = 0;
+            for (StockSpeed speed : result.getSpeeds()) {
+                int symbol = symbols.get(speed.getCode());
+                assertTrue(scores.isScored(symbol));
+                assertEquals(speed.getRankUpTrendScore(),
+                        scores.score(ScoringConfig.DEFAULT_MODEL, UpTrendScorer.NAME, symbol), 0);
+                double flowOnly = scores.score("flowOnly", UpTrendScorer.NAME, symbol);
+                assertTrue(flowOnly <= speed.getRankUpTrendScore());
+                if (flowOnly < speed.getRankUpTrendScore()) {
+                    differing++;
+                }
+            }
+            assertTrue(differing > 0);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void restoredEngineContinuesLikeOriginal() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("engine.ckpt");
+        TickEngine original = new TickEngine(10, 2);
+        TickEngine restored = new TickEngine(10, 1);
+        try {
+            // 跨一个交易日，前一天的资金记入按日汇总，参与上涨趋势评分
+            original.rollover(LocalDate.of(2024, 5, 6));
+            for (int tick = 0; tick < 30; tick++) {
+                if (tick == 15) {
+                    original.rollover(LocalDate.of(2024, 5, 7));
+                }
+                original.process(generateTick(tick));
+            }
+            assertEquals(1, original.flowHistory().getDays());
+            long savedAt = original.checkpoint(file);
+
+            assertEquals(savedAt, restored.restore(file));
+            assertEquals(original.snapshots().getCurrent().getSequence(), restored.snapshots().getCurrent().getSequence());
+            for (int tick = 30; tick < 35; tick++) {
+                TickResult expected = original.process(generateTick(tick));
+                TickResult actual = restored.process(generateTick(tick));
+                assertEquals(expected.getSpeeds().size(), actual.getSpeeds().size());
+                for (int i = 0; i < expected.getSpeeds().size(); i++) {
+                    StockSpeed speed = expected.getSpeeds().get(i);
+                    StockSpeed other = actual.getSpeeds().get(i);
+                    assertEquals(speed.getCode(), other.getCode());
+                    assertEquals(speed.getRankUpTrendScore(), other.getRankUpTrendScore(), 0);
+                    assertEquals(speed.getMacd(), other.getMacd(), 0);
+                    assertEquals(speed.getRsi(), other.getRsi(), 0);
+                    assertEquals(speed.getKdj(), other.getKdj(), 0);
+                }
+            }
+        } finally {
+            original.shutdown();
+            restored.shutdown();
+        }
+    }
+
+    @Test
+    public void symbolIdsSurviveRestartThroughDictionary() throws IOException {
+        Path dictionary = folder.getRoot().toPath().resolve("symbols.dict");
+        TickEngine first = new TickEngine(10, 2);
+        TickEngine second = new TickEngine(10, 2);
+        try {
+            assertEquals(-1, first.loadSymbols(dictionary));
+            List<SingleStock> stocks = generateTick(0);
+            stocks.get(3).setMarket(1);
+            first.process(stocks);
+            assertTrue(first.saveSymbols(dictionary));
+            assertFalse(first.saveSymbols(dictionary));
+
+            // 重启后股票以相反的顺序出现，下标仍与第一次分配的一致
+            assertEquals(STOCKS, second.loadSymbols(dictionary));
+            List<SingleStock> reversed = generateTick(1);
+            Collections.reverse(reversed);
+            TickResult result = second.process(reversed);
+            for (int i = 0; i < STOCKS; i++) {
+                String code = String.format("%06d", i);
+                assertEquals(first.symbols().find(code), second.symbols().find(code));
+                assertEquals(code, result.getSnapshot().code(i));
+            }
+            assertEquals(1, second.symbols().marketOf(3));
+            assertEquals("股票3", second.symbols().nameOf(3));
+            assertFalse(second.saveSymbols(dictionary));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsDamagedCheckpoint() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("engine.ckpt");
+        TickEngine engine = new TickEngine(10, 1);
+        try {
+            assertEquals(-1, engine.restore(file));
+            engine.process(generateTick(0));
+            engine.checkpoint(file);
+
+            byte[] content = Files.readAllBytes(file);
+            content[content.length / 2] ^= 1;
+            Files.write(file, content);
+            try {
+                new TickEngine(10, 1).restore(file);
+                fail("校验和不一致时应拒绝恢复");
+            } catch (IOException expected) {
+                // 预期
+            }
+            try {
+                engine.checkpoint(file);
+                new TickEngine(5, 1).restore(file);
+                fail("采样间隔不同时应拒绝恢复");
+            } catch (IOException expected) {
+                // 预期
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 每只股票的资金按固定种子随机游走，同一轮次生成的数据相同
+     */
+    private static List<SingleStock> generateTick(int tick) {
+        List<SingleStock> stocks = new ArrayList<>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            Random random = new Random(i * 7919L + tick);
+            SingleStock stock = new SingleStock();
+            stock.setCode(String.format("%06d", i));
+            stock.setName("股票" + i);
+            stock.setCurrentPrice(10 + i % 50 + random.nextGaussian() * 0.1);
+            stock.setChangePercent(random.nextGaussian() * 3);
+            stock.setZhuliNetInflow((tick + 1) * random.nextGaussian() * 1e5);
+            stock.setZhuliNetInflowPercent(random.nextGaussian() * 5);
+            stock.setChaodadanNetInflow((tick + 1) * random.nextGaussian() * 5e4);
+            stock.setChaodadanNetInflowPercent(random.nextGaussian() * 5);
+            stock.setBigdanNetInflow((tick + 1) * random.nextGaussian() * 5e4);
+            stock.setZhongdanNetInflow((tick + 1) * random.nextGaussian() * 2e4);
+            stock.setXiaodanNetInflow((tick + 1) * random.nextGaussian() * 1e4);
+            stocks.add(stock);
+        }
+        return stocks;
+    }
+}
@@ -0,0 +1,211 @@
+package com.stock.fetch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 用本地 HttpServer 回放录制的分页响应
+ * 每页 2 行，共 5 行；第 2 页重复了第 1 页的最后一只股票
+ */
+public class QuoteClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private QuoteClient client;
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    // 页码 -> 该页还要返回几次 500
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+    // 页码 -> 该页还要延迟几次响应
+    private final Map<String, AtomicInteger> delays = new ConcurrentHashMap<>();
+    // 页码 -> 替换录制内容的响应
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/api/qt/clist/get", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/qt/clist/get?fid=f12&po=0&np=1&fltt=2";
+    }
+
+    @After
+    public void stopServer() {
+        if (client != null) {
+            client.shutdown();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void mergesPagesInOrderAndDropsDuplicates() throws IOException {
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 1000, 0);
+        QuoteBatch batch = client.fetch();
+
+        assertEquals(5, batch.getTotal());
+        assertEquals(5, batch.size());
+        String[] expected = {"000001", "600519", "300750", "000858", "688981"};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], batch.code(i));
+        }
+        assertEquals("贵州茅台", batch.name(1));
+        assertEquals(-123456789.12, batch.value(QuoteBatch.ZHULI, 1), 0);
+        assertTrue(batch.isMissing(QuoteBatch.CHANGE_PERCENT, 3));
+        assertEquals(0, client.getIncompleteFetches());
+
+        assertEquals(3, queries.size());
+        for (String query : queries) {
+            assertTrue(query, query.contains("pz=2"));
+            assertFalse(query, query.contains("cb="));
+        }
+        for (String encoding : acceptEncodings) {
+            assertTrue(encoding.contains("gzip"));
+        }
+    }
+
+    @Test
+    public void laterFetchesRequestAllPagesUpFront() throws IOException {
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 1000, 0);
+        client.fetch();
+        queries.clear();
+
+        assertEquals(5, client.fetch().size());
+        assertEquals(3, queries.size());
+    }
+
+    @Test
+    public void countsFetchesMissingRows() throws IOException {
+        // 翻页期间排序变化，第 3 页的股票移到了已经返回的页里
+        bodies.put("3", "{\"rc\":0,\"data\":{\"total\":5,\"diff\":[]}}");
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 1000, 0);
+
+        QuoteBatch batch = client.fetch();
+        assertEquals(5, batch.getTotal());
+        assertEquals(3, batch.size());
+        assertEquals(1, client.getIncompleteFetches());
+    }
+
+    @Test
+    public void retriesFailedPage() throws IOException {
+        failures.put("2", new AtomicInteger(2));
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 1000, 2);
+
+        assertEquals(5, client.fetch().size());
+        // 第 2 页失败两次后成功
+        assertEquals(5, queries.size());
+    }
+
+    @Test
+    public void retriesAfterReadTimeout() throws IOException {
+        delays.put("3", new AtomicInteger(1));
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 200, 1);
+
+        assertEquals(5, client.fetch().size());
+    }
+
+    @Test
+    public void failsWhenRetriesAreExhausted() {
+        failures.put("3", new AtomicInteger(Integer.MAX_VALUE));
+        client = new QuoteClient(baseUrl, 2, 3, 1000, 1000, 1);
+        try {
+            client.fetch();
+            fail("缺页时应当整轮失败");
+        } catch (IOException e) {
+            assertEquals("HTTP 500", e.getMessage());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        queries.add(query);
+        String page = parameter(query, "pn");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        acceptEncodings.add(acceptEncoding == null ? "" : acceptEncoding);
+
+        AtomicInteger failure = failures.get(page);
+        if (failure != null && failure.getAndDecrement() > 0) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        AtomicInteger delay = delays.get(page);
+        if (delay != null && delay.getAndDecrement() > 0) {
+            try {
+                Thread.sleep(600);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String replaced = bodies.get(page);
+        byte[] body = replaced != null ? replaced.getBytes("UTF-8") : readResource("/quotes/clist_page_" + page + ".json");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            // 客户端已超时断开
+        }
+    }
+
+    private static String parameter(String query, String name) {
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = QuoteClientTest.class.getResourceAsStream(name)) {
+            if (in == null) {
+                // 超出总数的分页返回空列表
+                return "{\"rc\":0,\"data\":{\"total\":5,\"diff\":[]}}".getBytes("UTF-8");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
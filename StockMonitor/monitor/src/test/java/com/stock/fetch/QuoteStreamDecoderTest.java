@@ -0,0 +1,160 @@
+package com.stock.fetch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.stock.vo.SingleStock;
+import org.junit.Test;
+
+/**
+ * 流式解析与 fastjson 解析结果对比
+ * fastjson 的读取方式按原 StockMonitorMain2 的写法保留在测试中作为参照
+ */
+public class QuoteStreamDecoderTest {
+
+    private static final String[] FIELDS = {"f2", "f3", "f62", "f184", "f66", "f69", "f72", "f75", "f78", "f81", "f84", "f87", "f13"};
+
+    @Test
+    public void recordedSampleMatchesFastjson() throws IOException {
+        byte[] payload = readResource("/quotes/clist_sample.jsonp");
+        QuoteBatch batch = new QuoteStreamDecoder().decode(payload, new QuoteBatch(2));
+
+        assertEquals(5, batch.size());
+        assertMatchesFastjson(payload, batch);
+        assertEquals("平安银行", batch.name(0));
+        assertEquals("*ST\"测试\"", batch.name(3));
+        assertEquals("空代码", batch.name(4));
+        // "-" 和 null 记为缺失
+        assertTrue(batch.isMissing(QuoteBatch.PRICE, 1));
+        assertTrue(batch.isMissing(QuoteBatch.ZHONGDAN, 3));
+        assertEquals(-0.25, batch.value(QuoteBatch.XIAODAN_PERCENT, 3), 0);
+        assertEquals(12.5, batch.value(QuoteBatch.ZHULI_PERCENT, 3), 0);
+
+        // 价格缺失和代码为空的行不参与计算
+        List<SingleStock> stocks = batch.toSingleStocks();
+        assertEquals(3, stocks.size());
+        assertEquals("600519", stocks.get(1).getCode());
+        assertEquals(0.0, stocks.get(2).getZhongdanNetInflow(), 0);
+    }
+
+    @Test
+    public void randomPayloadMatchesFastjsonAcrossBufferBoundaries() throws IOException {
+        byte[] payload = generatePayload(new Random(20241126L), 2000);
+        QuoteStreamDecoder decoder = new QuoteStreamDecoder();
+
+        QuoteBatch whole = decoder.decode(payload, new QuoteBatch());
+        assertEquals(2000, whole.size());
+        assertMatchesFastjson(payload, whole);
+
+        // 每次只返回几个字节，覆盖数字、转义和多字节字符跨越缓冲区边界的情况
+        QuoteBatch chunked = decoder.decode(new TrickleInputStream(payload, new Random(7)), new QuoteBatch());
+        assertMatchesFastjson(payload, chunked);
+    }
+
+    @Test
+    public void diffAsObjectIsSupported() throws IOException {
+        String json = "{\"data\":{\"total\":2,\"diff\":{\"0\":{\"f12\":\"000001\",\"f2\":1.5},\"1\":{\"f12\":\"000002\",\"f2\":\"-\"}}}}";
+        QuoteBatch batch = new QuoteStreamDecoder().decode(json.getBytes(StandardCharsets.UTF_8), new QuoteBatch());
+        assertEquals(2, batch.size());
+        assertEquals(1.5, batch.value(QuoteBatch.PRICE, 0), 0);
+        assertTrue(batch.isMissing(QuoteBatch.PRICE, 1));
+    }
+
+    @Test
+    public void nullDataYieldsEmptyBatch() throws IOException {
+        String json = "cb({\"rc\":0,\"data\":null});";
+        QuoteBatch batch = new QuoteStreamDecoder().decode(json.getBytes(StandardCharsets.UTF_8), new QuoteBatch());
+        assertEquals(0, batch.size());
+    }
+
+    private static void assertMatchesFastjson(byte[] payload, QuoteBatch batch) {
+        String text = new String(payload, StandardCharsets.UTF_8);
+        String dataStr = text.substring(text.indexOf("(") + 1, text.lastIndexOf(")"));
+        JSONArray diff = JSONObject.parseObject(dataStr).getJSONObject("data").getJSONArray("diff");
+        assertEquals(diff.size(), batch.size());
+        for (int row = 0; row < diff.size(); row++) {
+            JSONObject jsonObject = diff.getJSONObject(row);
+            assertEquals(jsonObject.getString("f12"), batch.code(row));
+            assertEquals(jsonObject.getString("f14"), batch.name(row));
+            for (int column = 0; column < FIELDS.length; column++) {
+                double expected = parseDouble(jsonObject, FIELDS[column]);
+                assertEquals("row " + row + " " + FIELDS[column], expected, batch.value(column, row), 0);
+            }
+        }
+    }
+
+    private static double parseDouble(JSONObject json, String key) {
+        String value = json.getString(key);
+        if (value == null || value.trim().equals("-")) {
+            return Double.NaN;
+        }
+        return json.getDoubleValue(key);
+    }
+
+    private static byte[] generatePayload(Random random, int rows) {
+        StringBuilder sb = new StringBuilder("jQuery1123044856734513874996_1732590961078({\"rc\":0,\"data\":{\"total\":")
+                .append(rows).append(",\"diff\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"f1\":2,\"f12\":\"").append(String.format("%06d", i)).append('"');
+            sb.append(",\"f14\":\"").append(i % 7 == 0 ? "\\u4e2d\\u6587" + i : "股票名称" + i).append('"');
+            for (String field : FIELDS) {
+                sb.append(",\"").append(field).append("\":");
+                int kind = random.nextInt(20);
+                if (kind == 0) {
+                    sb.append("\"-\"");
+                } else if (kind < 10) {
+                    sb.append(Math.round(random.nextGaussian() * 1e11) / 100.0);
+                } else if (kind < 18) {
+                    sb.append(String.format("%.2f", random.nextGaussian() * 20));
+                } else {
+                    sb.append(random.nextGaussian() * 1e9);
+                }
+            }
+            sb.append(",\"f124\":1732601379,\"f204\":\"-\"}");
+        }
+        sb.append("]}});");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = QuoteStreamDecoderTest.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 每次 read 只返回 1~7 个字节的输入流
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        private final Random random;
+
+        TrickleInputStream(byte[] buf, Random random) {
+            super(buf);
+            this.random = random;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+    }
+}
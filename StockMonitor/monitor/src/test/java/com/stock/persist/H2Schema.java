@@ -0,0 +1,54 @@
+package com.stock.persist;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 测试用的 H2 表结构，以 MySQL 兼容模式运行，列与线上表一致
+ */
+public final class H2Schema {
+
+    static final String URL_PREFIX = "jdbc:h2:mem:";
+    static final String URL_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String QUOTE_COLUMNS =
+            "name VARCHAR(50), current_price DECIMAL(10,2), change_amount DECIMAL(10,2), change_percent DECIMAL(10,4), " +
+            "zhuli_net_inflow DECIMAL(20,2), zhuli_net_inflow_percent DECIMAL(10,4), " +
+            "total_net_inflow DECIMAL(20,2), total_net_inflow_percent DECIMAL(10,4), " +
+            "chaodadan_net_inflow DECIMAL(20,2), chaodadan_net_inflow_percent DECIMAL(10,4), " +
+            "bigdan_net_inflow DECIMAL(20,2), bigdan_net_inflow_percent DECIMAL(10,4), " +
+            "zhongdan_net_inflow DECIMAL(20,2), zhongdan_net_inflow_percent DECIMAL(10,4), " +
+            "xiaodan_net_inflow DECIMAL(20,2), xiaodan_net_inflow_percent DECIMAL(10,4), " +
+            "total_volume DECIMAL(20,2), inflow_diff DECIMAL(20,2), create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP";
+
+    private static final String BAR_COLUMNS =
+            "name VARCHAR(50), open_price DECIMAL(10,2), high_price DECIMAL(10,2), low_price DECIMAL(10,2), " +
+            "close_price DECIMAL(10,2), change_percent DECIMAL(10,4), " +
+            "zhuli_net_inflow DECIMAL(20,2), zhuli_net_inflow_percent DECIMAL(10,4), total_net_inflow DECIMAL(20,2), " +
+            "chaodadan_net_inflow DECIMAL(20,2), bigdan_net_inflow DECIMAL(20,2), zhongdan_net_inflow DECIMAL(20,2), " +
+            "xiaodan_net_inflow DECIMAL(20,2), total_volume DECIMAL(20,2), inflow_diff DECIMAL(20,2), sample_count INT";
+
+    private H2Schema() {
+    }
+
+    public static String url(String name) {
+        return URL_PREFIX + name + URL_OPTIONS;
+    }
+
+    public static void create(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS single_stock_data");
+            stmt.execute("DROP TABLE IF EXISTS latest_stock_quote");
+            stmt.execute("DROP TABLE IF EXISTS stock_minute_bar");
+            stmt.execute("DROP TABLE IF EXISTS stock_daily_bar");
+            stmt.execute("CREATE TABLE single_stock_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "code VARCHAR(10) NOT NULL, " + QUOTE_COLUMNS + ")");
+            stmt.execute("CREATE TABLE latest_stock_quote (code VARCHAR(10) NOT NULL PRIMARY KEY, " + QUOTE_COLUMNS + ")");
+            stmt.execute("CREATE TABLE stock_minute_bar (code VARCHAR(10) NOT NULL, bar_time DATETIME NOT NULL, " +
+                    BAR_COLUMNS + ", PRIMARY KEY (code, bar_time))");
+            stmt.execute("CREATE TABLE stock_daily_bar (code VARCHAR(10) NOT NULL, trade_date DATE NOT NULL, " +
+                    BAR_COLUMNS + ", PRIMARY KEY (code, trade_date))");
+        }
+    }
+}
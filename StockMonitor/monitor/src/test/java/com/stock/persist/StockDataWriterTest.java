@@ -0,0 +1,117 @@
+package com.stock.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.stock.vo.SingleStock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StockDataWriterTest {
+
+    private static final String URL = H2Schema.url("stock_data_writer");
+
+    private Connection keepAlive;
+
+    @Before
+    public void setUp() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL);
+        H2Schema.create(keepAlive);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    public void keepsOneLatestRowPerCode() throws SQLException {
+        StockDataWriter writer = new StockDataWriter(() -> DriverManager.getConnection(URL), 4, 2, 1000);
+        writer.start();
+        writer.submit(tick(3, 10), at("10:00:05"));
+        writer.submit(tick(3, 20), at("10:00:15"));
+        writer.submit(tick(2, 30), at("10:00:25"));
+        writer.shutdown(10, TimeUnit.SECONDS);
+
+        assertEquals(8, count("SELECT COUNT(*) FROM single_stock_data"));
+        assertEquals(3, count("SELECT COUNT(*) FROM latest_stock_quote"));
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT code, current_price FROM latest_stock_quote ORDER BY code")) {
+            assertTrue(rs.next());
+            assertEquals(30, rs.getDouble(2), 0);
+            assertTrue(rs.next());
+            assertEquals(31, rs.getDouble(2), 0);
+            // 最后一轮没有出现的股票保留之前的最新数据
+            assertTrue(rs.next());
+            assertEquals("000002", rs.getString(1));
+            assertEquals(22, rs.getDouble(2), 0);
+        }
+        assertEquals(3, count("SELECT COUNT(*) FROM single_stock_data WHERE code = '000001' AND inflow_diff = 100"));
+        // create_time 是采样时间，不是写入时间
+        assertEquals(2, count("SELECT COUNT(*) FROM single_stock_data WHERE create_time = '2024-11-26 10:00:25'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM latest_stock_quote WHERE create_time = '2024-11-26 10:00:15'"));
+        // 最新表与历史表中每只股票最后一行的时间一致
+        assertEquals(0, count("SELECT COUNT(*) FROM latest_stock_quote l WHERE l.create_time <> " +
+                "(SELECT MAX(create_time) FROM single_stock_data s WHERE s.code = l.code)"));
+    }
+
+    @Test
+    public void keepsWritingAfterUnexpectedFailure() throws SQLException {
+        AtomicInteger calls = new AtomicInteger();
+        StockDataWriter writer = new StockDataWriter(() -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("连接池获取连接超时");
+            }
+            return DriverManager.getConnection(URL);
+        }, 4, 2, 1000);
+        writer.start();
+        writer.submit(tick(3, 10), at("10:00:05"));
+        writer.submit(tick(3, 20), at("10:00:15"));
+        writer.shutdown(10, TimeUnit.SECONDS);
+
+        // 第一批失败，写入线程仍然写完第二批，已提交的批次都算处理完
+        assertTrue(writer.isIdle());
+        assertEquals(1, writer.getFailedBatches());
+        assertEquals(3, count("SELECT COUNT(*) FROM single_stock_data"));
+        assertFalse(writer.submit(tick(1, 30), at("10:00:25")));
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static long at(String time) {
+        return Timestamp.valueOf("2024-11-26 " + time).getTime();
+    }
+
+    private static List<SingleStock> tick(int stocks, double basePrice) {
+        List<SingleStock> rows = new ArrayList<>();
+        for (int i = 0; i < stocks; i++) {
+            SingleStock stock = new SingleStock();
+            stock.setCode(String.format("%06d", i));
+            stock.setName("股票" + i);
+            stock.setCurrentPrice(basePrice + i);
+            stock.setZhuliNetInflow(Double.NaN);
+            stock.setInflowDiff(100 * i);
+            rows.add(stock);
+        }
+        return rows;
+    }
+}
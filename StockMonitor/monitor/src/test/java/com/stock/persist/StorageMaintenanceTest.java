@@ -0,0 +1,165 @@
+package com.stock.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StorageMaintenanceTest {
+
+    private static final String URL = H2Schema.url("storage_maintenance");
+
+    private Connection keepAlive;
+    private StorageMaintenance maintenance;
+
+    @Before
+    public void setUp() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL);
+        H2Schema.create(keepAlive);
+        maintenance = new StorageMaintenance(() -> DriverManager.getConnection(URL), 1, 30, 60);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        maintenance.shutdown();
+        keepAlive.close();
+    }
+
+    @Test
+    public void rollsUpMinutesAndDaysThenPurgesRawRows() throws SQLException {
+        for (String day : new String[]{"2024-11-22", "2024-11-25", "2024-11-26"}) {
+            insert(day + " 10:00:05", 10, 100);
+            insert(day + " 10:00:15", 12, 50);
+            insert(day + " 10:00:55", 9, -20);
+            insert(day + " 10:01:05", 11, 30);
+        }
+        maintenance.runOnce(LocalDateTime.of(2024, 11, 26, 15, 10));
+
+        assertEquals(6, count("SELECT COUNT(*) FROM stock_minute_bar"));
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT open_price, high_price, low_price, close_price, total_net_inflow, " +
+                     "inflow_diff, sample_count FROM stock_minute_bar WHERE bar_time = '2024-11-25 10:00:00'")) {
+            assertTrue(rs.next());
+            assertEquals(10, rs.getDouble(1), 0);
+            assertEquals(12, rs.getDouble(2), 0);
+            assertEquals(9, rs.getDouble(3), 0);
+            assertEquals(9, rs.getDouble(4), 0);
+            // 资金取最后一轮的累计值，inflow_diff 取合计
+            assertEquals(130, rs.getDouble(5), 0);
+            assertEquals(130, rs.getDouble(6), 0);
+            assertEquals(3, rs.getInt(7));
+        }
+
+        // 收盘后当天也汇总成日线
+        assertEquals(3, count("SELECT COUNT(*) FROM stock_daily_bar"));
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT open_price, high_price, low_price, close_price, inflow_diff, sample_count " +
+                     "FROM stock_daily_bar WHERE trade_date = '2024-11-26'")) {
+            assertTrue(rs.next());
+            assertEquals(10, rs.getDouble(1), 0);
+            assertEquals(12, rs.getDouble(2), 0);
+            assertEquals(9, rs.getDouble(3), 0);
+            assertEquals(11, rs.getDouble(4), 0);
+            assertEquals(160, rs.getDouble(5), 0);
+            assertEquals(4, rs.getInt(6));
+        }
+
+        // 原始数据保留 1 天，11-22 的已经汇总过，可以删除
+        assertEquals(0, count("SELECT COUNT(*) FROM single_stock_data WHERE create_time < '2024-11-25'"));
+        assertEquals(8, count("SELECT COUNT(*) FROM single_stock_data"));
+        assertEquals(2, count("SELECT COUNT(*) FROM stock_minute_bar WHERE bar_time < '2024-11-25'"));
+    }
+
+    @Test
+    public void redoesLastMinuteForLateRows() throws SQLException {
+        insert("2024-11-26 10:00:05", 10, 100);
+        insert("2024-11-26 10:00:15", 11, 50);
+        maintenance.runOnce(LocalDateTime.of(2024, 11, 26, 10, 1, 2));
+        assertEquals(2, count("SELECT sample_count FROM stock_minute_bar"));
+
+        // 上一周期之后才提交的同一分钟的数据
+        insert("2024-11-26 10:00:55", 13, 10);
+        insert("2024-11-26 10:01:05", 12, 10);
+        maintenance.runOnce(LocalDateTime.of(2024, 11, 26, 10, 2, 2));
+        assertEquals(3, count("SELECT sample_count FROM stock_minute_bar WHERE bar_time = '2024-11-26 10:00:00'"));
+        assertEquals(13, count("SELECT close_price FROM stock_minute_bar WHERE bar_time = '2024-11-26 10:00:00'"));
+        assertEquals(1, count("SELECT sample_count FROM stock_minute_bar WHERE bar_time = '2024-11-26 10:01:00'"));
+        // 盘中不汇总当天的日线
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_daily_bar"));
+    }
+
+    @Test
+    public void notifiesWhenPastDaysAreRolledUp() throws SQLException {
+        AtomicInteger notified = new AtomicInteger();
+        maintenance.setPastDaysListener(notified::incrementAndGet);
+        insert("2024-11-25 10:00:05", 10, 100);
+        insert("2024-11-26 10:00:05", 11, 50);
+        // 停机错过了 11-25 收盘后的汇总，重启后补上
+        maintenance.runOnce(LocalDateTime.of(2024, 11, 26, 10, 1, 2));
+        assertEquals(1, count("SELECT COUNT(*) FROM stock_daily_bar"));
+        assertEquals(1, notified.get());
+
+        // 之后盘中的周期只汇总分钟线
+        insert("2024-11-26 10:01:05", 12, 10);
+        maintenance.runOnce(LocalDateTime.of(2024, 11, 26, 10, 2, 2));
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    public void parsesPartitionNames() {
+        assertEquals(LocalDate.of(2024, 11, 26), StorageMaintenance.partitionDate("p20241126"));
+        assertNull(StorageMaintenance.partitionDate("p_future"));
+        assertEquals("PARTITION p20241126 VALUES LESS THAN (TO_DAYS('2024-11-27')), " +
+                        "PARTITION p20241127 VALUES LESS THAN (TO_DAYS('2024-11-28'))",
+                StorageMaintenance.MINUTE.dayPartitions(LocalDate.of(2024, 11, 26), LocalDate.of(2024, 11, 27)));
+    }
+
+    /**
+     * 总净流入是当天的累计值，每行在当天上一行的基础上累加 inflowDiff
+     */
+    private void insert(String time, double price, double inflowDiff) throws SQLException {
+        double previous = 0;
+        try (PreparedStatement ps = keepAlive.prepareStatement("SELECT total_net_inflow FROM single_stock_data " +
+                "WHERE create_time >= ? AND create_time < ? ORDER BY create_time DESC LIMIT 1")) {
+            Timestamp createTime = Timestamp.valueOf(time);
+            ps.setTimestamp(1, Timestamp.valueOf(createTime.toLocalDateTime().toLocalDate().atStartOfDay()));
+            ps.setTimestamp(2, createTime);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    previous = rs.getDouble(1);
+                }
+            }
+        }
+        try (PreparedStatement ps = keepAlive.prepareStatement("INSERT INTO single_stock_data (code, name, current_price, " +
+                "total_net_inflow, bigdan_net_inflow, zhongdan_net_inflow, xiaodan_net_inflow, inflow_diff, create_time) " +
+                "VALUES ('000001', '平安银行', ?, ?, 0, 0, 0, ?, ?)")) {
+            ps.setDouble(1, price);
+            ps.setDouble(2, previous + inflowDiff);
+            ps.setDouble(3, inflowDiff);
+            ps.setTimestamp(4, Timestamp.valueOf(time));
+            ps.executeUpdate();
+        }
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
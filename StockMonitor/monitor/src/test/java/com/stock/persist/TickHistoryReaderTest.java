@@ -0,0 +1,87 @@
+package com.stock.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import com.stock.vo.RecordedTick;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TickHistoryReaderTest {
+
+    private static final String URL = H2Schema.url("tick_history_reader");
+    private static final long BASE = Timestamp.valueOf("2024-05-06 10:00:00").getTime();
+
+    private Connection keepAlive;
+
+    @Before
+    public void setUp() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL);
+        H2Schema.create(keepAlive);
+        // 5 轮，每轮 3 只股票，间隔 10 秒
+        try (PreparedStatement ps = keepAlive.prepareStatement(
+                "INSERT INTO single_stock_data (code, name, current_price, total_net_inflow, create_time) VALUES (?, ?, ?, ?, ?)")) {
+            for (int tick = 0; tick < 5; tick++) {
+                for (int i = 0; i < 3; i++) {
+                    ps.setString(1, String.format("%06d", i));
+                    ps.setString(2, "股票" + i);
+                    ps.setDouble(3, 10 + tick);
+                    ps.setDouble(4, tick * 100 + i);
+                    ps.setTimestamp(5, new Timestamp(BASE + tick * 10_000L));
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    public void groupsRowsByTickAfterCheckpoint() throws SQLException {
+        TickHistoryReader reader = new TickHistoryReader(() -> DriverManager.getConnection(URL));
+
+        List<RecordedTick> ticks = reader.readAfter(BASE + 10_000L, 100);
+        assertEquals(3, ticks.size());
+        for (int i = 0; i < ticks.size(); i++) {
+            RecordedTick tick = ticks.get(i);
+            assertEquals(BASE + (i + 2) * 10_000L, tick.getCreateTime());
+            assertEquals(3, tick.getStocks().size());
+            assertEquals("000000", tick.getStocks().get(0).getCode());
+            assertEquals(12 + i, tick.getStocks().get(0).getCurrentPrice(), 0);
+        }
+
+        // 超过上限时只取最近的几轮
+        List<RecordedTick> latest = reader.readAfter(0, 2);
+        assertEquals(2, latest.size());
+        assertEquals(BASE + 30_000L, latest.get(0).getCreateTime());
+        assertEquals(402, latest.get(1).getStocks().get(2).getTotalNetInflow(), 0);
+
+        assertTrue(reader.readAfter(BASE + 40_000L, 100).isEmpty());
+    }
+
+    @Test
+    public void readsTicksInRange() throws SQLException {
+        TickHistoryReader reader = new TickHistoryReader(() -> DriverManager.getConnection(URL));
+
+        List<Long> times = reader.tickTimes(BASE + 10_000L, BASE + 30_000L);
+        assertEquals(2, times.size());
+        assertEquals(BASE + 10_000L, (long) times.get(0));
+
+        RecordedTick tick = reader.readTick(times.get(1));
+        assertEquals(BASE + 20_000L, tick.getCreateTime());
+        assertEquals(3, tick.getStocks().size());
+        assertEquals(202, tick.getStocks().get(2).getTotalNetInflow(), 0);
+    }
+}
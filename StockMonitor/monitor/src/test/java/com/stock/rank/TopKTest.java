@@ -0,0 +1,81 @@
+package com.stock.rank;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.stock.vo.StockSpeed;
+import org.junit.Test;
+
+/**
+ * 前 K 名必须与对全部元素稳定排序后取前 K 个一致
+ */
+public class TopKTest {
+
+    @Test
+    public void matchesStableSort() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int n = random.nextInt(300);
+            int k = 1 + random.nextInt(50);
+            double[] keys = new double[n];
+            for (int i = 0; i < n; i++) {
+                // 取值范围小，保证有大量相同的取值；偶尔出现 NaN 和负数
+                keys[i] = random.nextInt(20) == 0 ? Double.NaN : random.nextInt(40) - 10;
+            }
+            TopK top = new TopK(k);
+            for (int i = 0; i < n; i++) {
+                top.offer(keys[i], i);
+            }
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(keys[b], keys[a]));
+            int[] expected = new int[Math.min(k, n)];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = order[i];
+            }
+            assertArrayEquals(expected, top.drain());
+            assertEquals(0, top.size());
+        }
+    }
+
+    @Test
+    public void rankerComputesOnlySubscribedViews() {
+        List<StockSpeed> speeds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StockSpeed speed = new StockSpeed();
+            speed.setCode(String.valueOf(i));
+            speed.setRankUpTrendScore(i % 10);
+            speed.setNetSpeed(-i);
+            speeds.add(speed);
+        }
+        Ranker ranker = new Ranker();
+        assertTrue(ranker.rank(speeds).top(RankView.UP_TREND).isEmpty());
+
+        ranker.subscribe(RankView.UP_TREND, 3);
+        ranker.subscribe(RankView.NET_SPEED, 2);
+        ranker.subscribe(RankView.UP_TREND, 5);
+        Ranking ranking = ranker.rank(speeds);
+
+        assertEquals(5, ranker.limit(RankView.UP_TREND));
+        assertEquals(Arrays.asList("9", "19", "29", "39", "49"), codes(ranking.top(RankView.UP_TREND)));
+        assertEquals(Arrays.asList("9", "19"), codes(ranking.top(RankView.UP_TREND, 2)));
+        assertEquals(Arrays.asList("0", "1"), codes(ranking.top(RankView.NET_SPEED)));
+        assertTrue(ranking.top(RankView.MOMENTUM).isEmpty());
+    }
+
+    private static List<String> codes(List<StockSpeed> speeds) {
+        List<String> codes = new ArrayList<>();
+        for (StockSpeed speed : speeds) {
+            codes.add(speed.getCode());
+        }
+        return codes;
+    }
+}
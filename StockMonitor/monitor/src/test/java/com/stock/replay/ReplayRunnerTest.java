@@ -0,0 +1,134 @@
+package com.stock.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.stock.engine.TickEngine;
+import com.stock.rank.RankView;
+import com.stock.store.TickArchive;
+import com.stock.vo.SingleStock;
+import com.stock.vo.StockSpeed;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReplayRunnerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+    private static final int STOCKS = 200;
+    private static final int TICKS = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TickArchive archive;
+
+    @Before
+    public void setUp() throws IOException {
+        Path root = folder.getRoot().toPath();
+        long start = LocalDateTime.of(2024, 5, 6, 9, 30).atZone(ZONE).toInstant().toEpochMilli();
+        try (TickArchive writer = new TickArchive(root, ZONE)) {
+            for (int tick = 0; tick < TICKS; tick++) {
+                writer.append(start + tick * 10_000L, generateTick(tick));
+            }
+        }
+        archive = new TickArchive(root, ZONE);
+    }
+
+    @Test
+    public void replayIsDeterministic() throws Exception {
+        List<String> first = replay(1);
+        List<String> second = replay(4);
+        assertEquals(first, second);
+        assertTrue(first.size() > TICKS / 2);
+    }
+
+    @Test
+    public void reportsEachStage() throws Exception {
+        List<Integer> persisted = new ArrayList<>();
+        TickEngine engine = new TickEngine(10, 2);
+        try {
+            ReplayReport report = new ReplayRunner(engine, new ArchiveTickSource(archive, DAY, DAY), 0,
+                    result -> persisted.add(result.getPersistRows().size()), result -> { }, ZONE).run();
+            assertEquals(TICKS, report.getTicks());
+            assertEquals((long) TICKS * STOCKS, report.getRows());
+            assertEquals(TICKS, report.stage(ReplayRunner.LOAD).getCount());
+            assertEquals(TICKS, report.stage(ReplayRunner.COMPUTE).getCount());
+            assertEquals(TICKS, report.stage(ReplayRunner.PUBLISH).getCount());
+            assertEquals(TICKS, persisted.size());
+            // 第一轮没有上一轮数据，不产生入库行
+            assertEquals(0, (int) persisted.get(0));
+            assertEquals(STOCKS, (int) persisted.get(1));
+            assertTrue(report.stage(ReplayRunner.COMPUTE).percentileNanos(99) > 0);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void pacesByRecordedTime() throws Exception {
+        TickEngine engine = new TickEngine(10, 1);
+        try {
+            // 40 轮间隔 10 秒，共 390 秒，2000 倍速约 195 毫秒
+            ReplayReport report = new ReplayRunner(engine, new ArchiveTickSource(archive, DAY, DAY), 2000,
+                    null, null, ZONE).run();
+            assertTrue(report.getWallNanos() >= TimeUnit.MILLISECONDS.toNanos(190));
+            assertEquals(0, report.stage(ReplayRunner.PERSIST).getCount());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 重放一遍，按轮记录排名第一的股票和分数
+     */
+    private List<String> replay(int parallelism) throws Exception {
+        List<String> leaders = new ArrayList<>();
+        TickEngine engine = new TickEngine(10, parallelism);
+        engine.subscribe(RankView.UP_TREND, 1);
+        try {
+            new ReplayRunner(engine, new ArchiveTickSource(archive, DAY, DAY), 0, null, result -> {
+                List<StockSpeed> speeds = result.getRanking().top(RankView.UP_TREND);
+                if (!speeds.isEmpty()) {
+                    leaders.add(speeds.get(0).getCode() + "@" + speeds.get(0).getRankUpTrendScore()
+                            + "/" + result.getSnapshot().getTimestamp());
+                }
+            }, ZONE).run();
+        } finally {
+            engine.shutdown();
+        }
+        return leaders;
+    }
+
+    private static List<SingleStock> generateTick(int tick) {
+        List<SingleStock> stocks = new ArrayList<>(STOCKS);
+        for (int i = 0; i < STOCKS; i++) {
+            Random random = new Random(i * 7919L + tick);
+            SingleStock stock = new SingleStock();
+            stock.setCode(String.format("%06d", i));
+            stock.setName("股票" + i);
+            stock.setCurrentPrice(10 + i % 50 + random.nextGaussian() * 0.1);
+            stock.setChangePercent(random.nextGaussian() * 3);
+            stock.setZhuliNetInflow((tick + 1) * random.nextGaussian() * 1e5);
+            stock.setZhuliNetInflowPercent(random.nextGaussian() * 5);
+            stock.setChaodadanNetInflow((tick + 1) * random.nextGaussian() * 5e4);
+            stock.setBigdanNetInflow((tick + 1) * random.nextGaussian() * 5e4);
+            stock.setZhongdanNetInflow((tick + 1) * random.nextGaussian() * 2e4);
+            stock.setXiaodanNetInflow((tick + 1) * random.nextGaussian() * 1e4);
+            stocks.add(stock);
+        }
+        return stocks;
+    }
+}
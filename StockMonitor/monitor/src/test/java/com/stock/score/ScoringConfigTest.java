@@ -0,0 +1,84 @@
+package com.stock.score;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 评分配置的解析与运行中重新载入
+ */
+public class ScoringConfigTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void usesDefaultsWithoutFile() {
+        ScoringConfig config = new ScoringConfig(folder.getRoot().toPath().resolve("missing.properties"));
+        assertEquals(1, config.models().length);
+        assertEquals(ScoringConfig.DEFAULT_MODEL, config.models()[0].getName());
+        assertEquals(0, config.models()[0].indexOf(UpTrendScorer.NAME));
+        assertFalse(config.refresh());
+        // 默认参数下涨幅 5% 得 10 分
+        assertEquals(10, upTrend(config.models()[0], 5), 0);
+    }
+
+    @Test
+    public void reloadsWhenFileChanges() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("scoring.properties");
+        write(file, "upTrend.change.factor=4\n", 1000);
+        ScoringConfig config = new ScoringConfig(file);
+        assertEquals(20, upTrend(config.models()[0], 5), 0);
+        assertFalse(config.refresh());
+
+        write(file, "upTrend.change.factor=1\nmodels=steady, aggressive\naggressive.upTrend.change.factor=6\n", 2000);
+        assertTrue(config.refresh());
+        ScoreModel[] models = config.models();
+        assertEquals(3, models.length);
+        assertEquals(ScoringConfig.DEFAULT_MODEL, models[0].getName());
+        assertEquals(5, upTrend(models[0], 5), 0);
+        // 没有单独配置的模型沿用公共参数
+        assertEquals("steady", models[1].getName());
+        assertEquals(5, upTrend(models[1], 5), 0);
+        assertEquals(20, upTrend(models[2], 5), 0);
+
+        // 无效的配置不替换正在使用的模型
+        write(file, "upTrend.change.factor=abc\n", 3000);
+        assertFalse(config.refresh());
+        assertEquals(3, config.models().length);
+
+        Files.delete(file);
+        assertTrue(config.refresh());
+        assertEquals(1, config.models().length);
+        assertEquals(10, upTrend(config.models()[0], 5), 0);
+    }
+
+    /**
+     * 只有涨幅一项输入时的上涨趋势得分
+     */
+    private static double upTrend(ScoreModel model, double changePercent) {
+        ScoreInputs inputs = new ScoreInputs();
+        inputs.setQuote(0, changePercent, 0, 0);
+        double[] out = new double[1];
+        model.getScorers().get(model.indexOf(UpTrendScorer.NAME)).score(inputs, 0, 1, out);
+        return out[0];
+    }
+
+    /**
+     * 写入内容并指定修改时间，不依赖文件系统的时间精度
+     */
+    private static void write(Path file, String content, long modifiedMillis) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+}
@@ -0,0 +1,128 @@
+package com.stock.sink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.stock.engine.TickResult;
+import com.stock.rank.Ranking;
+import org.junit.Test;
+
+/**
+ * 输出端各自排队：慢的输出端只丢弃旧结果，不阻塞发布
+ */
+public class TickPublisherTest {
+
+    @Test
+    public void slowSinkNeverBlocksPublisher() throws InterruptedException {
+        TickPublisher publisher = new TickPublisher();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink("slow", release);
+        RecordingSink fast = new RecordingSink("fast", null);
+        AsyncSink slowQueue = publisher.register(slow, 2);
+        publisher.register(fast, 100);
+
+        List<TickResult> published = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            TickResult result = result();
+            published.add(result);
+            publisher.publish(result);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertSame(published.get(49), publisher.latest());
+
+        release.countDown();
+        publisher.shutdown(5, TimeUnit.SECONDS);
+
+        assertEquals(published, fast.received);
+        // 慢的输出端最多收到正在处理的一轮加上队列里最新的两轮
+        assertTrue(slow.received.size() <= 3);
+        assertSame(published.get(49), slow.received.get(slow.received.size() - 1));
+        assertEquals(50 - slow.received.size(), slowQueue.getDropped());
+        assertTrue(slow.closed && fast.closed);
+    }
+
+    @Test
+    public void lateSinkReceivesLatestResult() {
+        TickPublisher publisher = new TickPublisher();
+        TickResult first = result();
+        publisher.publish(first);
+
+        RecordingSink late = new RecordingSink("late", null);
+        AsyncSink queue = publisher.register(late, 1);
+        TickResult second = result();
+        publisher.publish(second);
+        publisher.shutdown(5, TimeUnit.SECONDS);
+
+        assertTrue(queue.isIdle());
+        assertSame(second, late.received.get(late.received.size() - 1));
+        assertTrue(late.received.get(0) == first || late.received.get(0) == second);
+    }
+
+    @Test
+    public void awaitReturnsOnlyNewerResults() throws InterruptedException {
+        TickPublisher publisher = new TickPublisher();
+        assertNull(publisher.awaitAfter(null, 10, TimeUnit.MILLISECONDS));
+
+        TickResult first = result();
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            publisher.publish(first);
+        });
+        producer.start();
+        assertSame(first, publisher.awaitAfter(null, 5, TimeUnit.SECONDS));
+        producer.join();
+
+        assertNull(publisher.awaitAfter(first, 10, TimeUnit.MILLISECONDS));
+        TickResult second = result();
+        publisher.publish(second);
+        assertSame(second, publisher.awaitAfter(first, 0, TimeUnit.MILLISECONDS));
+    }
+
+    private static TickResult result() {
+        return new TickResult(Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), null, null, Ranking.empty(), 0);
+    }
+
+    private static final class RecordingSink implements TickSink {
+        final String name;
+        final CountDownLatch release;
+        final List<TickResult> received = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean closed;
+
+        RecordingSink(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void accept(TickResult result) throws InterruptedException {
+            if (release != null) {
+                release.await();
+            }
+            received.add(result);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
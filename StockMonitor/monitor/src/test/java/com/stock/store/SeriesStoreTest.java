@@ -0,0 +1,128 @@
+package com.stock.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 环形缓冲写满后覆盖最旧的数据，各种读取方式都按时间顺序
+ */
+public class SeriesStoreTest {
+
+    private static final int CAPACITY = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsInOrderBeforeAndAfterWraparound() {
+        SeriesStore store = new SeriesStore(new SymbolIndex(), 2, CAPACITY);
+        for (int i = 1; i <= 3; i++) {
+            store.append(0, 7, i);
+        }
+        assertEquals(3, store.size(0, 7));
+        assertEquals(0, store.size(1, 7));
+        assertEquals(1, store.get(0, 7, 0), 0);
+        assertEquals(3, store.latest(0, 7, 0), 0);
+        assertEquals(1, store.latest(0, 7, 2), 0);
+        double[] dst = new double[CAPACITY];
+        assertEquals(3, store.copyTo(0, 7, dst));
+        assertArrayEquals(new double[]{1, 2, 3, 0, 0}, dst, 0);
+
+        // 写满后继续追加，最旧的数据被覆盖，head 不在数组起点，复制时跨过环的末尾
+        for (int i = 4; i <= 8; i++) {
+            store.append(0, 7, i);
+        }
+        assertEquals(CAPACITY, store.size(0, 7));
+        for (int index = 0; index < CAPACITY; index++) {
+            assertEquals(4 + index, store.get(0, 7, index), 0);
+            assertEquals(8 - index, store.latest(0, 7, index), 0);
+        }
+        assertEquals(CAPACITY, store.copyTo(0, 7, dst));
+        assertArrayEquals(new double[]{4, 5, 6, 7, 8}, dst, 0);
+
+        // 正好转满一圈，head 回到数组起点
+        store.append(0, 7, 9);
+        store.append(0, 7, 10);
+        assertEquals(CAPACITY, store.copyTo(0, 7, dst));
+        assertArrayEquals(new double[]{6, 7, 8, 9, 10}, dst, 0);
+    }
+
+    @Test
+    public void unallocatedSymbolsHaveNoData() {
+        SeriesStore store = new SeriesStore(new SymbolIndex(), 1, CAPACITY);
+        int symbol = 1_000_000;
+        assertEquals(0, store.size(0, symbol));
+        assertEquals(0, store.copyTo(0, symbol, new double[CAPACITY]));
+        assertOutOfRange(() -> store.get(0, symbol, 0));
+        assertOutOfRange(() -> store.latest(0, symbol, 0));
+
+        store.append(0, 3, 1);
+        store.append(0, 3, 2);
+        assertOutOfRange(() -> store.get(0, 3, 2));
+        assertOutOfRange(() -> store.latest(0, 3, 2));
+        assertOutOfRange(() -> store.latest(0, 3, -1));
+        // 追加时自动扩容
+        store.append(0, symbol, 5);
+        assertEquals(5, store.latest(0, symbol, 0), 0);
+    }
+
+    @Test
+    public void stateRoundTrips() throws IOException {
+        SeriesStore store = new SeriesStore(new SymbolIndex(), 2, CAPACITY);
+        for (int i = 0; i < 12; i++) {
+            store.append(0, 0, i);
+            store.append(1, 2, -i);
+        }
+        store.append(0, 1, 42);
+
+        Path file = folder.getRoot().toPath().resolve("series.bin");
+        try (StateWriter out = new StateWriter(file)) {
+            store.writeState(out, 3);
+            out.finish();
+        }
+        SeriesStore restored = new SeriesStore(new SymbolIndex(), 2, CAPACITY);
+        restored.append(0, 1, 99);
+        restored.readState(new StateReader(file));
+
+        for (int series = 0; series < 2; series++) {
+            for (int symbol = 0; symbol < 3; symbol++) {
+                assertEquals(store.size(series, symbol), restored.size(series, symbol));
+                double[] expected = new double[CAPACITY];
+                double[] actual = new double[CAPACITY];
+                store.copyTo(series, symbol, expected);
+                restored.copyTo(series, symbol, actual);
+                assertArrayEquals(expected, actual, 0);
+            }
+        }
+        assertEquals(42, restored.latest(0, 1, 0), 0);
+        // 恢复后继续追加，从原来的 head 接着写
+        restored.append(0, 0, 12);
+        assertEquals(8, restored.get(0, 0, 0), 0);
+        assertEquals(12, restored.latest(0, 0, 0), 0);
+
+        SeriesStore other = new SeriesStore(new SymbolIndex(), 2, CAPACITY + 1);
+        try {
+            other.readState(new StateReader(file));
+            fail("序列结构不一致时应当拒绝");
+        } catch (IOException expected) {
+            // 预期
+        }
+    }
+
+    private static void assertOutOfRange(Runnable read) {
+        try {
+            read.run();
+            fail("读取不存在的数据应当抛出 IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // 预期
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.stock.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 字典保存后重新载入，同一代码得到同一下标
+ */
+public class SymbolIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsIdsNamesAndMarketsAcrossRestarts() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("symbols.dict");
+        SymbolIndex index = new SymbolIndex();
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, index.define(String.format("%06d", i), "股票" + i, i % 2));
+        }
+        index.idOf("999999");
+        assertTrue(index.isDirty());
+        index.save(file);
+        assertFalse(index.isDirty());
+
+        // 名称相同时不算变化，市场未知时保留原值
+        index.define("000001", "股票1", -1);
+        assertFalse(index.isDirty());
+        assertEquals(1, index.marketOf(1));
+        index.define("000001", "新名称", -1);
+        assertTrue(index.isDirty());
+
+        SymbolIndex reloaded = new SymbolIndex();
+        assertEquals(-1, reloaded.load(folder.getRoot().toPath().resolve("missing.dict")));
+        assertEquals(3001, reloaded.load(file));
+        assertFalse(reloaded.isDirty());
+        assertEquals(1234, reloaded.find("001234"));
+        assertEquals("股票1234", reloaded.nameOf(1234));
+        assertEquals(0, reloaded.marketOf(1234));
+        assertNull(reloaded.nameOf(3000));
+        assertEquals(-1, reloaded.marketOf(3000));
+        assertEquals(3001, reloaded.idOf("600000"));
+    }
+
+    @Test
+    public void rejectsCheckpointThatDisagreesWithDictionary() throws IOException {
+        Path checkpoint = folder.getRoot().toPath().resolve("state.bin");
+        SymbolIndex source = new SymbolIndex();
+        source.idOf("A");
+        source.idOf("B");
+        try (StateWriter out = new StateWriter(checkpoint)) {
+            source.writeState(out);
+            out.finish();
+        }
+
+        // 字典比检查点新：检查点是字典的前缀，保留字典
+        SymbolIndex longer = new SymbolIndex();
+        longer.idOf("A");
+        longer.idOf("B");
+        longer.idOf("C");
+        longer.readState(new StateReader(checkpoint));
+        assertEquals(3, longer.size());
+        assertEquals(2, longer.find("C"));
+
+        SymbolIndex conflicting = new SymbolIndex();
+        conflicting.idOf("B");
+        try {
+            conflicting.readState(new StateReader(checkpoint));
+            fail("下标不一致时应拒绝恢复");
+        } catch (IOException expected) {
+            assertEquals(1, conflicting.size());
+        }
+    }
+}
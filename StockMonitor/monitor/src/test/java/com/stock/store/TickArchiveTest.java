@@ -0,0 +1,143 @@
+package com.stock.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.stock.vo.RecordedTick;
+import com.stock.vo.SingleStock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TickArchiveTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackAppendedTicks() throws IOException {
+        Path root = folder.getRoot().toPath();
+        try (TickArchive archive = new TickArchive(root, ZONE)) {
+            archive.append(time(DAY, 9, 30, 0), tick(3, 0));
+            // 第二轮少一只、多一只新股票
+            List<SingleStock> second = tick(4, 1).subList(1, 4);
+            archive.append(time(DAY, 9, 30, 10), new ArrayList<>(second));
+        }
+
+        TickArchive archive = new TickArchive(root, ZONE);
+        assertEquals(Arrays.asList(DAY), archive.days());
+        assertNull(archive.open(DAY.plusDays(1)));
+        TickArchiveReader reader = archive.open(DAY);
+        assertEquals(2, reader.tickCount());
+        assertEquals(6, reader.rowCount());
+        assertEquals(4, reader.symbolCount());
+        assertEquals(3, reader.firstRow(1));
+        assertEquals("000003", reader.code(reader.symbol(5)));
+
+        List<SingleStock> stocks = reader.stocks(1);
+        assertEquals(3, stocks.size());
+        SingleStock stock = stocks.get(0);
+        SingleStock expected = tick(4, 1).get(1);
+        assertEquals(expected.getCode(), stock.getCode());
+        assertEquals(expected.getName(), stock.getName());
+        assertEquals(expected.getCurrentPrice(), stock.getCurrentPrice(), 0);
+        assertEquals(expected.getZhuliNetInflow(), stock.getZhuliNetInflow(), 0);
+        assertEquals(expected.getXiaodanNetInflow(), stock.getXiaodanNetInflow(), 0);
+        assertEquals(expected.getChangePercent(), stock.getChangePercent(), 1e-6);
+        assertEquals(expected.getBigdanNetInflowPercent(), stock.getBigdanNetInflowPercent(), 1e-6);
+
+        assertEquals(1, reader.firstTickAfter(time(DAY, 9, 30, 0)));
+        assertEquals(0, reader.firstTickAfter(time(DAY, 9, 29, 0)));
+        assertEquals(2, reader.firstTickAfter(time(DAY, 9, 31, 0)));
+    }
+
+    @Test
+    public void recoversFromUncommittedTick() throws IOException {
+        Path root = folder.getRoot().toPath();
+        try (TickArchive archive = new TickArchive(root, ZONE)) {
+            archive.append(time(DAY, 10, 0, 0), tick(2, 0));
+        }
+        // 模拟最后一轮写了一半：列多出一行、索引多出半条
+        Path dir = root.resolve("20240506");
+        append(dir.resolve("price.f64"), new byte[8]);
+        append(dir.resolve("ticks.idx"), new byte[7]);
+
+        try (TickArchive archive = new TickArchive(root, ZONE)) {
+            assertEquals(1, archive.open(DAY).tickCount());
+            archive.append(time(DAY, 10, 0, 10), tick(2, 1));
+        }
+        TickArchiveReader reader = new TickArchive(root, ZONE).open(DAY);
+        assertEquals(2, reader.tickCount());
+        assertEquals(tick(2, 1).get(1).getCurrentPrice(), reader.price(3), 0);
+        assertEquals(2, reader.symbolCount());
+    }
+
+    @Test
+    public void readAfterSpansDaysAndKeepsLatest() throws IOException {
+        Path root = folder.getRoot().toPath();
+        LocalDate next = DAY.plusDays(1);
+        try (TickArchive archive = new TickArchive(root, ZONE)) {
+            for (int i = 0; i < 3; i++) {
+                archive.append(time(DAY, 14, 59, i * 10), tick(2, i));
+            }
+            for (int i = 0; i < 3; i++) {
+                archive.append(time(next, 9, 30, i * 10), tick(2, 3 + i));
+            }
+        }
+        TickArchive archive = new TickArchive(root, ZONE);
+        assertEquals(Arrays.asList(DAY, next), archive.days());
+
+        List<RecordedTick> ticks = archive.readAfter(time(DAY, 14, 59, 0), 100);
+        assertEquals(5, ticks.size());
+        assertEquals(time(DAY, 14, 59, 10), ticks.get(0).getCreateTime());
+        assertEquals(time(next, 9, 30, 20), ticks.get(4).getCreateTime());
+
+        List<RecordedTick> latest = archive.readAfter(0, 4);
+        assertEquals(4, latest.size());
+        assertEquals(time(DAY, 14, 59, 20), latest.get(0).getCreateTime());
+        assertTrue(archive.readAfter(time(next, 9, 30, 20), 100).isEmpty());
+    }
+
+    private static long time(LocalDate day, int hour, int minute, int second) {
+        return LocalDateTime.of(day.getYear(), day.getMonth(), day.getDayOfMonth(), hour, minute, second)
+                .atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    private static List<SingleStock> tick(int stocks, int tick) {
+        List<SingleStock> rows = new ArrayList<>();
+        for (int i = 0; i < stocks; i++) {
+            SingleStock stock = new SingleStock();
+            stock.setCode(String.format("%06d", i));
+            stock.setName("股票" + i);
+            stock.setCurrentPrice(10.01 * (i + 1) + tick);
+            stock.setChangePercent(0.37 * i - tick);
+            stock.setZhuliNetInflow(123456789.12 * (i - 1) + tick);
+            stock.setXiaodanNetInflow(-98765.43 * i);
+            stock.setBigdanNetInflowPercent(1.25 * i);
+            rows.add(stock);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,184 @@
+package com.stock.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 回调放进队列，由测试线程取出执行，模拟 FX 线程
+ */
+public class QueryServiceTest {
+
+    private static final String URL = "jdbc:h2:mem:query_service;DB_CLOSE_DELAY=-1";
+
+    private final BlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+    private Connection keepAlive;
+    private QueryService service;
+
+    @Before
+    public void setUp() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL);
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS t");
+            stmt.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+            stmt.execute("INSERT INTO t SELECT X FROM SYSTEM_RANGE(1, 450)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (service != null) {
+            service.shutdown();
+        }
+        keepAlive.close();
+    }
+
+    @Test
+    public void streamsRowsInChunks() throws Exception {
+        service = newService(2, 4);
+        RowRecorder<Integer> recorder = new RowRecorder<>();
+        service.query("t", conn -> conn.prepareStatement("SELECT id FROM t ORDER BY id"), rs -> rs.getInt(1), recorder);
+
+        drainUntil(() -> recorder.done);
+        assertTrue(recorder.started);
+        assertEquals(3, recorder.chunks.size());
+        assertEquals(200, recorder.chunks.get(0).size());
+        assertEquals(50, recorder.chunks.get(2).size());
+        assertEquals(Integer.valueOf(1), recorder.chunks.get(0).get(0));
+        assertEquals(Integer.valueOf(450), recorder.result);
+    }
+
+    @Test
+    public void newQuerySupersedesOld() throws Exception {
+        service = newService(2, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        RowRecorder<Integer> first = new RowRecorder<>();
+        service.query("t", conn -> {
+            await(release);
+            return conn.prepareStatement("SELECT id FROM t");
+        }, rs -> rs.getInt(1), first);
+
+        RowRecorder<Integer> second = new RowRecorder<>();
+        service.query("t", conn -> conn.prepareStatement("SELECT id FROM t WHERE id <= 10"), rs -> rs.getInt(1), second);
+        drainUntil(() -> second.done);
+        release.countDown();
+
+        assertEquals(Integer.valueOf(10), second.result);
+        // 旧查询被取消之后，包括还在队列里的 onStart 在内的回调都不再送达
+        service.shutdown();
+        drain();
+        assertFalse(first.started);
+        assertTrue(first.chunks.isEmpty());
+        assertFalse(first.done);
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        service = newService(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder<Void> running = new Recorder<>();
+        service.execute("a", () -> {
+            await(release);
+            return null;
+        }, running);
+        service.execute("b", () -> null, new Recorder<>());
+
+        Recorder<Void> rejected = new Recorder<>();
+        service.execute("c", () -> null, rejected);
+        drainUntil(() -> rejected.done);
+        assertTrue(rejected.error instanceof RejectedExecutionException);
+
+        release.countDown();
+        drainUntil(() -> running.done);
+        assertEquals(null, running.error);
+    }
+
+    @Test
+    public void deliversErrors() throws Exception {
+        service = newService(1, 1);
+        RowRecorder<Integer> recorder = new RowRecorder<>();
+        service.query("t", conn -> conn.prepareStatement("SELECT missing FROM t"), rs -> rs.getInt(1), recorder);
+        drainUntil(() -> recorder.done);
+        assertTrue(recorder.error instanceof SQLException);
+    }
+
+    private QueryService newService(int threads, int queueCapacity) {
+        return new QueryService(() -> DriverManager.getConnection(URL), threads, queueCapacity, 200, 0, fxQueue::add);
+    }
+
+    private void drainUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Runnable action = fxQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (action != null) {
+                action.run();
+            }
+            assertTrue("等待回调超时", System.nanoTime() < deadline);
+        }
+    }
+
+    private void drain() {
+        Runnable action;
+        while ((action = fxQueue.poll()) != null) {
+            action.run();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Recorder<T> implements QueryService.Callback<T> {
+        boolean started;
+        boolean done;
+        Object result;
+        Throwable error;
+
+        @Override
+        public void onStart() {
+            started = true;
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            result = value;
+            done = true;
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            done = true;
+        }
+    }
+
+    private static class RowRecorder<T> extends Recorder<Integer> implements QueryService.RowListener<T> {
+        final List<List<T>> chunks = new ArrayList<>();
+
+        @Override
+        public void onRows(List<T> rows) {
+            chunks.add(rows);
+        }
+    }
+}
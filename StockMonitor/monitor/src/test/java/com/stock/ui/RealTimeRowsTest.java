@@ -0,0 +1,85 @@
+package com.stock.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.stock.vo.StockSpeed;
+import javafx.beans.InvalidationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.Test;
+
+public class RealTimeRowsTest {
+
+    @Test
+    public void reusesRowsAndFollowsRanking() {
+        ObservableList<StockData> rows = FXCollections.observableArrayList();
+        RealTimeRows realTimeRows = new RealTimeRows(rows, 3);
+
+        realTimeRows.apply(Arrays.asList(speed("A", 90), speed("B", 80), speed("C", 70), speed("D", 60)));
+        assertEquals(Arrays.asList("A", "B", "C"), codes(rows));
+        StockData rowB = rows.get(1);
+
+        // B 升到第一，C 跌出前三，D 进入
+        realTimeRows.apply(Arrays.asList(speed("B", 95), speed("A", 85), speed("D", 75), speed("C", 10)));
+        assertEquals(Arrays.asList("B", "A", "D"), codes(rows));
+        assertSame(rowB, rows.get(0));
+        assertEquals(95, rowB.getUpTrendScore(), 0);
+    }
+
+    @Test
+    public void reorderIsPermutationAndUnchangedValuesDoNotFire() {
+        ObservableList<StockData> rows = FXCollections.observableArrayList();
+        RealTimeRows realTimeRows = new RealTimeRows(rows, 10);
+        StockSpeed a = speed("A", 90);
+        StockSpeed b = speed("B", 80);
+        a.setVolume(Double.NaN);
+        realTimeRows.apply(Arrays.asList(a, b));
+
+        int[] invalidations = new int[1];
+        InvalidationListener counter = o -> invalidations[0]++;
+        rows.get(0).volumeProperty().addListener(counter);
+        rows.get(0).upTrendScoreProperty().addListener(counter);
+
+        List<ListChangeListener.Change<? extends StockData>> changes = new ArrayList<>();
+        rows.addListener((ListChangeListener<StockData>) change -> {
+            while (change.next()) {
+                assertTrue(change.wasPermutated());
+                assertFalse(change.wasAdded() || change.wasRemoved());
+            }
+            changes.add(change);
+        });
+
+        // 同样的数据再来一次：没有任何属性和列表事件
+        realTimeRows.apply(Arrays.asList(a, b));
+        assertEquals(0, invalidations[0]);
+
+        // 只交换顺序：列表只有一次置换事件
+        realTimeRows.apply(Arrays.asList(speed("B", 99), a));
+        assertEquals(1, changes.size());
+        assertEquals(Arrays.asList("B", "A"), codes(rows));
+        assertEquals(0, invalidations[0]);
+    }
+
+    private static StockSpeed speed(String code, double upTrendScore) {
+        StockSpeed speed = new StockSpeed(code, "股票" + code, 1, 0, 0, 1.5, 0, upTrendScore, 0);
+        speed.setCurrentPrice(10);
+        speed.setVolume(1000);
+        return speed;
+    }
+
+    private static List<String> codes(List<StockData> rows) {
+        List<String> codes = new ArrayList<>();
+        for (StockData row : rows) {
+            codes.add(row.getCode());
+        }
+        return codes;
+    }
+}
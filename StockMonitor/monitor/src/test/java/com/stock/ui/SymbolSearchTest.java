@@ -0,0 +1,42 @@
+package com.stock.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SymbolSearchTest {
+
+    private final SymbolSearch search = new SymbolSearch(symbols());
+
+    @Test
+    public void exactCodeOrNameReturnsOneSymbol() {
+        assertEquals(Collections.singletonList("600000"), search.find("600000", 10));
+        assertEquals(Collections.singletonList("000001"), search.find(" 平安银行 ", 10));
+    }
+
+    @Test
+    public void partialMatchesAreSortedAndLimited() {
+        assertEquals(Arrays.asList("600000", "600036"), search.find("600", 10));
+        assertEquals(Arrays.asList("000001", "000651"), search.find("0", 2));
+        assertEquals(Arrays.asList("600000", "600036"), search.find("银行", 10).subList(1, 3));
+        assertEquals(Arrays.asList("300750"), search.find("cATL", 10));
+        assertTrue(search.find("不存在", 10).isEmpty());
+        assertTrue(SymbolSearch.EMPTY.find("600000", 10).isEmpty());
+    }
+
+    private static Map<String, String> symbols() {
+        Map<String, String> symbols = new HashMap<>();
+        symbols.put("600036", "招商银行");
+        symbols.put("000001", "平安银行");
+        symbols.put("600000", "浦发银行");
+        symbols.put("000651", "格力电器");
+        symbols.put("300750", "CATL宁德时代");
+        return symbols;
+    }
+}